@@ -0,0 +1,70 @@
+package com.bookingcare.common.client;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulkhead / circuit breaker / retry cho Feign client (application.feign).
+ * Timeout lấy từ spring.cloud.openfeign.client.config.{name}.connect-timeout / read-timeout.
+ *
+ * @param http2    dùng HTTP/2 (h2c) giữa các service; service đích phải bật server.http2
+ * @param defaults áp dụng cho mọi client
+ * @param clients  tên @FeignClient (service id) -> cấu hình riêng (thay cho defaults; field bỏ trống lấy giá trị mặc định)
+ */
+@ConfigurationProperties(prefix = "application.feign")
+public record FeignResilienceProperties(
+        boolean http2,
+        Target defaults,
+        Map<String, Target> clients
+) {
+    public FeignResilienceProperties {
+        defaults = defaults == null ? Target.DEFAULT : defaults;
+        clients = clients == null ? Map.of() : Map.copyOf(clients);
+    }
+
+    public Target forClient(String name) {
+        return clients.getOrDefault(name, defaults);
+    }
+
+    /**
+     * @param maxConcurrent        bulkhead: số request đồng thời tối đa tới service
+     * @param maxWaitMs            chờ tối đa để vào bulkhead, quá thì từ chối ngay
+     * @param slidingWindow        circuit breaker: số request gần nhất dùng để tính tỉ lệ lỗi
+     * @param minimumCalls         chưa đủ số request này thì chưa mở circuit
+     * @param failureRatePercent   tỉ lệ lỗi (IO / 5xx) để mở circuit
+     * @param openSeconds          circuit mở bao lâu trước khi cho 1 request thử (half-open)
+     * @param maxAttempts          tổng số lần gọi cho GET lỗi IO / 502 / 503 / 504 (1: không retry)
+     * @param retryRatio           retry budget: mỗi request cho thêm retryRatio lượt retry
+     * @param minRetriesPerSecond  retry budget tối thiểu khi ít request
+     */
+    public record Target(
+            int maxConcurrent,
+            long maxWaitMs,
+            int slidingWindow,
+            int minimumCalls,
+            int failureRatePercent,
+            long openSeconds,
+            int maxAttempts,
+            double retryRatio,
+            double minRetriesPerSecond
+    ) {
+        static final Target DEFAULT = new Target(50, 0, 50, 20, 50, 10, 2, 0.1, 1);
+
+        public Target {
+            maxConcurrent = maxConcurrent > 0 ? maxConcurrent : 50;
+            slidingWindow = slidingWindow > 0 ? slidingWindow : 50;
+            minimumCalls = minimumCalls > 0 ? Math.min(minimumCalls, slidingWindow) : Math.min(20, slidingWindow);
+            failureRatePercent = failureRatePercent > 0 ? failureRatePercent : 50;
+            openSeconds = openSeconds > 0 ? openSeconds : 10;
+            maxAttempts = maxAttempts > 0 ? maxAttempts : 2;
+            retryRatio = retryRatio > 0 ? retryRatio : 0.1;
+            minRetriesPerSecond = minRetriesPerSecond > 0 ? minRetriesPerSecond : 1;
+        }
+
+        public Duration openDuration() {
+            return Duration.ofSeconds(openSeconds);
+        }
+    }
+}
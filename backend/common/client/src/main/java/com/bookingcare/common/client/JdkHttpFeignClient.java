@@ -0,0 +1,87 @@
+package com.bookingcare.common.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Feign Client dùng java.net.http.HttpClient: giữ kết nối keep-alive (pool) giữa các request,
+ * hỗ trợ HTTP/2 nếu bật (service đích phải bật h2c), timeout theo Request.Options của từng client.
+ *
+ * HttpClient gắn connect timeout lúc build, nên mỗi giá trị connect timeout dùng 1 HttpClient (và 1 pool).
+ */
+public class JdkHttpFeignClient implements Client {
+
+    // HttpClient tự đặt các header này, không cho set từ ngoài
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient.Version version;
+    private final Map<Integer, HttpClient> clientsByConnectTimeout = new ConcurrentHashMap<>();
+
+    public JdkHttpFeignClient(boolean http2) {
+        this.version = http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        HttpClient client = clientsByConnectTimeout.computeIfAbsent(options.connectTimeoutMillis(), this::newClient);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.url()))
+                .timeout(Duration.ofMillis(options.readTimeoutMillis()));
+        request.headers().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        byte[] body = request.body();
+        builder.method(request.httpMethod().name(), body == null || body.length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(body));
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.url(), e);
+        }
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.headers().map().forEach((name, values) -> headers.put(name, List.copyOf(values)));
+        Integer length = response.headers().firstValueAsLong("content-length").stream()
+                .mapToObj(value -> (int) value)
+                .findFirst()
+                .orElse(null);
+
+        return Response.builder()
+                .status(response.statusCode())
+                .reason("")
+                .headers(headers)
+                .body(response.body(), length)
+                .request(request)
+                .build();
+    }
+
+    private HttpClient newClient(int connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookingcare.common.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn số request / giây tới 1 provider: mỗi request nhận 1 mốc thời gian cách nhau đều
+ * 1 / permitsPerSecond giây và ngủ tới mốc đó (chạy trên virtual thread nên ngủ gần như không tốn gì).
+ * Không tích luỹ quota khi rảnh, nên không có burst sau 1 khoảng nghỉ.
+ * Dùng cho API bên ngoài có giới hạn rate (PayOS khi đối soát, SMTP relay khi gửi email).
+ */
+public final class RequestPacer {
+    private final long intervalNanos;
+    private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+
+    public RequestPacer(int permitsPerSecond) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, permitsPerSecond);
+    }
+
+    public void await() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot;
+        while (true) {
+            long next = nextSlotNanos.get();
+            slot = next - now > 0 ? next : now;
+            if (nextSlotNanos.compareAndSet(next, slot + intervalNanos)) {
+                break;
+            }
+        }
+        long waitNanos = slot - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.bookingcare.common.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Feign Client bọc ngoài client load-balanced: bulkhead, circuit breaker, retry có budget và metrics
+ * cho từng service đích (tên @FeignClient).
+ *
+ * - Lỗi IO hoặc 5xx tính là lỗi cho circuit breaker; 4xx là lỗi nghiệp vụ, không tính.
+ * - Chỉ retry GET (idempotent) khi lỗi IO / 502 / 503 / 504 và còn budget; mỗi lần retry load balancer
+ *   chọn lại instance.
+ * - Bị bulkhead / circuit breaker từ chối: ném CallNotPermittedException (IOException), Feign báo lỗi
+ *   như khi không kết nối được.
+ *
+ * Metrics: feign.client.requests{client, endpoint, outcome} (histogram latency),
+ * feign.client.retries{client}, feign.client.circuit.open{client}.
+ */
+@Slf4j
+public class ResilientFeignClient implements Client {
+
+    private final Client delegate;
+    private final FeignResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TargetGuard> guards = new ConcurrentHashMap<>();
+    private final Map<String, Counter> retryCounters = new ConcurrentHashMap<>();
+
+    public ResilientFeignClient(Client delegate, FeignResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String client = clientName(request);
+        String endpoint = endpoint(request);
+        TargetGuard guard = guards.computeIfAbsent(client, this::createGuard);
+        guard.onRequest();
+
+        boolean idempotent = request.httpMethod() == Request.HttpMethod.GET;
+        int attempt = 1;
+        while (true) {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = executeGuarded(guard, client, request, options);
+            } catch (CallNotPermittedException e) {
+                record(client, endpoint, "REJECTED", start);
+                throw e;
+            } catch (IOException e) {
+                record(client, endpoint, "IO_ERROR", start);
+                if (idempotent && attempt < guard.config().maxAttempts() && retry(guard, client)) {
+                    attempt++;
+                    log.debug("Retrying {} after IO error (attempt {}): {}", endpoint, attempt, e.getMessage());
+                    continue;
+                }
+                throw e;
+            }
+
+            int status = response.status();
+            record(client, endpoint, outcome(status), start);
+            if (idempotent && isRetryableStatus(status) && attempt < guard.config().maxAttempts() && retry(guard, client)) {
+                attempt++;
+                response.close();
+                log.debug("Retrying {} after status {} (attempt {})", endpoint, status, attempt);
+                continue;
+            }
+            return response;
+        }
+    }
+
+    private Response executeGuarded(TargetGuard guard, String client, Request request, Request.Options options)
+            throws IOException {
+        if (!guard.tryAcquirePermission(System.nanoTime())) {
+            throw new CallNotPermittedException("Circuit breaker is open for " + client);
+        }
+
+        boolean entered;
+        try {
+            entered = guard.tryEnterBulkhead();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            guard.onResult(false, System.nanoTime());
+            throw new CallNotPermittedException("Interrupted while waiting for bulkhead of " + client);
+        }
+        if (!entered) {
+            // Không gọi được thì không tính vào tỉ lệ lỗi, nhưng phải trả lượt thử nếu đang half-open
+            guard.onResult(false, System.nanoTime());
+            throw new CallNotPermittedException("Bulkhead is full for " + client);
+        }
+
+        try {
+            Response response = delegate.execute(request, options);
+            guard.onResult(response.status() >= 500, System.nanoTime());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            guard.onResult(true, System.nanoTime());
+            throw e;
+        } finally {
+            guard.exitBulkhead();
+        }
+    }
+
+    private boolean retry(TargetGuard guard, String client) {
+        if (!guard.tryAcquireRetry(System.nanoTime())) {
+            return false;
+        }
+        retryCounters.computeIfAbsent(client, name -> Counter.builder("feign.client.retries")
+                        .description("Feign requests retried within the retry budget")
+                        .tag("client", name)
+                        .register(meterRegistry))
+                .increment();
+        return true;
+    }
+
+    private void record(String client, String endpoint, String outcome, long startNanos) {
+        Timer.builder("feign.client.requests")
+                .description("Latency of Feign calls to other services")
+                .tags("client", client, "endpoint", endpoint, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private TargetGuard createGuard(String client) {
+        TargetGuard guard = new TargetGuard(properties.forClient(client));
+        Gauge.builder("feign.client.circuit.open", guard, g -> g.state() == TargetGuard.State.CLOSED ? 0 : 1)
+                .description("1 while the circuit breaker for the target service is open or half-open")
+                .tag("client", client)
+                .register(meterRegistry);
+        return guard;
+    }
+
+    private static String clientName(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+            return request.requestTemplate().feignTarget().name();
+        }
+        return URI.create(request.url()).getHost();
+    }
+
+    private static String endpoint(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().methodMetadata() != null) {
+            return request.requestTemplate().methodMetadata().configKey();
+        }
+        return request.httpMethod().name();
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        return status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+    }
+
+    private static boolean isRetryableStatus(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Request bị bulkhead / circuit breaker từ chối, không gửi đi.
+     */
+    public static class CallNotPermittedException extends IOException {
+        public CallNotPermittedException(String message) {
+            super(message);
+        }
+    }
+}
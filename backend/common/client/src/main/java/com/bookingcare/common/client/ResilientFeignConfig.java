@@ -0,0 +1,36 @@
+package com.bookingcare.common.client;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Feign Client dùng chung cho mọi @FeignClient: gọi thẳng service qua Eureka (không đi qua gateway),
+ * kết nối pool của JdkHttpFeignClient, bọc bởi ResilientFeignClient.
+ *
+ * Client bọc ngoài load balancer nên @FeignClient không được khai báo url (luôn resolve theo name).
+ */
+@Configuration
+@EnableConfigurationProperties(FeignResilienceProperties.class)
+public class ResilientFeignConfig {
+
+    @Bean
+    public Client feignClient(LoadBalancerClient loadBalancerClient,
+                              LoadBalancerClientFactory loadBalancerClientFactory,
+                              List<LoadBalancerFeignRequestTransformer> transformers,
+                              FeignResilienceProperties properties,
+                              MeterRegistry meterRegistry) {
+        Client loadBalanced = new FeignBlockingLoadBalancerClient(new JdkHttpFeignClient(properties.http2()),
+                loadBalancerClient, loadBalancerClientFactory, transformers);
+        return new ResilientFeignClient(loadBalanced, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,189 @@
+package com.bookingcare.common.client;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead + circuit breaker + retry budget của 1 service đích.
+ *
+ * - Bulkhead: Semaphore, hết chỗ thì từ chối thay vì xếp hàng giữ thread của request.
+ * - Circuit breaker theo N request gần nhất: tỉ lệ lỗi >= ngưỡng thì mở (từ chối ngay) trong openDuration,
+ *   sau đó cho 1 request thử (half-open): thành công thì đóng lại, lỗi thì mở tiếp.
+ * - Retry budget: mỗi request nạp retryRatio token, cộng minRetriesPerSecond mỗi giây;
+ *   mỗi lần retry tiêu 1 token, nên retry không nhân tải lên service đang lỗi.
+ *
+ * Ngoài ResilientFeignClient, service gọi API bên ngoài (vd. PayOS) dùng trực tiếp bulkhead + circuit breaker;
+ * khi đó retry budget không dùng tới (retry đi qua hàng đợi riêng của service).
+ */
+public final class TargetGuard {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final long MILLI = 1_000;
+
+    private final FeignResilienceProperties.Target config;
+    private final Semaphore bulkhead;
+
+    // Circuit breaker: ring buffer kết quả gần nhất, cập nhật trong synchronized (rẻ so với 1 lần gọi mạng)
+    private final boolean[] failures;
+    private int position;
+    private int recorded;
+    private int failureCount;
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private boolean probeInFlight;
+
+    // Retry budget tính theo milli-token
+    private final AtomicLong retryTokens = new AtomicLong();
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+
+    public TargetGuard(FeignResilienceProperties.Target config) {
+        this.config = config;
+        this.bulkhead = new Semaphore(config.maxConcurrent());
+        this.failures = new boolean[config.slidingWindow()];
+        this.retryTokens.set((long) (config.minRetriesPerSecond() * MILLI));
+    }
+
+    FeignResilienceProperties.Target config() {
+        return config;
+    }
+
+    boolean tryEnterBulkhead() throws InterruptedException {
+        return config.maxWaitMs() <= 0
+                ? bulkhead.tryAcquire()
+                : bulkhead.tryAcquire(config.maxWaitMs(), TimeUnit.MILLISECONDS);
+    }
+
+    void exitBulkhead() {
+        bulkhead.release();
+    }
+
+    /**
+     * Lấy tối đa max chỗ trong bulkhead, không chờ (dispatcher chỉ lấy việc đúng số chỗ còn trống).
+     *
+     * @return số chỗ lấy được, mỗi chỗ phải trả lại bằng exitBulkhead(permits)
+     */
+    public int tryEnterBulkhead(int max) {
+        int acquired = 0;
+        while (acquired < max && bulkhead.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    public void exitBulkhead(int permits) {
+        if (permits > 0) {
+            bulkhead.release(permits);
+        }
+    }
+
+    public int inFlight() {
+        return config.maxConcurrent() - bulkhead.availablePermits();
+    }
+
+    /**
+     * @return thời gian (nanos) circuit còn mở, 0 nếu được gọi
+     */
+    public synchronized long remainingOpenNanos(long nowNanos) {
+        return state == State.OPEN ? Math.max(0, openUntilNanos - nowNanos) : 0;
+    }
+
+    public synchronized boolean tryAcquirePermission(long nowNanos) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowNanos - openUntilNanos < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onResult(boolean failed, long nowNanos) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (failed) {
+                open(nowNanos);
+            } else {
+                reset();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (recorded == failures.length) {
+            if (failures[position]) {
+                failureCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[position] = failed;
+        if (failed) {
+            failureCount++;
+        }
+        position = (position + 1) % failures.length;
+
+        if (recorded >= config.minimumCalls() && failureCount * 100 >= config.failureRatePercent() * recorded) {
+            open(nowNanos);
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    void onRequest() {
+        deposit((long) (config.retryRatio() * MILLI));
+    }
+
+    boolean tryAcquireRetry(long nowNanos) {
+        long last = lastRefillNanos.get();
+        long elapsed = nowNanos - last;
+        if (elapsed > 0 && lastRefillNanos.compareAndSet(last, nowNanos)) {
+            deposit((long) (config.minRetriesPerSecond() * MILLI * elapsed / TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        while (true) {
+            long tokens = retryTokens.get();
+            if (tokens < MILLI) {
+                return false;
+            }
+            if (retryTokens.compareAndSet(tokens, tokens - MILLI)) {
+                return true;
+            }
+        }
+    }
+
+    private void deposit(long milliTokens) {
+        // Tối đa đủ cho 1 cửa sổ của circuit breaker, tránh dồn budget lúc service khoẻ rồi bắn retry hàng loạt
+        long cap = Math.max(MILLI, (long) (config.slidingWindow() * config.retryRatio() * MILLI));
+        retryTokens.accumulateAndGet(milliTokens, (current, added) -> Math.min(cap, current + added));
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openUntilNanos = nowNanos + config.openDuration().toNanos();
+        probeInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        position = 0;
+        recorded = 0;
+        failureCount = 0;
+        Arrays.fill(failures, false);
+    }
+}
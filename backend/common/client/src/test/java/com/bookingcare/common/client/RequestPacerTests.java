@@ -0,0 +1,39 @@
+package com.bookingcare.common.client;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * RequestPacer: request thứ n không đi trước mốc n / permitsPerSecond, kể cả sau 1 khoảng rảnh (không burst).
+ */
+class RequestPacerTests {
+
+    @Test
+    void spacesRequestsEvenly() throws InterruptedException {
+        RequestPacer pacer = new RequestPacer(50);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            pacer.await();
+        }
+
+        // Request đầu đi ngay, 5 request sau cách nhau 20 ms
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void idleTimeIsNotBanked() throws InterruptedException {
+        RequestPacer pacer = new RequestPacer(50);
+        Thread.sleep(200);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            pacer.await();
+        }
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
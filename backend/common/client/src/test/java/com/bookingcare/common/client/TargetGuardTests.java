@@ -0,0 +1,115 @@
+package com.bookingcare.common.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * TargetGuard: circuit breaker theo cửa sổ request gần nhất, bulkhead (từng chỗ hoặc theo batch), retry budget.
+ */
+class TargetGuardTests {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // maxConcurrent 2, window 10, minimumCalls 5, 50% lỗi, mở 10s, 2 lần gọi, retry 10%, 1 retry/s
+    private final FeignResilienceProperties.Target config =
+            new FeignResilienceProperties.Target(2, 0, 10, 5, 50, 10, 2, 0.1, 1);
+
+    @Test
+    void opensAfterFailureRateAndRecoversThroughHalfOpenProbe() {
+        TargetGuard guard = new TargetGuard(config);
+        long now = 0;
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(guard.tryAcquirePermission(now));
+            guard.onResult(true, now);
+        }
+        // Chưa đủ minimumCalls
+        assertEquals(TargetGuard.State.CLOSED, guard.state());
+
+        guard.onResult(false, now);
+        assertEquals(TargetGuard.State.OPEN, guard.state());
+        assertFalse(guard.tryAcquirePermission(now + SECOND));
+
+        // Hết openDuration: chỉ 1 request thử
+        now += 10 * SECOND;
+        assertTrue(guard.tryAcquirePermission(now));
+        assertFalse(guard.tryAcquirePermission(now));
+        assertEquals(TargetGuard.State.HALF_OPEN, guard.state());
+
+        guard.onResult(true, now);
+        assertEquals(TargetGuard.State.OPEN, guard.state());
+
+        now += 10 * SECOND;
+        assertTrue(guard.tryAcquirePermission(now));
+        guard.onResult(false, now);
+        assertEquals(TargetGuard.State.CLOSED, guard.state());
+
+        // Cửa sổ đã reset: 4 lỗi mới chưa mở lại
+        for (int i = 0; i < 4; i++) {
+            guard.onResult(true, now);
+        }
+        assertEquals(TargetGuard.State.CLOSED, guard.state());
+    }
+
+    @Test
+    void batchEntryTakesOnlyFreePermits() {
+        TargetGuard guard = new TargetGuard(config);
+
+        assertEquals(2, guard.tryEnterBulkhead(5));
+        assertEquals(2, guard.inFlight());
+        assertEquals(0, guard.tryEnterBulkhead(1));
+
+        guard.exitBulkhead(2);
+        assertEquals(0, guard.inFlight());
+    }
+
+    @Test
+    void remainingOpenTimeCountsDown() {
+        TargetGuard guard = new TargetGuard(config);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            guard.onResult(true, now);
+        }
+
+        assertEquals(10 * SECOND, guard.remainingOpenNanos(now));
+        assertEquals(4 * SECOND, guard.remainingOpenNanos(now + 6 * SECOND));
+        assertEquals(0, guard.remainingOpenNanos(now + 11 * SECOND));
+    }
+
+    @Test
+    void bulkheadRejectsInsteadOfQueueing() throws InterruptedException {
+        TargetGuard guard = new TargetGuard(config);
+
+        assertTrue(guard.tryEnterBulkhead());
+        assertTrue(guard.tryEnterBulkhead());
+        assertFalse(guard.tryEnterBulkhead());
+
+        guard.exitBulkhead();
+        assertTrue(guard.tryEnterBulkhead());
+    }
+
+    @Test
+    void retryBudgetIsBoundedByTraffic() {
+        TargetGuard guard = new TargetGuard(config);
+        long now = System.nanoTime();
+
+        // Token ban đầu: minRetriesPerSecond
+        assertTrue(guard.tryAcquireRetry(now));
+        assertFalse(guard.tryAcquireRetry(now));
+
+        // 10 request * 10% = 1 retry
+        for (int i = 0; i < 10; i++) {
+            guard.onRequest();
+        }
+        assertTrue(guard.tryAcquireRetry(now));
+        assertFalse(guard.tryAcquireRetry(now));
+
+        // Sau 1 giây có thêm 1 retry
+        assertTrue(guard.tryAcquireRetry(now + SECOND));
+        assertFalse(guard.tryAcquireRetry(now + SECOND));
+    }
+}
@@ -1,12 +1,17 @@
-package com.bookingcare.payment.dto.event;
+package com.bookingcare.common.messaging;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.time.ZonedDateTime;
-import java.util.UUID;
 
+/**
+ * Vỏ chung của mọi event trên các topic saga (booking-events, schedule-commands, schedule-events,
+ * payment-events). eventId dùng để chống xử lý trùng ở consumer (ProcessedEventStore).
+ */
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,7 +25,7 @@ public class EventEnvelope<T> {
     private String source;
     private T payload;
 
-    public static <T> EventEnvelope<T> of(String eventType, String aggregateId, 
+    public static <T> EventEnvelope<T> of(String eventType, String aggregateId,
                                            String correlationId, String source, T payload) {
         return EventEnvelope.<T>builder()
                 .eventId(UUID.randomUUID().toString())
@@ -0,0 +1,59 @@
+package com.bookingcare.common.messaging;
+
+import java.util.Properties;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+
+/**
+ * Batch listener mode, bật bằng application.kafka.batch-listener.enabled=true.
+ * Khi bật, các @KafkaListener xử lý từng record sẽ không auto-start và
+ * listener batch tương ứng nhận List<ConsumerRecord> thay thế.
+ *
+ * Service dùng batch listener @Import class này cùng KafkaErrorHandlerConfig (xem MessagingConfig của từng service).
+ */
+@Configuration
+@ConditionalOnProperty(name = KafkaBatchListenerConfig.ENABLED_PROPERTY, havingValue = "true")
+public class KafkaBatchListenerConfig {
+
+    public static final String ENABLED_PROPERTY = "application.kafka.batch-listener.enabled";
+    public static final String BATCH_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    @Bean(name = BATCH_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, byte[]> consumerFactory,
+            DefaultErrorHandler kafkaErrorHandler,
+            @Value("${application.kafka.batch-listener.concurrency:3}") int concurrency,
+            @Value("${application.kafka.batch-listener.max-poll-records:500}") int maxPollRecords) {
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        // Batch lỗi: giao lại cả batch (record đã xử lý bị bỏ qua nhờ processed_events), hết lượt thì sang DLT
+        factory.setCommonErrorHandler(kafkaErrorHandler);
+
+        // Commit offset 1 lần sau khi cả batch xử lý xong (listener return)
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+
+        Properties consumerOverrides = new Properties();
+        consumerOverrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerOverrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        containerProperties.setKafkaConsumerProperties(consumerOverrides);
+
+        return factory;
+    }
+
+    @Bean
+    public KeyedBatchProcessor keyedBatchProcessor() {
+        return new KeyedBatchProcessor();
+    }
+}
@@ -0,0 +1,41 @@
+package com.bookingcare.common.messaging;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+/**
+ * Xử lý lỗi cho các listener saga: listener KHÔNG nuốt exception, transaction rollback (kể cả dòng
+ * processed_events) rồi container giao lại record với backoff luỹ thừa. Hết application.kafka.retry.max-attempts
+ * lần thì record được chuyển sang topic "<topic gốc>-dlt" để xử lý thủ công, consumer đi tiếp.
+ *
+ * Spring Boot tự gắn CommonErrorHandler này vào container factory mặc định; batch factory
+ * (KafkaBatchListenerConfig) gắn tường minh.
+ */
+@Configuration
+public class KafkaErrorHandlerConfig {
+
+    public static final String DEAD_LETTER_SUFFIX = "-dlt";
+
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(
+            KafkaOperations<?, ?> kafkaOperations,
+            @Value("${application.kafka.retry.max-attempts:5}") int maxAttempts,
+            @Value("${application.kafka.retry.initial-interval-ms:1000}") long initialIntervalMs,
+            @Value("${application.kafka.retry.max-interval-ms:30000}") long maxIntervalMs) {
+        // Partition -1: để producer tự chọn partition, topic DLT không cần cùng số partition với topic gốc
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaOperations,
+                (record, exception) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(Math.max(0, maxAttempts - 1));
+        backOff.setInitialInterval(initialIntervalMs);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(maxIntervalMs);
+        return new DefaultErrorHandler(recoverer, backOff);
+    }
+}
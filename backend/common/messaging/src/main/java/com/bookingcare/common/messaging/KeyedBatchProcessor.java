@@ -0,0 +1,74 @@
+package com.bookingcare.common.messaging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Xử lý 1 batch record từ Kafka: các record cùng key (bookingId) chạy tuần tự
+ * theo đúng thứ tự offset, các key khác nhau chạy song song trên virtual thread.
+ * Method chỉ return khi cả batch đã xử lý xong, nên container commit offset sau đó.
+ */
+public class KeyedBatchProcessor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <V> void process(List<ConsumerRecord<String, V>> records, Consumer<V> handler) {
+        Map<String, List<V>> valuesByKey = new LinkedHashMap<>();
+        for (ConsumerRecord<String, V> record : records) {
+            valuesByKey.computeIfAbsent(orderingKey(record), key -> new ArrayList<>()).add(record.value());
+        }
+
+        if (valuesByKey.size() == 1) {
+            valuesByKey.values().iterator().next().forEach(handler);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(valuesByKey.size());
+        for (List<V> values : valuesByKey.values()) {
+            futures.add(executor.submit(() -> values.forEach(handler)));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing batch", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("Failed to process batch", e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        // Ném lỗi để container không commit offset và giao lại batch
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private String orderingKey(ConsumerRecord<String, ?> record) {
+        // Record không có key vẫn giữ thứ tự trong partition của nó
+        return record.key() != null
+                ? record.key()
+                : record.topic() + "-" + record.partition();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,133 @@
+package com.bookingcare.common.messaging;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dedup event theo EventEnvelope.eventId cho các Kafka consumer (at-least-once -> xử lý đúng 1 lần).
+ *
+ * - Event lặp gần đây bị chặn bởi cache LRU trong RAM, không tốn round-trip DB.
+ * - Cache miss: INSERT ... ON CONFLICT DO NOTHING vào processed_events trong transaction của listener,
+ *   nên bản ghi dedup commit/rollback cùng kết quả xử lý. Rollback thì event được xử lý lại khi redelivery.
+ * - Event mới chỉ vào cache sau khi transaction commit.
+ *
+ * Bảng processed_events (event_id PK, event_type, processed_at) có cùng cấu trúc ở mọi service
+ * và được truy cập bằng JDBC trên connection của transaction hiện tại.
+ *
+ * Metrics: events.dedup{result=processed|duplicate, source=db|cache}
+ */
+@Slf4j
+public class ProcessedEventStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Boolean> recentlyProcessed;
+    private final Duration retention;
+
+    private final Counter processedCounter;
+    private final Counter duplicateFromCacheCounter;
+    private final Counter duplicateFromDbCounter;
+
+    public ProcessedEventStore(JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${application.event-dedup.cache.max-size:50000}") long cacheMaxSize,
+                               @Value("${application.event-dedup.retention-days:7}") long retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = Duration.ofDays(retentionDays);
+        this.recentlyProcessed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(this.retention)
+                .build();
+
+        this.processedCounter = Counter.builder("events.dedup")
+                .description("Consumed events checked against the processed-events store")
+                .tags("result", "processed", "source", "db")
+                .register(meterRegistry);
+        this.duplicateFromCacheCounter = Counter.builder("events.dedup")
+                .description("Consumed events checked against the processed-events store")
+                .tags("result", "duplicate", "source", "cache")
+                .register(meterRegistry);
+        this.duplicateFromDbCounter = Counter.builder("events.dedup")
+                .description("Consumed events checked against the processed-events store")
+                .tags("result", "duplicate", "source", "db")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đánh dấu event đã xử lý. Gọi ở đầu listener, trong transaction của listener.
+     *
+     * @return true nếu là lần đầu nhận event (xử lý tiếp), false nếu là event lặp (bỏ qua)
+     */
+    public boolean markProcessed(String eventId, String eventType) {
+        if (eventId == null) {
+            // Message không có eventId thì không dedup được, xử lý như trước
+            return true;
+        }
+
+        if (recentlyProcessed.getIfPresent(eventId) != null) {
+            duplicateFromCacheCounter.increment();
+            return false;
+        }
+
+        if (!insertIfAbsent(eventId, eventType)) {
+            // Transaction khác đã xử lý và commit event này
+            recentlyProcessed.put(eventId, Boolean.TRUE);
+            duplicateFromDbCounter.increment();
+            return false;
+        }
+
+        cacheAfterCommit(eventId);
+        processedCounter.increment();
+        return true;
+    }
+
+    @Scheduled(cron = "${application.event-dedup.cleanup-cron:0 30 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        int deleted = jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < ?",
+                Timestamp.from(cutoff));
+        if (deleted > 0) {
+            log.info("Purged {} processed events older than {}", deleted, cutoff);
+        }
+    }
+
+    /**
+     * @return true nếu là lần đầu, false nếu event_id đã có (đã xử lý và commit)
+     */
+    private boolean insertIfAbsent(String eventId, String eventType) {
+        return jdbcTemplate.update("""
+                INSERT INTO processed_events (event_id, event_type, processed_at)
+                VALUES (?, ?, ?)
+                ON CONFLICT (event_id) DO NOTHING
+                """, eventId, eventType, Timestamp.from(Instant.now())) > 0;
+    }
+
+    private void cacheAfterCommit(String eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentlyProcessed.put(eventId, Boolean.TRUE);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentlyProcessed.put(eventId, Boolean.TRUE);
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trạng thái hiện tại của 1 document catalog do 1 service gửi (topic application.catalog-documents.topic).
+ *
+ * - Service sở hữu entity gửi phần chính (title != null): CLINIC từ clinic-service, DOCTOR / SPECIALTY
+ *   từ expertise-service, PACKAGE từ package-service. deleted = true khi entity bị xoá / không còn APPROVED.
+ * - Service khác chỉ bổ sung field nó biết (title = null): clinic-service gửi cities của PACKAGE / DOCTOR
+ *   theo chi nhánh, giá gói lấy từ booking.
+ *
+ * Key message là type:id@source, topic compact nên chỉ giữ bản mới nhất của mỗi phần.
+ * Service gửi dùng CatalogDocumentPublisher, search-service ghép các phần theo documentKey.
+ */
+public record CatalogDocumentEvent(
+        String type,
+        String id,
+        String source,
+        boolean deleted,
+        String title,
+        String subtitle,
+        String slug,
+        String image,
+        List<String> keywords,
+        List<String> cities,
+        List<String> specialtyIds,
+        String packageTypeId,
+        String packageTypeName,
+        Long price,
+        Instant changedAt
+) {
+    public static final String CLINIC = "CLINIC";
+    public static final String DOCTOR = "DOCTOR";
+    public static final String SPECIALTY = "SPECIALTY";
+    public static final String PACKAGE = "PACKAGE";
+
+    public String documentKey() {
+        return type + ":" + id;
+    }
+
+    public String messageKey() {
+        return documentKey() + "@" + source;
+    }
+}
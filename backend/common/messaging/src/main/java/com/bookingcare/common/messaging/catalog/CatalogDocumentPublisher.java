@@ -0,0 +1,115 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gửi document catalog cho search-service (topic application.catalog-documents.topic).
+ *
+ * Entity listener chỉ ghi lại key "TYPE:id" thay đổi; sau khi commit, CatalogDocumentSource của service đọc lại
+ * trạng thái hiện tại trong transaction riêng và gửi 1 message / document, key type:id@source
+ * (topic compact). Chạy trên 1 thread riêng để không giữ request và giữ thứ tự theo commit.
+ * Gửi lỗi chỉ log, lần thay đổi sau của entity sẽ gửi lại trạng thái mới nhất.
+ */
+@Slf4j
+public class CatalogDocumentPublisher implements DisposableBean {
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    // Lấy lazy: source dùng repository, còn listener được tạo cùng EntityManagerFactory
+    private final ObjectProvider<CatalogDocumentSource> source;
+    private final String topic;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("catalog-documents").daemon().factory());
+
+    public CatalogDocumentPublisher(KafkaTemplate<String, String> kafkaTemplate,
+                                    ObjectMapper objectMapper,
+                                    ObjectProvider<CatalogDocumentSource> source,
+                                    @Value("${application.catalog-documents.topic:catalog-documents}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.source = source;
+        this.topic = topic;
+    }
+
+    public void documentsChanged(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(new LinkedHashSet<>(keys));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> changedKeys = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changedKeys);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(changedKeys);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CatalogDocumentPublisher.this);
+                }
+            });
+            pending = changedKeys;
+        }
+        pending.addAll(keys);
+    }
+
+    private void submit(Set<String> keys) {
+        try {
+            executor.execute(() -> publish(keys));
+        } catch (RejectedExecutionException e) {
+            log.warn("Catalog document publisher is shut down, dropping {} changed documents", keys.size());
+        }
+    }
+
+    private void publish(Set<String> keys) {
+        try {
+            source.getObject().assemble(keys).forEach(this::send);
+        } catch (RuntimeException e) {
+            log.warn("Failed to assemble catalog documents {}: {}", keys, e.getMessage());
+        }
+    }
+
+    private void send(CatalogDocumentEvent event) {
+        String key = event.messageKey();
+        try {
+            kafkaTemplate.send(topic, key, objectMapper.writeValueAsString(event)).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.warn("Failed to publish catalog document {}: {}", key, ex.getMessage());
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to publish catalog document {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,18 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Phần riêng của mỗi service cho CatalogDocumentPublisher: đọc trạng thái hiện tại của các document thay đổi.
+ */
+public interface CatalogDocumentSource {
+
+    /**
+     * Chạy sau commit, trên thread của publisher.
+     *
+     * @param keys key "TYPE:id" do entity listener ghi lại
+     * @return document cần gửi (có thể nhiều hơn keys, vd. document phụ thuộc)
+     */
+    List<CatalogDocumentEvent> assemble(Collection<String> keys);
+}
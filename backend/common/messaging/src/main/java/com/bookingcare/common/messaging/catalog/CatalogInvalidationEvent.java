@@ -0,0 +1,15 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.time.Instant;
+
+/**
+ * Báo gateway bỏ cache response của 1 region catalog (packages, clinics, specialties...).
+ *
+ * @param source spring.application.name của service gửi
+ */
+public record CatalogInvalidationEvent(
+        String region,
+        String source,
+        Instant changedAt
+) {
+}
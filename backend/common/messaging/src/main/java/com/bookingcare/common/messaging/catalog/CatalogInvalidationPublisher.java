@@ -0,0 +1,84 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gửi message invalidate cache catalog của gateway (topic application.catalog-invalidation.topic).
+ *
+ * Trong transaction: gom các region thay đổi, gửi 1 message / region sau khi commit
+ * (rollback thì không gửi). Gửi lỗi chỉ log, cache gateway vẫn tự hết hạn theo TTL.
+ * Source của event là spring.application.name của service dùng publisher.
+ */
+@Slf4j
+public class CatalogInvalidationPublisher {
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final String source;
+
+    public CatalogInvalidationPublisher(KafkaTemplate<String, String> kafkaTemplate,
+                                        ObjectMapper objectMapper,
+                                        @Value("${application.catalog-invalidation.topic:catalog-invalidation}") String topic,
+                                        @Value("${spring.application.name}") String source) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.source = source;
+    }
+
+    public void regionsChanged(Collection<String> regions) {
+        if (regions.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            regions.forEach(this::send);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> changedRegions = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changedRegions);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changedRegions.forEach(CatalogInvalidationPublisher.this::send);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CatalogInvalidationPublisher.this);
+                }
+            });
+            pending = changedRegions;
+        }
+        pending.addAll(regions);
+    }
+
+    private void send(String region) {
+        try {
+            String message = objectMapper.writeValueAsString(new CatalogInvalidationEvent(region, source, Instant.now()));
+            kafkaTemplate.send(topic, region, message).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.warn("Failed to publish catalog invalidation for region {}: {}", region, ex.getMessage());
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to publish catalog invalidation for region {}: {}", region, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.util.List;
+
+/**
+ * Suy ra tỉnh / thành phố từ địa chỉ tự do ("99 Nguyễn Du, Phường Bến Thành, Quận 1, Tp Hồ Chí Minh").
+ *
+ * Địa chỉ trong DB viết nhiều kiểu (TP.HCM, TP. Hồ Chí Minh, Thành phố Hồ Chí Minh, Hà Nội.),
+ * nên so trên text đã bỏ dấu và lấy tên thành phố xuất hiện sau cùng trong địa chỉ.
+ * Cùng 1 bảng cho clinic-service (cities trong CatalogDocumentEvent) và search-service (seed, lọc theo thành phố).
+ */
+public final class CityNames {
+    private static final List<City> CITIES = List.of(
+            new City("Hồ Chí Minh", List.of("ho chi minh", "hcm", "tphcm", "sai gon", "thu duc")),
+            new City("Hà Nội", List.of("ha noi")),
+            new City("Hải Phòng", List.of("hai phong")),
+            new City("Đà Nẵng", List.of("da nang", "lien chieu")),
+            new City("Cần Thơ", List.of("can tho")),
+            new City("Bà Rịa - Vũng Tàu", List.of("vung tau", "ba ria")),
+            new City("Đồng Nai", List.of("dong nai", "bien hoa")),
+            new City("Bình Dương", List.of("binh duong", "thu dau mot")));
+
+    private CityNames() {
+    }
+
+    /**
+     * @return tên thành phố chuẩn, null khi địa chỉ không chứa thành phố nào đã biết
+     */
+    public static String fromAddress(String address) {
+        String normalized = SearchText.normalize(address);
+        if (normalized == null) {
+            return null;
+        }
+
+        String padded = " " + normalized + " ";
+        String best = null;
+        int bestPosition = -1;
+        for (City city : CITIES) {
+            for (String alias : city.aliases()) {
+                int position = padded.lastIndexOf(" " + alias + " ");
+                if (position > bestPosition) {
+                    bestPosition = position;
+                    best = city.name();
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tên gọi khác của thành phố để tìm "hcm", "sai gon"... vẫn ra Hồ Chí Minh.
+     */
+    public static List<String> aliases(String city) {
+        for (City known : CITIES) {
+            if (known.name().equals(city)) {
+                return known.aliases();
+            }
+        }
+        return List.of();
+    }
+
+    private record City(String name, List<String> aliases) {
+    }
+}
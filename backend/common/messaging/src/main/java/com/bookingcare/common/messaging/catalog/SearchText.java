@@ -0,0 +1,117 @@
+package com.bookingcare.common.messaging.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chuẩn hoá text cho tìm kiếm catalog: bỏ dấu tiếng Việt, lower-case, mọi chuỗi không phải a-z0-9
+ * thành 1 dấu cách (cùng cách ExpertiseService làm slug). Dùng chung cho clinic-service
+ * (clinics.search_text / clinics.name_key, CityNames khi publish document) và index của search-service.
+ *
+ * "Nội soi Dạ dày - Đà Nẵng" -> "noi soi da day da nang".
+ *
+ * Dựng lại index chuẩn hoá hàng chục nghìn ký tự, nên mỗi ký tự được tra bảng FOLD dựng sẵn 1 lần
+ * (NFD + bỏ dấu + lower-case từng ký tự) thay vì Normalizer + regex trên cả chuỗi.
+ */
+public final class SearchText {
+    private static final char SKIP = 0;
+    private static final char SEPARATOR = ' ';
+    // Latin, Latin mở rộng, dấu kết hợp và tiếng Việt (1E00-1EFF); ký tự ngoài bảng là dấu cách
+    private static final char[] FOLD = new char[0x2000];
+
+    static {
+        for (int c = 0; c < FOLD.length; c++) {
+            FOLD[c] = fold((char) c);
+        }
+    }
+
+    private SearchText() {
+    }
+
+    /**
+     * @return text đã chuẩn hoá, null khi input rỗng hoặc không còn ký tự nào sau khi chuẩn hoá
+     */
+    public static String normalize(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean pendingSeparator = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char folded = c < FOLD.length ? FOLD[c] : SEPARATOR;
+            if (folded == SKIP) {
+                continue;
+            }
+            if (folded == SEPARATOR) {
+                pendingSeparator = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSeparator) {
+                normalized.append(SEPARATOR);
+                pendingSeparator = false;
+            }
+            normalized.append(folded);
+        }
+
+        return normalized.isEmpty() ? null : normalized.toString();
+    }
+
+    /**
+     * Ghép các phần (bỏ phần null) rồi chuẩn hoá.
+     */
+    public static String of(String... parts) {
+        StringBuilder text = new StringBuilder();
+        for (String part : parts) {
+            if (part != null) {
+                text.append(part).append(' ');
+            }
+        }
+        return normalize(text.toString());
+    }
+
+    /**
+     * Các từ của text đã chuẩn hoá, theo thứ tự xuất hiện (có thể trùng).
+     */
+    public static List<String> tokens(String value) {
+        String normalized = normalize(value);
+        if (normalized == null) {
+            return List.of();
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= normalized.length(); i++) {
+            if (i == normalized.length() || normalized.charAt(i) == SEPARATOR) {
+                tokens.add(normalized.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return tokens;
+    }
+
+    private static char fold(char c) {
+        // Dấu kết hợp (text đã ở dạng NFD) bị bỏ, không tách từ
+        if (c >= 0x300 && c <= 0x36F) {
+            return SKIP;
+        }
+        // NFD không tách được đ / Đ
+        if (c == 'đ' || c == 'Đ') {
+            return 'd';
+        }
+
+        String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "")
+                .toLowerCase(Locale.ROOT);
+        if (base.length() == 1) {
+            char folded = base.charAt(0);
+            if ((folded >= 'a' && folded <= 'z') || (folded >= '0' && folded <= '9')) {
+                return folded;
+            }
+        }
+        return SEPARATOR;
+    }
+}
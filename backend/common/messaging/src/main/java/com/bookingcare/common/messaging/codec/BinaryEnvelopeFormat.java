@@ -0,0 +1,326 @@
+package com.bookingcare.common.messaging.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.common.messaging.codec.EventSchema.FieldAccessor;
+
+/**
+ * Định dạng nhị phân gọn cho EventEnvelope, payload ghi theo vị trí field trong EventSchema:
+ *
+ * <pre>
+ * magic(0xB1) version(1) eventType fingerprint(8 byte)
+ * eventId aggregateId correlationId source timestamp
+ * payload: từng field theo thứ tự schema
+ * </pre>
+ *
+ * - String: varint(độ dài + 1) + UTF-8, 0 = null.
+ * - Số: varint zigzag; BigDecimal: scale + unscaled bytes; ZonedDateTime: epochSecond, nano, zone.
+ * - Field khác null có 1 byte đánh dấu có/không.
+ *
+ * Không ghi tên field nên reader phải có schema cùng fingerprint, khác thì báo lỗi.
+ */
+public class BinaryEnvelopeFormat implements EnvelopeFormat {
+
+    static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION = 1;
+
+    private final EventSchemaRegistry schemaRegistry;
+
+    public BinaryEnvelopeFormat(EventSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public boolean matches(byte[] data) {
+        return data.length > 1 && data[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(EventEnvelope<?> envelope) {
+        EventSchema schema = schemaRegistry.find(envelope.getEventType())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No schema registered for event type " + envelope.getEventType()));
+        Object payload = envelope.getPayload();
+        if (payload != null && !schema.getPayloadType().isInstance(payload)) {
+            throw new IllegalArgumentException("Payload of " + envelope.getEventType()
+                    + " is not a " + schema.getPayloadType().getSimpleName());
+        }
+
+        Output out = new Output(128);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeString(envelope.getEventType());
+        out.writeFixedLong(schema.getFingerprint());
+        out.writeString(envelope.getEventId());
+        out.writeString(envelope.getAggregateId());
+        out.writeString(envelope.getCorrelationId());
+        out.writeString(envelope.getSource());
+        writeDateTime(out, envelope.getTimestamp());
+
+        out.writeBoolean(payload != null);
+        if (payload != null) {
+            try {
+                for (FieldAccessor field : schema.fields()) {
+                    writeField(out, field, field.getter().invoke(payload));
+                }
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to encode payload of " + envelope.getEventType(), e);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public EventEnvelope<Object> decode(byte[] data) {
+        Input in = new Input(data);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary event envelope");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary envelope version " + version);
+        }
+
+        String eventType = in.readString();
+        long fingerprint = in.readFixedLong();
+        EventSchema schema = schemaRegistry.find(eventType)
+                .orElseThrow(() -> new IllegalArgumentException("No schema registered for event type " + eventType));
+        if (schema.getFingerprint() != fingerprint) {
+            throw new IllegalArgumentException("Schema mismatch for event type " + eventType
+                    + ": writer " + Long.toHexString(fingerprint) + ", reader " + Long.toHexString(schema.getFingerprint()));
+        }
+
+        EventEnvelope<Object> envelope = new EventEnvelope<>();
+        envelope.setEventType(eventType);
+        envelope.setEventId(in.readString());
+        envelope.setAggregateId(in.readString());
+        envelope.setCorrelationId(in.readString());
+        envelope.setSource(in.readString());
+        envelope.setTimestamp(readDateTime(in));
+
+        if (in.readBoolean()) {
+            try {
+                Object payload = schema.newPayload();
+                for (FieldAccessor field : schema.fields()) {
+                    Object value = readField(in, field);
+                    if (value != null || !field.primitive()) {
+                        field.setter().invoke(payload, value);
+                    }
+                }
+                envelope.setPayload(payload);
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to decode payload of " + eventType, e);
+            }
+        }
+        return envelope;
+    }
+
+    private static void writeField(Output out, FieldAccessor field, Object value) {
+        if (field.kind() == EventSchema.FieldKind.STRING) {
+            out.writeString((String) value);
+            return;
+        }
+
+        out.writeBoolean(value != null);
+        if (value == null) {
+            return;
+        }
+        switch (field.kind()) {
+            case LONG -> out.writeVarLong((Long) value);
+            case INTEGER -> out.writeVarLong((Integer) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            case DECIMAL -> {
+                BigDecimal decimal = (BigDecimal) value;
+                out.writeVarLong(decimal.scale());
+                out.writeBytes(decimal.unscaledValue().toByteArray());
+            }
+            case ZONED_DATE_TIME -> writeDateTime(out, (ZonedDateTime) value);
+            default -> throw new IllegalStateException("Unhandled field kind " + field.kind());
+        }
+    }
+
+    private static Object readField(Input in, FieldAccessor field) {
+        if (field.kind() == EventSchema.FieldKind.STRING) {
+            return in.readString();
+        }
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return switch (field.kind()) {
+            case LONG -> in.readVarLong();
+            case INTEGER -> (int) in.readVarLong();
+            case BOOLEAN -> in.readBoolean();
+            case DECIMAL -> {
+                int scale = (int) in.readVarLong();
+                yield new BigDecimal(new BigInteger(in.readBytes()), scale);
+            }
+            case ZONED_DATE_TIME -> readDateTime(in);
+            default -> throw new IllegalStateException("Unhandled field kind " + field.kind());
+        };
+    }
+
+    private static void writeDateTime(Output out, ZonedDateTime value) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeVarLong(value.toEpochSecond());
+            out.writeVarLong(value.getNano());
+            out.writeString(value.getZone().getId());
+        }
+    }
+
+    private static ZonedDateTime readDateTime(Input in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readVarLong();
+        int nano = (int) in.readVarLong();
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), ZoneId.of(in.readString()));
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[size++] = value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte(value ? (byte) 1 : (byte) 0);
+        }
+
+        void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[size++] = (byte) zigzag;
+        }
+
+        void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, buffer, size, value.length);
+            size += value.length;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, buffer, size, utf8.length);
+            size += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated binary event envelope");
+            }
+            return data[position++];
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed varint in binary event envelope");
+                }
+                b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        byte[] readBytes() {
+            int length = checkedLength(readVarLong());
+            byte[] value = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return value;
+        }
+
+        String readString() {
+            long encodedLength = readVarLong();
+            if (encodedLength == 0) {
+                return null;
+            }
+            int length = checkedLength(encodedLength - 1);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private int checkedLength(long length) {
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Truncated binary event envelope");
+            }
+            return (int) length;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bookingcare.common.messaging.codec;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+
+/**
+ * 1 định dạng wire của EventEnvelope. Payload được decode thẳng sang class trong
+ * EventSchemaRegistry, eventType chưa đăng ký thì payload là Map như trước.
+ */
+public interface EnvelopeFormat {
+
+    String name();
+
+    /**
+     * Message có phải định dạng này không (dựa vào byte đầu).
+     */
+    boolean matches(byte[] data);
+
+    byte[] encode(EventEnvelope<?> envelope);
+
+    EventEnvelope<Object> decode(byte[] data);
+}
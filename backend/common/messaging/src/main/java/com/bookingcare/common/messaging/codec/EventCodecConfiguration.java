@@ -0,0 +1,32 @@
+package com.bookingcare.common.messaging.codec;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tạo EventEnvelopeCodec từ EventSchemaRegistry của service.
+ *
+ * Mỗi service chỉ khai báo bean EventSchemaRegistry (các event nó gửi / nhận) và @Import class này.
+ */
+@Configuration
+public class EventCodecConfiguration {
+
+    @Bean
+    public EventEnvelopeCodec eventEnvelopeCodec(EventSchemaRegistry eventSchemaRegistry,
+                                                 ObjectMapper objectMapper,
+                                                 @Value("${application.event-codec.format:json}") String format) {
+        JsonEnvelopeFormat json = new JsonEnvelopeFormat(objectMapper, eventSchemaRegistry);
+        BinaryEnvelopeFormat binary = new BinaryEnvelopeFormat(eventSchemaRegistry);
+        EnvelopeFormat writeFormat = switch (format) {
+            case "json" -> json;
+            case "binary" -> binary;
+            default -> throw new IllegalArgumentException("Unknown application.event-codec.format: " + format);
+        };
+        return new EventEnvelopeCodec(writeFormat, List.of(binary, json), objectMapper);
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookingcare.common.messaging.codec;
+
+import java.util.List;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Encode / decode EventEnvelope cho các topic của saga.
+ *
+ * - Ghi bằng định dạng cấu hình ở application.event-codec.format (json | binary).
+ * - Đọc tự nhận định dạng theo byte đầu, nên có thể chuyển producer sang binary
+ *   sau khi mọi consumer của topic đã có codec này.
+ */
+public class EventEnvelopeCodec {
+
+    private final EnvelopeFormat writeFormat;
+    private final List<EnvelopeFormat> readFormats;
+    private final ObjectMapper objectMapper;
+
+    public EventEnvelopeCodec(EnvelopeFormat writeFormat, List<EnvelopeFormat> readFormats, ObjectMapper objectMapper) {
+        this.writeFormat = writeFormat;
+        this.readFormats = List.copyOf(readFormats);
+        this.objectMapper = objectMapper;
+    }
+
+    public String writeFormat() {
+        return writeFormat.name();
+    }
+
+    public byte[] encode(EventEnvelope<?> envelope) {
+        return writeFormat.encode(envelope);
+    }
+
+    public EventEnvelope<Object> decode(byte[] data) {
+        for (EnvelopeFormat format : readFormats) {
+            if (format.matches(data)) {
+                return format.decode(data);
+            }
+        }
+        throw new IllegalArgumentException("Unknown event envelope format");
+    }
+
+    /**
+     * Payload đã được decode đúng class thì trả về luôn; eventType chưa đăng ký (payload là Map)
+     * thì mới convert.
+     */
+    public <T> T payloadAs(EventEnvelope<?> envelope, Class<T> payloadType) {
+        Object payload = envelope.getPayload();
+        if (payload == null || payloadType.isInstance(payload)) {
+            return payloadType.cast(payload);
+        }
+        return objectMapper.convertValue(payload, payloadType);
+    }
+}
@@ -0,0 +1,108 @@
+package com.bookingcare.common.messaging.codec;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schema của payload 1 loại event: danh sách field theo thứ tự khai báo + fingerprint.
+ *
+ * Fingerprint chỉ tính từ tên + kiểu field (không tính tên class), nên DTO cùng hình dạng
+ * ở các service khác nhau cho cùng fingerprint. Đổi / thêm / đảo field -> fingerprint khác,
+ * BinaryEnvelopeFormat sẽ từ chối decode thay vì đọc sai dữ liệu.
+ */
+public final class EventSchema {
+
+    enum FieldKind {
+        STRING, LONG, INTEGER, BOOLEAN, DECIMAL, ZONED_DATE_TIME;
+
+        static FieldKind of(Class<?> type) {
+            if (type == String.class) return STRING;
+            if (type == Long.class || type == long.class) return LONG;
+            if (type == Integer.class || type == int.class) return INTEGER;
+            if (type == Boolean.class || type == boolean.class) return BOOLEAN;
+            if (type == BigDecimal.class) return DECIMAL;
+            if (type == ZonedDateTime.class) return ZONED_DATE_TIME;
+            throw new IllegalArgumentException("Unsupported event field type: " + type.getName());
+        }
+    }
+
+    record FieldAccessor(String name, FieldKind kind, boolean primitive, MethodHandle getter, MethodHandle setter) {
+    }
+
+    private final String eventType;
+    private final Class<?> payloadType;
+    private final List<FieldAccessor> fields;
+    private final MethodHandle constructor;
+    private final long fingerprint;
+
+    private EventSchema(String eventType, Class<?> payloadType, List<FieldAccessor> fields,
+                        MethodHandle constructor, long fingerprint) {
+        this.eventType = eventType;
+        this.payloadType = payloadType;
+        this.fields = fields;
+        this.constructor = constructor;
+        this.fingerprint = fingerprint;
+    }
+
+    static EventSchema of(String eventType, Class<?> payloadType) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            List<FieldAccessor> fields = new ArrayList<>();
+            StringBuilder signature = new StringBuilder();
+            for (Field field : payloadType.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                FieldKind kind = FieldKind.of(field.getType());
+                fields.add(new FieldAccessor(field.getName(), kind, field.getType().isPrimitive(),
+                        lookup.unreflectGetter(field), lookup.unreflectSetter(field)));
+                signature.append(field.getName()).append(':').append(kind).append(';');
+            }
+
+            var noArgsConstructor = payloadType.getDeclaredConstructor();
+            noArgsConstructor.setAccessible(true);
+            return new EventSchema(eventType, payloadType, List.copyOf(fields),
+                    lookup.unreflectConstructor(noArgsConstructor), fingerprint(signature));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot build schema for event payload " + payloadType.getName(), e);
+        }
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Class<?> getPayloadType() {
+        return payloadType;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    List<FieldAccessor> fields() {
+        return fields;
+    }
+
+    Object newPayload() throws Throwable {
+        return constructor.invoke();
+    }
+
+    // FNV-1a 64 bit
+    private static long fingerprint(CharSequence signature) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < signature.length(); i++) {
+            hash ^= signature.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
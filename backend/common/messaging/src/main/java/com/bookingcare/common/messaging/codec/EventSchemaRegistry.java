@@ -0,0 +1,27 @@
+package com.bookingcare.common.messaging.codec;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry cục bộ eventType -> schema payload (thay cho schema registry dùng chung).
+ * eventType là tên class payload, đúng với cách các publisher đang đặt tên event.
+ */
+public class EventSchemaRegistry {
+
+    private final Map<String, EventSchema> schemas = new ConcurrentHashMap<>();
+
+    public EventSchemaRegistry register(Class<?> payloadType) {
+        return register(payloadType.getSimpleName(), payloadType);
+    }
+
+    public EventSchemaRegistry register(String eventType, Class<?> payloadType) {
+        schemas.put(eventType, EventSchema.of(eventType, payloadType));
+        return this;
+    }
+
+    public Optional<EventSchema> find(String eventType) {
+        return eventType == null ? Optional.empty() : Optional.ofNullable(schemas.get(eventType));
+    }
+}
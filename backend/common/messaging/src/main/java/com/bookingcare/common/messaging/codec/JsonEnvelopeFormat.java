@@ -0,0 +1,103 @@
+package com.bookingcare.common.messaging.codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * JSON, giữ nguyên wire format cũ (UTF-8 của writeValueAsString).
+ *
+ * Decode 1 lượt bằng streaming parser: header đọc thẳng vào EventEnvelope, payload đọc thẳng
+ * vào class của eventType, không qua Map trung gian + convertValue. Nếu "payload" đứng trước
+ * "eventType" thì payload được đệm lại (TokenBuffer) rồi mới bind.
+ */
+public class JsonEnvelopeFormat implements EnvelopeFormat {
+
+    private final ObjectMapper objectMapper;
+    private final EventSchemaRegistry schemaRegistry;
+
+    public JsonEnvelopeFormat(ObjectMapper objectMapper, EventSchemaRegistry schemaRegistry) {
+        this.objectMapper = objectMapper;
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean matches(byte[] data) {
+        for (byte b : data) {
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] encode(EventEnvelope<?> envelope) {
+        try {
+            return objectMapper.writeValueAsBytes(envelope);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode event " + envelope.getEventType(), e);
+        }
+    }
+
+    @Override
+    public EventEnvelope<Object> decode(byte[] data) {
+        try (JsonParser parser = objectMapper.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Event envelope must be a JSON object");
+            }
+
+            EventEnvelope<Object> envelope = new EventEnvelope<>();
+            TokenBuffer bufferedPayload = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "eventId" -> envelope.setEventId(parser.getValueAsString());
+                    case "eventType" -> envelope.setEventType(parser.getValueAsString());
+                    case "aggregateId" -> envelope.setAggregateId(parser.getValueAsString());
+                    case "correlationId" -> envelope.setCorrelationId(parser.getValueAsString());
+                    case "source" -> envelope.setSource(parser.getValueAsString());
+                    case "timestamp" -> envelope.setTimestamp(parser.readValueAs(ZonedDateTime.class));
+                    case "payload" -> {
+                        if (envelope.getEventType() != null) {
+                            envelope.setPayload(readPayload(parser, envelope.getEventType()));
+                        } else {
+                            bufferedPayload = new TokenBuffer(parser);
+                            bufferedPayload.copyCurrentStructure(parser);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (bufferedPayload != null) {
+                try (JsonParser payloadParser = bufferedPayload.asParser(objectMapper)) {
+                    payloadParser.nextToken();
+                    envelope.setPayload(readPayload(payloadParser, envelope.getEventType()));
+                }
+            }
+            return envelope;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode event envelope", e);
+        }
+    }
+
+    private Object readPayload(JsonParser parser, String eventType) throws IOException {
+        Class<?> payloadType = schemaRegistry.find(eventType)
+                .<Class<?>>map(EventSchema::getPayloadType)
+                .orElse(Object.class);
+        return parser.readValueAs(payloadType);
+    }
+}
@@ -0,0 +1,127 @@
+package com.bookingcare.common.messaging.outbox;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Truy cập bảng outbox_events bằng JDBC. Bảng có cùng cấu trúc ở mọi service
+ * (booking / schedule: TIMESTAMPTZ, payment: TIMESTAMP), Timestamp được bind theo múi giờ JVM
+ * nên dùng được cho cả 2 kiểu cột.
+ *
+ * Chạy trên connection của transaction hiện tại (JpaTransactionManager expose connection JDBC),
+ * nên append() commit / rollback cùng thay đổi nghiệp vụ của caller.
+ *
+ * Event dead (dead_at khác NULL) được giữ lại để xử lý tay, gửi lại bằng
+ * UPDATE outbox_events SET dead_at = NULL, attempts = 0 WHERE id = ...
+ */
+public class OutboxEventStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public OutboxEventStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public void append(String topic, String messageKey, String eventType, byte[] payload) {
+        jdbcTemplate.update("""
+                INSERT INTO outbox_events (topic, message_key, event_type, payload, attempts, created_at)
+                VALUES (?, ?, ?, ?, 0, ?)
+                """, topic, messageKey, eventType, payload, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Claim 1 batch event chưa gửi bằng lease: đặt claimed_until rồi commit ngay, relay gửi và chờ ack
+     * ngoài transaction. Relay chết giữa chừng thì event được claim lại sau khi lease hết.
+     *
+     * Không claim event có event trước đó cùng message_key đang được claim hoặc đang chờ gửi lại
+     * (claimed_until còn hạn), để event cùng key luôn được gửi theo thứ tự ghi.
+     * Advisory lock xếp hàng các lần claim giữa các replica: nếu 2 replica claim cùng lúc,
+     * replica sau có thể chưa thấy lease của replica trước và lấy event sau cùng key.
+     */
+    public List<OutboxMessage> claimBatch(int limit, Instant now, Instant leaseUntil) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('outbox_events.claim'))");
+        List<OutboxMessage> claimed = jdbcTemplate.query("""
+                UPDATE outbox_events SET claimed_until = ?
+                WHERE id IN (
+                    SELECT e.id FROM outbox_events e
+                    WHERE e.published_at IS NULL AND e.dead_at IS NULL
+                      AND (e.claimed_until IS NULL OR e.claimed_until <= ?)
+                      AND NOT EXISTS (
+                          SELECT 1 FROM outbox_events p
+                          WHERE p.message_key = e.message_key AND p.id < e.id
+                            AND p.published_at IS NULL AND p.dead_at IS NULL
+                            AND p.claimed_until > ?)
+                    ORDER BY e.id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id, topic, message_key, event_type, payload, attempts
+                """,
+                (rs, rowNum) -> new OutboxMessage(rs.getLong("id"), rs.getString("topic"),
+                        rs.getString("message_key"), rs.getString("event_type"), rs.getBytes("payload"),
+                        rs.getInt("attempts")),
+                Timestamp.from(leaseUntil), Timestamp.from(now), Timestamp.from(now), limit);
+        // RETURNING không giữ thứ tự của subquery
+        return claimed.stream().sorted(Comparator.comparingLong(OutboxMessage::id)).toList();
+    }
+
+    public int markPublished(Collection<Long> ids, Instant now) {
+        return namedJdbcTemplate.update(
+                "UPDATE outbox_events SET published_at = :now, claimed_until = NULL WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids).addValue("now", Timestamp.from(now)));
+    }
+
+    /**
+     * Trả lại event chưa gửi (không tính là 1 lần lỗi), lần poll sau claim lại.
+     */
+    public int release(Collection<Long> ids) {
+        return namedJdbcTemplate.update("UPDATE outbox_events SET claimed_until = NULL WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+    }
+
+    /**
+     * Ghi nhận 1 lần gửi lỗi, giữ lease tới retryAt để event (và các event sau cùng key) chờ tới lúc gửi lại.
+     */
+    public int recordFailure(long id, String error, Instant retryAt) {
+        return jdbcTemplate.update("""
+                UPDATE outbox_events SET attempts = attempts + 1, last_error = ?, claimed_until = ?
+                WHERE id = ?
+                """, error, Timestamp.from(retryAt), id);
+    }
+
+    /**
+     * Event gửi lỗi quá số lần cho phép: không gửi lại nữa, các event sau cùng key được gửi tiếp.
+     */
+    public int markDead(long id, String error, Instant now) {
+        return jdbcTemplate.update("""
+                UPDATE outbox_events SET attempts = attempts + 1, last_error = ?, claimed_until = NULL, dead_at = ?
+                WHERE id = ?
+                """, error, Timestamp.from(now), id);
+    }
+
+    public long countPending() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE published_at IS NULL AND dead_at IS NULL", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public Optional<Instant> findOldestPendingCreatedAt() {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM outbox_events WHERE published_at IS NULL AND dead_at IS NULL",
+                Timestamp.class);
+        return Optional.ofNullable(oldest).map(Timestamp::toInstant);
+    }
+
+    public int deletePublishedBefore(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM outbox_events WHERE published_at < ?", Timestamp.from(cutoff));
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookingcare.common.messaging.outbox;
+
+/**
+ * 1 row outbox_events đã được relay claim để gửi. attempts là số lần gửi lỗi trước đó.
+ */
+public record OutboxMessage(long id, String topic, String messageKey, String eventType, byte[] payload,
+                            int attempts) {
+}
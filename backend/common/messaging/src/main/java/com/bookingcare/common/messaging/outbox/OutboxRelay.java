@@ -0,0 +1,260 @@
+package com.bookingcare.common.messaging.outbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đọc outbox_events theo batch và gửi lên Kafka.
+ *
+ * Mỗi batch: claim event bằng lease trong 1 transaction ngắn (OutboxEventStore.claimBatch), gửi toàn bộ
+ * batch bất đồng bộ (producer tự gom theo linger.ms / batch.size) và chờ ack ngoài transaction,
+ * rồi ghi kết quả trong 1 transaction ngắn khác. Connection DB không bị giữ trong lúc chờ broker.
+ *
+ * Thứ tự theo key: event cùng message_key được gửi theo thứ tự ghi. Khi 1 event gửi lỗi, các event
+ * sau cùng key trong batch không được đánh dấu đã gửi (chưa gửi thì không gửi nữa) mà trả lại outbox,
+ * và chỉ được claim lại sau khi event lỗi gửi được hoặc bị đánh dấu dead.
+ *
+ * Event gửi lỗi được gửi lại sau initial-interval-ms, nhân đôi mỗi lần tới max-interval-ms (at-least-once).
+ * Lỗi tới max-attempts lần thì event bị đánh dấu dead (dead_at) và không gửi lại nữa.
+ *
+ * Metrics:
+ *  - outbox.pending: số event chưa gửi (không tính event dead)
+ *  - outbox.lag: tuổi (giây) của event chưa gửi lâu nhất
+ *  - outbox.publish.batch: thời gian gửi 1 batch (tới khi có đủ ack)
+ *  - outbox.published / outbox.failed / outbox.dead: số event gửi thành công / lỗi sẽ gửi lại / bỏ không gửi
+ *
+ * Service ghi event bằng OutboxEventStore.append và @Import OutboxEventStore + OutboxRelay.
+ */
+@Slf4j
+public class OutboxRelay {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventStore outboxEventStore;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long sendTimeoutMs;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long initialRetryIntervalMs;
+    private final long maxRetryIntervalMs;
+    private final Duration retention;
+
+    private final Timer batchPublishTimer;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter deadCounter;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventStore outboxEventStore,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${application.outbox.batch-size:500}") int batchSize,
+                       @Value("${application.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${application.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${application.outbox.lease-ms:60000}") long leaseMs,
+                       @Value("${application.outbox.retry.max-attempts:20}") int maxAttempts,
+                       @Value("${application.outbox.retry.initial-interval-ms:1000}") long initialRetryIntervalMs,
+                       @Value("${application.outbox.retry.max-interval-ms:300000}") long maxRetryIntervalMs,
+                       @Value("${application.outbox.retention-hours:24}") long retentionHours) {
+        if (leaseMs <= sendTimeoutMs) {
+            throw new IllegalArgumentException("application.outbox.lease-ms must be greater than send-timeout-ms");
+        }
+        this.outboxEventStore = outboxEventStore;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.maxAttempts = maxAttempts;
+        this.initialRetryIntervalMs = initialRetryIntervalMs;
+        this.maxRetryIntervalMs = maxRetryIntervalMs;
+        this.retention = Duration.ofHours(retentionHours);
+
+        this.batchPublishTimer = Timer.builder("outbox.publish.batch")
+                .description("Time to publish one outbox batch until all acks are received")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("outbox.published")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.failed")
+                .description("Outbox events that failed to publish and will be retried")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("outbox.dead")
+                .description("Outbox events given up after the maximum number of attempts")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox events not yet published")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            // Drain liên tục khi outbox đang đầy, dừng khi gặp batch chưa đủ
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (publishBatch() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Outbox relay failed", e);
+        } finally {
+            refreshBacklogGauges();
+        }
+    }
+
+    @Scheduled(cron = "${application.outbox.cleanup-cron:0 0 * * * *}")
+    public void purgePublished() {
+        Instant cutoff = Instant.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventStore.deletePublishedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} published outbox events older than {}", deleted, cutoff);
+        }
+    }
+
+    private int publishBatch() {
+        Instant claimedAt = Instant.now();
+        List<OutboxMessage> batch = transactionTemplate.execute(status ->
+                outboxEventStore.claimBatch(batchSize, claimedAt, claimedAt.plus(lease)));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        Timer.Sample sample = Timer.start();
+        // Key đã có event gửi lỗi trong batch: các event sau cùng key không gửi / không đánh dấu đã gửi
+        Set<String> failedKeys = new HashSet<>();
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (OutboxMessage event : batch) {
+            CompletableFuture<SendResult<String, Object>> future = null;
+            if (!failedKeys.contains(event.messageKey())) {
+                future = send(event);
+                if (future.isCompletedExceptionally()) {
+                    failedKeys.add(event.messageKey());
+                }
+            }
+            futures.add(future);
+        }
+
+        failedKeys.clear();
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        List<Long> releasedIds = new ArrayList<>();
+        Map<OutboxMessage, Throwable> failures = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage event = batch.get(i);
+            if (failedKeys.contains(event.messageKey())) {
+                releasedIds.add(event.id());
+                continue;
+            }
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(event.id());
+            } catch (ExecutionException | TimeoutException e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                failures.put(event, cause);
+                failedKeys.add(event.messageKey());
+            } catch (InterruptedException e) {
+                // Event đã claim được claim lại sau khi lease hết
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for Kafka acks", e);
+            }
+        }
+
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!publishedIds.isEmpty()) {
+                outboxEventStore.markPublished(publishedIds, now);
+            }
+            if (!releasedIds.isEmpty()) {
+                outboxEventStore.release(releasedIds);
+            }
+            failures.forEach((event, cause) -> recordFailure(event, cause, now));
+        });
+        publishedCounter.increment(publishedIds.size());
+        long elapsedNanos = sample.stop(batchPublishTimer);
+
+        log.debug("Outbox batch published: claimed={}, published={}, failed={}, released={}, took={}ms",
+                batch.size(), publishedIds.size(), failures.size(), releasedIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return batch.size();
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxMessage event) {
+        try {
+            return kafkaTemplate.send(event.topic(), event.messageKey(), event.payload());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordFailure(OutboxMessage event, Throwable cause, Instant now) {
+        String error = truncate(String.valueOf(cause.getMessage()));
+        int attempts = event.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            log.error("Giving up outbox event after {} attempts: id={}, type={}, key={}",
+                    attempts, event.id(), event.eventType(), event.messageKey(), cause);
+            outboxEventStore.markDead(event.id(), error, now);
+            deadCounter.increment();
+            return;
+        }
+        log.warn("Failed to publish outbox event (attempt {}/{}): id={}, type={}, key={}",
+                attempts, maxAttempts, event.id(), event.eventType(), event.messageKey(), cause);
+        outboxEventStore.recordFailure(event.id(), error, now.plusMillis(retryInterval(attempts)));
+        failedCounter.increment();
+    }
+
+    private long retryInterval(int attempts) {
+        long interval = initialRetryIntervalMs << Math.min(attempts - 1, 20);
+        return Math.min(interval, maxRetryIntervalMs);
+    }
+
+    private void refreshBacklogGauges() {
+        try {
+            pendingEvents.set(outboxEventStore.countPending());
+            lagMillis.set(outboxEventStore.findOldestPendingCreatedAt()
+                    .map(createdAt -> Math.max(0, Duration.between(createdAt, Instant.now()).toMillis()))
+                    .orElse(0L));
+        } catch (Exception e) {
+            log.warn("Failed to refresh outbox backlog metrics: {}", e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
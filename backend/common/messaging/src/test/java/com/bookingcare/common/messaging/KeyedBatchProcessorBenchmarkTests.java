@@ -0,0 +1,167 @@
+package com.bookingcare.common.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * So sánh record mode (max.poll.records=1, concurrency=1, ack-mode=record - cấu hình hiện tại)
+ * với batch mode (KeyedBatchProcessor) trên embedded Kafka. Mỗi message giả lập 2ms DB work.
+ * - Luôn chạy: batch mode giữ đúng thứ tự theo key
+ * - @Tag("benchmark") (mvn test -Pbenchmark): thời gian record mode / batch mode, chỉ ghi log
+ */
+@Slf4j
+class KeyedBatchProcessorBenchmarkTests {
+    private static final String RECORD_TOPIC = "bench-record-mode";
+    private static final String BATCH_TOPIC = "bench-batch-mode";
+    private static final String ORDER_TOPIC = "bench-batch-order";
+    private static final int PARTITIONS = 3;
+    private static final int KEYS = 100;
+    private static final int MESSAGES_PER_KEY = 10;
+    private static final int TOTAL = KEYS * MESSAGES_PER_KEY;
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, RECORD_TOPIC, BATCH_TOPIC, ORDER_TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void batchModeKeepsPerKeyOrder() throws Exception {
+        // run() assert đủ message và không vi phạm thứ tự theo key
+        run(ORDER_TOPIC, true);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void batchModeAgainstRecordMode() throws Exception {
+        long recordModeMillis = run(RECORD_TOPIC, false);
+        long batchModeMillis = run(BATCH_TOPIC, true);
+
+        log.info("Kafka consumer benchmark ({} messages, {} keys): record mode {} ms ({} msg/s), batch mode {} ms ({} msg/s)",
+                TOTAL, KEYS,
+                recordModeMillis, TOTAL * 1000 / Math.max(1, recordModeMillis),
+                batchModeMillis, TOTAL * 1000 / Math.max(1, batchModeMillis));
+    }
+
+    private long run(String topic, boolean batchMode) throws Exception {
+        produce(topic);
+
+        CountDownLatch done = new CountDownLatch(TOTAL);
+        Map<String, Integer> lastSequenceByKey = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<String> orderViolations = new ConcurrentLinkedQueue<>();
+
+        Consumer<String> handler = value -> {
+            String[] parts = value.split(":");
+            int sequence = Integer.parseInt(parts[1]);
+            Integer previous = lastSequenceByKey.put(parts[0], sequence);
+            if (previous != null && previous + 1 != sequence) {
+                orderViolations.add(value);
+            }
+            sleepQuietly(2);
+            done.countDown();
+        };
+
+        Map<String, Object> consumerProps = new HashMap<>();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, "bench-" + topic);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMode ? 500 : 1);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        KeyedBatchProcessor processor = new KeyedBatchProcessor();
+        if (batchMode) {
+            containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+            containerProperties.setMessageListener(
+                    (BatchMessageListener<String, String>) (List<ConsumerRecord<String, String>> records) ->
+                            processor.process(records, handler));
+        } else {
+            containerProperties.setAckMode(ContainerProperties.AckMode.RECORD);
+            containerProperties.setMessageListener(
+                    (MessageListener<String, String>) record -> handler.accept(record.value()));
+        }
+
+        ConcurrentMessageListenerContainer<String, String> container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), containerProperties);
+        container.setConcurrency(batchMode ? PARTITIONS : 1);
+
+        long start = System.nanoTime();
+        container.start();
+        try {
+            assertTrue(done.await(60, TimeUnit.SECONDS), "not all messages were consumed");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(orderViolations.isEmpty(), "per-key order violated: " + orderViolations);
+            return elapsedMillis;
+        } finally {
+            container.stop();
+            processor.shutdown();
+        }
+    }
+
+    private void produce(String topic) {
+        Map<String, Object> producerProps = new HashMap<>();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(producerProps);
+        try {
+            KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+            for (int sequence = 0; sequence < MESSAGES_PER_KEY; sequence++) {
+                for (int key = 0; key < KEYS; key++) {
+                    String bookingId = "BK" + key;
+                    template.send(topic, bookingId, bookingId + ":" + sequence);
+                }
+            }
+            template.flush();
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
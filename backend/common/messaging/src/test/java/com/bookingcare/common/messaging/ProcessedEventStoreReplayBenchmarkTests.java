@@ -0,0 +1,137 @@
+package com.bookingcare.common.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replay benchmark cho ProcessedEventStore: nạp 100k event rồi nạp lại nguyên luồng đó
+ * (giống consumer group bị reset offset). processed_events được giả lập bằng set,
+ * đúng ngữ nghĩa INSERT ... ON CONFLICT DO NOTHING; đếm số lần "xuống DB".
+ * - Luôn chạy: số event nhận / từ chối và số lần xuống DB khi replay
+ * - @Tag("benchmark") (mvn test -Pbenchmark): latency avg / p99 từng lượt, chỉ ghi log
+ */
+@Slf4j
+class ProcessedEventStoreReplayBenchmarkTests {
+    private static final int EVENTS = 100_000;
+
+    private final Set<String> processedEvents = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger dbCalls = new AtomicInteger();
+    private final List<String> eventIds = new ArrayList<>(EVENTS);
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.update(anyString(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+            dbCalls.incrementAndGet();
+            return processedEvents.add(invocation.getArgument(1)) ? 1 : 0;
+        });
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventIds.add(UUID.randomUUID().toString());
+        }
+    }
+
+    @Test
+    void replayWithinCacheWindowIsRejectedWithoutDbRoundTrips() {
+        ProcessedEventStore store = new ProcessedEventStore(jdbcTemplate, new SimpleMeterRegistry(), EVENTS, 7);
+
+        Result firstPass = feed(store);
+        int dbCallsBeforeReplay = dbCalls.get();
+        Result replay = feed(store);
+        int replayDbCalls = dbCalls.get() - dbCallsBeforeReplay;
+
+        assertEquals(EVENTS, firstPass.accepted(), "first delivery of every event must be processed");
+        assertEquals(EVENTS, replay.rejected(), "every replayed event must be rejected");
+        assertEquals(0, replayDbCalls, "duplicates inside the cache window must not hit the DB");
+    }
+
+    @Test
+    void replayBeyondCacheWindowIsStillRejectedByDb() {
+        ProcessedEventStore store = new ProcessedEventStore(jdbcTemplate, new SimpleMeterRegistry(), 1_000, 7);
+
+        Result firstPass = feed(store);
+        int dbCallsBeforeReplay = dbCalls.get();
+        Result replay = feed(store);
+        int replayDbCalls = dbCalls.get() - dbCallsBeforeReplay;
+
+        assertEquals(EVENTS, firstPass.accepted(), "first delivery of every event must be processed");
+        assertEquals(EVENTS, replay.rejected(), "every replayed event must be rejected");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void replayLatency() {
+        for (int cacheSize : new int[] {EVENTS, 1_000}) {
+            ProcessedEventStore store = new ProcessedEventStore(jdbcTemplate, new SimpleMeterRegistry(), cacheSize, 7);
+            processedEvents.clear();
+
+            Result firstPass = feed(store);
+            int dbCallsBeforeReplay = dbCalls.get();
+            Result replay = feed(store);
+
+            report(cacheSize >= EVENTS ? "replay, cache holds window" : "replay, cache evicted",
+                    firstPass, replay, dbCalls.get() - dbCallsBeforeReplay);
+        }
+    }
+
+    private Result feed(ProcessedEventStore store) {
+        long[] latencies = new long[EVENTS];
+        int accepted = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            long start = System.nanoTime();
+            boolean firstDelivery = store.markProcessed(eventIds.get(i), "BookingCreatedEvent");
+            latencies[i] = System.nanoTime() - start;
+            if (firstDelivery) {
+                accepted++;
+            }
+        }
+        return new Result(accepted, latencies);
+    }
+
+    private static void report(String scenario, Result firstPass, Result replay, int replayDbCalls) {
+        log.info("Event dedup benchmark ({}, {} events): first pass avg {} ns p99 {} ns; "
+                        + "replay reject rate {}%, avg {} ns p99 {} ns, DB round trips {}",
+                scenario, EVENTS,
+                Math.round(firstPass.averageNanos()), firstPass.percentileNanos(0.99),
+                replay.rejected() * 100 / EVENTS,
+                Math.round(replay.averageNanos()), replay.percentileNanos(0.99),
+                replayDbCalls);
+    }
+
+    private record Result(int accepted, long[] latencies) {
+        int rejected() {
+            return latencies.length - accepted;
+        }
+
+        double averageNanos() {
+            return Arrays.stream(latencies).average().orElse(0);
+        }
+
+        long percentileNanos(double percentile) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bookingcare.common.messaging.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * CatalogDocumentPublisher với KafkaTemplate và CatalogDocumentSource giả:
+ * - Sau commit: source nhận các key thay đổi (đã gom trùng), mỗi document gửi với key type:id@source
+ * - Rollback thì không đọc, không gửi
+ */
+class CatalogDocumentPublisherTests {
+    private final List<Set<String>> assembled = new CopyOnWriteArrayList<>();
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private CatalogDocumentPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+        CatalogDocumentSource source = this::assemble;
+        ObjectProvider<CatalogDocumentSource> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(source);
+        publisher = new CatalogDocumentPublisher(kafkaTemplate, new ObjectMapper().registerModule(new JavaTimeModule()),
+                provider, "catalog-documents");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        publisher.destroy();
+    }
+
+    @Test
+    void publishesAssembledDocumentsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.documentsChanged(List.of("CLINIC:1"));
+        publisher.documentsChanged(List.of("CLINIC:1", "PACKAGE:2"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> {
+            sync.afterCommit();
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        });
+
+        verify(kafkaTemplate, timeout(1_000)).send(eq("catalog-documents"), eq("CLINIC:1@clinic-service"), anyString());
+        verify(kafkaTemplate, timeout(1_000)).send(eq("catalog-documents"), eq("PACKAGE:2@clinic-service"), anyString());
+        assertEquals(List.of(Set.of("CLINIC:1", "PACKAGE:2")), assembled);
+    }
+
+    @Test
+    void rollbackPublishesNothing() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.documentsChanged(List.of("CLINIC:1"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        publisher.destroy();
+
+        verify(kafkaTemplate, never()).send(any(), any(), any());
+        assertEquals(List.of(), assembled);
+    }
+
+    private List<CatalogDocumentEvent> assemble(Collection<String> keys) {
+        assembled.add(Set.copyOf(keys));
+        return keys.stream()
+                .map(key -> key.split(":"))
+                .map(parts -> new CatalogDocumentEvent(parts[0], parts[1], "clinic-service", false, "title", null,
+                        null, null, List.of(), List.of(), List.of(), null, null, null, Instant.now()))
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookingcare.common.messaging.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * CatalogInvalidationPublisher với KafkaTemplate giả:
+ * - Ngoài transaction: gửi ngay, source là tên service được inject
+ * - Trong transaction: gom region trùng, gửi 1 message / region sau commit, rollback thì không gửi
+ */
+class CatalogInvalidationPublisherTests {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private CatalogInvalidationPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+        publisher = new CatalogInvalidationPublisher(kafkaTemplate, objectMapper, "catalog-invalidation",
+                "clinic-service");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendsImmediatelyOutsideTransaction() throws Exception {
+        publisher.regionsChanged(List.of("clinics"));
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(eq("catalog-invalidation"), eq("clinics"), message.capture());
+        CatalogInvalidationEvent event = objectMapper.readValue(message.getValue(), CatalogInvalidationEvent.class);
+        assertEquals("clinics", event.region());
+        assertEquals("clinic-service", event.source());
+    }
+
+    @Test
+    void sendsEachRegionOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.regionsChanged(List.of("clinics"));
+        publisher.regionsChanged(List.of("clinics", "packages"));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> {
+            sync.afterCommit();
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        });
+
+        verify(kafkaTemplate, times(1)).send(eq("catalog-invalidation"), eq("clinics"), anyString());
+        verify(kafkaTemplate, times(1)).send(eq("catalog-invalidation"), eq("packages"), anyString());
+    }
+
+    @Test
+    void rollbackSendsNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.regionsChanged(List.of("clinics"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(kafkaTemplate, never()).send(any(), any(), any());
+    }
+}
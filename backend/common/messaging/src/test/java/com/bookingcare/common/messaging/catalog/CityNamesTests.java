@@ -0,0 +1,41 @@
+package com.bookingcare.common.messaging.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CityNames / SearchText dùng chung cho clinic-service và search-service:
+ * - Địa chỉ viết nhiều kiểu cho cùng tên thành phố, lấy thành phố xuất hiện sau cùng
+ * - Chuẩn hoá bỏ dấu (kể cả đ), ghép các phần bỏ qua null
+ */
+class CityNamesTests {
+
+    @Test
+    void resolvesCityFromFreeFormAddress() {
+        assertEquals("Hồ Chí Minh", CityNames.fromAddress("99 Nguyễn Du, Phường Bến Thành, Quận 1, Tp Hồ Chí Minh"));
+        assertEquals("Hồ Chí Minh", CityNames.fromAddress("12 Lê Lợi, TP.HCM"));
+        assertEquals("Hà Nội", CityNames.fromAddress("1 Tràng Thi, Hoàn Kiếm, Hà Nội."));
+        // Tên đường trùng tên thành phố: lấy tên xuất hiện sau cùng
+        assertEquals("Đà Nẵng", CityNames.fromAddress("20 đường Hà Nội, Hải Châu, Đà Nẵng"));
+        assertNull(CityNames.fromAddress("Khu công nghệ cao"));
+        assertNull(CityNames.fromAddress(null));
+    }
+
+    @Test
+    void aliasesOfKnownCity() {
+        assertEquals(List.of("ha noi"), CityNames.aliases("Hà Nội"));
+        assertEquals(List.of(), CityNames.aliases("Huế"));
+    }
+
+    @Test
+    void normalizesVietnameseText() {
+        assertEquals("benh vien da khoa gia dinh", SearchText.normalize("Bệnh viện Đa khoa Gia Định"));
+        assertEquals("noi soi da day da nang", SearchText.of("Nội soi Dạ dày", null, "- Đà Nẵng"));
+        assertEquals(List.of("tp", "hcm"), SearchText.tokens("  TP.HCM "));
+        assertNull(SearchText.normalize(" - "));
+    }
+}
@@ -0,0 +1,203 @@
+package com.bookingcare.common.messaging.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * So sánh cách cũ (writeValueAsString -> readValue(EventEnvelope.class) -> convertValue)
+ * với EventEnvelopeCodec JSON (decode 1 lượt, payload typed) và binary.
+ * - Luôn chạy: round-trip đúng, binary nhỏ hơn JSON
+ * - @Tag("benchmark") (mvn test -Pbenchmark): throughput encode / decode và số byte cấp phát
+ *   trên mỗi event (ThreadMXBean), chỉ ghi log, không assert thời gian
+ */
+@Slf4j
+class EventEnvelopeCodecBenchmarkTests {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * Cùng hình dạng với BookingCreatedEvent của booking / schedule-service.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class BookingCreatedEvent {
+        private String bookingId;
+        private String packageScheduleId;
+        private String patientId;
+        private String clinicId;
+    }
+
+    /**
+     * Cùng hình dạng với HoldSlotSucceededEvent của schedule / booking-service.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class HoldSlotSucceededEvent {
+        private String bookingId;
+        private String scheduleHoldId;
+        private ZonedDateTime holdExpireAt;
+        private String packageScheduleId;
+    }
+
+    /**
+     * Cùng hình dạng với PaymentRequestedEvent của booking / payment-service (schema theo tên + kiểu field).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class PaymentRequestedEvent {
+        private String bookingId;
+        private String patientId;
+        private BigDecimal price;
+        private String description;
+    }
+
+    // Cấu hình như ObjectMapper của Spring Boot: ZonedDateTime ghi dạng ISO-8601
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final EventSchemaRegistry registry = new EventSchemaRegistry()
+            .register(BookingCreatedEvent.class)
+            .register(HoldSlotSucceededEvent.class)
+            .register(PaymentRequestedEvent.class);
+    private final JsonEnvelopeFormat json = new JsonEnvelopeFormat(objectMapper, registry);
+    private final BinaryEnvelopeFormat binary = new BinaryEnvelopeFormat(registry);
+
+    @Test
+    void codecsRoundTripAndBinaryIsSmallerThanJson() {
+        for (EventEnvelope<?> envelope : envelopes()) {
+            Class<?> payloadType = envelope.getPayload().getClass();
+
+            byte[] jsonBytes = json.encode(envelope);
+            byte[] binaryBytes = binary.encode(envelope);
+
+            // Cách cũ đi qua Map nên BigDecimal thành Double (mất scale), chỉ kiểm tra kiểu
+            assertInstanceOf(payloadType, legacyDecode(legacyEncode(envelope), payloadType));
+            assertRoundTrip(envelope, json.decode(jsonBytes));
+            assertRoundTrip(envelope, binary.decode(binaryBytes));
+            assertTrue(binaryBytes.length < jsonBytes.length, "binary envelope should be smaller than JSON");
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void encodeDecodeThroughput() {
+        for (EventEnvelope<?> envelope : envelopes()) {
+            Class<?> payloadType = envelope.getPayload().getClass();
+
+            byte[] legacyBytes = legacyEncode(envelope);
+            byte[] jsonBytes = json.encode(envelope);
+            byte[] binaryBytes = binary.encode(envelope);
+
+            Measurement legacyEncode = measure(() -> legacyEncode(envelope));
+            Measurement jsonEncode = measure(() -> json.encode(envelope));
+            Measurement binaryEncode = measure(() -> binary.encode(envelope));
+            Measurement legacyDecode = measure(() -> legacyDecode(legacyBytes, payloadType));
+            Measurement jsonDecode = measure(() -> json.decode(jsonBytes));
+            Measurement binaryDecode = measure(() -> binary.decode(binaryBytes));
+
+            log.info("{}: size json {} B / binary {} B", envelope.getEventType(), jsonBytes.length, binaryBytes.length);
+            log.info("  encode  legacy {} | json {} | binary {}", legacyEncode, jsonEncode, binaryEncode);
+            log.info("  decode  legacy {} | json {} | binary {}", legacyDecode, jsonDecode, binaryDecode);
+        }
+    }
+
+    private static List<EventEnvelope<?>> envelopes() {
+        return List.of(
+                envelope("BookingCreatedEvent", new BookingCreatedEvent(
+                        "BK_20251201_0001", "PKGSCHDL_PKG01_SLOT001_20251201", "PATIENT_0001", "CLINIC_0001")),
+                envelope("HoldSlotSucceededEvent", new HoldSlotSucceededEvent(
+                        "BK_20251201_0001", "HOLD_20251201_0001",
+                        ZonedDateTime.of(2025, 12, 1, 8, 15, 0, 0, ZoneOffset.UTC),
+                        "PKGSCHDL_PKG01_SLOT001_20251201")),
+                envelope("PaymentRequestedEvent", new PaymentRequestedEvent(
+                        "BK_20251201_0001", "PATIENT_0001", new BigDecimal("1250000.00"), "Kham tong quat")));
+    }
+
+    private static EventEnvelope<?> envelope(String eventType, Object payload) {
+        return EventEnvelope.of(eventType, "BK_20251201_0001", "c0ffee00-0000-4000-8000-000000000001",
+                "booking-service", payload);
+    }
+
+    private static void assertRoundTrip(EventEnvelope<?> expected, EventEnvelope<Object> actual) {
+        assertEquals(expected.getEventId(), actual.getEventId());
+        assertEquals(expected.getEventType(), actual.getEventType());
+        assertEquals(expected.getAggregateId(), actual.getAggregateId());
+        assertEquals(expected.getCorrelationId(), actual.getCorrelationId());
+        assertEquals(expected.getSource(), actual.getSource());
+        assertEquals(expected.getTimestamp().toInstant(), actual.getTimestamp().toInstant());
+        assertInstanceOf(expected.getPayload().getClass(), actual.getPayload());
+        assertEquals(expected.getPayload(), actual.getPayload());
+    }
+
+    private byte[] legacyEncode(EventEnvelope<?> envelope) {
+        try {
+            return objectMapper.writeValueAsString(envelope).getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object legacyDecode(byte[] data, Class<?> payloadType) {
+        try {
+            EventEnvelope<?> envelope = objectMapper.readValue(
+                    new String(data, StandardCharsets.UTF_8), EventEnvelope.class);
+            return objectMapper.convertValue(envelope.getPayload(), payloadType);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Measurement measure(Supplier<?> operation) {
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = operation.get();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = operation.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(sink != null);
+        return new Measurement((double) elapsed / ITERATIONS, (double) allocated / ITERATIONS);
+    }
+
+    private record Measurement(double nanosPerOp, double bytesPerOp) {
+        @Override
+        public String toString() {
+            return String.format("%,.0f ops/s %,.0f B/op", 1_000_000_000 / nanosPerOp, bytesPerOp);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.bookingcare.common.messaging.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * OutboxRelay với OutboxEventStore, KafkaTemplate và transaction manager giả:
+ * - Event gửi lỗi: các event sau cùng key không gửi / không đánh dấu đã gửi mà trả lại outbox,
+ *   key khác vẫn gửi bình thường, event lỗi được hẹn gửi lại
+ * - Lỗi tới max-attempts lần: event bị đánh dấu dead
+ * - Claim và ghi kết quả trong transaction riêng, chờ ack ngoài transaction
+ */
+class OutboxRelayTests {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+    private final List<Boolean> waitedInTransaction = new CopyOnWriteArrayList<>();
+    private OutboxEventStore outboxEventStore;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEventStore = mock(OutboxEventStore.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> acked());
+        relay = new OutboxRelay(outboxEventStore, kafkaTemplate, new TransactionTemplate(new FlagTransactionManager()),
+                new SimpleMeterRegistry(), 100, 1, 1_000, 60_000, MAX_ATTEMPTS, 1_000, 300_000, 24);
+    }
+
+    @Test
+    void failedSendHoldsBackLaterEventsOfSameKey() {
+        claim(event(1, "B-1", 0), event(2, "B-2", 0), event(3, "B-1", 0), event(4, "B-2", 0));
+        when(kafkaTemplate.send(anyString(), eq("B-1"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        Instant before = Instant.now();
+        relay.relay();
+
+        // Event 3 không được gửi sau event 1 lỗi
+        verify(kafkaTemplate, times(1)).send(anyString(), eq("B-1"), any());
+        verify(outboxEventStore).markPublished(eq(List.of(2L, 4L)), any());
+        verify(outboxEventStore).release(List.of(3L));
+        ArgumentCaptor<Instant> retryAt = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxEventStore).recordFailure(eq(1L), eq("broker down"), retryAt.capture());
+        assertFalse(retryAt.getValue().isBefore(before.plusMillis(1_000)));
+        verify(outboxEventStore, never()).markDead(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void lateAckFailureStillHoldsBackLaterEventsOfSameKey() {
+        claim(event(1, "B-1", 0), event(2, "B-1", 0));
+        when(kafkaTemplate.send(anyString(), eq("B-1"), any()))
+                .thenReturn(failsOnAck(new TimeoutException("expired")), acked());
+
+        relay.relay();
+
+        // Event 2 đã gửi trước khi biết event 1 lỗi, nhưng không được đánh dấu đã gửi
+        verify(kafkaTemplate, times(2)).send(anyString(), eq("B-1"), any());
+        verify(outboxEventStore, never()).markPublished(anyCollection(), any());
+        verify(outboxEventStore).release(List.of(2L));
+        verify(outboxEventStore).recordFailure(eq(1L), eq("expired"), any());
+    }
+
+    @Test
+    void lastAttemptMarksEventDead() {
+        claim(event(1, "B-1", MAX_ATTEMPTS - 1));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("record too large")));
+
+        relay.relay();
+
+        verify(outboxEventStore).markDead(eq(1L), eq("record too large"), any());
+        verify(outboxEventStore, never()).recordFailure(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void waitsForAcksOutsideTransaction() {
+        claim(event(1, "B-1", 0), event(2, "B-2", 0));
+        when(outboxEventStore.markPublished(anyCollection(), any())).thenAnswer(invocation -> {
+            assertTrue(inTransaction.get());
+            return 2;
+        });
+
+        relay.relay();
+
+        assertEquals(List.of(false, false), waitedInTransaction);
+        verify(outboxEventStore).markPublished(eq(List.of(1L, 2L)), any());
+    }
+
+    private void claim(OutboxMessage... events) {
+        when(outboxEventStore.claimBatch(anyInt(), any(), any())).thenAnswer(invocation -> {
+            assertTrue(inTransaction.get());
+            Instant now = invocation.getArgument(1);
+            Instant leaseUntil = invocation.getArgument(2);
+            assertEquals(60_000, leaseUntil.toEpochMilli() - now.toEpochMilli());
+            return List.of(events);
+        });
+    }
+
+    private static OutboxMessage event(long id, String key, int attempts) {
+        return new OutboxMessage(id, "booking-events", key, "BookingCreatedEvent", new byte[] {1}, attempts);
+    }
+
+    private CompletableFuture<SendResult<String, Object>> acked() {
+        return new CompletableFuture<>() {
+            @Override
+            public SendResult<String, Object> get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                waitedInTransaction.add(inTransaction.get());
+                return null;
+            }
+        };
+    }
+
+    private CompletableFuture<SendResult<String, Object>> failsOnAck(Throwable cause) {
+        return new CompletableFuture<>() {
+            @Override
+            public SendResult<String, Object> get(long timeout, TimeUnit unit) throws ExecutionException {
+                throw new ExecutionException(cause);
+            }
+        };
+    }
+
+    /**
+     * Chỉ ghi nhận đang ở trong transaction hay không.
+     */
+    private class FlagTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            inTransaction.set(true);
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            inTransaction.set(false);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            inTransaction.set(false);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bookingcare.common.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 1 trang kết quả phân trang keyset.
+ * nextCursor = null khi đã tới trang cuối; client gửi lại nguyên giá trị nextCursor để lấy trang kế.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasNext) {
+
+    /**
+     * @param rows  kết quả query với limit + 1 dòng (dòng dư chỉ để biết còn trang sau hay không)
+     * @param keyOf khoá keyset của 1 dòng (cột đã sắp xếp trong query)
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int limit, Function<E, String> keyOf, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > limit;
+        List<E> page = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? PageCursor.encode(keyOf.apply(page.get(page.size() - 1))) : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookingcare.common.pagination;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Ghi stream kết quả ra NDJSON (mỗi dòng 1 object JSON), dùng cho các endpoint export.
+ *
+ * Không gom cả danh sách vào RAM: mỗi dòng được serialize thẳng ra response, flush theo lô.
+ * Sau mỗi lô gọi afterBatch (thường là EntityManager::clear) để persistence context không phình theo số dòng.
+ */
+public final class NdjsonWriter {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int BATCH_SIZE = 500;
+
+    private NdjsonWriter() {
+    }
+
+    /**
+     * @return số dòng đã ghi
+     */
+    public static long write(Stream<?> rows, OutputStream out, ObjectMapper objectMapper, Runnable afterBatch)
+            throws IOException {
+        // Không chèn dấu cách giữa các root value, xuống dòng do writeRaw ghi
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        long count = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+
+                if (++count % BATCH_SIZE == 0) {
+                    generator.flush();
+                    afterBatch.run();
+                }
+            }
+            generator.flush();
+        }
+        return count;
+    }
+}
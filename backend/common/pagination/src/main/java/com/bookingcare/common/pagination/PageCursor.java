@@ -0,0 +1,52 @@
+package com.bookingcare.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor phân trang keyset: WHERE key > :after ORDER BY key LIMIT n, không dùng OFFSET
+ * nên trang sau cùng tốn như trang đầu (đi theo index, không quét lại các dòng đã bỏ qua).
+ *
+ * Token gửi cho client là base64url("v1:" + key dòng cuối của trang trước), client không cần hiểu nội dung.
+ */
+public final class PageCursor {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private static final String VERSION = "v1:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((VERSION + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return key dòng cuối trang trước, null khi không có cursor (trang đầu)
+     */
+    public static String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (!decoded.startsWith(VERSION) || decoded.length() == VERSION.length()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return decoded.substring(VERSION.length());
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,45 @@
+package com.bookingcare.common.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CursorPage.of với kết quả query limit + 1 dòng: dòng dư chỉ báo còn trang sau,
+ * nextCursor trỏ tới key dòng cuối của trang.
+ */
+class CursorPageTests {
+
+    @Test
+    void extraRowMeansNextPage() {
+        CursorPage<String> page = CursorPage.of(List.of("a", "b", "c"), 2, Function.identity(), String::toUpperCase);
+
+        assertEquals(List.of("A", "B"), page.items());
+        assertTrue(page.hasNext());
+        assertEquals("b", PageCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<String> page = CursorPage.of(List.of("a", "b"), 2, Function.identity(), String::toUpperCase);
+
+        assertEquals(List.of("A", "B"), page.items());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void emptyResultIsEmptyLastPage() {
+        CursorPage<String> page = CursorPage.of(List.<String>of(), 2, Function.identity(), String::toUpperCase);
+
+        assertTrue(page.items().isEmpty());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookingcare.common.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * NdjsonWriter: mỗi dòng 1 object JSON, không có dấu cách giữa các dòng, afterBatch chạy sau mỗi 500 dòng
+ * và output stream của caller không bị đóng.
+ */
+class NdjsonWriterTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = NdjsonWriter.write(IntStream.range(0, 3).mapToObj(i -> Map.of("id", i)), out, objectMapper, () -> {
+        });
+
+        assertEquals(3, count);
+        assertEquals("{\"id\":0}\n{\"id\":1}\n{\"id\":2}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void runsAfterBatchEveryBatchAndKeepsStreamOpen() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger batches = new AtomicInteger();
+
+        long count = NdjsonWriter.write(IntStream.range(0, 1_250).mapToObj(i -> Map.of("id", i)), out, objectMapper,
+                batches::incrementAndGet);
+        out.write('#');
+
+        assertEquals(1_250, count);
+        assertEquals(2, batches.get());
+        assertEquals(1_250, out.toString(StandardCharsets.UTF_8).split("\n").length - 1);
+    }
+}
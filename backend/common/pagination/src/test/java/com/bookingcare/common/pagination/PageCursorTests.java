@@ -0,0 +1,55 @@
+package com.bookingcare.common.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PageCursor: encode / decode giữ nguyên key, cursor rỗng là trang đầu, cursor sai định dạng bị từ chối,
+ * limit được đưa về [1, MAX_LIMIT].
+ */
+class PageCursorTests {
+
+    @Test
+    void roundTripsKey() {
+        String key = "2030-01-01T08:00:00Z|B-1/ngày";
+
+        String cursor = PageCursor.encode(key);
+
+        // base64url không padding: dùng thẳng trong query string
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"), cursor);
+        assertEquals(key, PageCursor.decode(cursor));
+    }
+
+    @Test
+    void missingCursorIsFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(" "));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(urlBase64("v2:B-1")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(urlBase64("v1:")));
+    }
+
+    @Test
+    void limitIsClamped() {
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.clampLimit(null));
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.clampLimit(0));
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.clampLimit(-5));
+        assertEquals(20, PageCursor.clampLimit(20));
+        assertEquals(PageCursor.MAX_LIMIT, PageCursor.clampLimit(10_000));
+    }
+
+    private static String urlBase64(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
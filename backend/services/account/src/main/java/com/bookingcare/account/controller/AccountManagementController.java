@@ -2,16 +2,20 @@ package com.bookingcare.account.controller;
 
 import com.bookingcare.account.dto.AccountAdminDTO;
 import com.bookingcare.account.service.AccountManagementService;
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,10 +26,21 @@ public class AccountManagementController {
 
     private final AccountManagementService accountManagementService;
 
+    // Phân trang keyset: truyền lại nextCursor của trang trước, limit mặc định 50, tối đa 500
     @GetMapping
-    public ResponseEntity<List<AccountAdminDTO>> getAccounts() {
-        List<AccountAdminDTO> accounts = accountManagementService.getAllAccounts();
-        return ResponseEntity.ok(accounts);
+    public ResponseEntity<CursorPage<AccountAdminDTO>> getAccounts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(accountManagementService.getAllAccounts(cursor, limit));
+    }
+
+    // Export toàn bộ account dạng NDJSON, stream thẳng từ DB ra response
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportAccounts() {
+        StreamingResponseBody body = accountManagementService::exportAllAccounts;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"accounts.ndjson\"")
+                .body(body);
     }
 
     @DeleteMapping("/{accountId}")
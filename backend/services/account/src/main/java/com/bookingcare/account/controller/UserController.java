@@ -3,14 +3,17 @@ package com.bookingcare.account.controller;
 import com.bookingcare.account.dto.UpdateProfileRequest;
 import com.bookingcare.account.dto.UserDTO;
 import com.bookingcare.account.service.UserService;
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,13 +26,26 @@ public class UserController {
 
 
     /**
-     * Get all active users
+     * Get active users, keyset paginated (cursor = nextCursor of the previous page)
      */
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        log.info("Fetching all users");
-        List<UserDTO> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<CursorPage<UserDTO>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Fetching users page");
+        return ResponseEntity.ok(userService.getAllUsers(cursor, limit));
+    }
+
+    /**
+     * Export all active users as NDJSON (streamed, one user per line)
+     */
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        log.info("Exporting users");
+        StreamingResponseBody body = userService::exportAllUsers;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(body);
     }
 
     /**
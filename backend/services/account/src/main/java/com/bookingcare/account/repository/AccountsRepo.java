@@ -1,9 +1,17 @@
 package com.bookingcare.account.repository;
 
 import com.bookingcare.account.entity.Accounts;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccountsRepo extends JpaRepository<Accounts, String> {
 
@@ -11,4 +19,19 @@ public interface AccountsRepo extends JpaRepository<Accounts, String> {
 
 
     Optional<Accounts> findByIdAndIsDeletedFalse(String id);
+
+    // Phân trang keyset theo khoá chính; roles / user fetch cùng query để không N+1 khi map DTO
+    @Query("SELECT a FROM Accounts a JOIN FETCH a.roles JOIN FETCH a.user ORDER BY a.id")
+    List<Accounts> findFirstPage(Limit limit);
+
+    @Query("SELECT a FROM Accounts a JOIN FETCH a.roles JOIN FETCH a.user WHERE a.id > :afterId ORDER BY a.id")
+    List<Accounts> findPageAfter(@Param("afterId") String afterId, Limit limit);
+
+    // Export: đọc dần theo fetch size, dùng trong transaction và đóng stream sau khi dùng
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Accounts a JOIN FETCH a.roles JOIN FETCH a.user ORDER BY a.id")
+    Stream<Accounts> streamAllOrderById();
 }
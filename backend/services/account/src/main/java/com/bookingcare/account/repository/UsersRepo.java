@@ -1,20 +1,37 @@
 package com.bookingcare.account.repository;
 
 import com.bookingcare.account.entity.Users;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsersRepo extends JpaRepository<Users, String> {
 
     // Find active users (not deleted)
-    @Query("SELECT u FROM Users u WHERE u.isDeleted = false")
-    List<Users> findAllActiveUsers();
+    @Query("SELECT u FROM Users u WHERE u.isDeleted = false ORDER BY u.id")
+    List<Users> findFirstActivePage(Limit limit);
+
+    // Keyset: trang sau bắt đầu ngay sau id cuối của trang trước
+    @Query("SELECT u FROM Users u WHERE u.isDeleted = false AND u.id > :afterId ORDER BY u.id")
+    List<Users> findActivePageAfter(@Param("afterId") String afterId, Limit limit);
+
+    // Export: đọc dần theo fetch size, dùng trong transaction và đóng stream sau khi dùng
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM Users u WHERE u.isDeleted = false ORDER BY u.id")
+    Stream<Users> streamAllActiveUsers();
 
     // Find user by email (active only)
     @Query("SELECT u FROM Users u WHERE u.email = :email AND u.isDeleted = false")
@@ -4,12 +4,21 @@ import com.bookingcare.account.dto.AccountAdminDTO;
 import com.bookingcare.account.entity.Accounts;
 import com.bookingcare.account.entity.Users;
 import com.bookingcare.account.repository.AccountsRepo;
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.common.pagination.PageCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -18,14 +27,32 @@ import java.util.List;
 public class AccountManagementService {
 
     private final AccountsRepo accountsRepo;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     @Transactional(readOnly = true)
-    public List<AccountAdminDTO> getAllAccounts() {
-        log.info("Fetching all accounts for admin management");
-        return accountsRepo.findAll()
-                .stream()
-                .map(this::mapToDto)
-                .toList();
+    public CursorPage<AccountAdminDTO> getAllAccounts(String cursor, Integer limit) {
+        log.info("Fetching accounts page for admin management");
+        int pageSize = PageCursor.clampLimit(limit);
+        String afterId = PageCursor.decode(cursor);
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<Accounts> accounts = afterId == null
+                ? accountsRepo.findFirstPage(Limit.of(pageSize + 1))
+                : accountsRepo.findPageAfter(afterId, Limit.of(pageSize + 1));
+        return CursorPage.of(accounts, pageSize, Accounts::getId, this::mapToDto);
+    }
+
+    /**
+     * Ghi toàn bộ account ra NDJSON, persistence context được clear theo lô nên RAM không tăng theo số dòng
+     */
+    @Transactional(readOnly = true)
+    public long exportAllAccounts(OutputStream out) throws IOException {
+        try (Stream<Accounts> accounts = accountsRepo.streamAllOrderById()) {
+            long rows = NdjsonWriter.write(accounts.map(this::mapToDto), out, objectMapper, entityManager::clear);
+            log.info("Exported {} accounts", rows);
+            return rows;
+        }
     }
 
     public void softDeleteAccount(String accountId) {
@@ -6,17 +6,25 @@ import com.bookingcare.account.dto.UserDTO;
 import com.bookingcare.account.entity.Users;
 import com.bookingcare.account.mapper.UsersMapper;
 import com.bookingcare.account.repository.UsersRepo;
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.common.pagination.PageCursor;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import feign.FeignException;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 // import main.java.com.bookingcare.shared.dto.expertise.DoctorsResponseDTO;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import java.util.Map;
 import java.util.Optional;
@@ -38,18 +46,35 @@ public class UserService {
     private final UsersRepo usersRepo;
     private final UsersMapper usersMapper;
     private final ExpertiseClient expertiseClient;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     /**
      * Get all active users
      */
     @Transactional(readOnly = true)
-    public List<UserDTO> getAllUsers() {
-        log.info("Fetching all active users");
+    public CursorPage<UserDTO> getAllUsers(String cursor, Integer limit) {
+        log.info("Fetching active users page");
+        int pageSize = PageCursor.clampLimit(limit);
+        String afterId = PageCursor.decode(cursor);
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<Users> users = afterId == null
+                ? usersRepo.findFirstActivePage(Limit.of(pageSize + 1))
+                : usersRepo.findActivePageAfter(afterId, Limit.of(pageSize + 1));
+        return CursorPage.of(users, pageSize, Users::getId, usersMapper::toUsersDTO);
+    }
 
-        List<Users> users = usersRepo.findAllActiveUsers();
-        return users.stream()
-                .map(usersMapper::toUsersDTO)
-                .collect(Collectors.toList());
+    /**
+     * Export all active users as NDJSON
+     */
+    @Transactional(readOnly = true)
+    public long exportAllUsers(OutputStream out) throws IOException {
+        try (Stream<Users> users = usersRepo.streamAllActiveUsers()) {
+            long rows = NdjsonWriter.write(users.map(usersMapper::toUsersDTO), out, objectMapper, entityManager::clear);
+            log.info("Exported {} active users", rows);
+            return rows;
+        }
     }
 
     /**
@@ -3,6 +3,7 @@ package com.bookingcare.application.dto;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 public record QueryBookingOrderDetailInfoResponse(
         String bookingId,
@@ -15,7 +16,9 @@ public record QueryBookingOrderDetailInfoResponse(
         ScheduleInfo scheduleInfo,
         ClinicInfo clinicInfo,
         ZonedDateTime createdAt,
-        ZonedDateTime updatedAt) {
+        ZonedDateTime updatedAt,
+        // Nguồn dữ liệu không trả kịp / lỗi, các field tương ứng để null
+        List<String> degradedSources) {
     public static record PatientInfo(
             String patientId,
             String fullName,
@@ -0,0 +1,18 @@
+package com.bookingcare.application.dto;
+
+import java.time.ZonedDateTime;
+
+public record QueryBookingSagaStateResponse(
+    String bookingId,
+    String correlationId,
+    String sagaStatus,
+    String currentSagaStep,
+    String scheduleHoldId,
+    ZonedDateTime holdExpireAt,
+    String externalPaymentId,
+    String lastPaymentStatus,
+    ZonedDateTime createdAt,
+    ZonedDateTime updatedAt
+) {
+
+}
@@ -0,0 +1,15 @@
+package com.bookingcare.application.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldSlotFailedEvent {
+    private String bookingId;
+    private String reason;
+}
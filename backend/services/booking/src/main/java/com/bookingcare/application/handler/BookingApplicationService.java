@@ -1,16 +1,25 @@
 package com.bookingcare.application.handler;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.bookingcare.application.dto.CreateBookingCommand;
 import com.bookingcare.application.dto.HealthCheckBookHistoryResponse;
 import com.bookingcare.application.dto.QueryBookingOrderDetailInfoResponse;
 import com.bookingcare.application.dto.QueryBookingPackageDetailInfo;
+import com.bookingcare.application.dto.QueryBookingSagaStateResponse;
 import com.bookingcare.application.dto.QueryOrdersResponse;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
 import com.bookingcare.application.dto.event.BookingCreatedEvent;
@@ -18,15 +27,20 @@ import com.bookingcare.application.mapper.BookingMapperApplication;
 import com.bookingcare.application.ports.input.IBookingApplicationService;
 import com.bookingcare.application.ports.output.IBookingRepository;
 import com.bookingcare.application.ports.output.IHealthCheckPackageScheduleBookingDetailRepository;
-import com.bookingcare.application.ports.output.IScheduleFeignClientService;
 import com.bookingcare.application.saga.BookingEventPublisher;
+import com.bookingcare.application.saga.BookingSagaStateStore;
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.common.pagination.PageCursor;
 import com.bookingcare.domain.entity.BookingPackageDetail;
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
 import com.bookingcare.domain.valueobject.BookingStatus;
+import com.bookingcare.domain.valueobject.SagaStatus;
+import com.bookingcare.infrastructure.concurrency.FanOut;
+import com.bookingcare.infrastructure.external.BatchLoader;
 import com.bookingcare.infrastructure.external.package_service.HealthCheckPackageResponse;
-import com.bookingcare.infrastructure.external.package_service.HealthPackageFeignClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -37,9 +51,14 @@ public class BookingApplicationService implements IBookingApplicationService {
     private final BookingMapperApplication bookingMapper;
     private final IBookingRepository _bookingRepository;
     private final IHealthCheckPackageScheduleBookingDetailRepository _healthCheckPackageScheduleBookingDetailRepository;
-    private final IScheduleFeignClientService _scheduleFeignClientService;
     private final BookingEventPublisher eventPublisher;
-    private final HealthPackageFeignClient healthPackageFeignClient;
+    private final BookingSagaStateStore sagaStateStore;
+    // Gom lookup sang package-service / schedule-service thành bulk call (POST .../batch)
+    private final BatchLoader<UUID, HealthCheckPackageResponse> healthPackageBatchLoader;
+    private final BatchLoader<String, QueryPackageScheduleResponse> packageScheduleBatchLoader;
+    // Chạy song song các lookup độc lập của 1 view (virtual thread, deadline chung)
+    private final FanOut fanOut;
+    private final ObjectMapper objectMapper;
 
 
 
@@ -56,28 +75,32 @@ public class BookingApplicationService implements IBookingApplicationService {
 
             HealthCheckPackageScheduleBookingDetail orderDetail = orderDetailOptional.get();
 
-            Optional<QueryPackageScheduleResponse> packageScheduleOptional = _scheduleFeignClientService
-                    .getPackageScheduleById(orderDetail.getPackageScheduleId()).getData();
-
-            if (packageScheduleOptional.isEmpty()) {
-                log.warn("Package schedule with id {} not found", orderDetail.getPackageScheduleId());
-                return null;
+            // Package schedule (schedule-service) và booking package detail (DB) độc lập: chạy song song,
+            // nguồn nào lỗi / quá hạn thì trả kết quả một phần (degradedSources)
+            try (FanOut.Scope scope = fanOut.open("order-detail")) {
+                FanOut.Source<QueryPackageScheduleResponse> scheduleSource = scope.forkOptional("schedule-service",
+                        () -> packageScheduleBatchLoader.load(orderDetail.getPackageScheduleId()).join(), null);
+                FanOut.Source<List<BookingPackageDetail>> packageDetailsSource = scope.forkOptional("booking-package-details",
+                        () -> _bookingRepository.findAllByBookingPackageIds(List.of(orderDetail.getBookingPackageId())),
+                        List.of());
+
+                QueryPackageScheduleResponse packageSchedule = scheduleSource.get();
+                List<BookingPackageDetail> packageDetails = packageDetailsSource.get();
+
+                if (packageSchedule == null && !scheduleSource.degraded()) {
+                    log.warn("Package schedule with id {} not found", orderDetail.getPackageScheduleId());
+                    return null;
+                }
+
+                BookingPackageDetail packageDetail = selectPackageDetail(packageDetails, packageSchedule);
+                if (packageDetail == null && !packageDetailsSource.degraded()) {
+                    log.warn("Booking package detail not found for package: {} and schedule: {}",
+                            orderDetail.getBookingPackageId(), orderDetail.getPackageScheduleId());
+                }
+
+                return bookingMapper.toQueryBookingOrderDetailInfoResponse(
+                        orderDetail, packageSchedule, packageDetail, scope.degradedSources());
             }
-
-            QueryPackageScheduleResponse packageSchedule = packageScheduleOptional.get();
-
-            Optional<BookingPackageDetail> packageDetailOptional = _bookingRepository
-                    .findById(orderDetail.getBookingPackageId(),
-                            packageSchedule.packageId());
-
-            if (packageDetailOptional.isEmpty()) {
-                log.warn("Booking package detail not found for package: {} and schedule: {}",
-                        orderDetail.getBookingPackageId(), packageSchedule.packageId());
-            }
-
-            BookingPackageDetail packageDetail = packageDetailOptional.get();
-
-            return bookingMapper.toQueryBookingOrderDetailInfoResponse(orderDetail, packageSchedule, packageDetail);
         } catch (Exception e) {
             log.error("Error fetching bookings for patient id {}: {}", id, e.getMessage());
             throw e;
@@ -85,6 +108,19 @@ public class BookingApplicationService implements IBookingApplicationService {
     }
 
 
+    // Detail của gói trong lịch đã đặt; không có lịch (degraded) thì chỉ chọn khi booking package có đúng 1 gói
+    private static BookingPackageDetail selectPackageDetail(List<BookingPackageDetail> packageDetails,
+                                                            QueryPackageScheduleResponse packageSchedule) {
+        if (packageSchedule == null) {
+            return packageDetails.size() == 1 ? packageDetails.get(0) : null;
+        }
+        return packageDetails.stream()
+                .filter(detail -> packageSchedule.packageId().equals(detail.getPackageId()))
+                .findFirst()
+                .orElse(null);
+    }
+
+
     @Override
     @Transactional
     public String createBooking(CreateBookingCommand cmd) {
@@ -100,6 +136,8 @@ public class BookingApplicationService implements IBookingApplicationService {
         // 2. Generate correlation ID for distributed tracing
         String correlationId = java.util.UUID.randomUUID().toString();
         
+        sagaStateStore.start(savedBooking.getId(), correlationId);
+
         log.info("Saga initiated: bookingId={}, correlationId={}", 
                 savedBooking.getId(), correlationId);
 
@@ -150,17 +188,22 @@ public class BookingApplicationService implements IBookingApplicationService {
     }
 
     @Override
-    public List<QueryOrdersResponse> getAllBookingOrders() {
-        try {
-            List<HealthCheckPackageScheduleBookingDetail> bookings = _healthCheckPackageScheduleBookingDetailRepository
-                    .findAll();
-            List<QueryOrdersResponse> response = bookings.stream()
-                    .map(bookingMapper::toQueryOrdersResponse)
-                    .toList();
-            return response;
-        } catch (Exception e) {
-            log.error("Error fetching bookings: {}", e.getMessage());
-            throw e;
+    public CursorPage<QueryOrdersResponse> getAllBookingOrders(String cursor, Integer limit) {
+        int pageSize = PageCursor.clampLimit(limit);
+        List<HealthCheckPackageScheduleBookingDetail> bookings = _healthCheckPackageScheduleBookingDetailRepository
+                .findPageAfter(PageCursor.decode(cursor), pageSize + 1);
+        return CursorPage.of(bookings, pageSize, HealthCheckPackageScheduleBookingDetail::getId,
+                bookingMapper::toQueryOrdersResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBookingOrders(OutputStream out) throws IOException {
+        try (Stream<HealthCheckPackageScheduleBookingDetail> bookings = _healthCheckPackageScheduleBookingDetailRepository
+                .streamAll()) {
+            // Adapter tự clear persistence context theo lô
+            return NdjsonWriter.write(bookings.map(bookingMapper::toQueryOrdersResponse), out, objectMapper, () -> {
+            });
         }
     }
 
@@ -199,25 +242,7 @@ public class BookingApplicationService implements IBookingApplicationService {
                 );
             }
             
-            HealthCheckPackageScheduleBookingDetail booking = bookingOptional.get();
-            
-            // ✅ Chưa có paymentUrl → Đang xử lý
-            if (booking.getPaymentUrl() == null) {
-                return Map.of(
-                        "status", "PENDING",
-                        "message", "Payment link is being generated...",
-                        "bookingStatus", booking.getBookingStatus().toString()
-                );
-            }
-            
-            // ✅ Đã có paymentUrl → Sẵn sàng
-            return Map.of(
-                    "status", "READY",
-                    "paymentUrl", booking.getPaymentUrl(),
-                    "orderCode", booking.getOrderCode(),
-                    "bookingStatus", booking.getBookingStatus().toString(),
-                    "message", "Payment link ready. Redirect user to paymentUrl."
-            );
+            return bookingMapper.toPaymentUrlStatus(bookingOptional.get());
             
         } catch (Exception e) {
             log.error("Error getting payment URL for bookingId: {}", bookingId, e);
@@ -237,43 +262,34 @@ public class BookingApplicationService implements IBookingApplicationService {
             
             log.info("Found {} booking package details", packageDetails.size());
             
-            // 2. Map and enrich with health check package info via OpenFeign
+            // 2. 1 bulk call sang package-service cho mọi packageId (bỏ trùng), thay vì 1 call / dòng
+            List<UUID> packageIds = packageDetails.stream()
+                    .map(BookingPackageDetail::getPackageId)
+                    .map(BookingApplicationService::toPackageUuid)
+                    .filter(Objects::nonNull)
+                    .toList();
+            Map<UUID, HealthCheckPackageResponse> packages = healthPackageBatchLoader.loadMany(packageIds);
+
+            // 3. Map and enrich with health check package info
             List<QueryBookingPackageDetailInfo> response = packageDetails.stream()
                     .map(packageDetail -> {
-                        try {
-                            // Get the package ID from booking package detail
-                            String packageId = packageDetail.getPackageId();
-                            
-                            if (packageId == null || packageId.isEmpty()) {
-                                log.warn("Package ID is null or empty for booking package id: {}", 
-                                        packageDetail.getBookingPackageId());
-                                return null;
-                            }
-                            
-                            // Call package-service via OpenFeign to get health check package details
-                            ResponseEntity<HealthCheckPackageResponse> responseEntity = healthPackageFeignClient
-                                    .getPackageDetail(java.util.UUID.fromString(packageId));
-                            
-                            if (!responseEntity.getStatusCode().is2xxSuccessful() || responseEntity.getBody() == null) {
-                                log.warn("Failed to fetch health check package from package-service for package id: {}", 
-                                        packageId);
-                                return null;
-                            }
-                            
-                            HealthCheckPackageResponse healthCheckPackage = responseEntity.getBody();
-                            
-                            // Map to QueryBookingPackageDetailInfo DTO
-                            return bookingMapper.toQueryBookingPackageDetailInfo(
-                                    packageDetail, 
-                                    healthCheckPackage
-                            );
-                        } catch (Exception e) {
-                            log.warn("Error processing booking package id {}: {}", 
-                                    packageDetail.getBookingPackageId(), e.getMessage());
+                        String packageId = packageDetail.getPackageId();
+                        if (packageId == null || packageId.isEmpty()) {
+                            log.warn("Package ID is null or empty for booking package id: {}",
+                                    packageDetail.getBookingPackageId());
+                            return null;
+                        }
+
+                        HealthCheckPackageResponse healthCheckPackage = packages.get(toPackageUuid(packageId));
+                        if (healthCheckPackage == null) {
+                            log.warn("Health check package not found in package-service for package id: {}",
+                                    packageId);
                             return null;
                         }
+
+                        return bookingMapper.toQueryBookingPackageDetailInfo(packageDetail, healthCheckPackage);
                     })
-                    .filter(detail -> detail != null)
+                    .filter(Objects::nonNull)
                     .toList();
             
             log.info("Successfully enriched {} booking package details with health check package info", 
@@ -286,6 +302,33 @@ public class BookingApplicationService implements IBookingApplicationService {
     }
 
 
+    private static UUID toPackageUuid(String packageId) {
+        if (packageId == null || packageId.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(packageId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid package id: {}", packageId);
+            return null;
+        }
+    }
+
+
+    @Override
+    public List<QueryBookingSagaStateResponse> getSagasByStatus(String sagaStatus, int limit) {
+        try {
+            return sagaStateStore.findBySagaStatus(SagaStatus.fromString(sagaStatus), limit)
+                    .stream()
+                    .map(bookingMapper::toQueryBookingSagaStateResponse)
+                    .toList();
+        } catch (Exception e) {
+            log.error("Error fetching sagas with status {}: {}", sagaStatus, e.getMessage());
+            throw e;
+        }
+    }
+
+
     @Override
     public List<HealthCheckBookHistoryResponse> getBookingHistoryByPatientId(String id) {
         try {
@@ -301,35 +344,31 @@ public class BookingApplicationService implements IBookingApplicationService {
             
             log.info("Found {} bookings for patient id: {}", bookings.size(), id);
             
+            // 1 query cho booking package detail của mọi booking (thay vì 1 query / booking), có deadline
+            Set<String> bookingPackageIds = bookings.stream()
+                    .map(HealthCheckPackageScheduleBookingDetail::getBookingPackageId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<String, BookingPackageDetail> packageDetails;
+            try (FanOut.Scope scope = fanOut.open("book-history")) {
+                packageDetails = scope.fork("booking-package-details",
+                        () -> _bookingRepository.findAllByBookingPackageIds(bookingPackageIds).stream()
+                                .collect(Collectors.toMap(BookingPackageDetail::getBookingPackageId,
+                                        Function.identity(), (first, second) -> first)))
+                        .get();
+            }
+
             List<HealthCheckBookHistoryResponse> response = bookings.stream()
                     .map(booking -> {
-                        try {
-                            log.info("Processing booking - bookingPackageId: {}", booking.getBookingPackageId());
-                            
-                            // Find BookingPackageDetail using bookingPackageId
-                            Optional<BookingPackageDetail> packageDetailOptional = _bookingRepository
-                                    .findByBookingPackageId(booking.getBookingPackageId());
-                            
-                            if (packageDetailOptional.isEmpty()) {
-                                log.warn("BookingPackageDetail not found for bookingPackageId: {}", 
-                                        booking.getBookingPackageId());
-                                return null;
-                            }
-                            
-                            BookingPackageDetail packageDetail = packageDetailOptional.get();
-                            log.info("Found BookingPackageDetail - packageId: {}, price: {}", 
-                                    packageDetail.getPackageId(), packageDetail.getPrice());
-                            
-                            // Map booking and packageDetail to HistoryResponse
-                            return bookingMapper.toHealthCheckBookHistoryResponse(booking, packageDetail);
-                            
-                        } catch (Exception e) {
-                            log.warn("Error processing booking history for bookingPackageId {}: {}", 
-                                    booking.getBookingPackageId(), e.getMessage());
+                        BookingPackageDetail packageDetail = packageDetails.get(booking.getBookingPackageId());
+                        if (packageDetail == null) {
+                            log.warn("BookingPackageDetail not found for bookingPackageId: {}",
+                                    booking.getBookingPackageId());
                             return null;
                         }
+                        return bookingMapper.toHealthCheckBookHistoryResponse(booking, packageDetail);
                     })
-                    .filter(response_item -> response_item != null)
+                    .filter(Objects::nonNull)
                     .toList();
             
             log.info("Successfully processed {} booking history records", response.size());
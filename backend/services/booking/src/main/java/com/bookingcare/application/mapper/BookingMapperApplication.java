@@ -1,6 +1,8 @@
 package com.bookingcare.application.mapper;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Component;
 
@@ -9,10 +11,12 @@ import com.bookingcare.application.dto.CreateBookingResponse;
 import com.bookingcare.application.dto.HealthCheckBookHistoryResponse;
 import com.bookingcare.application.dto.QueryBookingOrderDetailInfoResponse;
 import com.bookingcare.application.dto.QueryBookingPackageDetailInfo;
+import com.bookingcare.application.dto.QueryBookingSagaStateResponse;
 import com.bookingcare.application.dto.QueryOrdersResponse;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
 import com.bookingcare.application.dto.QueryScheduleResponse;
 import com.bookingcare.domain.entity.BookingPackageDetail;
+import com.bookingcare.domain.entity.BookingSagaState;
 import com.bookingcare.domain.entity.HealthCheckPackageSchedule;
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
 import com.bookingcare.domain.entity.Schedule;
@@ -29,6 +33,27 @@ public class BookingMapperApplication {
         return str == null || str.isEmpty();
     }
 
+    /**
+     * Trạng thái link thanh toán: PENDING khi saga chưa tạo xong link, READY khi đã có paymentUrl.
+     */
+    public Map<String, Object> toPaymentUrlStatus(HealthCheckPackageScheduleBookingDetail booking) {
+        if (booking.getPaymentUrl() == null) {
+            return Map.of(
+                    "status", "PENDING",
+                    "message", "Payment link is being generated...",
+                    "bookingStatus", booking.getBookingStatus().toString()
+            );
+        }
+
+        return Map.of(
+                "status", "READY",
+                "paymentUrl", booking.getPaymentUrl(),
+                "orderCode", booking.getOrderCode(),
+                "bookingStatus", booking.getBookingStatus().toString(),
+                "message", "Payment link ready. Redirect user to paymentUrl."
+        );
+    }
+
     public HealthCheckPackageScheduleBookingDetail toEntity(CreateBookingCommand command) {
         // Map fields from command to entity
         return HealthCheckPackageScheduleBookingDetail.builder()
@@ -94,12 +119,16 @@ public class BookingMapperApplication {
     public QueryBookingOrderDetailInfoResponse toQueryBookingOrderDetailInfoResponse(
         HealthCheckPackageScheduleBookingDetail booking, 
         QueryPackageScheduleResponse packageSchedule,
-        BookingPackageDetail packageDetail
+        BookingPackageDetail packageDetail,
+        List<String> degradedSources
         ) {
         if (booking == null) {
             return null;
         }
 
+        // packageSchedule / packageDetail có thể null khi nguồn tương ứng bị degraded
+        QueryScheduleResponse schedule = packageSchedule != null ? packageSchedule.schedule() : null;
+
         return new QueryBookingOrderDetailInfoResponse(
                 booking.getId(),
                 booking.getPatientRelativesName(),
@@ -115,15 +144,16 @@ public class BookingMapperApplication {
                         "273 An Dương Vương, Phường 3, Quận 5, TP.HCM"
                 ),
                 new QueryBookingOrderDetailInfoResponse.ScheduleInfo(
-                        packageSchedule.packageScheduleId(),
+                        booking.getPackageScheduleId(),
                         "HCKPG046",
                         "Gói khám sức khỏe tổng quát chuyên sâu dành cho nữ (PKYD4F)",
-                        packageSchedule.schedule().startTime() + " - " + packageSchedule.schedule().endTime(),
-                        packageSchedule.scheduleDate(),
-                        new QueryBookingOrderDetailInfoResponse.ScheduleInfo.BookingPackageInfo(
-                                packageDetail.getBookingPackage().getName(),
-                                packageDetail.getPrice()
-                        )
+                        schedule != null ? schedule.startTime() + " - " + schedule.endTime() : null,
+                        packageSchedule != null ? packageSchedule.scheduleDate() : null,
+                        packageDetail != null
+                                ? new QueryBookingOrderDetailInfoResponse.ScheduleInfo.BookingPackageInfo(
+                                        packageDetail.getBookingPackage().getName(),
+                                        packageDetail.getPrice())
+                                : null
                 ),
                 new QueryBookingOrderDetailInfoResponse.ClinicInfo(
                         "Phòng khám Bệnh viện Đại học Y Dược 1",
@@ -131,7 +161,8 @@ public class BookingMapperApplication {
                         "20-22 Đường Quang Trung, Phường 12, Quận 10, Tp. HCM"
                 ),
                 booking.getCreatedDate(),
-                booking.getUpdatedDate()
+                booking.getUpdatedDate(),
+                degradedSources
         );
     }
 
@@ -160,10 +191,21 @@ public class BookingMapperApplication {
         );
     }
 
+    public QueryBookingSagaStateResponse toQueryBookingSagaStateResponse(BookingSagaState sagaState) {
+        if (sagaState == null) {
+            return null;
+        }
 
-
-
-
-
-
+        return new QueryBookingSagaStateResponse(
+                sagaState.getBookingId(),
+                sagaState.getCorrelationId(),
+                sagaState.getSagaStatus(),
+                sagaState.getCurrentSagaStep(),
+                sagaState.getScheduleHoldId(),
+                sagaState.getHoldExpireAt(),
+                sagaState.getExternalPaymentId(),
+                sagaState.getLastPaymentStatus(),
+                sagaState.getCreatedAt(),
+                sagaState.getUpdatedAt());
+    }
 }
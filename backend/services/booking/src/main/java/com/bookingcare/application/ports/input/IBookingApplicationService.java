@@ -1,5 +1,7 @@
 package com.bookingcare.application.ports.input;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -7,16 +9,23 @@ import com.bookingcare.application.dto.CreateBookingCommand;
 import com.bookingcare.application.dto.HealthCheckBookHistoryResponse;
 import com.bookingcare.application.dto.QueryBookingOrderDetailInfoResponse;
 import com.bookingcare.application.dto.QueryBookingPackageDetailInfo;
+import com.bookingcare.application.dto.QueryBookingSagaStateResponse;
 import com.bookingcare.application.dto.QueryOrdersResponse;
+import com.bookingcare.common.pagination.CursorPage;
 
 public interface IBookingApplicationService {
     QueryBookingOrderDetailInfoResponse getBookingsOrderDetailInfo(String id);
     String createBooking(CreateBookingCommand command);
     List<QueryOrdersResponse> getBookingByPatientId(String id);
     List<QueryOrdersResponse> getBookingByClinicId(String id);
-    List<QueryOrdersResponse> getAllBookingOrders();
+    CursorPage<QueryOrdersResponse> getAllBookingOrders(String cursor, Integer limit);
+    /**
+     * Ghi toàn bộ đơn ra NDJSON (theo id), bộ nhớ không tăng theo số dòng
+     */
+    long exportBookingOrders(OutputStream out) throws IOException;
     boolean updateBookingStatus(String id, String statusUpdate);
     Map<String, Object> getPaymentUrl(String bookingId);
     List<QueryBookingPackageDetailInfo> getAllBookingPackageDetails();
     List<HealthCheckBookHistoryResponse> getBookingHistoryByPatientId(String id);
+    List<QueryBookingSagaStateResponse> getSagasByStatus(String sagaStatus, int limit);
 }
@@ -1,5 +1,6 @@
 package com.bookingcare.application.ports.output;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +12,5 @@ public interface IBookingRepository {
     Optional<BookingPackageDetail> findById(String bookingPackageId, String healthCheckPackageId);
     List<BookingPackageDetail> findAllBookingPackageDetails();
     Optional<BookingPackageDetail> findByBookingPackageId(String bookingPackageId);
+    List<BookingPackageDetail> findAllByBookingPackageIds(Collection<String> bookingPackageIds);
 }
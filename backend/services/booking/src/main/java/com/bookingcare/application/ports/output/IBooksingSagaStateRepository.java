@@ -1,14 +1,28 @@
 package com.bookingcare.application.ports.output;
 
 import com.bookingcare.domain.entity.BookingSagaState;
-import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Repository interface for BookingSagaState persistence
  */
-public interface IBooksingSagaStateRepository extends JpaRepository<BookingSagaState, String> {
+public interface IBooksingSagaStateRepository {
+
+    /**
+     * Insert saga state mới (không SELECT trước)
+     */
+    BookingSagaState insert(BookingSagaState sagaState);
+
+    /**
+     * Ghi đè state của saga nếu row vẫn ở version của sagaState, tăng version khi thành công.
+     *
+     * @return false nếu row đã bị thay đổi bởi nơi khác (caller cần đọc lại)
+     */
+    boolean update(BookingSagaState sagaState);
     
     /**
      * Find saga state by booking ID
@@ -19,4 +33,20 @@ public interface IBooksingSagaStateRepository extends JpaRepository<BookingSagaS
      * Find saga state by correlation ID (for distributed tracing)
      */
     Optional<BookingSagaState> findByCorrelationId(String correlationId);
+
+    /**
+     * Saga theo saga_status (idx_saga_state_status), cũ nhất trước
+     */
+    List<BookingSagaState> findBySagaStatus(String sagaStatus, int limit);
+
+    /**
+     * Khoá (FOR UPDATE SKIP LOCKED) tối đa limit saga chưa kết thúc đã quá step_deadline_at.
+     * Phải gọi trong transaction.
+     */
+    List<BookingSagaState> claimOverdue(ZonedDateTime now, int limit);
+
+    /**
+     * Số saga chưa kết thúc có deadline <= horizon, theo current_saga_step
+     */
+    Map<String, Long> countDueByStep(ZonedDateTime horizon);
 }
@@ -2,12 +2,20 @@ package com.bookingcare.application.ports.output;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
 
 public interface IHealthCheckPackageScheduleBookingDetailRepository {
     HealthCheckPackageScheduleBookingDetail save(HealthCheckPackageScheduleBookingDetail bookingDetail);
-    List<HealthCheckPackageScheduleBookingDetail> findAll();
+    /**
+     * Trang keyset theo id tăng dần, afterId = null là trang đầu
+     */
+    List<HealthCheckPackageScheduleBookingDetail> findPageAfter(String afterId, int limit);
+    /**
+     * Toàn bộ đơn theo id tăng dần, đọc dần từ DB; caller phải ở trong transaction và đóng stream
+     */
+    Stream<HealthCheckPackageScheduleBookingDetail> streamAll();
     List<HealthCheckPackageScheduleBookingDetail> findByPatientId(String patientId);
     List<HealthCheckPackageScheduleBookingDetail> findByClinicId(String patientId);
     Optional<HealthCheckPackageScheduleBookingDetail> findById(String orderId);
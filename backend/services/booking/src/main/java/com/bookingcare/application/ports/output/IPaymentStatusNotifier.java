@@ -0,0 +1,13 @@
+package com.bookingcare.application.ports.output;
+
+import java.util.Map;
+
+/**
+ * Đẩy trạng thái link thanh toán của booking tới client đang chờ (SSE), thay cho việc client poll
+ * /{bookingId}/payment-url. Trong transaction thì chỉ gửi sau khi commit.
+ *
+ * status: cùng dạng với kết quả getPaymentUrl (status, paymentUrl, orderCode, bookingStatus, message).
+ */
+public interface IPaymentStatusNotifier {
+    void paymentStatusChanged(String bookingId, Map<String, Object> status);
+}
@@ -1,76 +1,62 @@
 package com.bookingcare.application.saga;
 
 import com.bookingcare.application.dto.event.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.application.ports.output.IOutboxEventRepository;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+/**
+ * Ghi event của saga vào outbox trong transaction của caller.
+ * OutboxRelay gửi lên Kafka sau khi transaction commit, nên event không bị mất
+ * khi service crash và request thread không phải chờ producer.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BookingEventPublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final IOutboxEventRepository _outboxEventRepository;
+    private final EventEnvelopeCodec eventEnvelopeCodec;
 
     private static final String BOOKING_EVENTS_TOPIC = "booking-events";
+    private static final String PAYMENT_COMMANDS_TOPIC = "payment-commands";
+    private static final String SCHEDULE_COMMANDS_TOPIC = "schedule-commands";
 
     public void publishBookingCreatedEvent(BookingCreatedEvent event, String correlationId) {
-        EventEnvelope<BookingCreatedEvent> envelope = EventEnvelope.of(
-                "BookingCreatedEvent",
-                event.getBookingId(),
-                correlationId,
-                "booking-service",
-                event
-        );
-
-        try {
-            String json = objectMapper.writeValueAsString(envelope);
-            kafkaTemplate.send(BOOKING_EVENTS_TOPIC, event.getBookingId(), json);
-            log.info("Published BookingCreatedEvent: bookingId={}, correlationId={}", 
-                    event.getBookingId(), correlationId);
-        } catch (Exception e) {
-            log.error("Failed to publish BookingCreatedEvent", e);
-            throw new RuntimeException("Failed to publish event", e);
-        }
+        publish(BOOKING_EVENTS_TOPIC, "BookingCreatedEvent", event.getBookingId(), correlationId, event);
     }
 
     public void publishPaymentRequestedEvent(PaymentRequestedEvent event, String correlationId) {
-        EventEnvelope<PaymentRequestedEvent> envelope = EventEnvelope.of(
-                "PaymentRequestedEvent",
-                event.getBookingId(),
-                correlationId,
-                "booking-service",
-                event
-        );
-
-        try {
-            String json = objectMapper.writeValueAsString(envelope);
-            kafkaTemplate.send("payment-commands", event.getBookingId(), json);
-            log.info("Published PaymentRequestedEvent: bookingId={}", event.getBookingId());
-        } catch (Exception e) {
-            log.error("Failed to publish PaymentRequestedEvent", e);
-            throw new RuntimeException("Failed to publish event", e);
-        }
+        publish(PAYMENT_COMMANDS_TOPIC, "PaymentRequestedEvent", event.getBookingId(), correlationId, event);
     }
 
     public void publishBookingConfirmedEvent(BookingConfirmedEvent event, String correlationId) {
-        EventEnvelope<BookingConfirmedEvent> envelope = EventEnvelope.of(
-                "BookingConfirmedEvent",
-                event.getBookingId(),
+        publish(SCHEDULE_COMMANDS_TOPIC, "BookingConfirmedEvent", event.getBookingId(), correlationId, event);
+    }
+
+    public void publishCancelHoldCommand(CancelHoldCommand command, String correlationId) {
+        publish(SCHEDULE_COMMANDS_TOPIC, "CancelHoldCommand", command.getBookingId(), correlationId, command);
+    }
+
+    private <T> void publish(String topic, String eventType, String bookingId, String correlationId, T payload) {
+        EventEnvelope<T> envelope = EventEnvelope.of(
+                eventType,
+                bookingId,
                 correlationId,
                 "booking-service",
-                event
+                payload
         );
 
         try {
-            String json = objectMapper.writeValueAsString(envelope);
-            kafkaTemplate.send("schedule-commands", event.getBookingId(), json);
-            log.info("Published BookingConfirmedEvent: bookingId={}", event.getBookingId());
+            byte[] encoded = eventEnvelopeCodec.encode(envelope);
+            _outboxEventRepository.append(topic, bookingId, eventType, encoded);
+            log.info("Queued {} in outbox: bookingId={}, correlationId={}", eventType, bookingId, correlationId);
         } catch (Exception e) {
-            log.error("Failed to publish BookingConfirmedEvent", e);
+            log.error("Failed to queue {}", eventType, e);
+            throw new RuntimeException("Failed to publish event", e);
         }
     }
-}
\ No newline at end of file
+}
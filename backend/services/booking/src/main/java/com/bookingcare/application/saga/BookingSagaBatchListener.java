@@ -0,0 +1,42 @@
+package com.bookingcare.application.saga;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.KafkaBatchListenerConfig;
+import com.bookingcare.common.messaging.KeyedBatchProcessor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batch mode của BookingSagaOrchestrator. Mỗi message vẫn đi qua method
+ * @Transactional của orchestrator nên DB commit trước khi offset được commit.
+ */
+@Component
+@ConditionalOnProperty(name = KafkaBatchListenerConfig.ENABLED_PROPERTY, havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class BookingSagaBatchListener {
+
+    private final BookingSagaOrchestrator bookingSagaOrchestrator;
+    private final KeyedBatchProcessor keyedBatchProcessor;
+
+    @KafkaListener(topics = "schedule-events", groupId = "booking-saga-group",
+            containerFactory = KafkaBatchListenerConfig.BATCH_CONTAINER_FACTORY)
+    public void handleScheduleEvents(List<ConsumerRecord<String, byte[]>> records) {
+        log.info("Received schedule-events batch: size={}", records.size());
+        keyedBatchProcessor.process(records, bookingSagaOrchestrator::handleScheduleEvents);
+    }
+
+    @KafkaListener(topics = "payment-events", groupId = "booking-saga-group",
+            containerFactory = KafkaBatchListenerConfig.BATCH_CONTAINER_FACTORY)
+    public void handlePaymentEvents(List<ConsumerRecord<String, byte[]>> records) {
+        log.info("Received payment-events batch: size={}", records.size());
+        keyedBatchProcessor.process(records, bookingSagaOrchestrator::handlePaymentEvents);
+    }
+}
@@ -1,13 +1,22 @@
 package com.bookingcare.application.saga;
 
 import com.bookingcare.application.dto.event.*;
+import com.bookingcare.application.mapper.BookingMapperApplication;
 import com.bookingcare.application.ports.output.IHealthCheckPackageScheduleBookingDetailRepository;
+import com.bookingcare.application.ports.output.IPaymentStatusNotifier;
+import com.bookingcare.domain.entity.BookingSagaState;
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bookingcare.domain.valueobject.BookingStatus;
+import com.bookingcare.domain.valueobject.SagaStep;
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.common.messaging.ProcessedEventStore;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
 
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
@@ -20,98 +29,150 @@ public class BookingSagaOrchestrator {
 
     private final IHealthCheckPackageScheduleBookingDetailRepository bookingRepository;
     private final BookingEventPublisher eventPublisher;
-    private final ObjectMapper objectMapper;
+    private final BookingSagaStateStore sagaStateStore;
+    private final ProcessedEventStore processedEventStore;
+    private final EventEnvelopeCodec eventEnvelopeCodec;
+    private final IPaymentStatusNotifier paymentStatusNotifier;
+    private final BookingMapperApplication bookingMapper;
 
     /**
      * Step 3: Handle HoldSlotSucceededEvent from Schedule Service
      */
-    @KafkaListener(topics = "schedule-events", groupId = "booking-saga-group")
+    @KafkaListener(topics = "schedule-events", groupId = "booking-saga-group",
+            autoStartup = "#{!${application.kafka.batch-listener.enabled:false}}")
     @Transactional
-    public void handleScheduleEvents(String jsonMessage) {
-        try {
-            EventEnvelope<?> envelope = objectMapper.readValue(jsonMessage, EventEnvelope.class);
-            
-            log.info("Received event: type={}, aggregateId={}, correlationId={}", 
-                    envelope.getEventType(), envelope.getAggregateId(), envelope.getCorrelationId());
-
-            switch (envelope.getEventType()) {
-                case "HoldSlotSucceededEvent":
-                    handleHoldSlotSucceeded(envelope);
-                    break;
-                case "HoldSlotFailedEvent":
-                    handleHoldSlotFailed(envelope);
-                    break;
-                default:
-                    log.warn("Unknown event type: {}", envelope.getEventType());
-            }
-        } catch (Exception e) {
-            log.error("Error handling schedule event", e);
+    public void handleScheduleEvents(byte[] message) {
+        EventEnvelope<?> envelope = eventEnvelopeCodec.decode(message);
+        
+        log.info("Received event: type={}, aggregateId={}, correlationId={}", 
+                envelope.getEventType(), envelope.getAggregateId(), envelope.getCorrelationId());
+
+        if (!processedEventStore.markProcessed(envelope.getEventId(), envelope.getEventType())) {
+            log.info("Skipping duplicate event: eventId={}, type={}", envelope.getEventId(), envelope.getEventType());
+            return;
+        }
+
+        switch (envelope.getEventType()) {
+            case "HoldSlotSucceededEvent":
+                handleHoldSlotSucceeded(envelope);
+                break;
+            case "HoldSlotFailedEvent":
+                handleHoldSlotFailed(envelope);
+                break;
+            case "HoldExpiredEvent":
+                handleHoldExpired(envelope);
+                break;
+            default:
+                log.warn("Unknown event type: {}", envelope.getEventType());
         }
     }
 
     private void handleHoldSlotSucceeded(EventEnvelope<?> envelope) {
-        try {
-            // Parse payload
-            HoldSlotSucceededEvent event = objectMapper.convertValue(
-                    envelope.getPayload(), HoldSlotSucceededEvent.class);
+        // Parse payload
+        HoldSlotSucceededEvent event = eventEnvelopeCodec.payloadAs(envelope, HoldSlotSucceededEvent.class);
 
-            // Load booking
-            HealthCheckPackageScheduleBookingDetail booking = bookingRepository
-                    .findById(event.getBookingId())
-                    .orElse(null);
-            if (booking == null) {
-                log.warn("Booking not found for HoldSlotSucceededEvent: bookingId={}", event.getBookingId());
-                return;
-            }
-
-            // Update booking state
-            booking.confirmHoldSchedule(event.getScheduleHoldId(), event.getHoldExpireAt());
-            bookingRepository.save(booking);
+        // Load booking
+        HealthCheckPackageScheduleBookingDetail booking = bookingRepository
+                .findById(event.getBookingId())
+                .orElse(null);
+        if (booking == null) {
+            log.warn("Booking not found for HoldSlotSucceededEvent: bookingId={}", event.getBookingId());
+            return;
+        }
 
-            log.info("Booking hold confirmed: bookingId={}, scheduleHoldId={}", 
-                    booking.getId(), event.getScheduleHoldId());
+        // Saga đã đi tiếp (vd. compensateOverdueSagas đã huỷ booking và gửi CancelHoldCommand khi chưa có hold id):
+        // không yêu cầu thanh toán cho booking đã huỷ, trả chỗ vừa giữ muộn
+        BookingSagaState saga = sagaStateStore.findByBookingId(booking.getId()).orElse(null);
+        if (!isAtStep(saga, SagaStep.BOOKING_CREATED)
+                || !booking.confirmHoldSchedule(event.getScheduleHoldId(), event.getHoldExpireAt())) {
+            releaseLateHold(booking, saga, event.getScheduleHoldId(), envelope.getCorrelationId());
+            return;
+        }
+        bookingRepository.save(booking);
+        sagaStateStore.transition(saga, state -> state.holdSlot(event.getScheduleHoldId(), event.getHoldExpireAt()));
 
-            // Step 4: Request payment
-            PaymentRequestedEvent paymentEvent = PaymentRequestedEvent.builder()
-                    .bookingId(booking.getId())
-                    .patientId(booking.getPatientId())
-                    // .price(booking.getBookingPackage().getBookingPackageDetails().getPrice())
-                    .price(new BigDecimal(10000))
-                    .description("Payment for booking " + booking.getId())
-                    .build();
+        log.info("Booking hold confirmed: bookingId={}, scheduleHoldId={}", 
+                booking.getId(), event.getScheduleHoldId());
 
-            eventPublisher.publishPaymentRequestedEvent(paymentEvent, envelope.getCorrelationId());
+        // Step 4: Request payment
+        PaymentRequestedEvent paymentEvent = PaymentRequestedEvent.builder()
+                .bookingId(booking.getId())
+                .patientId(booking.getPatientId())
+                // .price(booking.getBookingPackage().getBookingPackageDetails().getPrice())
+                .price(new BigDecimal(10000))
+                .description("Payment for booking " + booking.getId())
+                .build();
 
-        } catch (Exception e) {
-            log.error("========================================");
-            log.error("❌ Error handling HoldSlotSucceededEvent");
-            log.error("Booking ID: {}", envelope.getAggregateId());
-            log.error("Error: {}", e.getMessage(), e);
-            log.error("========================================");
+        eventPublisher.publishPaymentRequestedEvent(paymentEvent, envelope.getCorrelationId());
 
+    }
 
+    private void releaseLateHold(HealthCheckPackageScheduleBookingDetail booking, BookingSagaState saga,
+                                 String scheduleHoldId, String correlationId) {
+        if (saga != null && scheduleHoldId != null && scheduleHoldId.equals(saga.getScheduleHoldId())) {
+            // Hold này saga đã ghi nhận, không phải hold thừa
+            log.info("Ignoring HoldSlotSucceededEvent for hold already recorded: bookingId={}, scheduleHoldId={}",
+                    booking.getId(), scheduleHoldId);
+            return;
         }
+
+        log.warn("Late HoldSlotSucceededEvent, releasing hold: bookingId={}, bookingStatus={}, sagaStep={}, scheduleHoldId={}",
+                booking.getId(), booking.getBookingStatus(), saga == null ? null : saga.getCurrentSagaStep(),
+                scheduleHoldId);
+        CancelHoldCommand command = CancelHoldCommand.builder()
+                .bookingId(booking.getId())
+                .scheduleHoldId(scheduleHoldId)
+                .reason("Hold succeeded after booking left " + SagaStep.BOOKING_CREATED
+                        + " (status " + booking.getBookingStatus() + ")")
+                .build();
+        eventPublisher.publishCancelHoldCommand(command, correlationId);
+    }
+
+    private static boolean isAtStep(BookingSagaState saga, SagaStep step) {
+        return saga != null && step.name().equals(saga.getCurrentSagaStep());
     }
 
     private void handleHoldSlotFailed(EventEnvelope<?> envelope) {
-        try {
-            String bookingId = envelope.getAggregateId();
-            
-            HealthCheckPackageScheduleBookingDetail booking = bookingRepository
-                    .findById(bookingId)
-                    .orElse(null);
-            if (booking == null) {
-                log.warn("Booking not found for HoldSlotFailedEvent: bookingId={}", bookingId);
-                return;
-            }
+        String bookingId = envelope.getAggregateId();
+        
+        HealthCheckPackageScheduleBookingDetail booking = bookingRepository
+                .findById(bookingId)
+                .orElse(null);
+        if (booking == null) {
+            log.warn("Booking not found for HoldSlotFailedEvent: bookingId={}", bookingId);
+            return;
+        }
+
+        booking.failHoldSchedule();
+        bookingRepository.save(booking);
+        sagaStateStore.transition(bookingId, BookingSagaState::rejectSlot);
+        notifyPaymentStatus(booking);
 
-            booking.failHoldSchedule();
-            bookingRepository.save(booking);
+        log.warn("Booking failed due to slot unavailable: bookingId={}", bookingId);
+    }
 
-            log.warn("Booking failed due to slot unavailable: bookingId={}", bookingId);
-        } catch (Exception e) {
-            log.error("Error handling HoldSlotFailedEvent", e);
+    private void handleHoldExpired(EventEnvelope<?> envelope) {
+        HoldExpiredEvent event = eventEnvelopeCodec.payloadAs(envelope, HoldExpiredEvent.class);
+
+        HealthCheckPackageScheduleBookingDetail booking = bookingRepository
+                .findById(event.getBookingId())
+                .orElse(null);
+        if (booking == null) {
+            log.warn("Booking not found for HoldExpiredEvent: bookingId={}", event.getBookingId());
+            return;
         }
+
+        if (!booking.expireHold()) {
+            log.info("Ignoring HoldExpiredEvent for booking in status {}: bookingId={}",
+                    booking.getBookingStatus(), booking.getId());
+            return;
+        }
+        bookingRepository.save(booking);
+        sagaStateStore.transition(booking.getId(), BookingSagaState::expireHold);
+        notifyPaymentStatus(booking);
+
+        log.warn("Booking expired because slot hold timed out: bookingId={}, scheduleHoldId={}",
+                booking.getId(), event.getScheduleHoldId());
     }
 
     /**
@@ -119,7 +180,7 @@ public class BookingSagaOrchestrator {
      */
     // @KafkaListener(topics = "payment-events", groupId = "booking-saga-group")
     // @Transactional
-    // public void handlePaymentEvents(String jsonMessage) {
+    // public void handlePaymentEvents(byte[] message) {
     //     try {
     //         EventEnvelope<?> envelope = objectMapper.readValue(jsonMessage, EventEnvelope.class);
             
@@ -144,92 +205,111 @@ public class BookingSagaOrchestrator {
     /**
      * ✅ NEW: Handle PaymentLinkCreatedEvent from Payment Service
      */
-    @KafkaListener(topics = "payment-events", groupId = "booking-saga-group")
+    @KafkaListener(topics = "payment-events", groupId = "booking-saga-group",
+            autoStartup = "#{!${application.kafka.batch-listener.enabled:false}}")
     @Transactional
-    public void handlePaymentEvents(String jsonMessage) {
-        try {
-            EventEnvelope<?> envelope = objectMapper.readValue(jsonMessage, EventEnvelope.class);
-            
-            log.info("Received payment event: type={}, aggregateId={}", 
-                    envelope.getEventType(), envelope.getAggregateId());
-
-            switch (envelope.getEventType()) {
-                case "PaymentLinkCreatedEvent":
-                    handlePaymentLinkCreated(envelope);
-                    break;
-                case "PaymentSucceededEvent":
-                    handlePaymentSucceeded(envelope);
-                    break;
-                case "PaymentFailedEvent":
-                    handlePaymentFailed(envelope);
-                    break;
-                default:
-                    log.warn("Unknown event type: {}", envelope.getEventType());
-            }
-        } catch (Exception e) {
-            log.error("Error handling payment event", e);
+    public void handlePaymentEvents(byte[] message) {
+        EventEnvelope<?> envelope = eventEnvelopeCodec.decode(message);
+        
+        log.info("Received payment event: type={}, aggregateId={}", 
+                envelope.getEventType(), envelope.getAggregateId());
+
+        if (!processedEventStore.markProcessed(envelope.getEventId(), envelope.getEventType())) {
+            log.info("Skipping duplicate event: eventId={}, type={}", envelope.getEventId(), envelope.getEventType());
+            return;
+        }
+
+        switch (envelope.getEventType()) {
+            case "PaymentLinkCreatedEvent":
+                handlePaymentLinkCreated(envelope);
+                break;
+            case "PaymentSucceededEvent":
+                handlePaymentSucceeded(envelope);
+                break;
+            case "PaymentFailedEvent":
+                handlePaymentFailed(envelope);
+                break;
+            default:
+                log.warn("Unknown event type: {}", envelope.getEventType());
         }
     }
 
     @Transactional
     private void handlePaymentSucceeded(EventEnvelope<?> envelope) {
-        try {
-            PaymentSucceededEvent event = objectMapper.convertValue(
-                    envelope.getPayload(), PaymentSucceededEvent.class);
+        PaymentSucceededEvent event = eventEnvelopeCodec.payloadAs(envelope, PaymentSucceededEvent.class);
 
-            // Load booking
-            HealthCheckPackageScheduleBookingDetail booking = bookingRepository
-                    .findById(event.getBookingId())
-                    .orElse(null);
-            if (booking == null) {
-                log.warn("Booking not found for PaymentSucceededEvent: bookingId={}", event.getBookingId());
-                return;
-            }
-            // Update booking: payment completed
-            booking.confirmPayment();
-            bookingRepository.save(booking);
-
-            log.info("Payment confirmed: bookingId={}, paymentId={}", 
-                    booking.getId(), event.getPaymentId());
-
-            // Step 6: Confirm booking
-            booking.confirmBooking();
-            bookingRepository.save(booking);
-
-            log.info("Booking confirmed: bookingId={}, status={}", 
-                    booking.getId(), booking.getBookingStatus());
-
-            // Step 7: Notify Schedule to confirm hold → BOOKED
-            // Use scheduleHoldId from current saga state (stored during handleHoldSlotSucceeded)
-            BookingConfirmedEvent confirmedEvent = BookingConfirmedEvent.builder()
-                    .bookingId(booking.getId())
-                    .scheduleHoldId(booking.getSagaState() != null ? booking.getSagaState().getScheduleHoldId() : "UNKNOWN")
-                    .paymentId(event.getPaymentId())
-                    .build();
+        // Load booking
+        HealthCheckPackageScheduleBookingDetail booking = bookingRepository
+                .findById(event.getBookingId())
+                .orElse(null);
+        if (booking == null) {
+            log.warn("Booking not found for PaymentSucceededEvent: bookingId={}", event.getBookingId());
+            return;
+        }
+        if (booking.getBookingStatus() == BookingStatus.CANCELLED
+                || booking.getBookingStatus() == BookingStatus.EXPIRED) {
+            // Saga đã bị huỷ (timeout / hết hạn giữ chỗ) trước khi webhook tới -> cần hoàn tiền thủ công
+            log.error("Payment succeeded for booking in status {}, refund required: bookingId={}, paymentId={}",
+                    booking.getBookingStatus(), booking.getId(), event.getPaymentId());
+            return;
+        }
 
-            eventPublisher.publishBookingConfirmedEvent(confirmedEvent, envelope.getCorrelationId());
+        // Update booking: payment completed
+        booking.confirmPayment();
 
-        } catch (Exception e) {
-            log.error("Error handling PaymentSucceededEvent", e);
+        log.info("Payment confirmed: bookingId={}, paymentId={}", 
+                booking.getId(), event.getPaymentId());
+
+        // Step 6: Confirm booking
+        booking.confirmBooking();
+        bookingRepository.save(booking);
+
+        // PAYMENT_COMPLETED + BOOKING_CONFIRMED ghi trong 1 lần
+        BookingSagaState sagaState = sagaStateStore.transition(booking.getId(), saga -> {
+            saga.completePayment(event.getPaymentId());
+            saga.confirmBooking();
+        }).orElse(null);
+        booking.setSagaState(sagaState);
+
+        log.info("Booking confirmed: bookingId={}, status={}", 
+                booking.getId(), booking.getBookingStatus());
+        notifyPaymentStatus(booking);
+
+        if (sagaState == null || sagaState.getScheduleHoldId() == null) {
+            log.error("No schedule hold recorded for booking, cannot confirm hold: bookingId={}", booking.getId());
+            return;
         }
+
+        // Step 7: Notify Schedule to confirm hold → BOOKED
+        // Use scheduleHoldId from current saga state (stored during handleHoldSlotSucceeded)
+        BookingConfirmedEvent confirmedEvent = BookingConfirmedEvent.builder()
+                .bookingId(booking.getId())
+                .scheduleHoldId(sagaState.getScheduleHoldId())
+                .paymentId(event.getPaymentId())
+                .build();
+
+        eventPublisher.publishBookingConfirmedEvent(confirmedEvent, envelope.getCorrelationId());
+
     }
 
     @Transactional
     private void handlePaymentFailed(EventEnvelope<?> envelope) {
-        try {
-            String bookingId = envelope.getAggregateId();
-            
-            HealthCheckPackageScheduleBookingDetail booking = bookingRepository
-                    .findById(bookingId)
-                    .orElse(null);
-            booking.failPayment();
-            bookingRepository.save(booking);
-
-            log.warn("Booking payment failed: bookingId={}", bookingId);
-            
-        } catch (Exception e) {
-            log.error("Error handling PaymentFailedEvent", e);
+        String bookingId = envelope.getAggregateId();
+        
+        HealthCheckPackageScheduleBookingDetail booking = bookingRepository
+                .findById(bookingId)
+                .orElse(null);
+        if (booking == null) {
+            log.warn("Booking not found for PaymentFailedEvent: bookingId={}", bookingId);
+            return;
         }
+        booking.failPayment();
+        bookingRepository.save(booking);
+        sagaStateStore.transition(bookingId, BookingSagaState::failPayment);
+        notifyPaymentStatus(booking);
+
+        log.warn("Booking payment failed: bookingId={}", bookingId);
+        
     }
 
     /**
@@ -237,9 +317,7 @@ public class BookingSagaOrchestrator {
      */
     @Transactional
     private void handlePaymentLinkCreated(EventEnvelope<?> envelope) {
-    try {
-        PaymentLinkCreatedEvent event = objectMapper.convertValue(
-                envelope.getPayload(), PaymentLinkCreatedEvent.class);
+        PaymentLinkCreatedEvent event = eventEnvelopeCodec.payloadAs(envelope, PaymentLinkCreatedEvent.class);
         
         log.info("✅✅✅ PAYMENT LINK RECEIVED ✅✅✅");
         log.info("Booking ID: {}", event.getBookingId());
@@ -254,16 +332,66 @@ public class BookingSagaOrchestrator {
             log.warn("Booking not found for PaymentLinkCreatedEvent: bookingId={}", event.getBookingId());
             return;
         }
+        // Link tới sau khi saga đã kết thúc / đổi bước (timeout, hết hạn giữ chỗ): không mở lại booking
+        BookingSagaState saga = sagaStateStore.findByBookingId(booking.getId()).orElse(null);
+        if (booking.getBookingStatus() != BookingStatus.PENDING_PAYMENT || !isAtStep(saga, SagaStep.SLOT_HELD)) {
+            log.warn("Ignoring late PaymentLinkCreatedEvent: bookingId={}, bookingStatus={}, sagaStep={}, orderCode={}",
+                    booking.getId(), booking.getBookingStatus(), saga == null ? null : saga.getCurrentSagaStep(),
+                    event.getOrderCode());
+            return;
+        }
         booking.setPaymentUrl(event.getCheckoutUrl());
         booking.setOrderCode(event.getOrderCode());
         bookingRepository.save(booking);
+        sagaStateStore.transition(saga, BookingSagaState::createPaymentLink);
+        notifyPaymentStatus(booking);
         
         log.info("✅ Payment URL saved to booking: {}", event.getBookingId());
         
-        } catch (Exception e) {
-            log.error("Error handling PaymentLinkCreatedEvent", e);
+    }
+
+    /**
+     * Compensation cho các saga đã quá deadline của bước hiện tại (SagaDeadlineScheduler gọi theo batch):
+     * huỷ booking còn đang chờ và gửi CancelHoldCommand để schedule-service trả chỗ.
+     *
+     * @return state của các saga bị xử lý (trước khi timeout)
+     */
+    @Transactional
+    public List<BookingSagaState> compensateOverdueSagas(int batchSize) {
+        List<BookingSagaState> overdue = sagaStateStore.claimOverdue(ZonedDateTime.now(), batchSize);
+
+        for (BookingSagaState saga : overdue) {
+            HealthCheckPackageScheduleBookingDetail booking = bookingRepository
+                    .findById(saga.getBookingId())
+                    .orElse(null);
+
+            if (booking != null && booking.getBookingStatus() == BookingStatus.CONFIRMED) {
+                // Saga state bị lệch so với booking, chỉ đồng bộ lại
+                sagaStateStore.transition(saga, BookingSagaState::confirmBooking);
+                continue;
+            }
+
+            if (booking != null && booking.cancelForTimeout()) {
+                bookingRepository.save(booking);
+                notifyPaymentStatus(booking);
+            }
+            sagaStateStore.transition(saga, BookingSagaState::timeOut);
+
+            CancelHoldCommand command = CancelHoldCommand.builder()
+                    .bookingId(saga.getBookingId())
+                    .scheduleHoldId(saga.getScheduleHoldId())
+                    .reason("Saga timed out at step " + saga.getCurrentSagaStep())
+                    .build();
+            eventPublisher.publishCancelHoldCommand(command, saga.getCorrelationId());
+
+            log.warn("Saga timed out, booking cancelled: bookingId={}, step={}, deadline={}",
+                    saga.getBookingId(), saga.getCurrentSagaStep(), saga.getStepDeadlineAt());
         }
+        return overdue;
     }
 
-    
-}
\ No newline at end of file
+    // Client đang chờ qua SSE nhận trạng thái mới sau khi transaction commit
+    private void notifyPaymentStatus(HealthCheckPackageScheduleBookingDetail booking) {
+        paymentStatusNotifier.paymentStatusChanged(booking.getId(), bookingMapper.toPaymentUrlStatus(booking));
+    }
+}
@@ -0,0 +1,203 @@
+package com.bookingcare.application.saga;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bookingcare.application.ports.output.IBooksingSagaStateRepository;
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.domain.exception.BookingDomainException;
+import com.bookingcare.domain.valueobject.SagaStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lưu trạng thái saga của từng booking (booking_saga_state) kèm cache write-through.
+ *
+ * - Mỗi bước saga = 1 câu UPDATE có kiểm tra version, không đọc lại DB khi state đã có trong cache.
+ * - Sau mỗi bước, step_deadline_at được tính lại theo SagaDeadlinePolicy.
+ * - Cache chỉ được cập nhật sau khi transaction commit, rollback thì bỏ entry.
+ * - Entry sống tới hold_expire_at (+ grace) vì sau đó saga không còn bước nào dùng tới nó;
+ *   saga đã kết thúc chỉ giữ thêm thời gian ngắn.
+ */
+@Component
+@Slf4j
+public class BookingSagaStateStore {
+    private static final int MAX_UPDATE_ATTEMPTS = 2;
+
+    private final IBooksingSagaStateRepository _sagaStateRepository;
+    private final SagaDeadlinePolicy deadlinePolicy;
+    private final Cache<String, BookingSagaState> byBookingId;
+    private final Cache<String, String> bookingIdByCorrelationId;
+
+    private final Duration defaultTtl;
+    private final Duration holdGrace;
+    private final Duration terminalTtl;
+
+    public BookingSagaStateStore(IBooksingSagaStateRepository sagaStateRepository,
+                                 SagaDeadlinePolicy deadlinePolicy,
+                                 @Value("${application.saga-state.cache.max-size:10000}") long maxSize,
+                                 @Value("${application.saga-state.cache.default-ttl-minutes:30}") long defaultTtlMinutes,
+                                 @Value("${application.saga-state.cache.hold-grace-minutes:5}") long holdGraceMinutes,
+                                 @Value("${application.saga-state.cache.terminal-ttl-seconds:60}") long terminalTtlSeconds) {
+        this._sagaStateRepository = sagaStateRepository;
+        this.deadlinePolicy = deadlinePolicy;
+        this.defaultTtl = Duration.ofMinutes(defaultTtlMinutes);
+        this.holdGrace = Duration.ofMinutes(holdGraceMinutes);
+        this.terminalTtl = Duration.ofSeconds(terminalTtlSeconds);
+
+        this.byBookingId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.writing((String bookingId, BookingSagaState state) -> ttlFor(state)))
+                .build();
+        this.bookingIdByCorrelationId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(this.defaultTtl)
+                .build();
+    }
+
+    /**
+     * Tạo saga cho booking mới (BOOKING_CREATED). Chạy trong transaction tạo booking.
+     */
+    public BookingSagaState start(String bookingId, String correlationId) {
+        BookingSagaState state = BookingSagaState.start(bookingId, correlationId);
+        state.setStepDeadlineAt(deadlinePolicy.deadlineFor(state));
+        _sagaStateRepository.insert(state);
+        cacheAfterCommit(state);
+        return copyOf(state);
+    }
+
+    /**
+     * Áp dụng 1 bước saga lên state hiện tại và ghi xuống DB.
+     *
+     * @return state sau khi chuyển bước, empty nếu booking chưa có saga state
+     */
+    public Optional<BookingSagaState> transition(String bookingId, Consumer<BookingSagaState> step) {
+        return transition(bookingId, findByBookingId(bookingId), step);
+    }
+
+    /**
+     * Như transition(bookingId, step) nhưng dùng state caller vừa đọc (vd. claimOverdue) làm state hiện tại.
+     */
+    public BookingSagaState transition(BookingSagaState current, Consumer<BookingSagaState> step) {
+        return transition(current.getBookingId(), Optional.of(current), step).orElseThrow();
+    }
+
+    /**
+     * Saga chưa kết thúc đã quá deadline, đã bị khoá trong transaction hiện tại.
+     */
+    public List<BookingSagaState> claimOverdue(ZonedDateTime now, int limit) {
+        return _sagaStateRepository.claimOverdue(now, limit);
+    }
+
+    /**
+     * Số saga sẽ quá deadline trước horizon, theo bước saga hiện tại.
+     */
+    public Map<String, Long> countDueByStep(ZonedDateTime horizon) {
+        return _sagaStateRepository.countDueByStep(horizon);
+    }
+
+    private Optional<BookingSagaState> transition(String bookingId, Optional<BookingSagaState> initial,
+                                                  Consumer<BookingSagaState> step) {
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            // Lần đầu dùng state có sẵn (cache), nếu version lệch (replica khác đã ghi) thì đọc lại từ DB
+            Optional<BookingSagaState> current = attempt == 0
+                    ? initial
+                    : _sagaStateRepository.findByBookingId(bookingId);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+
+            BookingSagaState next = copyOf(current.get());
+            step.accept(next);
+            next.setStepDeadlineAt(deadlinePolicy.deadlineFor(next));
+            if (_sagaStateRepository.update(next)) {
+                cacheAfterCommit(next);
+                return Optional.of(copyOf(next));
+            }
+
+            log.info("Saga state version changed, reloading: bookingId={}", bookingId);
+            byBookingId.invalidate(bookingId);
+        }
+        throw new BookingDomainException("Saga state was modified concurrently: " + bookingId);
+    }
+
+    public Optional<BookingSagaState> findByBookingId(String bookingId) {
+        BookingSagaState cached = byBookingId.getIfPresent(bookingId);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+
+        Optional<BookingSagaState> loaded = _sagaStateRepository.findByBookingId(bookingId);
+        loaded.ifPresent(this::cache);
+        return loaded.map(BookingSagaStateStore::copyOf);
+    }
+
+    public Optional<BookingSagaState> findByCorrelationId(String correlationId) {
+        String bookingId = bookingIdByCorrelationId.getIfPresent(correlationId);
+        if (bookingId != null) {
+            return findByBookingId(bookingId);
+        }
+
+        Optional<BookingSagaState> loaded = _sagaStateRepository.findByCorrelationId(correlationId);
+        loaded.ifPresent(this::cache);
+        return loaded.map(BookingSagaStateStore::copyOf);
+    }
+
+    /**
+     * Các saga đang ở saga_status (cũ nhất trước). Luôn đọc DB để thấy cả saga của replica khác.
+     */
+    public List<BookingSagaState> findBySagaStatus(SagaStatus sagaStatus, int limit) {
+        return _sagaStateRepository.findBySagaStatus(sagaStatus.name(), limit);
+    }
+
+    private void cacheAfterCommit(BookingSagaState state) {
+        BookingSagaState snapshot = copyOf(state);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(snapshot);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    cache(snapshot);
+                } else {
+                    byBookingId.invalidate(snapshot.getBookingId());
+                }
+            }
+        });
+    }
+
+    private void cache(BookingSagaState state) {
+        byBookingId.put(state.getBookingId(), state);
+        bookingIdByCorrelationId.put(state.getCorrelationId(), state.getBookingId());
+    }
+
+    private Duration ttlFor(BookingSagaState state) {
+        if (state.isTerminal()) {
+            return terminalTtl;
+        }
+        if (state.getHoldExpireAt() != null) {
+            Duration untilExpiry = Duration.between(ZonedDateTime.now(), state.getHoldExpireAt());
+            return untilExpiry.isNegative() ? holdGrace : untilExpiry.plus(holdGrace);
+        }
+        return defaultTtl;
+    }
+
+    private static BookingSagaState copyOf(BookingSagaState state) {
+        return state.toBuilder().build();
+    }
+}
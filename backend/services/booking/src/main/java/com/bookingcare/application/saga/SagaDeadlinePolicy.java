@@ -0,0 +1,46 @@
+package com.bookingcare.application.saga;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.domain.valueobject.SagaStep;
+
+/**
+ * Deadline cho bước saga hiện tại:
+ *  - BOOKING_CREATED: chờ kết quả giữ chỗ từ schedule-service
+ *  - SLOT_HELD / PAYMENT_LINK_CREATED: tới hold_expire_at + grace (webhook trễ vẫn kịp)
+ *  - PAYMENT_COMPLETED và saga đã kết thúc: không đặt deadline, không tự huỷ booking đã trả tiền
+ */
+@Component
+public class SagaDeadlinePolicy {
+    private final Duration slotHoldTimeout;
+    private final Duration defaultHoldDuration;
+    private final Duration paymentGrace;
+
+    public SagaDeadlinePolicy(@Value("${application.saga-timeout.slot-hold-timeout-seconds:120}") long slotHoldTimeoutSeconds,
+                              @Value("${application.saga-timeout.default-hold-minutes:15}") long defaultHoldMinutes,
+                              @Value("${application.saga-timeout.payment-grace-seconds:120}") long paymentGraceSeconds) {
+        this.slotHoldTimeout = Duration.ofSeconds(slotHoldTimeoutSeconds);
+        this.defaultHoldDuration = Duration.ofMinutes(defaultHoldMinutes);
+        this.paymentGrace = Duration.ofSeconds(paymentGraceSeconds);
+    }
+
+    public ZonedDateTime deadlineFor(BookingSagaState state) {
+        if (state.isTerminal()) {
+            return null;
+        }
+
+        ZonedDateTime stepStartedAt = state.getUpdatedAt() != null ? state.getUpdatedAt() : ZonedDateTime.now();
+        return switch (SagaStep.valueOf(state.getCurrentSagaStep())) {
+            case BOOKING_CREATED -> stepStartedAt.plus(slotHoldTimeout);
+            case SLOT_HELD, PAYMENT_LINK_CREATED -> (state.getHoldExpireAt() != null
+                    ? state.getHoldExpireAt()
+                    : stepStartedAt.plus(defaultHoldDuration)).plus(paymentGrace);
+            default -> null;
+        };
+    }
+}
@@ -3,12 +3,17 @@ package com.bookingcare.container.controller;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.bookingcare.application.dto.ApiResponse;
 import com.bookingcare.application.dto.CreateBookingCommand;
@@ -16,11 +21,15 @@ import com.bookingcare.application.dto.CreateBookingResponse;
 import com.bookingcare.application.dto.HealthCheckBookHistoryResponse;
 import com.bookingcare.application.dto.QueryBookingOrderDetailInfoResponse;
 import com.bookingcare.application.dto.QueryBookingPackageDetailInfo;
+import com.bookingcare.application.dto.QueryBookingSagaStateResponse;
 import com.bookingcare.application.dto.QueryOrdersResponse;
 import com.bookingcare.application.dto.UpdateBookingOrderStatusCommand;
 import com.bookingcare.application.ports.input.IBookingApplicationService;
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
 import com.bookingcare.infrastructure.external.package_service.HealthCheckPackageResponse;
 import com.bookingcare.infrastructure.external.package_service.HealthPackageFeignClient;
+import com.bookingcare.infrastructure.push.PaymentStatusSseHub;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +44,7 @@ public class BookingController {
     
     private final IBookingApplicationService _bookingApplicationService;
     private final HealthPackageFeignClient _healthPackageFeignClient;  // Thêm dòng này
+    private final PaymentStatusSseHub _paymentStatusSseHub;
 
 
 
@@ -43,15 +53,50 @@ public class BookingController {
         return ResponseEntity.ok(Map.of("message", "Test with hot reloading", "status", 200));
     }
 
+    /**
+     * Phân trang keyset: truyền lại nextCursor của trang trước, limit mặc định 50, tối đa 500
+     */
     @GetMapping("get-all-orders")
-    public ApiResponse<List<QueryOrdersResponse>> getAllBookingOrders() {
-        log.info("Fetching all booking orders");
+    public ApiResponse<CursorPage<QueryOrdersResponse>> getAllBookingOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Fetching booking orders page");
 
-        List<QueryOrdersResponse> bookings = _bookingApplicationService.getAllBookingOrders();
-        String message = bookings.isEmpty() ? "No bookings found" : "Bookings fetched successfully";
+        CursorPage<QueryOrdersResponse> bookings = _bookingApplicationService.getAllBookingOrders(cursor, limit);
+        String message = bookings.items().isEmpty() ? "No bookings found" : "Bookings fetched successfully";
         return new ApiResponse<>(200, message, bookings);
     }
 
+    /**
+     * Export toàn bộ đơn dạng NDJSON (mỗi dòng 1 đơn), stream thẳng từ DB ra response
+     */
+    @GetMapping(value = "get-all-orders/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportBookingOrders() {
+        log.info("Exporting booking orders");
+
+        StreamingResponseBody body = out -> {
+            long rows = _bookingApplicationService.exportBookingOrders(out);
+            log.info("Exported {} booking orders", rows);
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"booking-orders.ndjson\"")
+                .body(body);
+    }
+
+    /**
+     * Các saga đang ở 1 saga_status (INITIATED, IN_PROGRESS, COMPLETED, FAILED), cũ nhất trước
+     */
+    @GetMapping("sagas")
+    public ApiResponse<List<QueryBookingSagaStateResponse>> getSagasByStatus(
+            @RequestParam(defaultValue = "IN_PROGRESS") String status,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Fetching sagas with status: {}", status);
+
+        List<QueryBookingSagaStateResponse> sagas = _bookingApplicationService.getSagasByStatus(status, Math.clamp(limit, 1, 1000));
+        String message = sagas.isEmpty() ? "No sagas found" : "Sagas fetched successfully";
+        return new ApiResponse<>(200, message, sagas);
+    }
+
     @GetMapping("{id}")
     public ApiResponse<QueryBookingOrderDetailInfoResponse> getBookingsOrderDetailInfo(@PathVariable String id) {
         log.info("Fetching bookings for booking id: {}", id);
@@ -114,6 +159,17 @@ public class BookingController {
         return new ApiResponse<>(httpStatus, message, result);
     }
 
+    /**
+     * SSE thay cho poll payment-url: gửi trạng thái hiện tại ngay khi kết nối, sau đó nhận event
+     * "payment-status" khi saga tạo xong link / thanh toán thành công / thất bại. Kết nối tự đóng khi booking
+     * sang trạng thái cuối.
+     */
+    @GetMapping(value = "/{bookingId}/payment-url/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPaymentUrl(@PathVariable String bookingId) {
+        log.info("Opening payment URL stream for booking: {}", bookingId);
+        return _paymentStatusSseHub.subscribe(bookingId, () -> _bookingApplicationService.getPaymentUrl(bookingId));
+    }
+
     @GetMapping("/booking-package-details")
     public ApiResponse<List<QueryBookingPackageDetailInfo>> getAllBookingPackageDetails() {
         log.info("Fetching all booking package details");
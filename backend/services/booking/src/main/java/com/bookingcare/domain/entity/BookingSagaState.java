@@ -2,6 +2,9 @@ package com.bookingcare.domain.entity;
 
 import java.time.ZonedDateTime;
 
+import com.bookingcare.domain.valueobject.SagaStatus;
+import com.bookingcare.domain.valueobject.SagaStep;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,7 +14,7 @@ import lombok.NoArgsConstructor;
  * BookingSagaState - Saga orchestration data for booking
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookingSagaState {
@@ -31,6 +34,74 @@ public class BookingSagaState {
     private String externalPaymentId;
     private String lastPaymentStatus; // PENDING, COMPLETED, FAILED
     
+    // Quá thời điểm này mà saga vẫn ở bước hiện tại -> compensation (null: không theo dõi)
+    private ZonedDateTime stepDeadlineAt;
+
     private ZonedDateTime createdAt;
     private ZonedDateTime updatedAt;
+
+    // Optimistic lock: mỗi lần ghi tăng 1
+    private long version;
+
+    public static BookingSagaState start(String bookingId, String correlationId) {
+        ZonedDateTime now = ZonedDateTime.now();
+        return BookingSagaState.builder()
+                .id("SAGA_" + bookingId)
+                .bookingId(bookingId)
+                .correlationId(correlationId)
+                .sagaStatus(SagaStatus.INITIATED.name())
+                .currentSagaStep(SagaStep.BOOKING_CREATED.name())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    // Saga state transition methods
+    public void holdSlot(String scheduleHoldId, ZonedDateTime holdExpireAt) {
+        this.scheduleHoldId = scheduleHoldId;
+        this.holdExpireAt = holdExpireAt;
+        moveTo(SagaStatus.IN_PROGRESS, SagaStep.SLOT_HELD);
+    }
+
+    public void rejectSlot() {
+        moveTo(SagaStatus.FAILED, SagaStep.SLOT_REJECTED);
+    }
+
+    public void expireHold() {
+        moveTo(SagaStatus.FAILED, SagaStep.HOLD_EXPIRED);
+    }
+
+    public void createPaymentLink() {
+        this.lastPaymentStatus = "PENDING";
+        moveTo(SagaStatus.IN_PROGRESS, SagaStep.PAYMENT_LINK_CREATED);
+    }
+
+    public void completePayment(String externalPaymentId) {
+        this.externalPaymentId = externalPaymentId;
+        this.lastPaymentStatus = "COMPLETED";
+        moveTo(SagaStatus.IN_PROGRESS, SagaStep.PAYMENT_COMPLETED);
+    }
+
+    public void failPayment() {
+        this.lastPaymentStatus = "FAILED";
+        moveTo(SagaStatus.FAILED, SagaStep.PAYMENT_FAILED);
+    }
+
+    public void confirmBooking() {
+        moveTo(SagaStatus.COMPLETED, SagaStep.BOOKING_CONFIRMED);
+    }
+
+    public void timeOut() {
+        moveTo(SagaStatus.FAILED, SagaStep.TIMED_OUT);
+    }
+
+    public boolean isTerminal() {
+        return sagaStatus != null && SagaStatus.fromString(sagaStatus).isTerminal();
+    }
+
+    private void moveTo(SagaStatus status, SagaStep step) {
+        this.sagaStatus = status.name();
+        this.currentSagaStep = step.name();
+        this.updatedAt = ZonedDateTime.now();
+    }
 }
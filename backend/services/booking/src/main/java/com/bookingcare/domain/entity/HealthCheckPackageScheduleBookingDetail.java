@@ -74,10 +74,15 @@ public class HealthCheckPackageScheduleBookingDetail {
   }
   
   // Saga state transition methods
-  public void confirmHoldSchedule(String scheduleHoldId, ZonedDateTime holdExpireAt) {
+  public boolean confirmHoldSchedule(String scheduleHoldId, ZonedDateTime holdExpireAt) {
+    // Giữ chỗ thành công tới muộn (booking đã bị huỷ / hết hạn): không mở lại booking
+    if (this.bookingStatus != BookingStatus.PENDING) {
+      return false;
+    }
     this.bookingStatus = BookingStatus.PENDING_PAYMENT;
     this.updatedDate = ZonedDateTime.now();
     // Saga state is updated separately in BookingSagaState entity
+    return true;
   }
   
   public void failHoldSchedule() {
@@ -85,6 +90,26 @@ public class HealthCheckPackageScheduleBookingDetail {
     this.updatedDate = ZonedDateTime.now();
   }
   
+  public boolean expireHold() {
+    // Chỉ booking còn đang chờ mới bị huỷ vì hết hạn giữ chỗ
+    if (this.bookingStatus != BookingStatus.PENDING && this.bookingStatus != BookingStatus.PENDING_PAYMENT) {
+      return false;
+    }
+    this.bookingStatus = BookingStatus.EXPIRED;
+    this.updatedDate = ZonedDateTime.now();
+    return true;
+  }
+  
+  public boolean cancelForTimeout() {
+    // Saga kẹt quá deadline: chỉ huỷ booking còn đang chờ
+    if (this.bookingStatus != BookingStatus.PENDING && this.bookingStatus != BookingStatus.PENDING_PAYMENT) {
+      return false;
+    }
+    this.bookingStatus = BookingStatus.CANCELLED;
+    this.updatedDate = ZonedDateTime.now();
+    return true;
+  }
+
   public void confirmPayment() {
     this.updatedDate = ZonedDateTime.now();
     // Payment status is tracked in BookingSagaState entity
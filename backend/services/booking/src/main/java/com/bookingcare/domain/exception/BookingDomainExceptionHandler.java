@@ -36,6 +36,24 @@ public class BookingDomainExceptionHandler extends ResponseEntityExceptionHandle
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // Tham số không hợp lệ (vd. cursor phân trang sai)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public final ResponseEntity<ApiResponse<ErrorDetails>> handleIllegalArgumentException(
+            IllegalArgumentException ex, WebRequest request) {
+
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        ApiResponse<ErrorDetails> response = new ApiResponse<>(
+                400,
+                "Invalid request parameter",
+                errorDetails);
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public final ResponseEntity<ApiResponse<ErrorDetails>> handleAllExceptions(
             Exception ex, WebRequest request) {
@@ -0,0 +1,23 @@
+package com.bookingcare.domain.valueobject;
+
+import com.bookingcare.domain.exception.BookingDomainException;
+
+public enum SagaStatus {
+    INITIATED,
+    IN_PROGRESS,
+    COMPLETED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+
+    public static SagaStatus fromString(String status) {
+        for (SagaStatus sagaStatus : SagaStatus.values()) {
+            if (sagaStatus.name().equalsIgnoreCase(status)) {
+                return sagaStatus;
+            }
+        }
+        throw new BookingDomainException("Invalid SagaStatus: " + status);
+    }
+}
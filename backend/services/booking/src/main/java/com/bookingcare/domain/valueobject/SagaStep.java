@@ -0,0 +1,13 @@
+package com.bookingcare.domain.valueobject;
+
+public enum SagaStep {
+    BOOKING_CREATED,
+    SLOT_HELD,
+    SLOT_REJECTED,
+    HOLD_EXPIRED,
+    PAYMENT_LINK_CREATED,
+    PAYMENT_COMPLETED,
+    PAYMENT_FAILED,
+    BOOKING_CONFIRMED,
+    TIMED_OUT
+}
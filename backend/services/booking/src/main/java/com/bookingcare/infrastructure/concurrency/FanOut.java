@@ -0,0 +1,216 @@
+package com.bookingcare.infrastructure.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chạy song song các lookup độc lập (DB, service khác) của 1 view trên virtual thread.
+ *
+ * - Mỗi view mở 1 Scope (try-with-resources): mọi nguồn chung 1 deadline, mỗi nguồn có timeout riêng
+ *   (application.fan-out). Đóng scope thì huỷ (interrupt) các nguồn còn chạy.
+ * - fork: nguồn bắt buộc, lỗi / quá hạn thì ném lỗi. forkOptional: lỗi / quá hạn thì trả fallback
+ *   và nguồn được đánh dấu degraded, view trả kết quả một phần.
+ * - Request context (header Authorization / X-User-* cho Feign) được chuyển sang thread của nguồn.
+ * - Observation: booking.fanout{view, critical.path, degraded} cho cả view và
+ *   booking.fanout.source{view, source, outcome} cho từng nguồn (timer, span khi có tracer);
+ *   critical.path là nguồn chậm nhất, latency của view ~ nguồn này chứ không phải tổng các nguồn.
+ *
+ * Java 21 chưa có StructuredTaskScope bản chính thức (preview), Scope giữ cùng ngữ nghĩa:
+ * thread con không sống lâu hơn scope.
+ */
+@Component
+@EnableConfigurationProperties(FanOutProperties.class)
+@Slf4j
+public class FanOut {
+
+    private final ObservationRegistry observationRegistry;
+    private final FanOutProperties properties;
+
+    public FanOut(ObservationRegistry observationRegistry, FanOutProperties properties) {
+        this.observationRegistry = observationRegistry;
+        this.properties = properties;
+    }
+
+    public Scope open(String view) {
+        return new Scope(view, properties.deadline());
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final String view;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        private final ExecutorService executor;
+        private final Observation observation;
+        private final List<Source<?>> sources = new ArrayList<>();
+
+        private Scope(String view, Duration deadline) {
+            this.view = view;
+            this.deadlineNanos = startNanos + deadline.toNanos();
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fanout-" + view + "-", 0).factory());
+            this.observation = Observation.createNotStarted("booking.fanout", observationRegistry)
+                    .lowCardinalityKeyValue("view", view)
+                    .start();
+        }
+
+        /**
+         * Nguồn bắt buộc: get() ném lỗi nếu nguồn lỗi hoặc quá hạn.
+         */
+        public <T> Source<T> fork(String source, Supplier<T> task) {
+            return fork(source, task, null, false);
+        }
+
+        /**
+         * Nguồn không bắt buộc: get() trả fallback nếu nguồn lỗi hoặc quá hạn.
+         */
+        public <T> Source<T> forkOptional(String source, Supplier<T> task, T fallback) {
+            return fork(source, task, fallback, true);
+        }
+
+        public List<String> degradedSources() {
+            return sources.stream().filter(Source::degraded).map(Source::name).toList();
+        }
+
+        private <T> Source<T> fork(String name, Supplier<T> task, T fallback, boolean optional) {
+            Source<T> source = new Source<>(this, name, properties.timeoutFor(name), fallback, optional);
+            source.future = CompletableFuture.supplyAsync(() -> {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                Observation child = Observation.createNotStarted("booking.fanout.source", observationRegistry)
+                        .parentObservation(observation)
+                        .lowCardinalityKeyValue("view", view)
+                        .lowCardinalityKeyValue("source", name)
+                        .start();
+                try (Observation.Scope ignored = child.openScope()) {
+                    T value = task.get();
+                    child.lowCardinalityKeyValue("outcome", "SUCCESS");
+                    return value;
+                } catch (RuntimeException e) {
+                    child.lowCardinalityKeyValue("outcome", "ERROR");
+                    child.error(e);
+                    throw e;
+                } finally {
+                    source.elapsedNanos = System.nanoTime() - source.forkedAt;
+                    child.stop();
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }, executor);
+            sources.add(source);
+            return source;
+        }
+
+        @Override
+        public void close() {
+            // Không chờ nguồn đã quá hạn: interrupt và trả kết quả ngay
+            executor.shutdownNow();
+
+            long total = System.nanoTime() - startNanos;
+            Source<?> slowest = sources.stream()
+                    .max(Comparator.comparingLong(Source::effectiveNanos))
+                    .orElse(null);
+            List<String> degraded = degradedSources();
+            observation.lowCardinalityKeyValue("critical.path", slowest == null ? "none" : slowest.name)
+                    .lowCardinalityKeyValue("degraded", String.valueOf(!degraded.isEmpty()))
+                    .stop();
+
+            if (log.isDebugEnabled()) {
+                long sum = sources.stream().mapToLong(Source::effectiveNanos).sum();
+                log.debug("Fan-out {}: {} ms, critical path {} ({} ms), sum of sources {} ms, degraded {}",
+                        view, TimeUnit.NANOSECONDS.toMillis(total),
+                        slowest == null ? "none" : slowest.name,
+                        slowest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(slowest.effectiveNanos()),
+                        TimeUnit.NANOSECONDS.toMillis(sum), degraded);
+            }
+        }
+    }
+
+    public static final class Source<T> {
+        private final Scope scope;
+        private final String name;
+        private final Duration timeout;
+        private final T fallback;
+        private final boolean optional;
+        private final long forkedAt = System.nanoTime();
+        private CompletableFuture<T> future;
+        private volatile long elapsedNanos = -1;
+        private volatile boolean degraded;
+
+        private Source(Scope scope, String name, Duration timeout, T fallback, boolean optional) {
+            this.scope = scope;
+            this.name = name;
+            this.timeout = timeout;
+            this.fallback = fallback;
+            this.optional = optional;
+        }
+
+        /**
+         * Kết quả của nguồn, chờ tối đa tới timeout của nguồn / deadline của scope (lấy mốc sớm hơn).
+         */
+        public T get() {
+            long waitUntil = Math.min(forkedAt + timeout.toNanos(), scope.deadlineNanos);
+            try {
+                return future.get(Math.max(0, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                return degrade(new FanOutTimeoutException(scope.view, name, timeout));
+            } catch (ExecutionException e) {
+                return degrade(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return degrade(e);
+            }
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public boolean degraded() {
+            return degraded;
+        }
+
+        private T degrade(Throwable cause) {
+            if (!optional) {
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Fan-out source " + name + " failed", cause);
+            }
+            degraded = true;
+            log.warn("Fan-out {}: source {} degraded: {}", scope.view, name, cause.toString());
+            return fallback;
+        }
+
+        // Nguồn chưa xong (quá hạn) tính tới lúc đóng scope
+        private long effectiveNanos() {
+            long elapsed = elapsedNanos;
+            return elapsed >= 0 ? elapsed : System.nanoTime() - forkedAt;
+        }
+    }
+
+    /**
+     * Nguồn không trả kết quả trong timeout của nó / deadline của view.
+     */
+    public static class FanOutTimeoutException extends RuntimeException {
+        public FanOutTimeoutException(String view, String source, Duration timeout) {
+            super("Fan-out " + view + ": source " + source + " did not complete within " + timeout.toMillis() + " ms");
+        }
+    }
+}
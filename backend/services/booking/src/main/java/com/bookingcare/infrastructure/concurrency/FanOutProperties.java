@@ -0,0 +1,30 @@
+package com.bookingcare.infrastructure.concurrency;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Deadline / timeout cho FanOut (application.fan-out).
+ *
+ * @param deadline             thời gian tối đa cho cả view, mọi nguồn dùng chung
+ * @param defaultSourceTimeout timeout mặc định của 1 nguồn
+ * @param sourceTimeouts       tên nguồn -> timeout riêng
+ */
+@ConfigurationProperties(prefix = "application.fan-out")
+public record FanOutProperties(
+        Duration deadline,
+        Duration defaultSourceTimeout,
+        Map<String, Duration> sourceTimeouts
+) {
+    public FanOutProperties {
+        deadline = deadline == null ? Duration.ofSeconds(3) : deadline;
+        defaultSourceTimeout = defaultSourceTimeout == null ? Duration.ofSeconds(2) : defaultSourceTimeout;
+        sourceTimeouts = sourceTimeouts == null ? Map.of() : Map.copyOf(sourceTimeouts);
+    }
+
+    public Duration timeoutFor(String source) {
+        return sourceTimeouts.getOrDefault(source, defaultSourceTimeout);
+    }
+}
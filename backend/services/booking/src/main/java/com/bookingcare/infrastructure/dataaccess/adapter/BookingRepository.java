@@ -1,5 +1,6 @@
 package com.bookingcare.infrastructure.dataaccess.adapter;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,4 +53,15 @@ public class BookingRepository implements IBookingRepository {
                 .findByBookingPackageId(bookingPackageId)
                 .map(mapper::toDomain);
     }
+
+    @Override
+    public List<BookingPackageDetail> findAllByBookingPackageIds(Collection<String> bookingPackageIds) {
+        if (bookingPackageIds.isEmpty()) {
+            return List.of();
+        }
+        return _bookingPackageDetailJpaRepository.findAllByBookingPackageIds(bookingPackageIds)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
 }
@@ -0,0 +1,79 @@
+package com.bookingcare.infrastructure.dataaccess.adapter;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import com.bookingcare.application.ports.output.IBooksingSagaStateRepository;
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.infrastructure.dataaccess.entity.BookingSagaStateJpaEntity;
+import com.bookingcare.infrastructure.dataaccess.mapper.BookingMapperInfrastructure;
+import com.bookingcare.infrastructure.dataaccess.repository.IBookingSagaStateJpaRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class BookingSagaStateRepository implements IBooksingSagaStateRepository {
+    private final IBookingSagaStateJpaRepository _bookingSagaStateJpaRepository;
+    private final BookingMapperInfrastructure mapper;
+
+    @Override
+    public BookingSagaState insert(BookingSagaState sagaState) {
+        BookingSagaStateJpaEntity jpaEntity = mapper.toJpaEntity(sagaState);
+        jpaEntity.setNewEntity(true);
+        _bookingSagaStateJpaRepository.save(jpaEntity);
+        return sagaState;
+    }
+
+    @Override
+    public boolean update(BookingSagaState sagaState) {
+        if (_bookingSagaStateJpaRepository.updateIfVersionMatches(mapper.toJpaEntity(sagaState)) == 0) {
+            return false;
+        }
+        sagaState.setVersion(sagaState.getVersion() + 1);
+        return true;
+    }
+
+    @Override
+    public Optional<BookingSagaState> findByBookingId(String bookingId) {
+        return _bookingSagaStateJpaRepository.findByBookingId(bookingId)
+                .map(mapper::toDomain);
+    }
+
+    @Override
+    public Optional<BookingSagaState> findByCorrelationId(String correlationId) {
+        return _bookingSagaStateJpaRepository.findByCorrelationId(correlationId)
+                .map(mapper::toDomain);
+    }
+
+    @Override
+    public List<BookingSagaState> findBySagaStatus(String sagaStatus, int limit) {
+        return _bookingSagaStateJpaRepository.findBySagaStatus(sagaStatus, PageRequest.of(0, limit))
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    @Override
+    public List<BookingSagaState> claimOverdue(ZonedDateTime now, int limit) {
+        return _bookingSagaStateJpaRepository.claimOverdue(now, limit)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    @Override
+    public Map<String, Long> countDueByStep(ZonedDateTime horizon) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : _bookingSagaStateJpaRepository.countDueByStep(horizon)) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
@@ -2,7 +2,10 @@ package com.bookingcare.infrastructure.dataaccess.adapter;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
 
 import com.bookingcare.application.ports.output.IHealthCheckPackageScheduleBookingDetailRepository;
@@ -11,6 +14,7 @@ import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageSchedu
 import com.bookingcare.infrastructure.dataaccess.mapper.BookingMapperInfrastructure;
 import com.bookingcare.infrastructure.dataaccess.repository.IHealthCheckPackageScheduleBookingDetailJpaRepository;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 
 @Repository
@@ -18,6 +22,10 @@ import lombok.RequiredArgsConstructor;
 public class HealthCheckPackageScheduleBookingDetailRepository implements IHealthCheckPackageScheduleBookingDetailRepository {
     private final IHealthCheckPackageScheduleBookingDetailJpaRepository _healthCheckPackageScheduleBookingDetailJpaRepository;
     private final BookingMapperInfrastructure mapper;
+    private final EntityManager entityManager;
+
+    // Số entity stream giữ trong persistence context trước khi clear
+    private static final int STREAM_CLEAR_EVERY = 500;
 
     @Override
     public HealthCheckPackageScheduleBookingDetail save(HealthCheckPackageScheduleBookingDetail order) {
@@ -49,13 +57,29 @@ public class HealthCheckPackageScheduleBookingDetailRepository implements IHealt
     }
 
     @Override
-    public List<HealthCheckPackageScheduleBookingDetail> findAll() {
-        return _healthCheckPackageScheduleBookingDetailJpaRepository.findAll()
-                .stream()
+    public List<HealthCheckPackageScheduleBookingDetail> findPageAfter(String afterId, int limit) {
+        List<HealthCheckPackageScheduleBookingDetailJpaEntity> rows = afterId == null
+                ? _healthCheckPackageScheduleBookingDetailJpaRepository.findFirstPage(Limit.of(limit))
+                : _healthCheckPackageScheduleBookingDetailJpaRepository.findPageAfter(afterId, Limit.of(limit));
+        return rows.stream()
                 .map(mapper::toDomain)
                 .toList();
     }
 
+    @Override
+    public Stream<HealthCheckPackageScheduleBookingDetail> streamAll() {
+        AtomicLong rows = new AtomicLong();
+        return _healthCheckPackageScheduleBookingDetailJpaRepository.streamAllOrderById()
+                .map(entity -> {
+                    HealthCheckPackageScheduleBookingDetail booking = mapper.toDomain(entity);
+                    // Entity đã map sang domain: bỏ khỏi persistence context theo lô để RAM không tăng theo số dòng
+                    if (rows.incrementAndGet() % STREAM_CLEAR_EVERY == 0) {
+                        entityManager.clear();
+                    }
+                    return booking;
+                });
+    }
+
     @Override
     public Optional<HealthCheckPackageScheduleBookingDetail> findById(String orderId) {
         return _healthCheckPackageScheduleBookingDetailJpaRepository
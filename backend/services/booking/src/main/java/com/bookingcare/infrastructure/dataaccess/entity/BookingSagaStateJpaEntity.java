@@ -0,0 +1,75 @@
+package com.bookingcare.infrastructure.dataaccess.entity;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "booking_saga_state")
+public class BookingSagaStateJpaEntity implements Persistable<String> {
+
+  @Id
+  private String id;
+
+  @Column(name = "booking_id", nullable = false, unique = true)
+  private String bookingId;
+
+  @Column(name = "correlation_id", nullable = false)
+  private String correlationId;
+
+  @Column(name = "saga_status", nullable = false)
+  private String sagaStatus;
+
+  @Column(name = "current_saga_step", nullable = false)
+  private String currentSagaStep;
+
+  @Column(name = "schedule_hold_id")
+  private String scheduleHoldId;
+
+  @Column(name = "hold_expire_at")
+  private ZonedDateTime holdExpireAt;
+
+  @Column(name = "external_payment_id")
+  private String externalPaymentId;
+
+  @Column(name = "last_payment_status")
+  private String lastPaymentStatus;
+
+  @Column(name = "step_deadline_at")
+  private ZonedDateTime stepDeadlineAt;
+
+  @Column(name = "created_at", nullable = false)
+  private ZonedDateTime createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private ZonedDateTime updatedAt;
+
+  @Column(nullable = false)
+  private long version;
+
+  // Insert thẳng (persist) thay vì merge -> không SELECT trước khi ghi
+  @Transient
+  @Builder.Default
+  private boolean newEntity = false;
+
+  @Override
+  public boolean isNew() {
+    return newEntity;
+  }
+}
@@ -4,9 +4,11 @@ import org.springframework.stereotype.Component;
 
 import com.bookingcare.domain.entity.BookingPackage;
 import com.bookingcare.domain.entity.BookingPackageDetail;
+import com.bookingcare.domain.entity.BookingSagaState;
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
 import com.bookingcare.infrastructure.dataaccess.entity.BookingPackageDetailJpaEntity;
 import com.bookingcare.infrastructure.dataaccess.entity.BookingPackageJpaEntity;
+import com.bookingcare.infrastructure.dataaccess.entity.BookingSagaStateJpaEntity;
 import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageScheduleBookingDetailJpaEntity;
 
 import lombok.RequiredArgsConstructor;
@@ -91,4 +93,44 @@ public class BookingMapperInfrastructure {
                 .bookingPackage(toDomain(entity.getBookingPackage()))
                 .build();
     }
+
+    public BookingSagaStateJpaEntity toJpaEntity(BookingSagaState domain) {
+        return BookingSagaStateJpaEntity.builder()
+                .id(domain.getId())
+                .bookingId(domain.getBookingId())
+                .correlationId(domain.getCorrelationId())
+                .sagaStatus(domain.getSagaStatus())
+                .currentSagaStep(domain.getCurrentSagaStep())
+                .scheduleHoldId(domain.getScheduleHoldId())
+                .holdExpireAt(domain.getHoldExpireAt())
+                .externalPaymentId(domain.getExternalPaymentId())
+                .lastPaymentStatus(domain.getLastPaymentStatus())
+                .stepDeadlineAt(domain.getStepDeadlineAt())
+                .createdAt(domain.getCreatedAt())
+                .updatedAt(domain.getUpdatedAt())
+                .version(domain.getVersion())
+                .build();
+    }
+
+    public BookingSagaState toDomain(BookingSagaStateJpaEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        return BookingSagaState.builder()
+                .id(entity.getId())
+                .bookingId(entity.getBookingId())
+                .correlationId(entity.getCorrelationId())
+                .sagaStatus(entity.getSagaStatus())
+                .currentSagaStep(entity.getCurrentSagaStep())
+                .scheduleHoldId(entity.getScheduleHoldId())
+                .holdExpireAt(entity.getHoldExpireAt())
+                .externalPaymentId(entity.getExternalPaymentId())
+                .lastPaymentStatus(entity.getLastPaymentStatus())
+                .stepDeadlineAt(entity.getStepDeadlineAt())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .version(entity.getVersion())
+                .build();
+    }
 }
@@ -1,12 +1,24 @@
 package com.bookingcare.infrastructure.dataaccess.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.bookingcare.infrastructure.dataaccess.entity.BookingPackageDetailId;
 import com.bookingcare.infrastructure.dataaccess.entity.BookingPackageDetailJpaEntity;
 
 public interface IBookingPackageDetailJpaRepository extends JpaRepository<BookingPackageDetailJpaEntity, BookingPackageDetailId> {
     Optional<BookingPackageDetailJpaEntity> findByBookingPackageId(String bookingPackageId);
+
+    // 1 query cho nhiều booking package (JOIN FETCH bookingPackage, không N+1)
+    @Query("""
+            SELECT d FROM BookingPackageDetailJpaEntity d JOIN FETCH d.bookingPackage
+            WHERE d.id.bookingPackageId IN :bookingPackageIds
+            """)
+    List<BookingPackageDetailJpaEntity> findAllByBookingPackageIds(
+            @Param("bookingPackageIds") Collection<String> bookingPackageIds);
 }
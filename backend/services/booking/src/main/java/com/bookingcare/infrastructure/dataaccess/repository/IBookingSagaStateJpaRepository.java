@@ -0,0 +1,57 @@
+package com.bookingcare.infrastructure.dataaccess.repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bookingcare.infrastructure.dataaccess.entity.BookingSagaStateJpaEntity;
+
+public interface IBookingSagaStateJpaRepository extends JpaRepository<BookingSagaStateJpaEntity, String> {
+    Optional<BookingSagaStateJpaEntity> findByBookingId(String bookingId);
+
+    Optional<BookingSagaStateJpaEntity> findByCorrelationId(String correlationId);
+
+    @Query("SELECT s FROM BookingSagaStateJpaEntity s WHERE s.sagaStatus = :sagaStatus ORDER BY s.updatedAt")
+    List<BookingSagaStateJpaEntity> findBySagaStatus(@Param("sagaStatus") String sagaStatus, Pageable pageable);
+
+    // Saga chưa kết thúc đã quá deadline (idx_saga_state_step_deadline), SKIP LOCKED để nhiều replica cùng quét
+    @Query(value = """
+            SELECT * FROM booking_saga_state
+            WHERE saga_status IN ('INITIATED', 'IN_PROGRESS')
+              AND step_deadline_at <= :now
+            ORDER BY step_deadline_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<BookingSagaStateJpaEntity> claimOverdue(@Param("now") ZonedDateTime now, @Param("limit") int limit);
+
+    @Query("""
+            SELECT s.currentSagaStep, COUNT(s) FROM BookingSagaStateJpaEntity s
+            WHERE s.sagaStatus IN ('INITIATED', 'IN_PROGRESS')
+              AND s.stepDeadlineAt <= :horizon
+            GROUP BY s.currentSagaStep
+            """)
+    List<Object[]> countDueByStep(@Param("horizon") ZonedDateTime horizon);
+
+    @Modifying
+    @Query("""
+            UPDATE BookingSagaStateJpaEntity s
+            SET s.sagaStatus = :#{#state.sagaStatus},
+                s.currentSagaStep = :#{#state.currentSagaStep},
+                s.scheduleHoldId = :#{#state.scheduleHoldId},
+                s.holdExpireAt = :#{#state.holdExpireAt},
+                s.externalPaymentId = :#{#state.externalPaymentId},
+                s.lastPaymentStatus = :#{#state.lastPaymentStatus},
+                s.stepDeadlineAt = :#{#state.stepDeadlineAt},
+                s.updatedAt = :#{#state.updatedAt},
+                s.version = s.version + 1
+            WHERE s.id = :#{#state.id} AND s.version = :#{#state.version}
+            """)
+    int updateIfVersionMatches(@Param("state") BookingSagaStateJpaEntity state);
+}
@@ -1,9 +1,16 @@
 package com.bookingcare.infrastructure.dataaccess.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageScheduleBookingDetailJpaEntity;
 
@@ -13,4 +20,19 @@ public interface IHealthCheckPackageScheduleBookingDetailJpaRepository extends J
 
     @Query("SELECT h FROM HealthCheckPackageScheduleBookingDetailJpaEntity h WHERE h.clinicId LIKE CONCAT(?1, '%')")
     List<HealthCheckPackageScheduleBookingDetailJpaEntity> findByClinicId(String id);
+
+    // Keyset theo khoá chính (id), patient / bookingPackage là ManyToOne EAGER nên fetch luôn trong 1 query
+    @Query("SELECT h FROM HealthCheckPackageScheduleBookingDetailJpaEntity h JOIN FETCH h.patient JOIN FETCH h.bookingPackage ORDER BY h.id")
+    List<HealthCheckPackageScheduleBookingDetailJpaEntity> findFirstPage(Limit limit);
+
+    @Query("SELECT h FROM HealthCheckPackageScheduleBookingDetailJpaEntity h JOIN FETCH h.patient JOIN FETCH h.bookingPackage WHERE h.id > :afterId ORDER BY h.id")
+    List<HealthCheckPackageScheduleBookingDetailJpaEntity> findPageAfter(@Param("afterId") String afterId, Limit limit);
+
+    // Export: đọc dần theo fetch size (server-side cursor), phải dùng trong transaction và đóng stream sau khi dùng
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h FROM HealthCheckPackageScheduleBookingDetailJpaEntity h JOIN FETCH h.patient JOIN FETCH h.bookingPackage ORDER BY h.id")
+    Stream<HealthCheckPackageScheduleBookingDetailJpaEntity> streamAllOrderById();
 }
@@ -0,0 +1,146 @@
+package com.bookingcare.infrastructure.external;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gom nhiều lookup theo key thành 1 lần gọi bulk API của service khác (kiểu DataLoader).
+ *
+ * - loadMany: trong 1 request, bỏ key trùng rồi gọi bulk theo từng chunk maxBatchSize, chạy trên thread gọi.
+ * - load: gom key của các request đồng thời trong cửa sổ window (hoặc tới khi đủ maxBatchSize),
+ *   các lần load cùng key trong cửa sổ dùng chung 1 future. Batch được gọi với request context
+ *   (header Authorization / X-User-*) của request mở batch, nên chỉ dùng cho dữ liệu không phụ thuộc user.
+ *
+ * Key không có trong kết quả bulk trả về null. Bulk call lỗi thì mọi future của batch lỗi theo.
+ */
+@Slf4j
+public class BatchLoader<K, V> implements AutoCloseable {
+
+    private final String name;
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Batch<K, V> current;
+
+    public BatchLoader(String name, Function<List<K>, Map<K, V>> batchFunction, int maxBatchSize, Duration window) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = window;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-loader-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bulk call là blocking IO (Feign), mỗi batch 1 virtual thread
+        this.dispatcher = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("batch-loader-" + name + "-", 0).factory());
+    }
+
+    /**
+     * Lookup 1 key, được gom với các lookup khác trong cửa sổ window.
+     */
+    public CompletableFuture<V> load(K key) {
+        Batch<K, V> full = null;
+        CompletableFuture<V> future;
+        synchronized (lock) {
+            if (current == null) {
+                current = new Batch<>(RequestContextHolder.getRequestAttributes());
+                Batch<K, V> opened = current;
+                opened.timeout = timer.schedule(() -> flush(opened), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            future = current.futures.computeIfAbsent(key, ignored -> new CompletableFuture<>());
+            if (current.futures.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+                full.timeout.cancel(false);
+            }
+        }
+        if (full != null) {
+            Batch<K, V> batch = full;
+            dispatcher.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    /**
+     * Lookup nhiều key ngay trên thread hiện tại: bỏ trùng, ceil(n / maxBatchSize) lần gọi bulk.
+     */
+    public Map<K, V> loadMany(Collection<K> keys) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<K, V> result = new HashMap<>(distinct.size() * 2);
+        for (int from = 0; from < distinct.size(); from += maxBatchSize) {
+            List<K> chunk = distinct.subList(from, Math.min(from + maxBatchSize, distinct.size()));
+            Map<K, V> loaded = batchFunction.apply(chunk);
+            if (loaded != null) {
+                result.putAll(loaded);
+            }
+        }
+        log.debug("BatchLoader {}: {} keys ({} distinct) loaded", name, keys.size(), distinct.size());
+        return result;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        dispatcher.shutdown();
+    }
+
+    private void flush(Batch<K, V> batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                // Đã dispatch vì đủ maxBatchSize
+                return;
+            }
+            current = null;
+        }
+        dispatcher.execute(() -> dispatch(batch));
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        List<K> keys = new ArrayList<>(batch.futures.keySet());
+        RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(batch.requestAttributes);
+        try {
+            Map<K, V> loaded = batchFunction.apply(keys);
+            batch.futures.forEach((key, future) -> future.complete(loaded == null ? null : loaded.get(key)));
+            log.debug("BatchLoader {}: dispatched {} keys", name, keys.size());
+        } catch (RuntimeException e) {
+            log.warn("BatchLoader {}: bulk call for {} keys failed: {}", name, keys.size(), e.getMessage());
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            RequestContextHolder.setRequestAttributes(previous);
+        }
+    }
+
+    private static final class Batch<K, V> {
+        private final RequestAttributes requestAttributes;
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        private ScheduledFuture<?> timeout;
+
+        private Batch(RequestAttributes requestAttributes) {
+            this.requestAttributes = requestAttributes;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.bookingcare.infrastructure.external;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.bookingcare.application.dto.ApiResponse;
+import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.infrastructure.external.package_service.HealthCheckPackageBatchRequest;
+import com.bookingcare.infrastructure.external.package_service.HealthCheckPackageResponse;
+import com.bookingcare.infrastructure.external.package_service.HealthPackageFeignClient;
+import com.bookingcare.infrastructure.external.schedule.PackageScheduleBatchRequest;
+import com.bookingcare.infrastructure.external.schedule.ScheduleFeignClient;
+
+/**
+ * BatchLoader cho dữ liệu enrich từ package-service và schedule-service (POST .../batch).
+ */
+@Configuration
+public class BatchLoaderConfig {
+
+    @Bean
+    public BatchLoader<UUID, HealthCheckPackageResponse> healthPackageBatchLoader(
+            HealthPackageFeignClient healthPackageFeignClient,
+            @Value("${application.batch-loader.max-batch-size:100}") int maxBatchSize,
+            @Value("${application.batch-loader.window-ms:5}") long windowMs) {
+        return new BatchLoader<>("package-service", ids -> healthPackageFeignClient
+                .getPackagesByIds(new HealthCheckPackageBatchRequest(ids))
+                .stream()
+                .collect(Collectors.toMap(HealthCheckPackageResponse::id, Function.identity(), (a, b) -> a)),
+                maxBatchSize, Duration.ofMillis(windowMs));
+    }
+
+    @Bean
+    public BatchLoader<String, QueryPackageScheduleResponse> packageScheduleBatchLoader(
+            ScheduleFeignClient scheduleFeignClient,
+            @Value("${application.batch-loader.max-batch-size:100}") int maxBatchSize,
+            @Value("${application.batch-loader.window-ms:5}") long windowMs) {
+        return new BatchLoader<>("schedule-service", ids -> {
+            ApiResponse<List<QueryPackageScheduleResponse>> response = scheduleFeignClient
+                    .getPackageSchedulesByIds(new PackageScheduleBatchRequest(ids));
+            if (response == null || response.getData() == null) {
+                return Map.of();
+            }
+            return response.getData().stream()
+                    .collect(Collectors.toMap(QueryPackageScheduleResponse::packageScheduleId,
+                            Function.identity(), (a, b) -> a));
+        }, maxBatchSize, Duration.ofMillis(windowMs));
+    }
+}
@@ -0,0 +1,10 @@
+package com.bookingcare.infrastructure.external.package_service;
+
+import java.util.List;
+import java.util.UUID;
+
+public record HealthCheckPackageBatchRequest(
+    List<UUID> ids
+) {
+
+}
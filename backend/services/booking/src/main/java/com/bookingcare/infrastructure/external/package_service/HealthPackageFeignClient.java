@@ -1,21 +1,28 @@
 package com.bookingcare.infrastructure.external.package_service;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import com.bookingcare.infrastructure.external.FeignConfig;
 
 @FeignClient(
             name = "package-service", 
-            url = "${application.config.package-url}",
+            path = "/api/v1/packages-services",
             configuration = FeignConfig.class
         )
 public interface HealthPackageFeignClient {
     @GetMapping("/packages/{id}")
     ResponseEntity<HealthCheckPackageResponse> getPackageDetail(@PathVariable UUID id);
+
+    // Bulk lookup (tối đa 500 id), id không tồn tại bị bỏ qua
+    @PostMapping("/packages/batch")
+    List<HealthCheckPackageResponse> getPackagesByIds(@RequestBody HealthCheckPackageBatchRequest request);
 }
         
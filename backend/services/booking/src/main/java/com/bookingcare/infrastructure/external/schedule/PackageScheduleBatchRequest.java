@@ -0,0 +1,9 @@
+package com.bookingcare.infrastructure.external.schedule;
+
+import java.util.List;
+
+public record PackageScheduleBatchRequest(
+    List<String> packageScheduleIds
+) {
+
+}
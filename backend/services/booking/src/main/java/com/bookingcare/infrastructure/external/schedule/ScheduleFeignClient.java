@@ -3,17 +3,25 @@ package com.bookingcare.infrastructure.external.schedule;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import com.bookingcare.application.dto.ApiResponse;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
 import com.bookingcare.application.ports.output.IScheduleFeignClientService;
 
+import java.util.List;
 import java.util.Optional;
 
-@FeignClient(name = "schedule-service", url = "${application.config.schedule-url}")
+@FeignClient(name = "schedule-service", path = "/api/v1/schedule")
 public interface ScheduleFeignClient extends IScheduleFeignClientService {
     @GetMapping("/{packageScheduleId}")
     ApiResponse<Optional<QueryPackageScheduleResponse>> getPackageScheduleById(
             @PathVariable String packageScheduleId);
 
+    // Bulk lookup (tối đa 500 id), id không tồn tại bị bỏ qua
+    @PostMapping("/package-schedules/batch")
+    ApiResponse<List<QueryPackageScheduleResponse>> getPackageSchedulesByIds(
+            @RequestBody PackageScheduleBatchRequest request);
+
 }
@@ -0,0 +1,23 @@
+package com.bookingcare.infrastructure.messaging;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // Fan-out trạng thái thanh toán tới mọi replica: chỉ có ý nghĩa với kết nối SSE đang mở, giữ ngắn
+    @Bean
+    public NewTopic paymentStatusTopic(
+            @Value("${application.payment-stream.fan-out-topic:booking-payment-status}") String topic) {
+        return TopicBuilder.name(topic)
+                .partitions(3)
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "3600000")
+                .build();
+    }
+}
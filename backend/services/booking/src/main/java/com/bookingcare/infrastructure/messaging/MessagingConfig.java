@@ -0,0 +1,20 @@
+package com.bookingcare.infrastructure.messaging;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.bookingcare.common.messaging.KafkaBatchListenerConfig;
+import com.bookingcare.common.messaging.KafkaErrorHandlerConfig;
+import com.bookingcare.common.messaging.ProcessedEventStore;
+import com.bookingcare.common.messaging.outbox.OutboxEventStore;
+import com.bookingcare.common.messaging.outbox.OutboxRelay;
+
+/**
+ * Các thành phần messaging dùng chung (common-messaging) mà booking-service sử dụng.
+ * Package com.bookingcare.common không nằm trong component scan nên phải @Import ở đây.
+ */
+@Configuration
+@Import({KafkaBatchListenerConfig.class, KafkaErrorHandlerConfig.class,
+        OutboxEventStore.class, OutboxRelay.class, ProcessedEventStore.class})
+public class MessagingConfig {
+}
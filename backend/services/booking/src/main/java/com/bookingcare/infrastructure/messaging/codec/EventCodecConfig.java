@@ -0,0 +1,41 @@
+package com.bookingcare.infrastructure.messaging.codec;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.bookingcare.application.dto.event.BookingConfirmedEvent;
+import com.bookingcare.application.dto.event.BookingCreatedEvent;
+import com.bookingcare.application.dto.event.CancelHoldCommand;
+import com.bookingcare.application.dto.event.HoldExpiredEvent;
+import com.bookingcare.application.dto.event.HoldSlotFailedEvent;
+import com.bookingcare.application.dto.event.HoldSlotSucceededEvent;
+import com.bookingcare.application.dto.event.PaymentFailedEvent;
+import com.bookingcare.application.dto.event.PaymentLinkCreatedEvent;
+import com.bookingcare.application.dto.event.PaymentRequestedEvent;
+import com.bookingcare.application.dto.event.PaymentSucceededEvent;
+import com.bookingcare.common.messaging.codec.EventCodecConfiguration;
+import com.bookingcare.common.messaging.codec.EventSchemaRegistry;
+
+@Configuration
+@Import(EventCodecConfiguration.class)
+public class EventCodecConfig {
+
+    /**
+     * Các event booking-service gửi đi hoặc nhận vào.
+     */
+    @Bean
+    public EventSchemaRegistry eventSchemaRegistry() {
+        return new EventSchemaRegistry()
+                .register(BookingCreatedEvent.class)
+                .register(PaymentRequestedEvent.class)
+                .register(BookingConfirmedEvent.class)
+                .register(CancelHoldCommand.class)
+                .register(HoldSlotSucceededEvent.class)
+                .register(HoldSlotFailedEvent.class)
+                .register(HoldExpiredEvent.class)
+                .register(PaymentLinkCreatedEvent.class)
+                .register(PaymentSucceededEvent.class)
+                .register(PaymentFailedEvent.class);
+    }
+}
@@ -0,0 +1,206 @@
+package com.bookingcare.infrastructure.push;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.bookingcare.application.ports.output.IPaymentStatusNotifier;
+import com.bookingcare.domain.valueobject.BookingStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Kênh SSE đẩy trạng thái link thanh toán tới client đang chờ booking (thay cho poll payment-url).
+ *
+ * - Mỗi booking có thể có nhiều kết nối (nhiều tab); kết nối idle không giữ thread của Tomcat
+ *   (servlet async), nên 1 node giữ được hàng chục nghìn kết nối (server.tomcat.max-connections).
+ * - BookingSagaOrchestrator gọi paymentStatusChanged khi có PaymentLinkCreated / PaymentSucceeded / PaymentFailed
+ *   (và khi booking bị huỷ / hết hạn giữ chỗ); status gửi sau khi transaction commit.
+ * - Booking đã sang trạng thái cuối (không còn PENDING*) hoặc lỗi: gửi lần cuối rồi đóng kết nối.
+ * - Heartbeat (comment SSE) định kỳ để proxy / gateway không cắt kết nối idle.
+ *
+ * Client có thể đang giữ kết nối ở replica khác replica xử lý saga, nên trạng thái mới không đẩy thẳng
+ * vào emitter local mà gửi lên fan-out-topic; mỗi replica đọc topic bằng 1 group id riêng
+ * (như CatalogInvalidationListener của gateway) rồi đẩy tới kết nối nó đang giữ.
+ * Gửi lên Kafka lỗi thì chỉ đẩy được tới kết nối trên replica này.
+ */
+@Component
+@Slf4j
+public class PaymentStatusSseHub implements IPaymentStatusNotifier {
+    static final String EVENT_NAME = "payment-status";
+
+    private static final Set<String> PENDING_STATUSES = Set.of(
+            BookingStatus.PENDING.name(),
+            BookingStatus.PENDING_SCHEDULE.name(),
+            BookingStatus.PENDING_PAYMENT.name());
+
+    private final ConcurrentHashMap<String, Set<SseEmitter>> emittersByBooking = new ConcurrentHashMap<>();
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String fanOutTopic;
+    private final long timeoutMillis;
+
+    public PaymentStatusSseHub(KafkaTemplate<String, byte[]> kafkaTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${application.payment-stream.fan-out-topic:booking-payment-status}") String fanOutTopic,
+                               @Value("${application.payment-stream.timeout-seconds:900}") long timeoutSeconds) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.fanOutTopic = fanOutTopic;
+        this.timeoutMillis = timeoutSeconds * 1000;
+        Gauge.builder("booking.payment_stream.connections", this, PaymentStatusSseHub::connectionCount)
+                .description("Open SSE connections waiting for payment status")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Mở kết nối cho booking: đăng ký trước rồi mới đọc trạng thái hiện tại, nên event tới trong lúc đọc
+     * không bị mất (client có thể nhận trùng 1 trạng thái).
+     */
+    public SseEmitter subscribe(String bookingId, Supplier<Map<String, Object>> currentStatus) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emittersByBooking.compute(bookingId, (ignored, emitters) -> {
+            Set<SseEmitter> registered = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            registered.add(emitter);
+            return registered;
+        });
+
+        Runnable unregister = () -> remove(bookingId, emitter);
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(unregister);
+        emitter.onError(error -> unregister.run());
+
+        Map<String, Object> status = currentStatus.get();
+        send(bookingId, emitter, status, isFinal(status));
+        return emitter;
+    }
+
+    @Override
+    public void paymentStatusChanged(String bookingId, Map<String, Object> status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcast(bookingId, status);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                broadcast(bookingId, status);
+            }
+        });
+    }
+
+    /**
+     * Trạng thái do replica bất kỳ (kể cả replica này) gửi lên fan-out-topic. Message cũ không có ý nghĩa
+     * với kết nối đang mở (đã nhận trạng thái hiện tại lúc subscribe) nên đọc từ cuối topic.
+     */
+    @KafkaListener(
+            topics = "${application.payment-stream.fan-out-topic:booking-payment-status}",
+            groupId = "booking-payment-stream-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onStatusBroadcast(byte[] message) {
+        try {
+            StatusBroadcast broadcast = objectMapper.readValue(message, StatusBroadcast.class);
+            if (broadcast.bookingId() == null || broadcast.status() == null) {
+                log.warn("Ignoring payment status broadcast without bookingId / status");
+                return;
+            }
+            push(broadcast.bookingId(), broadcast.status());
+        } catch (Exception e) {
+            log.warn("Ignoring malformed payment status broadcast: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.payment-stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emittersByBooking.forEach((bookingId, emitters) -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                remove(bookingId, emitter);
+            }
+        }));
+    }
+
+    int connectionCount() {
+        int count = 0;
+        for (Set<SseEmitter> emitters : emittersByBooking.values()) {
+            count += emitters.size();
+        }
+        return count;
+    }
+
+    private void broadcast(String bookingId, Map<String, Object> status) {
+        byte[] message;
+        try {
+            message = objectMapper.writeValueAsBytes(new StatusBroadcast(bookingId, status));
+        } catch (Exception e) {
+            log.warn("Cannot serialize payment status of booking {}, pushing locally only: {}", bookingId, e.getMessage());
+            push(bookingId, status);
+            return;
+        }
+
+        kafkaTemplate.send(fanOutTopic, bookingId, message).whenComplete((result, error) -> {
+            if (error != null) {
+                log.warn("Failed to broadcast payment status of booking {}, pushing locally only: {}",
+                        bookingId, error.getMessage());
+                push(bookingId, status);
+            }
+        });
+    }
+
+    private void push(String bookingId, Map<String, Object> status) {
+        Set<SseEmitter> emitters = emittersByBooking.get(bookingId);
+        if (emitters == null) {
+            return;
+        }
+
+        boolean isFinal = isFinal(status);
+        emitters.forEach(emitter -> send(bookingId, emitter, status, isFinal));
+        log.debug("Pushed payment status to {} connection(s): bookingId={}, status={}",
+                emitters.size(), bookingId, status.get("status"));
+    }
+
+    private void send(String bookingId, SseEmitter emitter, Map<String, Object> status, boolean isFinal) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(status, MediaType.APPLICATION_JSON));
+            if (isFinal) {
+                emitter.complete();
+                remove(bookingId, emitter);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client đã đóng kết nối
+            remove(bookingId, emitter);
+        }
+    }
+
+    private void remove(String bookingId, SseEmitter emitter) {
+        emittersByBooking.computeIfPresent(bookingId, (ignored, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static boolean isFinal(Map<String, Object> status) {
+        return "ERROR".equals(status.get("status")) || !PENDING_STATUSES.contains(status.get("bookingStatus"));
+    }
+
+    record StatusBroadcast(String bookingId, Map<String, Object> status) {
+    }
+}
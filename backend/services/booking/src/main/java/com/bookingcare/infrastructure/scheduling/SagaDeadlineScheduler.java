@@ -0,0 +1,114 @@
+package com.bookingcare.infrastructure.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.application.saga.BookingSagaOrchestrator;
+import com.bookingcare.application.saga.BookingSagaStateStore;
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.domain.valueobject.SagaStep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Quét booking_saga_state theo step_deadline_at (index idx_saga_state_step_deadline) và chạy
+ * compensation cho các saga kẹt quá deadline: huỷ booking, gửi CancelHoldCommand trả chỗ.
+ *
+ * - Mỗi batch là 1 transaction, claim bằng FOR UPDATE SKIP LOCKED nên nhiều replica chạy song song an toàn.
+ * - Metric saga.deadline.near{step}: số saga sẽ quá deadline trong near-deadline-window, theo bước.
+ * - Metric saga.compensated{step}: số saga đã bị huỷ vì timeout, theo bước bị kẹt.
+ */
+@Component
+@Slf4j
+public class SagaDeadlineScheduler {
+
+    private final BookingSagaOrchestrator _sagaOrchestrator;
+    private final BookingSagaStateStore _sagaStateStore;
+    private final MeterRegistry meterRegistry;
+    private final MultiGauge nearDeadlineGauge;
+
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration nearDeadlineWindow;
+
+    public SagaDeadlineScheduler(BookingSagaOrchestrator sagaOrchestrator,
+                                 BookingSagaStateStore sagaStateStore,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${application.saga-timeout.batch-size:100}") int batchSize,
+                                 @Value("${application.saga-timeout.max-batches-per-run:10}") int maxBatchesPerRun,
+                                 @Value("${application.saga-timeout.near-deadline-window-seconds:60}") long nearDeadlineWindowSeconds) {
+        this._sagaOrchestrator = sagaOrchestrator;
+        this._sagaStateStore = sagaStateStore;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.nearDeadlineWindow = Duration.ofSeconds(nearDeadlineWindowSeconds);
+        this.nearDeadlineGauge = MultiGauge.builder("saga.deadline.near")
+                .description("In-flight sagas whose current step deadline falls within the near-deadline window")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.saga-timeout.sweep-interval-ms:5000}")
+    public void sweep() {
+        try {
+            compensateOverdueSagas();
+        } catch (Exception e) {
+            log.error("Error compensating overdue sagas: {}", e.getMessage(), e);
+        }
+
+        try {
+            reportNearDeadline();
+        } catch (Exception e) {
+            log.warn("Failed to refresh near-deadline saga metrics: {}", e.getMessage());
+        }
+    }
+
+    void compensateOverdueSagas() {
+        Map<String, Long> compensatedByStep = new TreeMap<>();
+        List<BookingSagaState> batch;
+        int batches = 0;
+        do {
+            batch = _sagaOrchestrator.compensateOverdueSagas(batchSize);
+            batch.forEach(saga -> compensatedByStep.merge(saga.getCurrentSagaStep(), 1L, Long::sum));
+            batches++;
+        } while (batch.size() == batchSize && batches < maxBatchesPerRun);
+
+        compensatedByStep.forEach((step, count) ->
+                Counter.builder("saga.compensated")
+                        .description("Sagas cancelled because their current step passed its deadline")
+                        .tag("step", step)
+                        .register(meterRegistry)
+                        .increment(count));
+
+        if (!compensatedByStep.isEmpty()) {
+            log.warn("Compensated overdue sagas by step: {}", compensatedByStep);
+        }
+    }
+
+    void reportNearDeadline() {
+        Map<String, Long> dueByStep = _sagaStateStore.countDueByStep(ZonedDateTime.now().plus(nearDeadlineWindow));
+
+        // Luôn ghi đủ các bước có deadline để gauge về 0 khi hết saga sắp quá hạn
+        nearDeadlineGauge.register(Arrays.stream(SagaStep.values())
+                .map(SagaStep::name)
+                .map(step -> MultiGauge.Row.of(Tags.of("step", step), dueByStep.getOrDefault(step, 0L)))
+                .collect(Collectors.toList()), true);
+
+        if (!dueByStep.isEmpty()) {
+            log.info("Sagas near deadline (next {}s) by step: {}", nearDeadlineWindow.toSeconds(), dueByStep);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- ============================================
+-- Transactional outbox: event được ghi cùng transaction với dữ liệu nghiệp vụ,
+-- OutboxRelay đọc theo batch (FOR UPDATE SKIP LOCKED) rồi gửi lên Kafka
+-- ============================================
+
+CREATE TABLE outbox_events
+(
+    id            BIGSERIAL PRIMARY KEY,
+    topic         VARCHAR(255) NOT NULL,
+    message_key   VARCHAR(255) NOT NULL,
+    event_type    VARCHAR(100) NOT NULL,
+    payload       TEXT         NOT NULL,
+    attempts      INT          NOT NULL DEFAULT 0,
+    last_error    VARCHAR(1000),
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at  TIMESTAMP WITH TIME ZONE
+);
+
+-- Relay chỉ quét các event chưa gửi, theo thứ tự ghi
+CREATE INDEX idx_outbox_events_pending ON outbox_events (id) WHERE published_at IS NULL;
+
+-- Dọn các event đã gửi
+CREATE INDEX idx_outbox_events_published_at ON outbox_events (published_at) WHERE published_at IS NOT NULL;
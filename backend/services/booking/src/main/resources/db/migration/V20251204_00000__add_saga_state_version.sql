@@ -0,0 +1,3 @@
+-- Optimistic lock cho booking_saga_state: mỗi bước saga là 1 câu UPDATE ... WHERE version = ?
+ALTER TABLE booking_saga_state
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
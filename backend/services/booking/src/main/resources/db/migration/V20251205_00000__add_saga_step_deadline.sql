@@ -0,0 +1,17 @@
+-- ============================================
+-- Deadline của bước saga hiện tại. SagaDeadlineScheduler quét các saga chưa kết thúc
+-- có step_deadline_at <= now() để huỷ booking và trả hold (compensation)
+-- ============================================
+
+ALTER TABLE booking_saga_state
+    ADD COLUMN step_deadline_at TIMESTAMP WITH TIME ZONE;
+
+-- Saga đang chạy từ trước: hết hạn theo hold, chưa có hold thì sau 15 phút
+UPDATE booking_saga_state
+SET step_deadline_at = COALESCE(hold_expire_at, updated_at + INTERVAL '15 minutes')
+WHERE saga_status IN ('INITIATED', 'IN_PROGRESS')
+  AND current_saga_step <> 'PAYMENT_COMPLETED';
+
+CREATE INDEX idx_saga_state_step_deadline
+    ON booking_saga_state (step_deadline_at)
+    WHERE saga_status IN ('INITIATED', 'IN_PROGRESS');
@@ -0,0 +1,14 @@
+-- ============================================
+-- Event đã được consumer của booking-service xử lý (dedup theo EventEnvelope.eventId).
+-- Chỉ giữ khoá + thời điểm xử lý để bảng gọn, dọn theo application.event-dedup.retention-days
+-- ============================================
+
+CREATE TABLE processed_events
+(
+    event_id      VARCHAR(64) PRIMARY KEY,
+    event_type    VARCHAR(100) NOT NULL,
+    processed_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Dọn các event đã quá thời gian giữ
+CREATE INDEX idx_processed_events_processed_at ON processed_events (processed_at);
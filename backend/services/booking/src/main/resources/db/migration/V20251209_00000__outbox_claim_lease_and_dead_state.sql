@@ -0,0 +1,19 @@
+-- ============================================
+-- OutboxRelay claim event bằng lease rồi chờ ack Kafka ngoài transaction:
+--   - claimed_until: lease của relay đang gửi, hoặc thời điểm được gửi lại sau khi gửi lỗi
+--   - dead_at: event gửi lỗi quá application.outbox.retry.max-attempts lần, không gửi lại nữa
+--     (gửi lại tay: UPDATE outbox_events SET dead_at = NULL, attempts = 0 WHERE id = ...)
+-- ============================================
+
+ALTER TABLE outbox_events
+    ADD COLUMN claimed_until TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN dead_at       TIMESTAMP WITH TIME ZONE;
+
+-- Relay chỉ quét các event chưa gửi và chưa dead, theo thứ tự ghi
+DROP INDEX IF EXISTS idx_outbox_events_pending;
+CREATE INDEX idx_outbox_events_pending ON outbox_events (id) WHERE published_at IS NULL AND dead_at IS NULL;
+
+-- Kiểm tra event trước đó cùng key còn đang claim / chờ gửi lại
+CREATE INDEX idx_outbox_events_pending_key
+    ON outbox_events (message_key, id)
+    WHERE published_at IS NULL AND dead_at IS NULL;
@@ -0,0 +1,178 @@
+package com.bookingcare.application.saga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bookingcare.application.dto.event.CancelHoldCommand;
+import com.bookingcare.application.dto.event.HoldSlotSucceededEvent;
+import com.bookingcare.application.dto.event.PaymentLinkCreatedEvent;
+import com.bookingcare.application.mapper.BookingMapperApplication;
+import com.bookingcare.application.ports.output.IBooksingSagaStateRepository;
+import com.bookingcare.application.ports.output.IHealthCheckPackageScheduleBookingDetailRepository;
+import com.bookingcare.application.ports.output.IPaymentStatusNotifier;
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.common.messaging.ProcessedEventStore;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
+import com.bookingcare.domain.valueobject.BookingStatus;
+import com.bookingcare.domain.valueobject.SagaStep;
+
+/**
+ * BookingSagaOrchestrator với repository giả, saga state giữ trong map:
+ * - HoldSlotSucceeded bình thường: booking PENDING_PAYMENT, saga SLOT_HELD, gửi PaymentRequested
+ * - Timeout trước, HoldSlotSucceeded tới muộn: trả hold bằng CancelHoldCommand, booking vẫn CANCELLED,
+ *   saga vẫn TIMED_OUT, không gửi PaymentRequested
+ * - HoldSlotSucceeded gửi lại cho hold saga đã ghi nhận: bỏ qua, không trả chỗ
+ * - PaymentLinkCreated tới sau timeout: bỏ qua, không ghi link, không báo SSE
+ */
+class BookingSagaOrchestratorTests {
+    private final Map<String, BookingSagaState> sagas = new ConcurrentHashMap<>();
+
+    private IHealthCheckPackageScheduleBookingDetailRepository bookingRepository;
+    private BookingEventPublisher eventPublisher;
+    private EventEnvelopeCodec codec;
+    private IPaymentStatusNotifier paymentStatusNotifier;
+    private BookingSagaOrchestrator orchestrator;
+    private HealthCheckPackageScheduleBookingDetail booking;
+
+    @BeforeEach
+    void setUp() {
+        IBooksingSagaStateRepository sagaStateRepository = mock(IBooksingSagaStateRepository.class);
+        when(sagaStateRepository.findByBookingId(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(sagas.get(invocation.<String>getArgument(0))));
+        when(sagaStateRepository.update(any())).thenAnswer(invocation -> {
+            BookingSagaState saga = invocation.getArgument(0);
+            sagas.put(saga.getBookingId(), saga);
+            return true;
+        });
+        when(sagaStateRepository.claimOverdue(any(), any(Integer.class))).thenAnswer(invocation -> sagas.values()
+                .stream()
+                .filter(saga -> saga.getStepDeadlineAt() != null)
+                .filter(saga -> saga.getStepDeadlineAt().isBefore(ZonedDateTime.now()))
+                .toList());
+
+        bookingRepository = mock(IHealthCheckPackageScheduleBookingDetailRepository.class);
+        eventPublisher = mock(BookingEventPublisher.class);
+        codec = mock(EventEnvelopeCodec.class);
+        paymentStatusNotifier = mock(IPaymentStatusNotifier.class);
+        ProcessedEventStore processedEventStore = mock(ProcessedEventStore.class);
+        when(processedEventStore.markProcessed(anyString(), anyString())).thenReturn(true);
+
+        BookingSagaStateStore store = new BookingSagaStateStore(sagaStateRepository,
+                new SagaDeadlinePolicy(120, 15, 120), 100, 30, 5, 60);
+        orchestrator = new BookingSagaOrchestrator(bookingRepository, eventPublisher, store, processedEventStore,
+                codec, paymentStatusNotifier, mock(BookingMapperApplication.class));
+
+        booking = HealthCheckPackageScheduleBookingDetail.builder()
+                .id("B-1")
+                .bookingStatus(BookingStatus.PENDING)
+                .build();
+        when(bookingRepository.findById("B-1")).thenReturn(Optional.of(booking));
+        sagas.put("B-1", BookingSagaState.start("B-1", "CORR-1"));
+    }
+
+    @Test
+    void holdSucceededRequestsPayment() {
+        orchestrator.handleScheduleEvents(holdSucceeded("H-1"));
+
+        assertEquals(BookingStatus.PENDING_PAYMENT, booking.getBookingStatus());
+        assertEquals(SagaStep.SLOT_HELD.name(), sagas.get("B-1").getCurrentSagaStep());
+        assertEquals("H-1", sagas.get("B-1").getScheduleHoldId());
+        verify(eventPublisher).publishPaymentRequestedEvent(any(), eq("CORR-1"));
+        verify(eventPublisher, never()).publishCancelHoldCommand(any(), anyString());
+    }
+
+    @Test
+    void lateHoldSucceededAfterTimeoutReleasesHold() {
+        overdue();
+        orchestrator.compensateOverdueSagas(10);
+        assertEquals(BookingStatus.CANCELLED, booking.getBookingStatus());
+        assertEquals(SagaStep.TIMED_OUT.name(), sagas.get("B-1").getCurrentSagaStep());
+
+        orchestrator.handleScheduleEvents(holdSucceeded("H-late"));
+
+        assertEquals(BookingStatus.CANCELLED, booking.getBookingStatus());
+        assertEquals(SagaStep.TIMED_OUT.name(), sagas.get("B-1").getCurrentSagaStep());
+        verify(eventPublisher, never()).publishPaymentRequestedEvent(any(), anyString());
+        ArgumentCaptor<CancelHoldCommand> commands = ArgumentCaptor.forClass(CancelHoldCommand.class);
+        verify(eventPublisher, times(2)).publishCancelHoldCommand(commands.capture(), eq("CORR-1"));
+        // Lần 1: compensation chưa biết hold id, lần 2: trả đúng hold tới muộn
+        CancelHoldCommand release = commands.getAllValues().get(1);
+        assertEquals("B-1", release.getBookingId());
+        assertEquals("H-late", release.getScheduleHoldId());
+    }
+
+    @Test
+    void redeliveredHoldSucceededIsIgnored() {
+        orchestrator.handleScheduleEvents(holdSucceeded("H-1"));
+        orchestrator.handleScheduleEvents(holdSucceeded("H-1"));
+
+        assertEquals(SagaStep.SLOT_HELD.name(), sagas.get("B-1").getCurrentSagaStep());
+        verify(eventPublisher, times(1)).publishPaymentRequestedEvent(any(), anyString());
+        verify(eventPublisher, never()).publishCancelHoldCommand(any(), anyString());
+    }
+
+    @Test
+    void latePaymentLinkAfterTimeoutIsIgnored() {
+        orchestrator.handleScheduleEvents(holdSucceeded("H-1"));
+        overdue();
+        orchestrator.compensateOverdueSagas(10);
+
+        orchestrator.handlePaymentEvents(paymentLinkCreated());
+
+        assertEquals(BookingStatus.CANCELLED, booking.getBookingStatus());
+        assertNull(booking.getPaymentUrl());
+        assertEquals(SagaStep.TIMED_OUT.name(), sagas.get("B-1").getCurrentSagaStep());
+        // Chỉ lần báo khi timeout huỷ booking
+        verify(paymentStatusNotifier, times(1)).paymentStatusChanged(eq("B-1"), any());
+    }
+
+    private void overdue() {
+        sagas.compute("B-1", (id, saga) -> saga.toBuilder()
+                .stepDeadlineAt(ZonedDateTime.now().minusSeconds(1))
+                .build());
+    }
+
+    private byte[] holdSucceeded(String holdId) {
+        HoldSlotSucceededEvent event = HoldSlotSucceededEvent.builder()
+                .bookingId("B-1")
+                .scheduleHoldId(holdId)
+                .holdExpireAt(ZonedDateTime.now().plusMinutes(10))
+                .build();
+        return envelope("HoldSlotSucceededEvent", event, HoldSlotSucceededEvent.class);
+    }
+
+    private byte[] paymentLinkCreated() {
+        PaymentLinkCreatedEvent event = new PaymentLinkCreatedEvent();
+        event.setBookingId("B-1");
+        event.setCheckoutUrl("https://pay.example/1");
+        event.setOrderCode(1L);
+        return envelope("PaymentLinkCreatedEvent", event, PaymentLinkCreatedEvent.class);
+    }
+
+    private <T> byte[] envelope(String eventType, T payload, Class<T> payloadType) {
+        byte[] message = (eventType + payload.hashCode()).getBytes();
+        EventEnvelope<T> envelope = EventEnvelope.of(eventType, "B-1", "CORR-1", "test", payload);
+        when(codec.decode(message)).thenAnswer(invocation -> envelope);
+        when(codec.payloadAs(envelope, payloadType)).thenReturn(payload);
+        return message;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bookingcare.application.saga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bookingcare.application.ports.output.IBooksingSagaStateRepository;
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.domain.exception.BookingDomainException;
+import com.bookingcare.domain.valueobject.SagaStep;
+
+/**
+ * BookingSagaStateStore với repository giả:
+ * - Version lệch ở lần ghi đầu: bỏ entry cache, đọc lại DB rồi áp bước lên state mới
+ * - Lệch version cả 2 lần: báo lỗi, không ghi đè mù
+ * - Rollback bỏ entry cache, commit thì lần đọc sau lấy từ cache
+ * - TTL của entry theo hold_expire_at: hold đã hết hạn không giữ trong cache (grace = 0)
+ */
+class BookingSagaStateStoreTests {
+    private IBooksingSagaStateRepository repository;
+    private BookingSagaStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IBooksingSagaStateRepository.class);
+        store = new BookingSagaStateStore(repository, new SagaDeadlinePolicy(120, 15, 120), 100, 30, 0, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void versionConflictReloadsAndRetries() {
+        ZonedDateTime expireAt = ZonedDateTime.now().plusMinutes(15);
+        BookingSagaState cached = state(0);
+        // Replica khác đã ghi SLOT_HELD (version 1) sau khi replica này cache version 0
+        BookingSagaState reloaded = state(1);
+        reloaded.holdSlot("H-1", expireAt);
+        when(repository.findByBookingId("B-1")).thenReturn(Optional.of(cached), Optional.of(reloaded));
+        when(repository.update(any())).thenReturn(false, true);
+        store.findByBookingId("B-1");
+
+        BookingSagaState next = store.transition("B-1", BookingSagaState::createPaymentLink).orElseThrow();
+
+        ArgumentCaptor<BookingSagaState> written = ArgumentCaptor.forClass(BookingSagaState.class);
+        verify(repository, times(2)).update(written.capture());
+        assertEquals(0, written.getAllValues().get(0).getVersion());
+        assertEquals(1, written.getAllValues().get(1).getVersion());
+        assertEquals(SagaStep.PAYMENT_LINK_CREATED.name(), next.getCurrentSagaStep());
+        // Dữ liệu replica khác đã ghi không bị mất
+        assertEquals("H-1", next.getScheduleHoldId());
+        assertEquals(expireAt.plusSeconds(120), next.getStepDeadlineAt());
+    }
+
+    @Test
+    void repeatedConflictIsReported() {
+        when(repository.findByBookingId("B-1")).thenReturn(Optional.of(state(0)), Optional.of(state(1)));
+        when(repository.update(any())).thenReturn(false);
+
+        assertThrows(BookingDomainException.class, () -> store.transition("B-1", BookingSagaState::timeOut));
+
+        verify(repository, times(2)).update(any());
+    }
+
+    @Test
+    void rollbackInvalidatesCacheEntry() {
+        when(repository.findByBookingId("B-1")).thenReturn(Optional.of(state(0)));
+        when(repository.update(any())).thenReturn(true);
+        store.findByBookingId("B-1");
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.transition("B-1", BookingSagaState::createPaymentLink);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Entry đã bị bỏ: đọc lại DB, thấy state chưa chuyển bước
+        BookingSagaState current = store.findByBookingId("B-1").orElseThrow();
+        verify(repository, times(2)).findByBookingId("B-1");
+        assertEquals(SagaStep.BOOKING_CREATED.name(), current.getCurrentSagaStep());
+    }
+
+    @Test
+    void commitCachesNewState() {
+        when(repository.findByBookingId("B-1")).thenReturn(Optional.of(state(0)));
+        when(repository.update(any())).thenReturn(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.transition("B-1", BookingSagaState::createPaymentLink);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        BookingSagaState current = store.findByBookingId("B-1").orElseThrow();
+        verify(repository, times(1)).findByBookingId("B-1");
+        assertEquals(SagaStep.PAYMENT_LINK_CREATED.name(), current.getCurrentSagaStep());
+    }
+
+    @Test
+    void entryLivesUntilHoldExpiry() {
+        BookingSagaState held = state(1);
+        held.holdSlot("H-1", ZonedDateTime.now().plusMinutes(10));
+        when(repository.findByBookingId("B-1")).thenReturn(Optional.of(held));
+
+        store.findByBookingId("B-1");
+        store.findByBookingId("B-1");
+
+        verify(repository, times(1)).findByBookingId("B-1");
+    }
+
+    @Test
+    void expiredHoldIsNotKept() {
+        BookingSagaState held = state(1);
+        held.holdSlot("H-1", ZonedDateTime.now().minusMinutes(1));
+        when(repository.findByBookingId("B-1")).thenReturn(Optional.of(held));
+
+        store.findByBookingId("B-1");
+        store.findByBookingId("B-1");
+
+        verify(repository, times(2)).findByBookingId("B-1");
+    }
+
+    private static BookingSagaState state(long version) {
+        BookingSagaState state = BookingSagaState.start("B-1", "CORR-1");
+        state.setVersion(version);
+        return state;
+    }
+}
@@ -0,0 +1,184 @@
+package com.bookingcare.infrastructure.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * FanOut với các nguồn giả (sleep):
+ * - Các nguồn chạy song song: latency của view ~ nguồn chậm nhất, critical.path là nguồn đó
+ * - Nguồn không bắt buộc lỗi / quá timeout riêng: trả fallback, đánh dấu degraded
+ * - Nguồn bắt buộc lỗi / quá hạn: get() ném lỗi
+ * - Deadline của view giới hạn cả nguồn có timeout riêng dài hơn
+ * - Request context được chuyển sang thread của nguồn, đóng scope thì nguồn còn chạy bị interrupt
+ */
+class FanOutTests {
+    private final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+    private FanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        fanOut = new FanOut(registry, new FanOutProperties(Duration.ofMillis(800), Duration.ofMillis(500),
+                Map.of("slow", Duration.ofMillis(100), "patient", Duration.ofSeconds(5))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void sourcesRunInParallel() {
+        long start = System.nanoTime();
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            FanOut.Source<String> booking = scope.fork("booking", () -> sleepThen(200, "B"));
+            FanOut.Source<String> clinic = scope.fork("clinic", () -> sleepThen(200, "C"));
+            FanOut.Source<String> doctor = scope.fork("doctor", () -> sleepThen(300, "D"));
+
+            assertEquals("BCD", booking.get() + clinic.get() + doctor.get());
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Chạy tuần tự sẽ mất >= 700 ms
+        assertTrue(elapsedMs < 600, elapsedMs + " ms");
+        assertEquals("doctor", view().getLowCardinalityKeyValue("critical.path").getValue());
+        assertEquals("false", view().getLowCardinalityKeyValue("degraded").getValue());
+    }
+
+    @Test
+    void optionalSourceTimeoutFallsBack() {
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            FanOut.Source<String> slow = scope.forkOptional("slow", () -> sleepThen(400, "late"), "fallback");
+            FanOut.Source<String> fast = scope.fork("booking", () -> "B");
+
+            assertEquals("fallback", slow.get());
+            assertEquals("B", fast.get());
+            assertEquals(List.of("slow"), scope.degradedSources());
+        }
+        assertEquals("true", view().getLowCardinalityKeyValue("degraded").getValue());
+    }
+
+    @Test
+    void optionalSourceErrorFallsBack() {
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            FanOut.Source<String> clinic = scope.forkOptional("clinic", () -> {
+                throw new IllegalStateException("clinic-service down");
+            }, "unknown");
+
+            assertEquals("unknown", clinic.get());
+            assertEquals(List.of("clinic"), scope.degradedSources());
+        }
+    }
+
+    @Test
+    void requiredSourceErrorIsThrown() {
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            FanOut.Source<String> booking = scope.fork("booking", () -> {
+                throw new IllegalStateException("DB down");
+            });
+
+            IllegalStateException error = assertThrows(IllegalStateException.class, booking::get);
+            assertEquals("DB down", error.getMessage());
+        }
+    }
+
+    @Test
+    void requiredSourceTimeoutIsThrown() {
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            FanOut.Source<String> slow = scope.fork("slow", () -> sleepThen(400, "late"));
+
+            assertThrows(FanOut.FanOutTimeoutException.class, slow::get);
+        }
+    }
+
+    @Test
+    void viewDeadlineCapsSourceTimeout() {
+        long start = System.nanoTime();
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            // Timeout riêng 5 s nhưng deadline của view là 800 ms
+            FanOut.Source<String> patient = scope.forkOptional("patient", () -> sleepThen(3_000, "late"), "fallback");
+
+            assertEquals("fallback", patient.get());
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs < 2_000, elapsedMs + " ms");
+    }
+
+    @Test
+    void requestContextIsPropagated() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            FanOut.Source<String> header = scope.fork("booking", () ->
+                    ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+                            .getRequest().getHeader("Authorization"));
+
+            assertEquals("Bearer token", header.get());
+        }
+    }
+
+    @Test
+    void closeInterruptsRunningSources() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (FanOut.Scope scope = fanOut.open("detail")) {
+            scope.forkOptional("patient", () -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "late";
+            }, "fallback");
+        }
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    private Observation.Context view() {
+        return stopped.stream()
+                .filter(context -> "booking.fanout".equals(context.getName()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static String sleepThen(long millis, String value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
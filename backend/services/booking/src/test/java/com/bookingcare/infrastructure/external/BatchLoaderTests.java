@@ -0,0 +1,165 @@
+package com.bookingcare.infrastructure.external;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * BatchLoader với bulk function giả (ghi lại từng lần gọi):
+ * - load đồng thời trong cửa sổ window gom thành 1 lần gọi, key trùng dùng chung 1 future
+ * - Đủ maxBatchSize thì gọi ngay, không chờ hết cửa sổ
+ * - Key không có trong kết quả trả về null, bulk call lỗi thì mọi future lỗi theo
+ * - Batch chạy với request context của request mở batch
+ * - loadMany bỏ key trùng rồi chia chunk theo maxBatchSize
+ */
+class BatchLoaderTests {
+    private static final Duration WINDOW = Duration.ofMillis(50);
+
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    private BatchLoader<String, String> loader;
+
+    @AfterEach
+    void tearDown() {
+        if (loader != null) {
+            loader.close();
+        }
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void concurrentLoadsShareOneBulkCall() throws Exception {
+        loader = new BatchLoader<>("test", recording(this::upperCase), 100, Duration.ofMillis(200));
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<CompletableFuture<String>>> submitted = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                String key = "k" + (i % 4);
+                submitted.add(CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return loader.load(key);
+                }, callers));
+            }
+            start.countDown();
+
+            for (int i = 0; i < 8; i++) {
+                assertEquals("K" + (i % 4), submitted.get(i).get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, calls.size());
+        assertEquals(4, calls.get(0).size());
+    }
+
+    @Test
+    void sameKeySharesFuture() {
+        loader = new BatchLoader<>("test", recording(this::upperCase), 100, WINDOW);
+
+        assertSame(loader.load("a"), loader.load("a"));
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaitingForWindow() throws Exception {
+        loader = new BatchLoader<>("test", recording(this::upperCase), 3, Duration.ofHours(1));
+
+        CompletableFuture<String> a = loader.load("a");
+        loader.load("b");
+        loader.load("c");
+        CompletableFuture<String> d = loader.load("d");
+
+        assertEquals("A", a.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a", "b", "c")), calls);
+        // Key thứ 4 mở batch mới, chờ cửa sổ (1 giờ)
+        assertFalse(d.isDone());
+    }
+
+    @Test
+    void missingKeyResolvesToNull() throws Exception {
+        loader = new BatchLoader<>("test", recording(keys -> Map.of("a", "A")), 100, WINDOW);
+
+        CompletableFuture<String> a = loader.load("a");
+        CompletableFuture<String> missing = loader.load("missing");
+
+        assertEquals("A", a.get(1, TimeUnit.SECONDS));
+        assertNull(missing.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bulkFailureFailsEveryFuture() {
+        IllegalStateException failure = new IllegalStateException("clinic-service down");
+        loader = new BatchLoader<>("test", keys -> {
+            throw failure;
+        }, 100, WINDOW);
+
+        CompletableFuture<String> a = loader.load("a");
+        CompletableFuture<String> b = loader.load("b");
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> a.get(1, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> b.get(1, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void batchRunsWithRequestContextOfOpeningRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        loader = new BatchLoader<>("test", keys -> keys.stream().collect(Collectors.toMap(Function.identity(),
+                key -> ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+                        .getRequest().getHeader("Authorization"))), 100, WINDOW);
+
+        assertEquals("Bearer token", loader.load("a").get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void loadManyDedupesAndChunks() {
+        loader = new BatchLoader<>("test", recording(this::upperCase), 2, WINDOW);
+
+        Map<String, String> loaded = loader.loadMany(List.of("a", "b", "a", "c", "b", "d", "e"));
+
+        assertEquals(Map.of("a", "A", "b", "B", "c", "C", "d", "D", "e", "E"), loaded);
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")), calls);
+    }
+
+    private Function<List<String>, Map<String, String>> recording(Function<List<String>, Map<String, String>> bulk) {
+        return keys -> {
+            calls.add(List.copyOf(keys));
+            return bulk.apply(keys);
+        };
+    }
+
+    private Map<String, String> upperCase(List<String> keys) {
+        return keys.stream().collect(Collectors.toMap(Function.identity(), String::toUpperCase));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
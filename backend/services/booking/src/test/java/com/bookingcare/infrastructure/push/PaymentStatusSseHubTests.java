@@ -0,0 +1,206 @@
+package com.bookingcare.infrastructure.push;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * PaymentStatusSseHub qua MockMvc (servlet async thật), KafkaTemplate giả chuyển message fan-out
+ * về chính listener của hub (như khi chỉ có 1 replica):
+ * - Kết nối mới nhận ngay trạng thái hiện tại
+ * - Trạng thái mới trong transaction chỉ được gửi lên fan-out topic sau commit, rollback thì không gửi
+ * - Trạng thái do replica khác gửi lên topic được đẩy tới kết nối trên replica này
+ * - Gửi lên Kafka lỗi: vẫn đẩy tới kết nối local
+ * - Mọi kết nối của cùng booking đều nhận, booking khác thì không
+ * - Trạng thái cuối (hết PENDING* hoặc ERROR): gửi rồi đóng kết nối
+ */
+class PaymentStatusSseHubTests {
+    private static final String FAN_OUT_TOPIC = "booking-payment-status";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private PaymentStatusSseHub hub;
+    private MockMvc mockMvc;
+    private final Map<String, Map<String, Object>> currentStatus = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            hub.onStatusBroadcast(invocation.getArgument(2));
+            return CompletableFuture.completedFuture(null);
+        });
+        hub = new PaymentStatusSseHub(kafkaTemplate, objectMapper, new SimpleMeterRegistry(), FAN_OUT_TOPIC, 60);
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController()).build();
+        currentStatus.put("B-1", status("PENDING_PAYMENT", "PENDING"));
+        currentStatus.put("B-2", status("PENDING_PAYMENT", "PENDING"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void subscriberReceivesCurrentStatus() throws Exception {
+        MockHttpServletResponse response = open("B-1");
+
+        assertEquals(1, events(response));
+        assertTrue(response.getContentAsString().contains("\"bookingStatus\":\"PENDING_PAYMENT\""));
+        assertEquals(1, hub.connectionCount());
+    }
+
+    @Test
+    void statusIsPushedAfterCommit() throws Exception {
+        MockHttpServletResponse response = open("B-1");
+        TransactionSynchronizationManager.initSynchronization();
+
+        hub.paymentStatusChanged("B-1", status("PENDING_PAYMENT", "LINK_CREATED"));
+        assertEquals(1, events(response));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2, events(response));
+        assertTrue(response.getContentAsString().contains("\"status\":\"LINK_CREATED\""));
+        verify(kafkaTemplate).send(eq(FAN_OUT_TOPIC), eq("B-1"), any(byte[].class));
+    }
+
+    @Test
+    void statusFromAnotherReplicaIsPushed() throws Exception {
+        MockHttpServletResponse response = open("B-1");
+
+        hub.onStatusBroadcast(objectMapper.writeValueAsBytes(
+                new PaymentStatusSseHub.StatusBroadcast("B-1", status("PENDING_PAYMENT", "LINK_CREATED"))));
+        hub.onStatusBroadcast("not json".getBytes());
+
+        assertEquals(2, events(response));
+        assertTrue(response.getContentAsString().contains("\"status\":\"LINK_CREATED\""));
+    }
+
+    @Test
+    void failedBroadcastStillPushesLocally() throws Exception {
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        MockHttpServletResponse response = open("B-1");
+
+        hub.paymentStatusChanged("B-1", status("PENDING_PAYMENT", "LINK_CREATED"));
+
+        assertEquals(2, events(response));
+    }
+
+    @Test
+    void rolledBackStatusIsNotPushed() throws Exception {
+        MockHttpServletResponse response = open("B-1");
+        TransactionSynchronizationManager.initSynchronization();
+
+        hub.paymentStatusChanged("B-1", status("PENDING_PAYMENT", "LINK_CREATED"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(1, events(response));
+    }
+
+    @Test
+    void everyConnectionOfBookingReceivesPush() throws Exception {
+        MockHttpServletResponse firstTab = open("B-1");
+        MockHttpServletResponse secondTab = open("B-1");
+        MockHttpServletResponse otherBooking = open("B-2");
+
+        hub.paymentStatusChanged("B-1", status("PENDING_PAYMENT", "LINK_CREATED"));
+
+        assertEquals(2, events(firstTab));
+        assertEquals(2, events(secondTab));
+        assertEquals(1, events(otherBooking));
+    }
+
+    @Test
+    void finalStatusClosesConnections() throws Exception {
+        MockHttpServletResponse firstTab = open("B-1");
+        MockHttpServletResponse secondTab = open("B-1");
+        assertEquals(2, hub.connectionCount());
+
+        hub.paymentStatusChanged("B-1", status("CONFIRMED", "PAID"));
+
+        assertEquals(2, events(firstTab));
+        assertEquals(2, events(secondTab));
+        assertEquals(0, hub.connectionCount());
+    }
+
+    @Test
+    void alreadySettledBookingIsClosedAfterFirstEvent() throws Exception {
+        currentStatus.put("B-1", status("CANCELLED", "CANCELLED"));
+
+        MockHttpServletResponse response = open("B-1");
+
+        assertEquals(1, events(response));
+        assertEquals(0, hub.connectionCount());
+        // Kết nối đã đóng thì không nhận thêm gì
+        hub.paymentStatusChanged("B-1", status("CANCELLED", "CANCELLED"));
+        assertEquals(1, events(response));
+    }
+
+    @Test
+    void errorStatusIsFinal() throws Exception {
+        MockHttpServletResponse response = open("B-1");
+
+        hub.paymentStatusChanged("B-1", status("PENDING_PAYMENT", "ERROR"));
+
+        assertEquals(2, events(response));
+        assertEquals(0, hub.connectionCount());
+    }
+
+    private MockHttpServletResponse open(String bookingId) throws Exception {
+        return mockMvc.perform(get("/stream/{bookingId}", bookingId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static int events(MockHttpServletResponse response) throws Exception {
+        String body = response.getContentAsString();
+        return body.split("event:" + PaymentStatusSseHub.EVENT_NAME, -1).length - 1;
+    }
+
+    private static Map<String, Object> status(String bookingStatus, String status) {
+        return Map.of("bookingStatus", bookingStatus, "status", status);
+    }
+
+    @RestController
+    class StreamController {
+        @GetMapping("/stream/{bookingId}")
+        SseEmitter stream(@PathVariable("bookingId") String bookingId) {
+            return hub.subscribe(bookingId, () -> currentStatus.get(bookingId));
+        }
+    }
+}
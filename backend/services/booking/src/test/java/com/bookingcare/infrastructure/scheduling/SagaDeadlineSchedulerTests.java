@@ -0,0 +1,145 @@
+package com.bookingcare.infrastructure.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bookingcare.application.dto.event.CancelHoldCommand;
+import com.bookingcare.application.mapper.BookingMapperApplication;
+import com.bookingcare.application.ports.output.IBooksingSagaStateRepository;
+import com.bookingcare.application.ports.output.IHealthCheckPackageScheduleBookingDetailRepository;
+import com.bookingcare.application.ports.output.IPaymentStatusNotifier;
+import com.bookingcare.application.saga.BookingEventPublisher;
+import com.bookingcare.application.saga.BookingSagaOrchestrator;
+import com.bookingcare.application.saga.BookingSagaStateStore;
+import com.bookingcare.application.saga.SagaDeadlinePolicy;
+import com.bookingcare.common.messaging.ProcessedEventStore;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+import com.bookingcare.domain.entity.BookingSagaState;
+import com.bookingcare.domain.entity.HealthCheckPackageScheduleBookingDetail;
+import com.bookingcare.domain.valueobject.BookingStatus;
+import com.bookingcare.domain.valueobject.SagaStep;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * SagaDeadlineScheduler chạy với orchestrator thật, repository giả:
+ * - Saga quá deadline: huỷ booking đang chờ thanh toán, báo SSE, chuyển TIMED_OUT, gửi CancelHoldCommand trả chỗ
+ * - Booking đã CONFIRMED: chỉ đồng bộ saga state, không huỷ, không trả chỗ
+ * - Batch đầy thì claim tiếp, tối đa max-batches-per-run batch mỗi lần quét
+ */
+class SagaDeadlineSchedulerTests {
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_BATCHES = 3;
+
+    private IBooksingSagaStateRepository sagaStateRepository;
+    private IHealthCheckPackageScheduleBookingDetailRepository bookingRepository;
+    private BookingEventPublisher eventPublisher;
+    private IPaymentStatusNotifier paymentStatusNotifier;
+    private SimpleMeterRegistry meterRegistry;
+    private SagaDeadlineScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        sagaStateRepository = mock(IBooksingSagaStateRepository.class);
+        bookingRepository = mock(IHealthCheckPackageScheduleBookingDetailRepository.class);
+        eventPublisher = mock(BookingEventPublisher.class);
+        paymentStatusNotifier = mock(IPaymentStatusNotifier.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(sagaStateRepository.update(any())).thenReturn(true);
+
+        BookingSagaStateStore store = new BookingSagaStateStore(sagaStateRepository,
+                new SagaDeadlinePolicy(120, 15, 120), 100, 30, 5, 60);
+        BookingSagaOrchestrator orchestrator = new BookingSagaOrchestrator(bookingRepository, eventPublisher, store,
+                mock(ProcessedEventStore.class), mock(EventEnvelopeCodec.class), paymentStatusNotifier,
+                mock(BookingMapperApplication.class));
+        scheduler = new SagaDeadlineScheduler(orchestrator, store, meterRegistry, BATCH_SIZE, MAX_BATCHES, 60);
+    }
+
+    @Test
+    void overdueSagaIsCompensated() {
+        BookingSagaState saga = overdue("B-1", SagaStep.PAYMENT_LINK_CREATED);
+        HealthCheckPackageScheduleBookingDetail booking = booking("B-1", BookingStatus.PENDING_PAYMENT);
+        when(sagaStateRepository.claimOverdue(any(), eq(BATCH_SIZE))).thenReturn(List.of(saga));
+        when(bookingRepository.findById("B-1")).thenReturn(Optional.of(booking));
+
+        scheduler.compensateOverdueSagas();
+
+        assertEquals(BookingStatus.CANCELLED, booking.getBookingStatus());
+        verify(bookingRepository).save(booking);
+        verify(paymentStatusNotifier).paymentStatusChanged(eq("B-1"), any());
+
+        ArgumentCaptor<BookingSagaState> written = ArgumentCaptor.forClass(BookingSagaState.class);
+        verify(sagaStateRepository).update(written.capture());
+        assertEquals(SagaStep.TIMED_OUT.name(), written.getValue().getCurrentSagaStep());
+        assertNull(written.getValue().getStepDeadlineAt());
+
+        ArgumentCaptor<CancelHoldCommand> command = ArgumentCaptor.forClass(CancelHoldCommand.class);
+        verify(eventPublisher).publishCancelHoldCommand(command.capture(), eq("CORR-B-1"));
+        assertEquals("H-B-1", command.getValue().getScheduleHoldId());
+        assertEquals(1.0, meterRegistry.get("saga.compensated").tag("step", "PAYMENT_LINK_CREATED").counter().count());
+    }
+
+    @Test
+    void confirmedBookingIsOnlySynced() {
+        BookingSagaState saga = overdue("B-1", SagaStep.PAYMENT_LINK_CREATED);
+        HealthCheckPackageScheduleBookingDetail booking = booking("B-1", BookingStatus.CONFIRMED);
+        when(sagaStateRepository.claimOverdue(any(), eq(BATCH_SIZE))).thenReturn(List.of(saga));
+        when(bookingRepository.findById("B-1")).thenReturn(Optional.of(booking));
+
+        scheduler.compensateOverdueSagas();
+
+        assertEquals(BookingStatus.CONFIRMED, booking.getBookingStatus());
+        verify(bookingRepository, never()).save(any());
+        verify(eventPublisher, never()).publishCancelHoldCommand(any(), anyString());
+        ArgumentCaptor<BookingSagaState> written = ArgumentCaptor.forClass(BookingSagaState.class);
+        verify(sagaStateRepository).update(written.capture());
+        assertEquals(SagaStep.BOOKING_CONFIRMED.name(), written.getValue().getCurrentSagaStep());
+    }
+
+    @Test
+    void fullBatchesAreDrainedUpToLimit() {
+        List<BookingSagaState> full = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> overdue("B-" + i, SagaStep.BOOKING_CREATED))
+                .toList();
+        when(sagaStateRepository.claimOverdue(any(), anyInt())).thenReturn(full);
+
+        scheduler.compensateOverdueSagas();
+
+        verify(sagaStateRepository, times(MAX_BATCHES)).claimOverdue(any(), eq(BATCH_SIZE));
+        assertEquals(BATCH_SIZE * MAX_BATCHES,
+                meterRegistry.get("saga.compensated").tag("step", "BOOKING_CREATED").counter().count());
+    }
+
+    private static BookingSagaState overdue(String bookingId, SagaStep step) {
+        return BookingSagaState.start(bookingId, "CORR-" + bookingId).toBuilder()
+                .currentSagaStep(step.name())
+                .scheduleHoldId("H-" + bookingId)
+                .stepDeadlineAt(ZonedDateTime.now().minusSeconds(1))
+                .build();
+    }
+
+    private static HealthCheckPackageScheduleBookingDetail booking(String id, BookingStatus status) {
+        return HealthCheckPackageScheduleBookingDetail.builder()
+                .id(id)
+                .bookingStatus(status)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+-- =============================================================================
+-- Clinic search benchmark on 1,000,000 synthetic clinics.
+--
+-- Compares the old LOWER(x) LIKE '%q%' search (sequential scan) with the
+-- pg_trgm / name_key indexes added in V3__clinic_search_index.sql.
+--
+-- Run against a clinic database that is already migrated (V3 applied):
+--   psql -h localhost -U postgres -d clinic -f benchmark/clinic-search-1m.sql
+--
+-- Everything is created in a scratch schema "clinic_bench" and dropped at the end.
+-- =============================================================================
+\timing on
+SET client_min_messages = warning;
+
+DROP SCHEMA IF EXISTS clinic_bench CASCADE;
+CREATE SCHEMA clinic_bench;
+
+-- Same columns and indexes (incl. GIN trigram + name_key) as the real table
+CREATE TABLE clinic_bench.clinics (LIKE public.clinics INCLUDING ALL);
+
+-- Same rules as SearchText.normalize / the V3 backfill
+CREATE FUNCTION clinic_bench.normalize(value TEXT) RETURNS TEXT
+LANGUAGE sql IMMUTABLE AS $$
+  SELECT NULLIF(btrim(regexp_replace(
+           translate(lower(value),
+                     'àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđ',
+                     'aaaaaaaaaaaaaaaaaeeeeeeeeeeeiiiiiooooooooooooooooouuuuuuuuuuuyyyyyd'),
+           '[^a-z0-9]+', ' ', 'g')), '')
+$$;
+
+-- 1M clinics: "<kind> <owner name> <district>", ~80% approved
+INSERT INTO clinic_bench.clinics (id, fullname, name, address, slug, status, created_by_user_id, is_deleted)
+SELECT gen_random_uuid()::text,
+       kind || ' ' || person || ' ' || district,
+       kind || ' ' || person || ' ' || i,
+       (i % 300) || ' ' || street || ', ' || district || ', TP. Hồ Chí Minh',
+       'clinic-' || i,
+       CASE WHEN i % 5 = 0 THEN 'PENDING' ELSE 'APPROVED' END,
+       gen_random_uuid()::text,
+       i % 50 = 0
+FROM (
+  SELECT i,
+         (ARRAY['Phòng khám Đa khoa', 'Bệnh viện', 'Phòng khám Nhi', 'Nha khoa', 'Phòng khám Sản phụ khoa',
+                'Trung tâm Y khoa', 'Phòng khám Mắt', 'Phòng khám Da liễu'])[1 + i % 8] AS kind,
+         (ARRAY['Nguyễn', 'Trần', 'Lê', 'Phạm', 'Hoàng', 'Huỳnh', 'Võ', 'Đặng', 'Bùi', 'Đỗ'])[1 + (i / 8) % 10] || ' ' ||
+         (ARRAY['Văn', 'Thị', 'Minh', 'Hữu', 'Ngọc', 'Thanh'])[1 + (i / 80) % 6] || ' ' ||
+         (ARRAY['An', 'Bình', 'Cường', 'Dũng', 'Giang', 'Hạnh', 'Khoa', 'Long', 'Mai', 'Nam', 'Phúc', 'Quân',
+                'Sơn', 'Tâm', 'Uyên', 'Vinh', 'Xuân', 'Yến'])[1 + (i / 480) % 18] AS person,
+         (ARRAY['Lê Lợi', 'Nguyễn Huệ', 'Hai Bà Trưng', 'Điện Biên Phủ', 'Cách Mạng Tháng Tám', 'Võ Văn Tần'])[1 + i % 6] AS street,
+         (ARRAY['Quận 1', 'Quận 3', 'Quận 5', 'Quận 10', 'Bình Thạnh', 'Gò Vấp', 'Phú Nhuận', 'Tân Bình',
+                'Thủ Đức', 'Gia Định'])[1 + (i / 7) % 10] AS district
+  FROM generate_series(1, 1000000) AS i
+) g;
+
+UPDATE clinic_bench.clinics
+SET search_text = clinic_bench.normalize(concat_ws(' ', name, fullname, slug, address)),
+    name_key    = clinic_bench.normalize(name);
+
+VACUUM ANALYZE clinic_bench.clinics;
+
+-- -----------------------------------------------------------------------------
+-- 1. Old search (LOWER LIKE on 4 columns, diacritics must match exactly)
+-- -----------------------------------------------------------------------------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.*
+FROM clinic_bench.clinics c
+WHERE c.status = 'APPROVED'
+  AND c.is_deleted = FALSE
+  AND (LOWER(c.name) LIKE '%phạm minh khoa%'
+       OR LOWER(c.fullname) LIKE '%phạm minh khoa%'
+       OR LOWER(c.address) LIKE '%phạm minh khoa%'
+       OR LOWER(c.slug) LIKE '%phạm minh khoa%')
+ORDER BY c.name
+LIMIT 20;
+
+-- -----------------------------------------------------------------------------
+-- 2. New ranked search (ClinicRepository.searchByStatus), query typed without diacritics
+-- -----------------------------------------------------------------------------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.*
+FROM clinic_bench.clinics c
+WHERE c.status = 'APPROVED'
+  AND c.is_deleted = FALSE
+  AND (c.search_text LIKE '%pham minh khoa%' OR 'pham minh khoa' <% c.search_text)
+ORDER BY (c.name_key LIKE 'pham minh khoa%') DESC,
+         word_similarity('pham minh khoa', c.search_text) DESC,
+         c.id
+LIMIT 20;
+
+-- Same with a typo ("khao"): only the fuzzy branch can match
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.*
+FROM clinic_bench.clinics c
+WHERE c.status = 'APPROVED'
+  AND c.is_deleted = FALSE
+  AND (c.search_text LIKE '%pham minh khao%' OR 'pham minh khao' <% c.search_text)
+ORDER BY (c.name_key LIKE 'pham minh khao%') DESC,
+         word_similarity('pham minh khao', c.search_text) DESC,
+         c.id
+LIMIT 20;
+
+-- -----------------------------------------------------------------------------
+-- 3. Autocomplete (ClinicRepository.suggestApprovedByNamePrefix), per keystroke
+-- -----------------------------------------------------------------------------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.*
+FROM clinic_bench.clinics c
+WHERE c.status = 'APPROVED'
+  AND c.is_deleted = FALSE
+  AND c.name_key LIKE 'nha khoa tr%'
+ORDER BY c.name_key
+LIMIT 10;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.*
+FROM clinic_bench.clinics c
+WHERE c.status = 'APPROVED'
+  AND c.is_deleted = FALSE
+  AND c.name_key LIKE 'b%'
+ORDER BY c.name_key
+LIMIT 10;
+
+-- Expected plans:
+--   1. Seq Scan on clinics, every row's 4 columns lowered and matched.
+--   2. Bitmap Index Scan on the trigram index (BitmapOr of LIKE and <%), only candidate rows fetched.
+--   3. Index Scan on the name_key index, stops after LIMIT rows; cost does not grow with table size.
+
+DROP SCHEMA clinic_bench CASCADE;
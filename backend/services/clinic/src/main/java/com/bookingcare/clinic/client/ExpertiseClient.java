@@ -11,7 +11,7 @@ import com.bookingcare.clinic.dto.DoctorsResponseDTO;
 
 @FeignClient(
         name = "expertise-service",
-        url = "${application.config.expertise-url}",
+        path = "/api/v1/expertise",
         configuration = FeignConfig.class
 )
 public interface ExpertiseClient {
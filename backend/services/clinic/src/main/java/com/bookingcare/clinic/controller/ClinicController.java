@@ -8,6 +8,7 @@ import com.bookingcare.clinic.dto.ClinicPatchRequestDTO;
 import com.bookingcare.clinic.dto.ClinicRejectionRequestDTO;
 import com.bookingcare.clinic.dto.ClinicRequestDTO;
 import com.bookingcare.clinic.dto.ClinicResponseDTO;
+import com.bookingcare.clinic.dto.ClinicSuggestionDTO;
 import com.bookingcare.clinic.service.ClinicService;
 import jakarta.validation.Valid;
 
@@ -62,6 +63,15 @@ public class ClinicController {
         return ResponseEntity.ok(clinics);
     }
 
+    // Public endpoint: autocomplete approved clinic names by prefix (diacritic-insensitive).
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ClinicSuggestionDTO>> suggestClinics(
+            @RequestParam(value = "q", required = false) String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(clinicService.suggestClinics(prefix, limit));
+    }
+
     // Public endpoint: fetch details for a single approved clinic.
     @GetMapping("/{id}")
     public ResponseEntity<ClinicResponseDTO> getApprovedClinicDetail(@PathVariable("id") String clinicId) {
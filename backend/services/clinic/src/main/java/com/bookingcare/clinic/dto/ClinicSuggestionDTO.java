@@ -0,0 +1,9 @@
+package com.bookingcare.clinic.dto;
+
+public record ClinicSuggestionDTO(
+        String id,
+        String name,
+        String slug,
+        String image
+) {
+}
@@ -1,13 +1,19 @@
 package com.bookingcare.clinic.entity;
 
+import com.bookingcare.clinic.kafka.CatalogChangeListener;
+import com.bookingcare.common.messaging.catalog.SearchText;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +25,7 @@ import lombok.Setter;
 @AllArgsConstructor
 @Builder
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Getter
 @NoArgsConstructor
 @Setter
@@ -59,6 +66,20 @@ public class Clinic {
     @Column(name = "is_deleted", nullable = false, updatable = false)
     private boolean isDeleted;
 
+    // Text đã bỏ dấu của name + fullname + slug + address, index GIN pg_trgm (V3__clinic_search_index.sql)
+    @Column(name = "search_text", columnDefinition = "TEXT")
+    private String searchText;
+
+    // Tên đã bỏ dấu, index btree COLLATE "C" cho autocomplete theo prefix
+    @Column(name = "name_key", length = 255)
+    private String nameKey;
+
+    @PrePersist
+    @PreUpdate
+    private void refreshSearchKeys() {
+        this.searchText = SearchText.of(name, fullname, slug, address);
+        this.nameKey = SearchText.normalize(name);
+    }
 }
 
 
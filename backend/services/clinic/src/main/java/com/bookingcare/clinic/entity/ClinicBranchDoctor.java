@@ -1,7 +1,10 @@
 package com.bookingcare.clinic.entity;
 
+import com.bookingcare.clinic.kafka.CatalogChangeListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -18,6 +21,7 @@ import lombok.Setter;
 @AllArgsConstructor
 @Builder
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Getter
 @NoArgsConstructor
 @Setter
@@ -0,0 +1,50 @@
+package com.bookingcare.clinic.kafka;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.clinic.entity.Clinic;
+import com.bookingcare.clinic.entity.ClinicBranch;
+import com.bookingcare.clinic.entity.ClinicBranchDoctor;
+import com.bookingcare.clinic.entity.ClinicBranchHealthcheckPackage;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentPublisher;
+import com.bookingcare.common.messaging.catalog.CatalogInvalidationPublisher;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Entity listener: phòng khám / chi nhánh thay đổi -> invalidate region "clinics" ở gateway
+ * và gửi lại document tương ứng cho search-service.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogChangeListener {
+    public static final String CLINICS = "clinics";
+
+    private final CatalogInvalidationPublisher catalogInvalidationPublisher;
+    private final CatalogDocumentPublisher catalogDocumentPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        catalogInvalidationPublisher.regionsChanged(List.of(CLINICS));
+        catalogDocumentPublisher.documentsChanged(documentsOf(entity));
+    }
+
+    static List<String> documentsOf(Object entity) {
+        return switch (entity) {
+            case Clinic clinic -> List.of(CatalogDocumentEvent.CLINIC + ":" + clinic.getId());
+            case ClinicBranch branch -> List.of(CatalogDocumentAssembler.BRANCH + ":" + branch.getId());
+            case ClinicBranchHealthcheckPackage link ->
+                    List.of(CatalogDocumentEvent.PACKAGE + ":" + link.getHealthcheckPackageId());
+            case ClinicBranchDoctor link -> List.of(CatalogDocumentEvent.DOCTOR + ":" + link.getDoctorId());
+            default -> List.of();
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.bookingcare.clinic.kafka;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bookingcare.clinic.entity.Clinic;
+import com.bookingcare.clinic.entity.ClinicBranch;
+import com.bookingcare.clinic.entity.ClinicStatus;
+import com.bookingcare.clinic.repository.ClinicBranchDoctorRepository;
+import com.bookingcare.clinic.repository.ClinicBranchHealthcheckPackageRepository;
+import com.bookingcare.clinic.repository.ClinicBranchRepository;
+import com.bookingcare.clinic.repository.ClinicRepository;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentSource;
+import com.bookingcare.common.messaging.catalog.CityNames;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Đọc trạng thái hiện tại của các document thay đổi để CatalogDocumentPublisher gửi cho search-service.
+ *
+ * Key: CLINIC:id, BRANCH:id, PACKAGE:id, DOCTOR:id. Phòng khám / chi nhánh thay đổi thì cities của
+ * các gói / bác sĩ ở chi nhánh đó cũng được gửi lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogDocumentAssembler implements CatalogDocumentSource {
+    public static final String SOURCE = "clinic-service";
+    public static final String BRANCH = "BRANCH";
+
+    private final ClinicRepository clinicRepository;
+    private final ClinicBranchRepository clinicBranchRepository;
+    private final ClinicBranchHealthcheckPackageRepository clinicBranchHealthcheckPackageRepository;
+    private final ClinicBranchDoctorRepository clinicBranchDoctorRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CatalogDocumentEvent> assemble(Collection<String> keys) {
+        Set<String> clinicIds = new LinkedHashSet<>();
+        Set<String> packageIds = new LinkedHashSet<>();
+        Set<String> doctorIds = new LinkedHashSet<>();
+
+        for (String key : keys) {
+            int separator = key.indexOf(':');
+            String type = key.substring(0, separator);
+            String id = key.substring(separator + 1);
+            switch (type) {
+                case CatalogDocumentEvent.CLINIC -> {
+                    clinicIds.add(id);
+                    clinicBranchRepository.findByClinic_Id(id)
+                            .forEach(branch -> addBranchDocuments(branch.getId(), packageIds, doctorIds));
+                }
+                case BRANCH -> {
+                    clinicBranchRepository.findById(id).ifPresent(branch -> clinicIds.add(branch.getClinic().getId()));
+                    addBranchDocuments(id, packageIds, doctorIds);
+                }
+                case CatalogDocumentEvent.PACKAGE -> packageIds.add(id);
+                case CatalogDocumentEvent.DOCTOR -> doctorIds.add(id);
+                default -> {
+                }
+            }
+        }
+
+        Instant now = Instant.now();
+        List<CatalogDocumentEvent> events = new ArrayList<>();
+        clinicIds.forEach(clinicId -> events.add(clinicDocument(clinicId, now)));
+        packageIds.forEach(packageId -> events.add(citiesDocument(CatalogDocumentEvent.PACKAGE, packageId,
+                clinicBranchHealthcheckPackageRepository.findVisibleBranchAddressesByPackageId(packageId), now)));
+        doctorIds.forEach(doctorId -> events.add(citiesDocument(CatalogDocumentEvent.DOCTOR, doctorId,
+                clinicBranchDoctorRepository.findVisibleBranchAddressesByDoctorId(doctorId), now)));
+        return events;
+    }
+
+    private void addBranchDocuments(String branchId, Set<String> packageIds, Set<String> doctorIds) {
+        packageIds.addAll(clinicBranchHealthcheckPackageRepository.findHealthcheckPackageIdsByClinicBranchId(branchId));
+        doctorIds.addAll(clinicBranchDoctorRepository.findDoctorIdsByClinicBranchId(branchId));
+    }
+
+    private CatalogDocumentEvent clinicDocument(String clinicId, Instant now) {
+        Clinic clinic = clinicRepository.findById(clinicId).orElse(null);
+        if (clinic == null || clinic.isDeleted() || clinic.getStatus() != ClinicStatus.APPROVED) {
+            return new CatalogDocumentEvent(CatalogDocumentEvent.CLINIC, clinicId, SOURCE, true,
+                    null, null, null, null, null, null, null, null, null, null, now);
+        }
+
+        List<String> addresses = new ArrayList<>();
+        addresses.add(clinic.getAddress());
+        clinicBranchRepository.findByClinic_IdAndIsDeletedFalse(clinicId).stream()
+                .map(ClinicBranch::getAddress)
+                .forEach(addresses::add);
+
+        return new CatalogDocumentEvent(CatalogDocumentEvent.CLINIC, clinicId, SOURCE, false,
+                clinic.getName(), clinic.getFullname(), clinic.getSlug(), clinic.getImage(),
+                clinic.getAddress() == null ? List.of() : List.of(clinic.getAddress()),
+                cities(addresses), List.of(), null, null, null, now);
+    }
+
+    private static CatalogDocumentEvent citiesDocument(String type, String id, List<String> addresses, Instant now) {
+        return new CatalogDocumentEvent(type, id, SOURCE, false,
+                null, null, null, null, null, cities(addresses), null, null, null, null, now);
+    }
+
+    private static List<String> cities(List<String> addresses) {
+        Set<String> cities = new LinkedHashSet<>();
+        for (String address : addresses) {
+            String city = CityNames.fromAddress(address);
+            if (city != null) {
+                cities.add(city);
+            }
+        }
+        return List.copyOf(cities);
+    }
+}
@@ -7,6 +7,7 @@ import com.bookingcare.clinic.dto.ClinicBranchResponseDTO;
 import com.bookingcare.clinic.dto.ClinicPatchRequestDTO;
 import com.bookingcare.clinic.dto.ClinicRequestDTO;
 import com.bookingcare.clinic.dto.ClinicResponseDTO;
+import com.bookingcare.clinic.dto.ClinicSuggestionDTO;
 import com.bookingcare.clinic.dto.ClinicVerificationRequestDTO;
 import com.bookingcare.clinic.dto.ClinicVerificationResponseDTO;
 import com.bookingcare.clinic.entity.Clinic;
@@ -42,6 +43,20 @@ public class ClinicMapper {
         );
     }
 
+    // Maps a Clinic entity into a lightweight autocomplete entry.
+    public ClinicSuggestionDTO toClinicSuggestionDTO(Clinic clinic) {
+        if (clinic == null) {
+            return null;
+        }
+
+        return new ClinicSuggestionDTO(
+                clinic.getId(),
+                clinic.getName(),
+                clinic.getSlug(),
+                clinic.getImage()
+        );
+    }
+
     // Constructs a Clinic entity from a create/update request.
     public Clinic toClinicEntity(ClinicRequestDTO request) {
         if (request == null) {
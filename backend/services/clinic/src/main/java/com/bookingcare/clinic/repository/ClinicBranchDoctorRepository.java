@@ -4,6 +4,8 @@ import com.bookingcare.clinic.entity.ClinicBranchDoctor;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ClinicBranchDoctorRepository extends JpaRepository<ClinicBranchDoctor, String> {
 
@@ -14,4 +16,21 @@ public interface ClinicBranchDoctorRepository extends JpaRepository<ClinicBranch
     Optional<ClinicBranchDoctor> findByClinicBranch_IdAndDoctorId(String clinicBranchId, String doctorId);
 
     Optional<ClinicBranchDoctor> findByIdAndClinicBranch_Id(String id, String clinicBranchId);
+
+    @Query("SELECT l.doctorId FROM ClinicBranchDoctor l WHERE l.clinicBranch.id = :branchId")
+    List<String> findDoctorIdsByClinicBranchId(@Param("branchId") String branchId);
+
+    // Địa chỉ các chi nhánh còn hoạt động (phòng khám đã duyệt) có bác sĩ, để publish cities cho search
+    @Query("""
+            SELECT b.address
+            FROM ClinicBranchDoctor l
+            JOIN l.clinicBranch b
+            JOIN b.clinic c
+            WHERE l.doctorId = :doctorId
+              AND l.isDeleted = false
+              AND b.isDeleted = false
+              AND c.isDeleted = false
+              AND c.status = com.bookingcare.clinic.entity.ClinicStatus.APPROVED
+            """)
+    List<String> findVisibleBranchAddressesByDoctorId(@Param("doctorId") String doctorId);
 }
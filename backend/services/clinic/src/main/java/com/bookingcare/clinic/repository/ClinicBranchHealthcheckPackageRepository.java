@@ -6,9 +6,28 @@ import com.bookingcare.clinic.entity.ClinicBranchHealthcheckPackage;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ClinicBranchHealthcheckPackageRepository extends JpaRepository<ClinicBranchHealthcheckPackage, String> {
 
     List<ClinicPackageResponse> findPackageIdByClinicBranchId(String clinicBranchId);
 
+    @Query("SELECT l.healthcheckPackageId FROM ClinicBranchHealthcheckPackage l WHERE l.clinicBranch.id = :branchId")
+    List<String> findHealthcheckPackageIdsByClinicBranchId(@Param("branchId") String branchId);
+
+    // Địa chỉ các chi nhánh còn hoạt động (phòng khám đã duyệt) đang bán gói, để publish cities cho search
+    @Query("""
+            SELECT b.address
+            FROM ClinicBranchHealthcheckPackage l
+            JOIN l.clinicBranch b
+            JOIN b.clinic c
+            WHERE l.healthcheckPackageId = :packageId
+              AND l.isDeleted = false
+              AND b.isDeleted = false
+              AND c.isDeleted = false
+              AND c.status = com.bookingcare.clinic.entity.ClinicStatus.APPROVED
+            """)
+    List<String> findVisibleBranchAddressesByPackageId(@Param("packageId") String packageId);
+
 }
@@ -3,6 +3,7 @@ package com.bookingcare.clinic.repository;
 import com.bookingcare.clinic.entity.Clinic;
 import com.bookingcare.clinic.entity.ClinicStatus;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -19,33 +20,61 @@ public interface ClinicRepository extends JpaRepository<Clinic, String> {
 
     Optional<Clinic> findBySlugAndStatusAndIsDeletedFalse(String slug, ClinicStatus status);
 
-    @Query("""
-            SELECT c
-            FROM Clinic c
+    Page<Clinic> findByStatusAndIsDeletedFalse(ClinicStatus status, Pageable pageable);
+
+    /**
+     * Ranked search on the normalized search_text (see SearchText / V3__clinic_search_index.sql).
+     * q must already be normalized. Matches substrings (LIKE) or fuzzy words (pg_trgm word similarity),
+     * both served by the GIN trigram index; clinics whose name starts with q rank first.
+     */
+    @Query(value = """
+            SELECT c.*
+            FROM clinics c
             WHERE c.status = :status
-              AND c.isDeleted = false
-              AND (:q IS NULL
-                   OR LOWER(c.name) LIKE LOWER(CONCAT('%', :q, '%'))
-                   OR LOWER(c.fullname) LIKE LOWER(CONCAT('%', :q, '%'))
-                   OR LOWER(c.slug) LIKE LOWER(CONCAT('%', :q, '%')))
-            """)
-    Page<Clinic> findByStatusAndSearch(
-            @Param("status") ClinicStatus status,
+              AND c.is_deleted = FALSE
+              AND (c.search_text LIKE CONCAT('%', :q, '%') OR :q <% c.search_text)
+            ORDER BY (c.name_key LIKE CONCAT(:q, '%')) DESC,
+                     word_similarity(:q, c.search_text) DESC,
+                     c.id
+            """,
+            countQuery = """
+            SELECT COUNT(*)
+            FROM clinics c
+            WHERE c.status = :status
+              AND c.is_deleted = FALSE
+              AND (c.search_text LIKE CONCAT('%', :q, '%') OR :q <% c.search_text)
+            """,
+            nativeQuery = true)
+    Page<Clinic> searchByStatus(
+            @Param("status") String status,
             @Param("q") String q,
             Pageable pageable
     );
 
+    /**
+     * Prefix autocomplete on approved clinic names; prefix must already be normalized.
+     */
+    @Query(value = """
+            SELECT c.*
+            FROM clinics c
+            WHERE c.status = 'APPROVED'
+              AND c.is_deleted = FALSE
+              AND c.name_key LIKE CONCAT(:prefix, '%')
+            ORDER BY c.name_key
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Clinic> suggestApprovedByNamePrefix(
+            @Param("prefix") String prefix,
+            @Param("limit") int limit
+    );
+
     @Query("""
             SELECT c
             FROM Clinic c
             WHERE c.createdByUserId = :ownerId
               AND c.isDeleted = false
               AND (:status IS NULL OR c.status = :status)
-              AND (:q IS NULL
-                   OR LOWER(c.name) LIKE LOWER(CONCAT('%', :q, '%'))
-                   OR LOWER(c.fullname) LIKE LOWER(CONCAT('%', :q, '%'))
-                   OR LOWER(c.address) LIKE LOWER(CONCAT('%', :q, '%'))
-                   OR LOWER(c.slug) LIKE LOWER(CONCAT('%', :q, '%')))
+              AND (:q IS NULL OR c.searchText LIKE CONCAT('%', :q, '%'))
             """)
     Page<Clinic> findByOwnerAndFilters(
             @Param("ownerId") String ownerId,
@@ -2,14 +2,15 @@ package com.bookingcare.clinic.service;
 
 import com.bookingcare.clinic.client.ExpertiseClient;
 import com.bookingcare.clinic.dto.ClinicBranchDoctorDTO;
-import com.bookingcare.clinic.dto.DoctorsResponseDTO;
 import com.bookingcare.clinic.dto.ClinicBranchRequestDTO;
 import com.bookingcare.clinic.dto.ClinicBranchResponseDTO;
 import com.bookingcare.clinic.dto.ClinicPackageResponse;
 import com.bookingcare.clinic.dto.ClinicPatchRequestDTO;
+import com.bookingcare.clinic.dto.ClinicRejectionRequestDTO;
 import com.bookingcare.clinic.dto.ClinicRequestDTO;
 import com.bookingcare.clinic.dto.ClinicResponseDTO;
-import com.bookingcare.clinic.dto.ClinicRejectionRequestDTO;
+import com.bookingcare.clinic.dto.ClinicSuggestionDTO;
+import com.bookingcare.clinic.dto.DoctorsResponseDTO;
 import com.bookingcare.clinic.entity.Clinic;
 import com.bookingcare.clinic.entity.ClinicBranch;
 import com.bookingcare.clinic.entity.ClinicBranchDoctor;
@@ -19,13 +20,14 @@ import com.bookingcare.clinic.entity.ClinicVerificationAction;
 import com.bookingcare.clinic.exception.ApiException;
 import com.bookingcare.clinic.exception.ErrorCode;
 import com.bookingcare.clinic.mapper.ClinicMapper;
+import com.bookingcare.clinic.repository.ClinicAccountRepository;
 import com.bookingcare.clinic.repository.ClinicBranchDoctorRepository;
 import com.bookingcare.clinic.repository.ClinicBranchHealthcheckPackageRepository;
 import com.bookingcare.clinic.repository.ClinicBranchRepository;
 import com.bookingcare.clinic.repository.ClinicRepository;
 import com.bookingcare.clinic.repository.ClinicVerificationRepository;
-import com.bookingcare.clinic.repository.ClinicAccountRepository;
 import com.bookingcare.clinic.security.CurrentUserService;
+import com.bookingcare.common.messaging.catalog.SearchText;
 
 import java.util.EnumSet;
 import java.util.List;
@@ -48,6 +50,8 @@ import org.springframework.util.StringUtils;
 public class ClinicService {
 
     private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 20;
 
     private final ClinicRepository clinicRepository;
     private final ClinicMapper clinicMapper;
@@ -83,10 +87,23 @@ public class ClinicService {
     @Transactional(readOnly = true)
     public Page<ClinicResponseDTO> getApprovedClinics(String query, Pageable pageable) {
         Pageable effectivePageable = pageable == null ? Pageable.unpaged() : pageable;
-        String normalizedQuery = normalizeQuery(query);
-        return clinicRepository
-                .findByStatusAndSearch(ClinicStatus.APPROVED, normalizedQuery, effectivePageable)
-                .map(clinicMapper::toClinicResponseDTO);
+        return searchByStatus(ClinicStatus.APPROVED, query, effectivePageable);
+    }
+
+    // Prefix autocomplete over approved clinic names (diacritic-insensitive).
+    @Transactional(readOnly = true)
+    public List<ClinicSuggestionDTO> suggestClinics(String prefix, Integer limit) {
+        String normalizedPrefix = normalizeQuery(prefix);
+        if (normalizedPrefix == null) {
+            return List.of();
+        }
+        int boundedLimit = (limit == null || limit <= 0)
+                ? DEFAULT_SUGGESTIONS
+                : Math.min(limit, MAX_SUGGESTIONS);
+        return clinicRepository.suggestApprovedByNamePrefix(normalizedPrefix, boundedLimit)
+                .stream()
+                .map(clinicMapper::toClinicSuggestionDTO)
+                .toList();
     }
 
     // Lists clinics currently in the pending review state (admin only).
@@ -94,10 +111,7 @@ public class ClinicService {
     public Page<ClinicResponseDTO> getPendingClinics(String query, Pageable pageable) {
         currentUserService.requireCurrentUserIdWithRole("ROLE_ADMIN");
         Pageable boundedPageable = applyPageSizeCap(pageable);
-        String normalizedQuery = normalizeQuery(query);
-        return clinicRepository
-                .findByStatusAndSearch(ClinicStatus.PENDING, normalizedQuery, boundedPageable)
-                .map(clinicMapper::toClinicResponseDTO);
+        return searchByStatus(ClinicStatus.PENDING, query, boundedPageable);
     }
 
     // Fetches a specific clinic for admin users regardless of status.
@@ -598,9 +612,26 @@ public class ClinicService {
         return PageRequest.of(pageable.getPageNumber(), boundedSize, pageable.getSort());
     }
 
-    // Normalizes free-text search input (trim + empty to null).
+    // Lists clinics in a status; with a query, results come ranked by relevance instead of the requested sort.
+    private Page<ClinicResponseDTO> searchByStatus(ClinicStatus status, String query, Pageable pageable) {
+        String normalizedQuery = normalizeQuery(query);
+        if (normalizedQuery == null) {
+            return clinicRepository
+                    .findByStatusAndIsDeletedFalse(status, pageable)
+                    .map(clinicMapper::toClinicResponseDTO);
+        }
+
+        Pageable unsorted = pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+                : Pageable.unpaged();
+        return clinicRepository
+                .searchByStatus(status.name(), normalizedQuery, unsorted)
+                .map(clinicMapper::toClinicResponseDTO);
+    }
+
+    // Normalizes free-text search input the same way clinics.search_text is built (no diacritics, lower-case).
     private String normalizeQuery(String query) {
-        return (query == null || query.isBlank()) ? null : query.trim();
+        return SearchText.normalize(query);
     }
 
     // Converts a user-provided status filter into an enum or throws.
@@ -0,0 +1,39 @@
+-- ==========================================================================
+-- Clinic search: diacritic-insensitive, ranked search + prefix autocomplete
+-- ==========================================================================
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Maintained by Clinic#refreshSearchKeys (SearchText.normalize):
+--   search_text = normalized name + fullname + slug + address
+--   name_key    = normalized name (C collation: byte order, usable for LIKE 'prefix%' and ORDER BY)
+ALTER TABLE clinics
+  ADD COLUMN IF NOT EXISTS search_text TEXT,
+  ADD COLUMN IF NOT EXISTS name_key    VARCHAR(255) COLLATE "C";
+
+COMMENT ON COLUMN clinics.search_text IS 'Lower-case, diacritic-free name/fullname/slug/address for search';
+COMMENT ON COLUMN clinics.name_key IS 'Lower-case, diacritic-free name for prefix autocomplete';
+
+-- Backfill existing rows with the same rules as SearchText.normalize
+-- (Vietnamese letters -> ASCII, anything outside a-z0-9 collapsed to one space)
+UPDATE clinics
+SET search_text = NULLIF(btrim(regexp_replace(
+      translate(lower(concat_ws(' ', name, fullname, slug, address)),
+                'àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđ',
+                'aaaaaaaaaaaaaaaaaeeeeeeeeeeeiiiiiooooooooooooooooouuuuuuuuuuuyyyyyd'),
+      '[^a-z0-9]+', ' ', 'g')), ''),
+    name_key = NULLIF(btrim(regexp_replace(
+      translate(lower(name),
+                'àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđ',
+                'aaaaaaaaaaaaaaaaaeeeeeeeeeeeiiiiiooooooooooooooooouuuuuuuuuuuyyyyyd'),
+      '[^a-z0-9]+', ' ', 'g')), '')
+WHERE search_text IS NULL;
+
+-- Substring (LIKE '%q%') and fuzzy (q <% search_text) matching
+CREATE INDEX IF NOT EXISTS ix_clinics_search_text_trgm
+  ON clinics USING gin (search_text gin_trgm_ops)
+  WHERE is_deleted = FALSE;
+
+-- Autocomplete: name_key LIKE 'prefix%' ORDER BY name_key LIMIT n on approved clinics
+CREATE INDEX IF NOT EXISTS ix_clinics_approved_name_key
+  ON clinics (name_key)
+  WHERE status = 'APPROVED' AND is_deleted = FALSE;
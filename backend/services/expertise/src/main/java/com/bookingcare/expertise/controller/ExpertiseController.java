@@ -6,6 +6,7 @@ import java.util.UUID;
 
 import org.apache.hc.core5.http.HttpStatus;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,7 +17,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
 import com.bookingcare.expertise.dto.CredentialReviewActionRequestDTO;
 import com.bookingcare.expertise.dto.CredentialTypeResponseDTO;
 import com.bookingcare.expertise.dto.DoctorCredentialFileRequestDTO;
@@ -43,9 +47,12 @@ public class ExpertiseController {
     // ========== PUBLIC ========== //
 
     // Doctors
+    // Phân trang keyset: truyền lại nextCursor của trang trước, limit mặc định 50, tối đa 500
     @GetMapping("/doctors")
-    public ResponseEntity<List<DoctorsResponseDTO>> getAllDoctors() {
-        List<DoctorsResponseDTO> doctors = expertiseService.getAllDoctors();
+    public ResponseEntity<CursorPage<DoctorsResponseDTO>> getAllDoctors(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<DoctorsResponseDTO> doctors = expertiseService.getAllDoctors(cursor, limit);
         return ResponseEntity.ok().body(doctors);
     }
 
@@ -206,6 +213,15 @@ public class ExpertiseController {
         return ResponseEntity.ok(response);
     }
 
+    // ADMIN: Export all doctors as NDJSON, streamed straight from the DB
+    @GetMapping(value = "/admin/doctors/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportDoctors() {
+        StreamingResponseBody body = expertiseService::exportAllDoctors;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"doctors.ndjson\"")
+                .body(body);
+    }
+
     // ADMIN: List pending credentials with optional filters (credential type code, doctor id, expiry cutoff)
     @GetMapping("/admin/credentials/pending")
     public ResponseEntity<List<DoctorCredentialWithFilesResponseDTO>> listPendingCredentials(
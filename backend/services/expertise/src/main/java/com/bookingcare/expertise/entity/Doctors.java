@@ -1,5 +1,7 @@
 package com.bookingcare.expertise.entity;
 
+import com.bookingcare.expertise.kafka.CatalogChangeListener;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -19,7 +21,7 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CatalogChangeListener.class})
 @NoArgsConstructor
 @Table(
         name = "doctors",
@@ -1,5 +1,7 @@
 package com.bookingcare.expertise.entity;
 
+import com.bookingcare.expertise.kafka.CatalogChangeListener;
+
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -11,7 +13,7 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CatalogChangeListener.class})
 @NoArgsConstructor
 @Table(
         name = "doctors_specialties",
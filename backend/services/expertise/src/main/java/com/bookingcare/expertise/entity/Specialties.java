@@ -1,5 +1,7 @@
 package com.bookingcare.expertise.entity;
 
+import com.bookingcare.expertise.kafka.CatalogChangeListener;
+
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -20,7 +22,7 @@ import java.util.UUID;
 @Setter
 @Entity
 @NoArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CatalogChangeListener.class})
 @Table(
         name = "specialties",
         indexes = {
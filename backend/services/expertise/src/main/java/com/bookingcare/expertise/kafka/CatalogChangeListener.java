@@ -0,0 +1,49 @@
+package com.bookingcare.expertise.kafka;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentPublisher;
+import com.bookingcare.common.messaging.catalog.CatalogInvalidationPublisher;
+import com.bookingcare.expertise.entity.Doctors;
+import com.bookingcare.expertise.entity.Doctors_Specialties;
+import com.bookingcare.expertise.entity.Specialties;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Entity listener: chuyên khoa thay đổi -> invalidate region "specialties" ở gateway;
+ * chuyên khoa / bác sĩ / liên kết bác sĩ - chuyên khoa thay đổi -> gửi lại document cho search-service.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogChangeListener {
+    public static final String SPECIALTIES = "specialties";
+
+    private final CatalogInvalidationPublisher catalogInvalidationPublisher;
+    private final CatalogDocumentPublisher catalogDocumentPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Specialties) {
+            catalogInvalidationPublisher.regionsChanged(List.of(SPECIALTIES));
+        }
+        catalogDocumentPublisher.documentsChanged(documentsOf(entity));
+    }
+
+    static List<String> documentsOf(Object entity) {
+        return switch (entity) {
+            case Specialties specialty -> List.of(CatalogDocumentEvent.SPECIALTY + ":" + specialty.getId());
+            case Doctors doctor -> List.of(CatalogDocumentEvent.DOCTOR + ":" + doctor.getId());
+            case Doctors_Specialties link -> List.of(CatalogDocumentEvent.DOCTOR + ":" + link.getDoctors().getId());
+            default -> List.of();
+        };
+    }
+}
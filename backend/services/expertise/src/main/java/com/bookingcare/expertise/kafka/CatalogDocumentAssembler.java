@@ -0,0 +1,104 @@
+package com.bookingcare.expertise.kafka;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentSource;
+import com.bookingcare.expertise.entity.Doctors;
+import com.bookingcare.expertise.entity.Specialties;
+import com.bookingcare.expertise.entity.SpecialtyStatus;
+import com.bookingcare.expertise.repository.Doctor_Specialty_Repo;
+import com.bookingcare.expertise.repository.DoctorsRepo;
+import com.bookingcare.expertise.repository.SpecialtyRepo;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Đọc trạng thái hiện tại của các document thay đổi để CatalogDocumentPublisher gửi cho search-service.
+ *
+ * Key: DOCTOR:id, SPECIALTY:id. Document bác sĩ chỉ mang id chuyên khoa, search-service tự lấy tên
+ * chuyên khoa từ document SPECIALTY nên đổi tên chuyên khoa không cần gửi lại bác sĩ.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogDocumentAssembler implements CatalogDocumentSource {
+    public static final String SOURCE = "expertise-service";
+
+    private final DoctorsRepo doctorsRepo;
+    private final SpecialtyRepo specialtyRepo;
+    private final Doctor_Specialty_Repo doctorSpecialtyRepo;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CatalogDocumentEvent> assemble(Collection<String> keys) {
+        Instant now = Instant.now();
+        List<CatalogDocumentEvent> events = new ArrayList<>();
+        for (String key : keys) {
+            int separator = key.indexOf(':');
+            String type = key.substring(0, separator);
+            UUID id = UUID.fromString(key.substring(separator + 1));
+            switch (type) {
+                case CatalogDocumentEvent.DOCTOR -> events.add(doctorDocument(id, now));
+                case CatalogDocumentEvent.SPECIALTY -> events.add(specialtyDocument(id, now));
+                default -> {
+                }
+            }
+        }
+        return events;
+    }
+
+    private CatalogDocumentEvent doctorDocument(UUID doctorId, Instant now) {
+        // Bác sĩ đã xoá bị loại bởi @SQLRestriction
+        Doctors doctor = doctorsRepo.findById(doctorId).orElse(null);
+        if (doctor == null) {
+            return deleted(CatalogDocumentEvent.DOCTOR, doctorId, now);
+        }
+
+        List<String> specialtyIds = doctorSpecialtyRepo.findSpecialtyIdsByDoctorId(doctorId).stream()
+                .map(UUID::toString)
+                .toList();
+        return new CatalogDocumentEvent(CatalogDocumentEvent.DOCTOR, doctorId.toString(), SOURCE, false,
+                doctorTitle(doctor.getDoctorDetailInfor(), doctor.getSlug()), doctor.getShortDoctorInfor(),
+                doctor.getSlug(), null, List.of(), null, specialtyIds, null, null, null, now);
+    }
+
+    private CatalogDocumentEvent specialtyDocument(UUID specialtyId, Instant now) {
+        Specialties specialty = specialtyRepo.findById(specialtyId).orElse(null);
+        if (specialty == null || specialty.isDeleted() || specialty.getStatus() != SpecialtyStatus.APPROVED) {
+            return deleted(CatalogDocumentEvent.SPECIALTY, specialtyId, now);
+        }
+
+        return new CatalogDocumentEvent(CatalogDocumentEvent.SPECIALTY, specialtyId.toString(), SOURCE, false,
+                specialty.getName(), null, specialty.getSlug(), specialty.getImage(), List.of(), null, List.of(),
+                null, null, null, now);
+    }
+
+    private static CatalogDocumentEvent deleted(String type, UUID id, Instant now) {
+        return new CatalogDocumentEvent(type, id.toString(), SOURCE, true,
+                null, null, null, null, null, null, null, null, null, null, now);
+    }
+
+    /**
+     * Bác sĩ không có cột tên: lấy dòng đầu của phần giới thiệu ("**PGs.Ts.Bs. Lê Mạnh Cường - Phẫu thuật...**"),
+     * bỏ markdown và phần sau " - ". Cùng cách search-service đọc file seed.
+     */
+    static String doctorTitle(String detail, String fallback) {
+        if (detail != null) {
+            for (String line : detail.split("\\\\n|\\n")) {
+                String title = line.replaceAll("[*#_`]", "").trim();
+                if (!title.isEmpty() && !title.chars().allMatch(c -> c == '-' || c == '=')) {
+                    int dash = title.indexOf(" - ");
+                    return dash > 0 ? title.substring(0, dash).trim() : title;
+                }
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,16 @@
+package com.bookingcare.expertise.kafka;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentPublisher;
+import com.bookingcare.common.messaging.catalog.CatalogInvalidationPublisher;
+
+/**
+ * Các thành phần messaging dùng chung (common-messaging) mà expertise-service sử dụng.
+ * Package com.bookingcare.common không nằm trong component scan nên phải @Import ở đây.
+ */
+@Configuration
+@Import({CatalogInvalidationPublisher.class, CatalogDocumentPublisher.class})
+public class MessagingConfig {
+}
@@ -8,6 +8,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface Doctor_Specialty_Repo extends JpaRepository<Doctors_Specialties,UUID> {
 
@@ -15,4 +17,6 @@ public interface Doctor_Specialty_Repo extends JpaRepository<Doctors_Specialties
 
     Optional<Doctors_Specialties> findByDoctorsIdAndSpecialtiesId(UUID doctorId, UUID specialtyId);
 
+    @Query("SELECT ds.specialties.id FROM Doctors_Specialties ds WHERE ds.doctors.id = :doctorId")
+    List<UUID> findSpecialtyIdsByDoctorId(@Param("doctorId") UUID doctorId);
 }
@@ -2,11 +2,19 @@ package com.bookingcare.expertise.repository;
 
 import com.bookingcare.expertise.entity.Doctors;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 public interface DoctorsRepo extends JpaRepository<Doctors,UUID> {
     Optional<Doctors> findBySlug(String slug);
@@ -14,4 +22,16 @@ public interface DoctorsRepo extends JpaRepository<Doctors,UUID> {
 
     Optional<Doctors> findByIdAndDeletedFalse(UUID id);
 
+    // Phân trang keyset theo khoá chính (bác sĩ đã xoá bị loại bởi @SQLRestriction)
+    List<Doctors> findAllByOrderByIdAsc(Limit limit);
+    List<Doctors> findByIdGreaterThanOrderByIdAsc(UUID afterId, Limit limit);
+
+    // Export: đọc dần theo fetch size, dùng trong transaction và đóng stream sau khi dùng
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d FROM Doctors d ORDER BY d.id")
+    Stream<Doctors> streamAllOrderById();
+
 }
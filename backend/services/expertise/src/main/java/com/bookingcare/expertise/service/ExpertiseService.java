@@ -1,5 +1,7 @@
 package com.bookingcare.expertise.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.Normalizer;
 import java.time.LocalDate;
 import java.util.List;
@@ -7,10 +9,15 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.common.pagination.PageCursor;
 import com.bookingcare.expertise.dto.CredentialTypeResponseDTO;
 import com.bookingcare.expertise.dto.DoctorCredentialFileRequestDTO;
 import com.bookingcare.expertise.dto.DoctorCredentialFullResponseDTO;
@@ -42,6 +49,10 @@ import com.bookingcare.expertise.repository.DoctorsRepo;
 import com.bookingcare.expertise.repository.SpecialtyRepo;
 import org.springframework.util.StringUtils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
 
 @Service
 public class ExpertiseService {
@@ -56,6 +67,8 @@ public class ExpertiseService {
     
 
     private final ExpertiseMapper expertiseMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     public ExpertiseService(
                             DoctorsRepo doctorsRepo, SpecialtyRepo specialtiesRepo, 
@@ -63,7 +76,8 @@ public class ExpertiseService {
                             CredentialTypeRepo credentialTypeRepo,
                             DoctorCredentialFileRepo doctorCredentialFileRepo, 
                             Doctor_Specialty_Repo doctorsSpecialtiesRepo, 
-                            DoctorCredentialVerificationRepo doctorCredentialVerificationRepo
+                            DoctorCredentialVerificationRepo doctorCredentialVerificationRepo,
+                            EntityManager entityManager, ObjectMapper objectMapper
                      ) {
         this.doctorsRepo = doctorsRepo;
         this.specialtiesRepo = specialtiesRepo;
@@ -73,6 +87,8 @@ public class ExpertiseService {
         this.doctorsSpecialtiesRepo = doctorsSpecialtiesRepo;
         this.doctorCredentialVerificationRepo = doctorCredentialVerificationRepo;
         this.expertiseMapper = expertiseMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
     }
 
     // ========== PUBLIC ========== //
@@ -94,11 +110,26 @@ public class ExpertiseService {
         }
     }
 
-    public List<DoctorsResponseDTO> getAllDoctors() {
-        return doctorsRepo.findAll()
-                .stream()
-                .map(expertiseMapper::toDoctorsResponseDTO)
-                .toList();
+    @Transactional(readOnly = true)
+    public CursorPage<DoctorsResponseDTO> getAllDoctors(String cursor, Integer limit) {
+        int pageSize = PageCursor.clampLimit(limit);
+        String afterId = PageCursor.decode(cursor);
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<Doctors> doctors = afterId == null
+                ? doctorsRepo.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : doctorsRepo.findByIdGreaterThanOrderByIdAsc(UUID.fromString(afterId), Limit.of(pageSize + 1));
+        return CursorPage.of(doctors, pageSize, doctor -> doctor.getId().toString(),
+                expertiseMapper::toDoctorsResponseDTO);
+    }
+
+    // Ghi toàn bộ bác sĩ ra NDJSON, persistence context được clear theo lô nên RAM không tăng theo số dòng
+    @Transactional(readOnly = true)
+    public long exportAllDoctors(OutputStream out) throws IOException {
+        try (Stream<Doctors> doctors = doctorsRepo.streamAllOrderById()) {
+            return NdjsonWriter.write(doctors.map(expertiseMapper::toDoctorsResponseDTO), out, objectMapper,
+                    entityManager::clear);
+        }
     }
 
     public DoctorsResponseDTO getDoctorByIdOrSlug(String idOrSlug) {
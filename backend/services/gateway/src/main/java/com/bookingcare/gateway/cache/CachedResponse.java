@@ -0,0 +1,20 @@
+package com.bookingcare.gateway.cache;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+
+/**
+ * Response đã đọc hết body từ service phía sau.
+ *
+ * @param storedAtNanos System.nanoTime() lúc nhận response
+ */
+public record CachedResponse(
+        HttpStatusCode status,
+        MediaType contentType,
+        byte[] body,
+        long storedAtNanos
+) {
+    public long ageNanos() {
+        return System.nanoTime() - storedAtNanos;
+    }
+}
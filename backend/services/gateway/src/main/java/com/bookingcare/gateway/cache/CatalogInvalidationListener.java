@@ -0,0 +1,45 @@
+package com.bookingcare.gateway.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Nhận message invalidate từ các service sở hữu catalog (package, expertise, clinic):
+ * {"region": "packages", "source": "package-service", "changedAt": "..."}.
+ *
+ * Mỗi replica gateway dùng 1 group id riêng để replica nào cũng nhận đủ message.
+ */
+public class CatalogInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogInvalidationListener.class);
+
+    private final ResponseCacheStore store;
+    private final ObjectMapper objectMapper;
+
+    public CatalogInvalidationListener(ResponseCacheStore store, ObjectMapper objectMapper) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+    }
+
+    @KafkaListener(
+            topics = "${gateway.response-cache.invalidation-topic:catalog-invalidation}",
+            groupId = "gateway-response-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onInvalidation(String message) {
+        try {
+            JsonNode region = objectMapper.readTree(message).get("region");
+            if (region == null || region.asText().isBlank()) {
+                log.warn("Ignoring catalog invalidation without region: {}", message);
+                return;
+            }
+
+            store.invalidateRegion(region.asText());
+            log.debug("Invalidated response cache region {}", region.asText());
+        } catch (Exception e) {
+            log.warn("Ignoring malformed catalog invalidation message: {}", e.getMessage());
+        }
+    }
+}
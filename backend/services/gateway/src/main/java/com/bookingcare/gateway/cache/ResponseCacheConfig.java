@@ -0,0 +1,42 @@
+package com.bookingcare.gateway.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+@ConditionalOnProperty(prefix = "gateway.response-cache", name = "enabled", havingValue = "true")
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCacheStore responseCacheStore(ResponseCacheProperties properties) {
+        return new ResponseCacheStore(properties.maxSizeMb() * 1024 * 1024);
+    }
+
+    /**
+     * WebClient riêng cho cache (không đăng ký WebClient.Builder @LoadBalanced dùng chung),
+     * gọi http://SERVICE-ID/... qua load balancer như route lb:// của gateway.
+     */
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(ResponseCacheProperties properties,
+                                                   ResponseCacheStore responseCacheStore,
+                                                   WebClient.Builder webClientBuilder,
+                                                   ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction) {
+        WebClient webClient = webClientBuilder.clone()
+                .filter(loadBalancerFunction)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(properties.maxEntryKb() * 1024))
+                .build();
+        return new ResponseCacheFilter(properties, responseCacheStore, webClient);
+    }
+
+    @Bean
+    public CatalogInvalidationListener catalogInvalidationListener(ResponseCacheStore responseCacheStore,
+                                                                   ObjectMapper objectMapper) {
+        return new CatalogInvalidationListener(responseCacheStore, objectMapper);
+    }
+}
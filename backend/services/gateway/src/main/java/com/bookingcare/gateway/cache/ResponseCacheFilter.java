@@ -0,0 +1,172 @@
+package com.bookingcare.gateway.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+/**
+ * Cache response cho các GET public của catalog (ResponseCacheProperties.routes).
+ *
+ * - Fresh (tuổi < ttl): trả từ cache, không gọi service.
+ * - Stale (ttl <= tuổi < ttl + stale): trả bản cũ ngay, nạp lại ngầm.
+ * - Miss: gọi service qua WebClient có load balancer; nhiều request cùng key lúc miss
+ *   chỉ tạo 1 lần gọi, các request còn lại chờ kết quả đó.
+ * - Chỉ cache response 2xx. Lỗi khi gọi (hoặc body quá max-entry-kb) thì đi tiếp chain như bình thường.
+ *
+ * Header X-Cache: HIT | STALE | MISS.
+ */
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    // Sau RouteToRequestUrlFilter (đã có lb://SERVICE/...), trước ReactiveLoadBalancerClientFilter (10150)
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 50;
+    static final String CACHE_HEADER = "X-Cache";
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private static final List<String> NOT_FORWARDED_HEADERS = List.of(
+            HttpHeaders.HOST, HttpHeaders.CONTENT_LENGTH, HttpHeaders.ACCEPT_ENCODING,
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+
+    private final List<CompiledRoute> routes;
+    private final ResponseCacheStore store;
+    private final WebClient webClient;
+    private final ConcurrentHashMap<String, Mono<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(ResponseCacheProperties properties, ResponseCacheStore store, WebClient webClient) {
+        this.store = store;
+        this.webClient = webClient;
+        this.routes = properties.routes().stream()
+                .map(route -> new CompiledRoute(PathPatternParser.defaultInstance.parse(route.path()),
+                        route.region(),
+                        route.ttl().toNanos(),
+                        route.ttl().plus(route.stale()).toNanos()))
+                .toList();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        URI upstream = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (request.getMethod() != HttpMethod.GET || upstream == null || !"lb".equals(upstream.getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        CompiledRoute route = match(request.getPath().pathWithinApplication());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        String query = request.getURI().getRawQuery();
+        String key = route.region() + " GET " + request.getURI().getRawPath() + (query != null ? "?" + query : "");
+
+        CachedResponse cached = store.get(key);
+        if (cached != null) {
+            long age = cached.ageNanos();
+            if (age < route.ttlNanos()) {
+                return write(exchange, cached, "HIT");
+            }
+            if (age < route.retentionNanos()) {
+                load(key, route, upstream, request.getHeaders())
+                        .subscribe(ignored -> { }, error -> log.warn("Background refresh failed for {}: {}", key, error.getMessage()));
+                return write(exchange, cached, "STALE");
+            }
+        }
+
+        return load(key, route, upstream, request.getHeaders())
+                .map(Optional::of)
+                .onErrorResume(error -> {
+                    log.warn("Response cache load failed for {}, forwarding request: {}", key, error.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(loaded -> loaded.isPresent()
+                        ? write(exchange, loaded.get(), "MISS")
+                        : chain.filter(exchange));
+    }
+
+    private CompiledRoute match(PathContainer path) {
+        for (CompiledRoute route : routes) {
+            if (route.pattern().matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private Mono<CachedResponse> load(String key, CompiledRoute route, URI upstream, HttpHeaders headers) {
+        return inFlight.computeIfAbsent(key, ignored -> {
+            long generation = store.generation(route.region());
+            return fetch(upstream, headers)
+                    .doOnNext(response -> {
+                        if (response.status().is2xxSuccessful()) {
+                            store.put(key, route.region(), generation, response,
+                                    Duration.ofNanos(route.retentionNanos()));
+                        }
+                    })
+                    .doFinally(signal -> inFlight.remove(key))
+                    .cache();
+        });
+    }
+
+    private Mono<CachedResponse> fetch(URI upstream, HttpHeaders headers) {
+        URI uri = UriComponentsBuilder.fromUri(upstream).scheme("http").build(true).toUri();
+        return webClient.get()
+                .uri(uri)
+                .headers(forwarded -> {
+                    forwarded.addAll(headers);
+                    NOT_FORWARDED_HEADERS.forEach(forwarded::remove);
+                })
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(EMPTY_BODY)
+                        .map(body -> new CachedResponse(response.statusCode(),
+                                response.headers().contentType().orElse(null),
+                                body,
+                                System.nanoTime())));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(cached.status());
+
+        HttpHeaders headers = response.getHeaders();
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        headers.set(CACHE_HEADER, cacheStatus);
+        headers.set(HttpHeaders.AGE, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(cached.ageNanos())));
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private record CompiledRoute(PathPattern pattern, String region, long ttlNanos, long retentionNanos) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.bookingcare.gateway.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cấu hình cache response cho các GET public của catalog (gateway.response-cache).
+ *
+ * @param maxSizeMb      tổng dung lượng body được cache (MB)
+ * @param maxEntryKb     body lớn hơn thì không cache, chuyển thẳng request xuống service
+ * @param invalidationTopic topic Kafka mà các service sở hữu catalog gửi message invalidate
+ * @param routes         path pattern -> region + TTL; request khớp pattern đầu tiên
+ */
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public record ResponseCacheProperties(
+        boolean enabled,
+        long maxSizeMb,
+        int maxEntryKb,
+        String invalidationTopic,
+        List<Route> routes
+) {
+    public ResponseCacheProperties {
+        if (maxSizeMb <= 0) {
+            maxSizeMb = 64;
+        }
+        if (maxEntryKb <= 0) {
+            maxEntryKb = 1024;
+        }
+        if (invalidationTopic == null || invalidationTopic.isBlank()) {
+            invalidationTopic = "catalog-invalidation";
+        }
+        routes = routes == null ? List.of() : List.copyOf(routes);
+    }
+
+    /**
+     * @param path         PathPattern, ví dụ /api/v1/clinics/slug/{slug}
+     * @param region       nhóm dữ liệu để invalidate, trùng với region trong message Kafka
+     * @param ttlSeconds   thời gian response còn "fresh"
+     * @param staleSeconds sau TTL vẫn trả bản cũ thêm staleSeconds trong lúc nạp lại ngầm
+     */
+    public record Route(String path, String region, long ttlSeconds, long staleSeconds) {
+        public Duration ttl() {
+            return Duration.ofSeconds(ttlSeconds);
+        }
+
+        public Duration stale() {
+            return Duration.ofSeconds(staleSeconds);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bookingcare.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kho response theo key "region method path?query", body giữ dạng byte[].
+ *
+ * - Giới hạn theo tổng số byte (maximumWeight), entry bị xoá sau ttl + stale của route.
+ * - Mỗi region có 1 generation: invalidate tăng generation, response đã gọi xuống service
+ *   trước lúc invalidate sẽ không được ghi vào kho nữa.
+ */
+public class ResponseCacheStore {
+
+    private final Cache<String, Entry> entries;
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public ResponseCacheStore(long maxBytes) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> key.length() + entry.response().body().length)
+                .expireAfter(new EntryExpiry())
+                .build();
+    }
+
+    public CachedResponse get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry == null ? null : entry.response();
+    }
+
+    public long generation(String region) {
+        return generations.computeIfAbsent(region, ignored -> new AtomicLong()).get();
+    }
+
+    /**
+     * Ghi response nếu region chưa bị invalidate kể từ generation lúc bắt đầu gọi service.
+     */
+    public void put(String key, String region, long generation, CachedResponse response, Duration retention) {
+        if (generation(region) == generation) {
+            entries.put(key, new Entry(response, retention.toNanos()));
+        }
+    }
+
+    public void invalidateRegion(String region) {
+        generations.computeIfAbsent(region, ignored -> new AtomicLong()).incrementAndGet();
+        String prefix = region + " ";
+        entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public long estimatedSize() {
+        return entries.estimatedSize();
+    }
+
+    private record Entry(CachedResponse response, long retentionNanos) {
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.retentionNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.retentionNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
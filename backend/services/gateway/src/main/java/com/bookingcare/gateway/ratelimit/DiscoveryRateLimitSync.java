@@ -0,0 +1,38 @@
+package com.bookingcare.gateway.ratelimit;
+
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chia quota đều cho các replica gateway đang đăng ký trên Eureka (load balancer phía trước
+ * phân phối request của 1 user khá đều giữa các replica).
+ *
+ * Số replica đọc từ registry cache local của DiscoveryClient, tối đa 1 lần / refreshIntervalNanos.
+ */
+public class DiscoveryRateLimitSync implements RateLimitSync {
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final DiscoveryClient discoveryClient;
+    private final String serviceId;
+
+    private volatile double share = 1.0;
+    private volatile long refreshedAt = System.nanoTime() - REFRESH_INTERVAL_NANOS;
+
+    public DiscoveryRateLimitSync(DiscoveryClient discoveryClient, String serviceId) {
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+    }
+
+    @Override
+    public double localShare() {
+        long now = System.nanoTime();
+        if (now - refreshedAt >= REFRESH_INTERVAL_NANOS) {
+            refreshedAt = now;
+            int replicas = discoveryClient.getInstances(serviceId).size();
+            share = 1.0 / Math.max(1, replicas);
+        }
+        return share;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookingcare.gateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bean cho filter RequestRateLimiter (gắn vào mọi route qua spring.cloud.gateway.default-filters).
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public TokenBucketStore tokenBucketStore(RateLimitProperties properties) {
+        return new TokenBucketStore(properties.stripes(), properties.idleSweep().toNanos());
+    }
+
+    @Bean
+    public RateLimitSync rateLimitSync(RateLimitProperties properties,
+                                       DiscoveryClient discoveryClient,
+                                       @Value("${spring.application.name}") String applicationName) {
+        if ("discovery".equalsIgnoreCase(properties.sync())) {
+            return new DiscoveryRateLimitSync(discoveryClient, applicationName);
+        }
+        return RateLimitSync.local();
+    }
+
+    @Bean
+    public TokenBucketRateLimiter tokenBucketRateLimiter(TokenBucketStore tokenBucketStore,
+                                                         RateLimitSync rateLimitSync,
+                                                         RateLimitProperties properties,
+                                                         MeterRegistry meterRegistry,
+                                                         ConfigurationService configurationService) {
+        return new TokenBucketRateLimiter(tokenBucketStore, rateLimitSync, properties, meterRegistry, configurationService);
+    }
+
+    @Bean
+    public UserIdKeyResolver userIdKeyResolver() {
+        return new UserIdKeyResolver();
+    }
+}
@@ -0,0 +1,52 @@
+package com.bookingcare.gateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Cấu hình giới hạn request theo user + route (gateway.rate-limit).
+ *
+ * @param replenishRate      số request / giây mỗi user được cấp lại (mặc định cho mọi route)
+ * @param burstCapacity      số request tối đa dồn được khi user không gửi gì
+ * @param stripes            số phân vùng của bảng token bucket
+ * @param idleSweepSeconds   chu kỳ dọn bucket đã đầy lại (user không còn gửi request) của mỗi phân vùng
+ * @param sync               local: mỗi replica giữ nguyên quota; discovery: chia quota theo số replica gateway trên Eureka
+ * @param routes             route id -> limit riêng, ghi đè mặc định
+ */
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public record RateLimitProperties(
+        int replenishRate,
+        int burstCapacity,
+        int stripes,
+        long idleSweepSeconds,
+        String sync,
+        Map<String, Limit> routes
+) {
+    public RateLimitProperties {
+        if (replenishRate <= 0) {
+            replenishRate = 20;
+        }
+        if (burstCapacity <= 0) {
+            burstCapacity = replenishRate * 2;
+        }
+        if (stripes <= 0) {
+            stripes = 64;
+        }
+        if (idleSweepSeconds <= 0) {
+            idleSweepSeconds = 60;
+        }
+        if (sync == null || sync.isBlank()) {
+            sync = "local";
+        }
+        routes = routes == null ? Map.of() : Map.copyOf(routes);
+    }
+
+    public Duration idleSweep() {
+        return Duration.ofSeconds(idleSweepSeconds);
+    }
+
+    public record Limit(int replenishRate, int burstCapacity) {
+    }
+}
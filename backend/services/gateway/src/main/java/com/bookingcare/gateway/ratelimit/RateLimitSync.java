@@ -0,0 +1,22 @@
+package com.bookingcare.gateway.ratelimit;
+
+/**
+ * Đồng bộ quota giữa các replica gateway.
+ *
+ * Bucket nằm trong RAM từng replica; để tổng số request của 1 user qua mọi replica không vượt limit,
+ * mỗi replica chỉ dùng localShare() phần của rate / burst.
+ */
+public interface RateLimitSync {
+
+    /**
+     * Phần quota replica này được dùng, trong (0, 1].
+     */
+    double localShare();
+
+    /**
+     * Chạy 1 replica (hoặc chấp nhận limit nhân theo số replica): dùng toàn bộ quota.
+     */
+    static RateLimitSync local() {
+        return () -> 1.0;
+    }
+}
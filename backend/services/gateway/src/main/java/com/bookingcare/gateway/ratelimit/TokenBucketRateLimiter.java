@@ -0,0 +1,121 @@
+package com.bookingcare.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.constraints.Min;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiter cho filter RequestRateLimiter của Spring Cloud Gateway, dùng TokenBucketStore trong RAM.
+ *
+ * Bucket theo route id + key của KeyResolver (X-User-Id). Limit của route lấy theo thứ tự:
+ * args của filter (token-bucket-rate-limiter.replenish-rate / burst-capacity), gateway.rate-limit.routes, mặc định.
+ * Bị từ chối: filter trả 429, kèm Retry-After (giây). Metrics: gateway.ratelimit.rejected{route}.
+ */
+public class TokenBucketRateLimiter extends AbstractRateLimiter<TokenBucketRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "token-bucket-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final TokenBucketStore store;
+    private final RateLimitSync sync;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Config defaultConfig;
+    private final Map<String, Counter> rejectedByRoute = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiter(TokenBucketStore store,
+                                  RateLimitSync sync,
+                                  RateLimitProperties properties,
+                                  MeterRegistry meterRegistry,
+                                  ConfigurationService configurationService) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.store = store;
+        this.sync = sync;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.defaultConfig = new Config()
+                .setReplenishRate(properties.replenishRate())
+                .setBurstCapacity(properties.burstCapacity());
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = configFor(routeId);
+        double share = sync.localShare();
+
+        TokenBucketStore.Decision decision = store.tryConsume(routeId + ":" + id,
+                config.getReplenishRate() * share,
+                Math.max(1.0, config.getBurstCapacity() * share),
+                System.nanoTime());
+
+        if (decision.allowed()) {
+            return Mono.just(new Response(true, Map.of(REMAINING_HEADER, String.valueOf(decision.remaining()))));
+        }
+
+        rejectedByRoute.computeIfAbsent(routeId, this::rejectedCounter).increment();
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterNanos() + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1));
+        return Mono.just(new Response(false, Map.of(
+                HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds),
+                REMAINING_HEADER, "0")));
+    }
+
+    private Config configFor(String routeId) {
+        Config routeArgs = getConfig().get(routeId);
+        if (routeArgs != null) {
+            return routeArgs;
+        }
+
+        RateLimitProperties.Limit limit = properties.routes().get(routeId);
+        if (limit != null) {
+            return new Config()
+                    .setReplenishRate(limit.replenishRate())
+                    .setBurstCapacity(limit.burstCapacity() > 0 ? limit.burstCapacity() : limit.replenishRate() * 2);
+        }
+        return defaultConfig;
+    }
+
+    private Counter rejectedCounter(String routeId) {
+        return Counter.builder("gateway.ratelimit.rejected")
+                .description("Requests rejected by the gateway rate limiter")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int replenishRate;
+
+        @Min(1)
+        private int burstCapacity;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookingcare.gateway.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket trong RAM, không dùng lock.
+ *
+ * Mỗi bucket chỉ là 1 AtomicLong "thời điểm bucket đầy lại" (theoretical arrival time, nanoTime):
+ * lấy 1 token = đẩy mốc này thêm 1 / rate giây bằng CAS. Request bị từ chối khi mốc mới vượt
+ * now + burst / rate, Retry-After là khoảng cách tới lúc đủ token. Rate / burst truyền vào mỗi lần gọi,
+ * nên đổi cấu hình (hoặc số replica) không cần reset bucket.
+ *
+ * Key được chia vào nhiều phân vùng (stripe); mỗi phân vùng tự dọn các bucket đã đầy lại
+ * (tương đương bucket mới) theo chu kỳ, nên bảng không phình theo số user từng gửi request.
+ */
+public class TokenBucketStore {
+
+    private final Stripe[] stripes;
+    private final long sweepIntervalNanos;
+
+    public TokenBucketStore(int stripes, long sweepIntervalNanos) {
+        // Làm tròn lên lũy thừa của 2 để chọn phân vùng bằng phép AND
+        this.stripes = new Stripe[stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.sweepIntervalNanos = sweepIntervalNanos;
+    }
+
+    /**
+     * Lấy 1 token từ bucket của key.
+     *
+     * @param ratePerSecond số token được cấp lại mỗi giây (> 0)
+     * @param burstCapacity số token tối đa của bucket (>= 1)
+     */
+    public Decision tryConsume(String key, double ratePerSecond, double burstCapacity, long nowNanos) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        stripe.sweepIfDue(nowNanos, sweepIntervalNanos);
+
+        long interval = (long) Math.ceil(TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long tolerance = (long) (interval * burstCapacity);
+        AtomicLong bucket = stripe.buckets.computeIfAbsent(key, ignored -> new AtomicLong(nowNanos));
+
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, nowNanos) + interval;
+            long allowAt = next - tolerance;
+            if (nowNanos - allowAt < 0) {
+                return new Decision(false, 0, allowAt - nowNanos);
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return new Decision(true, (nowNanos - allowAt) / interval, 0);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.buckets.size();
+        }
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param remaining       số token còn lại sau request (khi allowed)
+     * @param retryAfterNanos thời gian chờ tới khi có token (khi bị từ chối)
+     */
+    public record Decision(boolean allowed, long remaining, long retryAfterNanos) {
+    }
+
+    private static final class Stripe {
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong nextSweepAt = new AtomicLong(System.nanoTime());
+
+        void sweepIfDue(long nowNanos, long sweepIntervalNanos) {
+            long due = nextSweepAt.get();
+            if (nowNanos - due < 0 || !nextSweepAt.compareAndSet(due, nowNanos + sweepIntervalNanos)) {
+                return;
+            }
+            // Bucket đã đầy lại thì bỏ đi cũng như tạo mới; request đang CAS song song có thể mất 1 token, chấp nhận được
+            buckets.entrySet().removeIf(entry -> entry.getValue().get() - nowNanos <= 0);
+        }
+    }
+}
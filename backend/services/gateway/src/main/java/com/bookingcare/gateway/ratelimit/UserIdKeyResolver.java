@@ -0,0 +1,35 @@
+package com.bookingcare.gateway.ratelimit;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Key rate limit: userId trong JWT đã verify (cùng giá trị header X-User-Id gửi xuống service).
+ * Request chưa đăng nhập (/api/v1/account/auth/**) thì theo địa chỉ IP, không tin header do client gửi.
+ */
+public class UserIdKeyResolver implements KeyResolver {
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .filter(Authentication.class::isInstance)
+                .map(principal -> ((Authentication) principal).getDetails())
+                .filter(Claims.class::isInstance)
+                .mapNotNull(details -> ((Claims) details).get("userId", String.class))
+                .map(userId -> "user:" + userId)
+                .switchIfEmpty(Mono.fromSupplier(() -> "ip:" + remoteAddress(exchange)));
+    }
+
+    private static String remoteAddress(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        if (address == null || address.getAddress() == null) {
+            return "unknown";
+        }
+        return address.getAddress().getHostAddress();
+    }
+}
@@ -1,22 +1,47 @@
 package com.bookingcare.gateway.security;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.User;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.List;
 
+/**
+ * Xác thực JWT cho gateway.
+ *
+ * Token đã verify được cache theo SHA-256 của token (không giữ token gốc trong RAM),
+ * entry hết hạn đúng lúc token hết hạn (claim exp, tối đa maxTtl). Cache miss thì verify chữ ký
+ * trên boundedElastic, không chạy trên event loop của Netty; nhiều request cùng token lúc miss
+ * chỉ verify 1 lần. Token lỗi không được cache.
+ */
 public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationManager {
 
     private final JwtService jwtService;
+    private final AsyncCache<ByteBuffer, VerifiedToken> verifiedTokens;
 
-    public JwtReactiveAuthenticationManager(JwtService jwtService) {
+    public JwtReactiveAuthenticationManager(JwtService jwtService, long cacheMaxSize, Duration cacheMaxTtl) {
         this.jwtService = jwtService;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry(cacheMaxTtl))
+                .executor(task -> Schedulers.boundedElastic().schedule(task))
+                .buildAsync();
     }
 
     @Override
@@ -26,33 +51,63 @@ public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationM
             return Mono.empty();
         }
 
-        try {
-            Claims claims = jwtService.extractAllClaims(token);
+        ByteBuffer key = tokenKey(token);
+        return Mono.fromFuture(verifiedTokens.get(key, ignored -> verify(token)), true)
+                .onErrorMap(ex -> new BadCredentialsException("Invalid token", ex))
+                .flatMap(verified -> {
+                    if (verified.expiresAt() != null && verified.expiresAt().before(new Date())) {
+                        verifiedTokens.synchronous().invalidate(key);
+                        return Mono.error(new BadCredentialsException("Token expired"));
+                    }
 
-            Date expiration = claims.getExpiration();
-            if (expiration != null && expiration.before(new Date())) {
-                return Mono.error(new BadCredentialsException("Token expired"));
-            }
+                    UsernamePasswordAuthenticationToken authenticationToken =
+                            new UsernamePasswordAuthenticationToken(verified.principal(), token, verified.authorities());
+                    authenticationToken.setDetails(verified.claims());
+                    return Mono.just(authenticationToken);
+                });
+    }
 
-            String username = claims.getSubject();
-            // Lấy userId từ claim (đã thêm ở account service); fallback sang subject nếu cần
-            String userId = claims.get("userId", String.class);
-            if (userId == null || userId.isBlank()) {
-                userId = username;
-            }
+    private VerifiedToken verify(String token) {
+        Claims claims = jwtService.extractAllClaims(token);
 
-            String authoritiesClaim = claims.get("authorities", String.class);
+        String username = claims.getSubject();
+        String authoritiesClaim = claims.get("authorities", String.class);
+        List<GrantedAuthority> authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(authoritiesClaim);
+        User principal = new User(username, "", authorities);
 
-            var authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(authoritiesClaim);
-            User principal = new User(username, "", authorities);
+        return new VerifiedToken(claims, principal, authorities, claims.getExpiration());
+    }
 
-            UsernamePasswordAuthenticationToken authenticationToken =
-                    new UsernamePasswordAuthenticationToken(principal, token, authorities);
-            authenticationToken.setDetails(claims);
+    private static ByteBuffer tokenKey(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(Claims claims, User principal, List<GrantedAuthority> authorities, Date expiresAt) {
+    }
+
+    private record TokenExpiry(Duration maxTtl) implements Expiry<ByteBuffer, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return maxTtl.toNanos();
+            }
+            long untilExpiry = Duration.ofMillis(value.expiresAt().getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxTtl.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
 
-            return Mono.just(authenticationToken);
-        } catch (Exception ex) {
-            return Mono.error(new BadCredentialsException("Invalid token", ex));
+        @Override
+        public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
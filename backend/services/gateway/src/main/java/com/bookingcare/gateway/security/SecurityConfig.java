@@ -1,5 +1,6 @@
 package com.bookingcare.gateway.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -14,6 +15,7 @@ import org.springframework.security.web.server.context.NoOpServerSecurityContext
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -21,9 +23,11 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtService jwtService) {
-        AuthenticationWebFilter authenticationWebFilter =
-                new AuthenticationWebFilter(new JwtReactiveAuthenticationManager(jwtService));
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtService jwtService,
+                                                         @Value("${jwt.cache.max-size:100000}") long tokenCacheMaxSize,
+                                                         @Value("${jwt.cache.max-ttl-seconds:900}") long tokenCacheMaxTtlSeconds) {
+        AuthenticationWebFilter authenticationWebFilter = new AuthenticationWebFilter(
+                new JwtReactiveAuthenticationManager(jwtService, tokenCacheMaxSize, Duration.ofSeconds(tokenCacheMaxTtlSeconds)));
         authenticationWebFilter.setServerAuthenticationConverter(new JwtServerAuthenticationConverter());
         authenticationWebFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
         authenticationWebFilter.setAuthenticationFailureHandler((webFilterExchange, exception) -> {
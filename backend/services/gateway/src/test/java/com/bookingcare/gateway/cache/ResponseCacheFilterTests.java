@@ -0,0 +1,102 @@
+package com.bookingcare.gateway.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ResponseCacheFilter: HIT / MISS, gộp request lúc miss, invalidate theo region, route không cache thì đi thẳng chain.
+ */
+class ResponseCacheFilterTests {
+    private static final int CONCURRENT_REQUESTS = 50;
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger chainCalls = new AtomicInteger();
+    private final ResponseCacheStore store = new ResponseCacheStore(1024 * 1024);
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(
+            new ResponseCacheProperties(true, 1, 64, null, List.of(
+                    new ResponseCacheProperties.Route("/api/v1/packages-services/packages/**", "packages", 300, 60))),
+            store,
+            WebClient.builder()
+                    .exchangeFunction(request -> Mono.delay(Duration.ofMillis(50))
+                            .map(ignored -> {
+                                upstreamCalls.incrementAndGet();
+                                return ClientResponse.create(HttpStatus.OK)
+                                        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                                        .body("[{\"id\":\"PKG01\"}]")
+                                        .build();
+                            }))
+                    .build());
+    private final GatewayFilterChain chain = exchange -> {
+        chainCalls.incrementAndGet();
+        return Mono.empty();
+    };
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() {
+        List<MockServerWebExchange> exchanges = Flux.range(0, CONCURRENT_REQUESTS)
+                .map(ignored -> exchange("/api/v1/packages-services/packages"))
+                .collectList()
+                .block();
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, chain))
+                .blockLast();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("[{\"id\":\"PKG01\"}]", body(exchanges.get(0)));
+
+        MockServerWebExchange hit = exchange("/api/v1/packages-services/packages");
+        filter.filter(hit, chain).block();
+        assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void invalidatedRegionIsReloaded() {
+        filter.filter(exchange("/api/v1/packages-services/packages"), chain).block();
+        store.invalidateRegion("packages");
+
+        MockServerWebExchange reloaded = exchange("/api/v1/packages-services/packages");
+        filter.filter(reloaded, chain).block();
+
+        assertEquals("MISS", reloaded.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void nonCachedRoutesGoThroughChain() {
+        filter.filter(exchange("/api/v1/packages-services/admin/packages/pending"), chain).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/packages-services/packages")), chain).block();
+
+        assertEquals(0, upstreamCalls.get());
+        assertEquals(2, chainCalls.get());
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("lb://PACKAGE-SERVICE" + path));
+        return exchange;
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().block();
+    }
+}
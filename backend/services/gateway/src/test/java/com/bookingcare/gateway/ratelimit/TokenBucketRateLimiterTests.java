@@ -0,0 +1,135 @@
+package com.bookingcare.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.http.HttpHeaders;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * TokenBucketStore / TokenBucketRateLimiter: burst, cấp lại theo thời gian, Retry-After, limit theo route,
+ * chia quota theo replica và không cấp thừa token khi nhiều thread cùng gửi.
+ */
+class TokenBucketRateLimiterTests {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void burstThenRefillAtReplenishRate() {
+        TokenBucketStore store = new TokenBucketStore(4, SECOND);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 10; i++) {
+            TokenBucketStore.Decision decision = store.tryConsume("user:A", 5, 10, now);
+            assertTrue(decision.allowed());
+            assertEquals(9 - i, decision.remaining());
+        }
+
+        TokenBucketStore.Decision rejected = store.tryConsume("user:A", 5, 10, now);
+        assertFalse(rejected.allowed());
+        assertEquals(SECOND / 5, rejected.retryAfterNanos());
+
+        // Sau 1 giây có lại 5 token
+        long later = now + SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(store.tryConsume("user:A", 5, 10, later).allowed());
+        }
+        assertFalse(store.tryConsume("user:A", 5, 10, later).allowed());
+
+        // User khác không bị ảnh hưởng
+        assertTrue(store.tryConsume("user:B", 5, 10, later).allowed());
+    }
+
+    @Test
+    void idleBucketsAreSwept() {
+        TokenBucketStore store = new TokenBucketStore(1, SECOND);
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            store.tryConsume("user:" + i, 10, 10, now);
+        }
+        assertEquals(100, store.size());
+
+        store.tryConsume("user:fresh", 10, 10, now + 10 * SECOND);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void rejectionCarriesRetryAfterAndIsCountedPerRoute() {
+        RateLimitProperties properties = new RateLimitProperties(100, 100, 4, 60, "local",
+                Map.of("booking-service", new RateLimitProperties.Limit(1, 2)));
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(new TokenBucketStore(4, SECOND),
+                RateLimitSync.local(), properties, meterRegistry, null);
+
+        assertTrue(limiter.isAllowed("booking-service", "user:A").block().isAllowed());
+        assertTrue(limiter.isAllowed("booking-service", "user:A").block().isAllowed());
+
+        RateLimiter.Response rejected = limiter.isAllowed("booking-service", "user:A").block();
+        assertFalse(rejected.isAllowed());
+        assertEquals("1", rejected.getHeaders().get(HttpHeaders.RETRY_AFTER));
+
+        // Route khác dùng limit mặc định, bucket riêng
+        assertTrue(limiter.isAllowed("clinic-service", "user:A").block().isAllowed());
+        assertEquals(1.0, meterRegistry.get("gateway.ratelimit.rejected").tag("route", "booking-service").counter().count());
+    }
+
+    @Test
+    void replicaShareScalesQuota() {
+        RateLimitProperties properties = new RateLimitProperties(10, 10, 4, 60, "discovery", Map.of());
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(new TokenBucketStore(4, SECOND),
+                () -> 0.5, properties, meterRegistry, null);
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.isAllowed("clinic-service", "user:A").block().isAllowed()) {
+                allowed++;
+            }
+        }
+        assertEquals(5, allowed);
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedBurst() throws Exception {
+        TokenBucketStore store = new TokenBucketStore(64, SECOND);
+        long now = System.nanoTime();
+        int threads = 16;
+        int requestsPerThread = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        // rate rất thấp: trong lúc test không có token nào được cấp lại
+                        if (store.tryConsume("user:hot", 0.001, 1_000, now).allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+
+            int allowed = 0;
+            for (Future<Integer> future : futures) {
+                allowed += future.get();
+            }
+            assertEquals(1_000, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
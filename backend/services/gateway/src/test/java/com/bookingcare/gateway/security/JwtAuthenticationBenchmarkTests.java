@@ -0,0 +1,181 @@
+package com.bookingcare.gateway.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * So sánh JwtReactiveAuthenticationManager:
+ * - legacy: dựng key + parser và verify chữ ký cho mỗi request (cách cũ)
+ * - cold: cache tắt (max-size 0), verify trên boundedElastic mỗi request
+ * - warm: token đã có trong cache
+ *
+ * Load test (@Tag("benchmark"), mvn test -Pbenchmark): nhiều thread, mỗi "user" gửi lại cùng 1 token,
+ * đo p50 / p99 latency của authenticate(), chỉ ghi log, không assert thời gian.
+ */
+class JwtAuthenticationBenchmarkTests {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationBenchmarkTests.class);
+    private static final String SECRET = "ThisIsASecretKeyForBookingCareApplicationThatIsVeryLongAndSecure1234567890";
+    private static final Key KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private static final int USERS = 200;
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 5_000;
+
+    private final JwtService jwtService = new JwtService(SECRET);
+
+    @Test
+    void cachedAuthenticationMatchesVerifiedClaims() {
+        JwtReactiveAuthenticationManager manager = manager(1_000);
+        String token = token("patient01", "ROLE_PATIENT,ROLE_USER", Duration.ofMinutes(15));
+
+        Authentication first = manager.authenticate(bearer(token)).block();
+        Authentication second = manager.authenticate(bearer(token)).block();
+
+        assertEquals("patient01", second.getName());
+        assertEquals(List.of("ROLE_PATIENT", "ROLE_USER"),
+                second.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(first.getDetails(), second.getDetails());
+        assertEquals(token, second.getCredentials());
+    }
+
+    @Test
+    void rejectsExpiredAndTamperedTokens() {
+        JwtReactiveAuthenticationManager manager = manager(1_000);
+        String expired = token("patient01", "ROLE_PATIENT", Duration.ofSeconds(-5));
+        String valid = token("patient01", "ROLE_PATIENT", Duration.ofMinutes(15));
+        String tampered = valid.substring(0, valid.length() - 4) + "AAAA";
+
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(bearer(expired)).block());
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(bearer(tampered)).block());
+        // Token lỗi không được cache
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(bearer(tampered)).block());
+        assertEquals(null, manager.authenticate(bearer("")).block());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void authenticateLatencyUnderLoad() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            tokens.add(token("user" + i, "ROLE_PATIENT", Duration.ofMinutes(15)));
+        }
+
+        JwtReactiveAuthenticationManager cold = manager(0);
+        JwtReactiveAuthenticationManager warm = manager(10_000);
+        tokens.forEach(token -> warm.authenticate(bearer(token)).block());
+
+        Function<String, Object> legacyCall = JwtAuthenticationBenchmarkTests::legacyAuthenticate;
+        Function<String, Object> coldCall = token -> cold.authenticate(bearer(token)).block();
+        Function<String, Object> warmCall = token -> warm.authenticate(bearer(token)).block();
+
+        // warm-up JIT
+        for (Function<String, Object> call : List.of(legacyCall, coldCall, warmCall)) {
+            run(call, tokens, 4, 1_000);
+        }
+
+        LoadResult legacy = run(legacyCall, tokens, THREADS, REQUESTS_PER_THREAD);
+        LoadResult coldResult = run(coldCall, tokens, THREADS, REQUESTS_PER_THREAD);
+        LoadResult warmResult = run(warmCall, tokens, THREADS, REQUESTS_PER_THREAD);
+
+        log.info("authenticate() {} threads x {} requests, {} users", THREADS, REQUESTS_PER_THREAD, USERS);
+        log.info("  legacy: {}", legacy);
+        log.info("  cold:   {}", coldResult);
+        log.info("  warm:   {}", warmResult);
+    }
+
+    private JwtReactiveAuthenticationManager manager(long cacheMaxSize) {
+        return new JwtReactiveAuthenticationManager(jwtService, cacheMaxSize, Duration.ofMinutes(15));
+    }
+
+    private static Authentication bearer(String token) {
+        return new UsernamePasswordAuthenticationToken(null, token);
+    }
+
+    private static String token(String subject, String authorities, Duration validFor) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("userId", subject.toUpperCase())
+                .claim("authorities", authorities)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + validFor.toMillis()))
+                .signWith(KEY)
+                .compact();
+    }
+
+    // Cách cũ: JwtService.extractAllClaims dựng key + parser cho mỗi request
+    private static Object legacyAuthenticate(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static LoadResult run(Function<String, Object> call, List<String> tokens,
+                                  int threads, int requestsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[requestsPerThread];
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        String token = tokens.get((offset * 31 + i) % tokens.size());
+                        long begin = System.nanoTime();
+                        call.apply(token);
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return latencies;
+                }));
+            }
+
+            long[] all = new long[threads * requestsPerThread];
+            int position = 0;
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                System.arraycopy(latencies, 0, all, position, latencies.length);
+                position += latencies.length;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(all);
+            return new LoadResult(all.length * 1_000_000_000.0 / elapsed,
+                    all[all.length / 2], all[(int) (all.length * 0.99)]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record LoadResult(double throughput, long p50Nanos, long p99Nanos) {
+        @Override
+        public String toString() {
+            return String.format("%,.0f req/s  p50 %,d us  p99 %,d us", throughput, p50Nanos / 1_000, p99Nanos / 1_000);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.bookingcare.notification.channel;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Kênh email qua các SMTP provider trong application.mail.providers.
+ *
+ * Lần gửi đầu đi qua provider đầu tiên; mỗi lần thử lại chuyển sang provider kế tiếp (attempt % số provider),
+ * nên 1 provider chập chờn không giữ thư lại mãi. Mỗi provider có pool kết nối và giới hạn thư / giây riêng.
+ *
+ * Metrics:
+ *  - notification.sent{channel,provider}: thư gửi thành công
+ *  - notification.send.failed{channel,provider,retryable}
+ *  - notification.send{channel,provider}: thời gian gửi 1 thư (kể cả chờ rate limit / kết nối)
+ *  - notification.throughput{channel}: thư / giây trong 10 giây gần nhất
+ */
+@Component
+@EnableConfigurationProperties(MailProviderProperties.class)
+@Slf4j
+public class EmailChannel implements NotificationChannel, DisposableBean {
+    public static final String NAME = "EMAIL";
+    private static final String TAG = "email";
+    private static final int THROUGHPUT_WINDOW_SECONDS = 10;
+
+    private record Route(SmtpProvider provider, Counter sent, Counter retryableFailures,
+                         Counter permanentFailures, Timer latency) {
+    }
+
+    private final InternetAddress from;
+    private final List<Route> routes = new ArrayList<>();
+    private final ThroughputMeter throughput = new ThroughputMeter(THROUGHPUT_WINDOW_SECONDS);
+
+    public EmailChannel(MailProviderProperties properties, MeterRegistry meterRegistry) {
+        try {
+            this.from = new InternetAddress(properties.from(), true);
+        } catch (MessagingException e) {
+            throw new IllegalArgumentException("Invalid application.mail.from: " + properties.from(), e);
+        }
+        for (MailProviderProperties.Provider config : properties.providers()) {
+            SmtpProvider provider = new SmtpProvider(config);
+            routes.add(new Route(provider,
+                    Counter.builder("notification.sent")
+                            .description("Notifications delivered to the provider")
+                            .tags("channel", TAG, "provider", provider.name())
+                            .register(meterRegistry),
+                    failureCounter(meterRegistry, provider, true),
+                    failureCounter(meterRegistry, provider, false),
+                    Timer.builder("notification.send")
+                            .description("Time to send one notification, including rate limit and connection wait")
+                            .tags("channel", TAG, "provider", provider.name())
+                            .publishPercentiles(0.5, 0.95, 0.99)
+                            .register(meterRegistry)));
+        }
+        Gauge.builder("notification.throughput", throughput, meter -> meter.perSecond(System.nanoTime()))
+                .description("Notifications sent per second over the last 10 seconds")
+                .tag("channel", TAG)
+                .baseUnit("messages/s")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void send(OutgoingMessage message, int attempt) throws NotificationSendException {
+        Route route = routes.get(Math.floorMod(attempt, routes.size()));
+        long started = System.nanoTime();
+        try {
+            route.provider().send(toMimeMessage(route.provider(), message));
+            route.sent().increment();
+            throughput.record(System.nanoTime());
+        } catch (NotificationSendException e) {
+            (e.retryable() ? route.retryableFailures() : route.permanentFailures()).increment();
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw NotificationSendException.retryable("Interrupted while sending via " + route.provider().name(), e);
+        } finally {
+            route.latency().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private MimeMessage toMimeMessage(SmtpProvider provider, OutgoingMessage message) throws NotificationSendException {
+        try {
+            MimeMessage mimeMessage = new MimeMessage(provider.session());
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+            helper.setFrom(from);
+            helper.setTo(new InternetAddress(message.to(), message.toName(), "UTF-8"));
+            helper.setSubject(message.subject());
+            helper.setText(message.text(), message.html());
+            return mimeMessage;
+        } catch (MessagingException | UnsupportedEncodingException e) {
+            // Địa chỉ / nội dung không hợp lệ: gửi lại cũng vậy
+            throw NotificationSendException.permanent("Invalid message for " + message.to() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Số kết nối SMTP đã mở, theo thứ tự provider.
+     */
+    List<Integer> openedConnections() {
+        return routes.stream().map(route -> route.provider().openedConnections()).toList();
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, SmtpProvider provider, boolean retryable) {
+        return Counter.builder("notification.send.failed")
+                .description("Notification send attempts that failed")
+                .tags("channel", TAG, "provider", provider.name(), "retryable", String.valueOf(retryable))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        routes.forEach(route -> route.provider().close());
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookingcare.notification.channel;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * SMTP provider cho kênh email (application.mail).
+ *
+ * @param from      địa chỉ gửi, dạng "Tên <dia-chi@domain>"
+ * @param providers theo thứ tự ưu tiên: lần gửi đầu dùng provider đầu tiên, mỗi lần thử lại chuyển sang provider kế tiếp
+ */
+@ConfigurationProperties(prefix = "application.mail")
+public record MailProviderProperties(
+        String from,
+        List<Provider> providers
+) {
+    public MailProviderProperties {
+        from = from == null || from.isBlank() ? "BookingCare <no-reply@bookingcare.local>" : from;
+        providers = providers == null || providers.isEmpty() ? List.of(Provider.LOCAL) : List.copyOf(providers);
+    }
+
+    /**
+     * @param name                     tên dùng cho log / tag metric
+     * @param maxConnections           số kết nối SMTP giữ mở tới provider (cũng là số thư gửi đồng thời tối đa)
+     * @param ratePerSecond            số thư / giây tối đa provider cho phép
+     * @param maxMessagesPerConnection gửi đủ số thư này thì đóng kết nối mở lại (nhiều server giới hạn)
+     * @param idleTimeoutMs            kết nối rảnh lâu hơn thì đóng, tránh dùng kết nối server đã cắt
+     * @param timeoutMs                connect / read / write timeout
+     */
+    public record Provider(
+            String name,
+            String host,
+            int port,
+            String username,
+            String password,
+            boolean starttls,
+            int maxConnections,
+            int ratePerSecond,
+            int maxMessagesPerConnection,
+            long idleTimeoutMs,
+            int timeoutMs
+    ) {
+        static final Provider LOCAL = new Provider("local", "localhost", 1025, null, null, false, 0, 0, 0, 0, 0);
+
+        public Provider {
+            name = name == null || name.isBlank() ? host : name;
+            maxConnections = maxConnections > 0 ? maxConnections : 4;
+            ratePerSecond = ratePerSecond > 0 ? ratePerSecond : 50;
+            maxMessagesPerConnection = maxMessagesPerConnection > 0 ? maxMessagesPerConnection : 100;
+            idleTimeoutMs = idleTimeoutMs > 0 ? idleTimeoutMs : 30_000;
+            timeoutMs = timeoutMs > 0 ? timeoutMs : 10_000;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bookingcare.notification.channel;
+
+/**
+ * 1 kênh gửi thông báo (email, ...). Tên kênh trùng cột notifications.channel.
+ */
+public interface NotificationChannel {
+
+    String name();
+
+    /**
+     * Gửi đồng bộ trên thread của caller (dispatcher gọi trên virtual thread).
+     *
+     * @param attempt số lần đã thử trước đó, kênh có nhiều provider dùng để chuyển provider khi thử lại
+     */
+    void send(OutgoingMessage message, int attempt) throws NotificationSendException;
+}
@@ -0,0 +1,28 @@
+package com.bookingcare.notification.channel;
+
+/**
+ * Gửi thông báo không thành công.
+ *
+ * - retryable: lỗi tạm thời (mất kết nối, timeout, SMTP 4xx) -> dispatcher hẹn giờ thử lại
+ * - còn lại (SMTP 5xx, địa chỉ sai): gửi lại cũng không được -> DEAD ngay
+ */
+public class NotificationSendException extends Exception {
+    private final boolean retryable;
+
+    NotificationSendException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public static NotificationSendException retryable(String message, Throwable cause) {
+        return new NotificationSendException(message, true, cause);
+    }
+
+    public static NotificationSendException permanent(String message, Throwable cause) {
+        return new NotificationSendException(message, false, cause);
+    }
+
+    public boolean retryable() {
+        return retryable;
+    }
+}
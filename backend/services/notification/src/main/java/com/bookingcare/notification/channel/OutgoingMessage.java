@@ -0,0 +1,7 @@
+package com.bookingcare.notification.channel;
+
+/**
+ * 1 thông báo đã render, sẵn sàng gửi (có thể gộp nhiều thông báo của cùng bệnh nhân).
+ */
+public record OutgoingMessage(String to, String toName, String subject, String html, String text) {
+}
@@ -0,0 +1,230 @@
+package com.bookingcare.notification.channel;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+
+import com.bookingcare.common.client.RequestPacer;
+
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 1 SMTP provider: giữ tối đa max-connections kết nối SMTP mở sẵn và giới hạn rate-per-second thư / giây.
+ *
+ * JavaMailSender mở 1 kết nối (TCP + EHLO + STARTTLS + AUTH) cho mỗi lần send; ở đây kết nối được mượn / trả
+ * như 1 pool, chỉ mở lại khi rảnh quá idle-timeout, đã gửi đủ max-messages-per-connection hoặc bị lỗi.
+ * Kết nối lấy từ pool mà hỏng (server đã cắt) thì thử lại ngay 1 lần trên kết nối mới.
+ */
+@Slf4j
+final class SmtpProvider implements AutoCloseable {
+
+    private record PooledTransport(Transport transport, int sent, long lastUsedNanos) {
+    }
+
+    private final MailProviderProperties.Provider config;
+    private final Session session;
+    private final RequestPacer pacer;
+    private final Semaphore connections;
+    private final ConcurrentLinkedDeque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private final long idleTimeoutNanos;
+    private final AtomicInteger opened = new AtomicInteger();
+    // SMTPTransport đọc / ghi socket trong phương thức synchronized: chạy trên virtual thread sẽ ghim
+    // carrier thread suốt lúc chờ server. I/O SMTP chạy trên max-connections platform thread riêng,
+    // virtual thread của dispatcher chỉ chờ kết quả.
+    private final ExecutorService io;
+    private volatile boolean closed;
+
+    SmtpProvider(MailProviderProperties.Provider config) {
+        this.config = config;
+        this.session = Session.getInstance(sessionProperties(config));
+        this.pacer = new RequestPacer(config.ratePerSecond());
+        this.connections = new Semaphore(config.maxConnections());
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMs());
+        this.io = Executors.newFixedThreadPool(config.maxConnections(),
+                Thread.ofPlatform().name("smtp-" + config.name() + "-", 0).daemon(true).factory());
+    }
+
+    String name() {
+        return config.name();
+    }
+
+    Session session() {
+        return session;
+    }
+
+    /**
+     * Số kết nối SMTP đã mở từ lúc khởi động (test / benchmark dùng để kiểm tra pool có được dùng lại).
+     */
+    int openedConnections() {
+        return opened.get();
+    }
+
+    void send(MimeMessage message) throws NotificationSendException, InterruptedException {
+        if (closed) {
+            throw NotificationSendException.retryable("SMTP provider " + name() + " is shut down", null);
+        }
+        pacer.await();
+        connections.acquire();
+        try {
+            io.submit(() -> {
+                sendPooled(message);
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NotificationSendException sendException) {
+                throw sendException;
+            }
+            throw NotificationSendException.retryable("SMTP " + name() + " failed: " + e.getCause(), e.getCause());
+        } catch (RejectedExecutionException e) {
+            throw NotificationSendException.retryable("SMTP provider " + name() + " is shut down", e);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private void sendPooled(MimeMessage message) throws NotificationSendException {
+        PooledTransport pooled = borrow();
+        try {
+            giveBack(sendOn(pooled, message));
+            return;
+        } catch (MessagingException e) {
+            discard(pooled);
+            if (pooled.sent() == 0 || isRejection(e)) {
+                throw classify(e);
+            }
+            log.debug("Pooled SMTP connection to {} failed, reconnecting: {}", name(), e.getMessage());
+        }
+
+        // Kết nối cũ trong pool đã bị server cắt: thử lại ngay 1 lần trên kết nối mới
+        PooledTransport fresh = connectOrThrow();
+        try {
+            giveBack(sendOn(fresh, message));
+        } catch (MessagingException e) {
+            discard(fresh);
+            throw classify(e);
+        }
+    }
+
+    private static PooledTransport sendOn(PooledTransport pooled, MimeMessage message) throws MessagingException {
+        pooled.transport().sendMessage(message, message.getAllRecipients());
+        return new PooledTransport(pooled.transport(), pooled.sent() + 1, System.nanoTime());
+    }
+
+    // Không gọi Transport.isConnected(): mỗi lần gọi là 1 lệnh NOOP tới server
+    private PooledTransport borrow() throws NotificationSendException {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastUsedNanos() < idleTimeoutNanos) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return connectOrThrow();
+    }
+
+    private PooledTransport connectOrThrow() throws NotificationSendException {
+        try {
+            return connect();
+        } catch (MessagingException e) {
+            throw classify(e);
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        transport.connect(config.host(), config.port(), config.username(), config.password());
+        opened.incrementAndGet();
+        return new PooledTransport(transport, 0, System.nanoTime());
+    }
+
+    private void giveBack(PooledTransport pooled) {
+        if (closed || pooled.sent() >= config.maxMessagesPerConnection()) {
+            discard(pooled);
+            return;
+        }
+        // LIFO: kết nối vừa dùng còn "nóng", kết nối ít dùng ở cuối sẽ hết idle-timeout và bị đóng
+        idle.offerFirst(pooled);
+    }
+
+    private void discard(PooledTransport pooled) {
+        if (pooled == null) {
+            return;
+        }
+        try {
+            pooled.transport().close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection to {}: {}", name(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        io.shutdown();
+        try {
+            io.awaitTermination(config.timeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    // Server đã trả lời (mã SMTP) -> lỗi không phải do kết nối, gửi lại trên kết nối khác cũng vậy
+    private static boolean isRejection(MessagingException e) {
+        return replyCode(e) > 0;
+    }
+
+    private NotificationSendException classify(MessagingException e) {
+        int replyCode = replyCode(e);
+        String message = "SMTP " + name() + (replyCode > 0 ? " replied " + replyCode : " failed") + ": " + e.getMessage();
+        if (replyCode >= 500 && !(e instanceof AuthenticationFailedException)) {
+            return NotificationSendException.permanent(message, e);
+        }
+        // 4xx, mất kết nối, timeout, sai cấu hình đăng nhập: thử lại sau (provider khác hoặc sau khi sửa cấu hình)
+        return NotificationSendException.retryable(message, e);
+    }
+
+    private static int replyCode(MessagingException e) {
+        if (e instanceof SMTPSendFailedException sendFailed) {
+            return sendFailed.getReturnCode();
+        }
+        if (e instanceof SMTPAddressFailedException addressFailed) {
+            return addressFailed.getReturnCode();
+        }
+        if (e instanceof SendFailedException && e.getNextException() instanceof MessagingException next) {
+            return replyCode(next);
+        }
+        return 0;
+    }
+
+    private static Properties sessionProperties(MailProviderProperties.Provider config) {
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", config.host());
+        properties.put("mail.smtp.port", String.valueOf(config.port()));
+        properties.put("mail.smtp.auth", String.valueOf(config.username() != null && !config.username().isBlank()));
+        properties.put("mail.smtp.starttls.enable", String.valueOf(config.starttls()));
+        properties.put("mail.smtp.starttls.required", String.valueOf(config.starttls()));
+        properties.put("mail.smtp.connectiontimeout", String.valueOf(config.timeoutMs()));
+        properties.put("mail.smtp.timeout", String.valueOf(config.timeoutMs()));
+        properties.put("mail.smtp.writetimeout", String.valueOf(config.timeoutMs()));
+        return properties;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bookingcare.notification.channel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Số thư / giây của 1 kênh, tính trên window-seconds giây gần nhất (không tính giây hiện tại đang đếm dở).
+ * Gauge notification.throughput đọc giá trị này; Counter notification.sent cho rate dài hạn.
+ */
+final class ThroughputMeter {
+    private final int windowSeconds;
+    private final long[] counts;
+    private final long[] seconds;
+
+    ThroughputMeter(int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+        this.counts = new long[windowSeconds + 1];
+        this.seconds = new long[windowSeconds + 1];
+    }
+
+    synchronized void record(long nowNanos) {
+        long second = TimeUnit.NANOSECONDS.toSeconds(nowNanos);
+        int slot = (int) (second % counts.length);
+        if (seconds[slot] != second) {
+            seconds[slot] = second;
+            counts[slot] = 0;
+        }
+        counts[slot]++;
+    }
+
+    synchronized double perSecond(long nowNanos) {
+        long current = TimeUnit.NANOSECONDS.toSeconds(nowNanos);
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long age = current - seconds[i];
+            if (age >= 1 && age <= windowSeconds) {
+                total += counts[i];
+            }
+        }
+        return (double) total / windowSeconds;
+    }
+}
@@ -0,0 +1,37 @@
+package com.bookingcare.notification.config;
+
+import com.bookingcare.common.messaging.codec.EventCodecConfiguration;
+import com.bookingcare.common.messaging.codec.EventSchemaRegistry;
+import com.bookingcare.notification.dto.event.BookingConfirmedEvent;
+import com.bookingcare.notification.dto.event.BookingCreatedEvent;
+import com.bookingcare.notification.dto.event.CancelHoldCommand;
+import com.bookingcare.notification.dto.event.HoldExpiredEvent;
+import com.bookingcare.notification.dto.event.HoldSlotFailedEvent;
+import com.bookingcare.notification.dto.event.HoldSlotSucceededEvent;
+import com.bookingcare.notification.dto.event.PaymentFailedEvent;
+import com.bookingcare.notification.dto.event.PaymentLinkCreatedEvent;
+import com.bookingcare.notification.dto.event.PaymentSucceededEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import(EventCodecConfiguration.class)
+public class EventCodecConfig {
+
+    // Mọi event trên các topic notification-service đọc, kể cả loại không sinh thông báo:
+    // định dạng binary không decode được eventType chưa đăng ký
+    @Bean
+    public EventSchemaRegistry eventSchemaRegistry() {
+        return new EventSchemaRegistry()
+                .register(BookingCreatedEvent.class)
+                .register(BookingConfirmedEvent.class)
+                .register(CancelHoldCommand.class)
+                .register(HoldSlotSucceededEvent.class)
+                .register(HoldSlotFailedEvent.class)
+                .register(HoldExpiredEvent.class)
+                .register(PaymentLinkCreatedEvent.class)
+                .register(PaymentSucceededEvent.class)
+                .register(PaymentFailedEvent.class);
+    }
+}
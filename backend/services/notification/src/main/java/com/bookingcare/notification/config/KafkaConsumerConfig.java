@@ -0,0 +1,72 @@
+package com.bookingcare.notification.config;
+
+import java.util.Properties;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+/**
+ * Listener batch cho các topic saga: NotificationEventListener nhận cả List<ConsumerRecord> mỗi lần poll,
+ * ghi 1 transaction rồi commit offset 1 lần.
+ *
+ * - Record không decode được: listener chuyển thẳng sang topic application.kafka.dead-letter-topic rồi đi tiếp.
+ * - Lỗi khác (DB không ghi được): giao lại cả batch với backoff luỹ thừa, không giới hạn số lần,
+ *   không đẩy sang DLT (ghi lại nhiều lần vẫn an toàn nhờ khoá (booking_id, kind)).
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    public static final String BATCH_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    @Bean(name = BATCH_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, byte[]> consumerFactory,
+            DefaultErrorHandler batchRetryErrorHandler,
+            @Value("${application.kafka.batch-listener.concurrency:3}") int concurrency,
+            @Value("${application.kafka.batch-listener.max-poll-records:500}") int maxPollRecords) {
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(batchRetryErrorHandler);
+
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+
+        Properties consumerOverrides = new Properties();
+        consumerOverrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerOverrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        containerProperties.setKafkaConsumerProperties(consumerOverrides);
+
+        return factory;
+    }
+
+    @Bean
+    public DefaultErrorHandler batchRetryErrorHandler(
+            @Value("${application.kafka.retry.initial-interval-ms:1000}") long initialIntervalMs,
+            @Value("${application.kafka.retry.max-interval-ms:30000}") long maxIntervalMs) {
+        ExponentialBackOff backOff = new ExponentialBackOff(initialIntervalMs, 2.0);
+        backOff.setMaxInterval(maxIntervalMs);
+        return new DefaultErrorHandler(backOff);
+    }
+
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(
+            KafkaOperations<?, ?> kafkaOperations,
+            @Value("${application.kafka.dead-letter-topic:notification-dlt}") String deadLetterTopic) {
+        // Partition -1: để producer tự chọn partition, topic DLT không cần cùng số partition với topic gốc
+        return new DeadLetterPublishingRecoverer(kafkaOperations,
+                (record, exception) -> new TopicPartition(deadLetterTopic, -1));
+    }
+}
@@ -0,0 +1,20 @@
+package com.bookingcare.notification.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // Record saga không đọc được; header kafka_dlt-* giữ topic / offset / lỗi gốc để replay bằng tay
+    @Bean
+    public NewTopic notificationDeadLetterTopic(@Value("${application.kafka.dead-letter-topic:notification-dlt}") String topic) {
+        return TopicBuilder.name(topic)
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+}
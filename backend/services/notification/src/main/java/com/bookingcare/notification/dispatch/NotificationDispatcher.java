@@ -0,0 +1,409 @@
+package com.bookingcare.notification.dispatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.notification.channel.NotificationChannel;
+import com.bookingcare.notification.channel.NotificationSendException;
+import com.bookingcare.notification.channel.OutgoingMessage;
+import com.bookingcare.notification.entity.Notification;
+import com.bookingcare.notification.entity.NotificationKind;
+import com.bookingcare.notification.entity.NotificationStatus;
+import com.bookingcare.notification.recipient.Recipient;
+import com.bookingcare.notification.recipient.RecipientDirectory;
+import com.bookingcare.notification.repository.BookingContactRepository;
+import com.bookingcare.notification.repository.NotificationRepository;
+import com.bookingcare.notification.template.NotificationRenderer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lấy thông báo đến hạn trong bảng notifications, gộp theo bệnh nhân và gửi qua kênh tương ứng.
+ *
+ * - Thông báo mới nằm chờ coalesce-window-ms trước khi đến hạn; khi 1 thông báo của bệnh nhân đến hạn,
+ *   các thông báo mới khác của cùng bệnh nhân được lấy luôn -> cả saga (link thanh toán, thanh toán thành công,
+ *   xác nhận lịch) thường chỉ thành 1 email.
+ * - Link thanh toán chưa gửi mà cùng lượt đã có kết quả của booking: SUPERSEDED, không gửi.
+ * - Mỗi bệnh nhân gửi trên 1 virtual thread, tối đa max-concurrent-sends email cùng lúc / replica;
+ *   pool kết nối và giới hạn rate nằm ở kênh (EmailChannel).
+ * - Kết quả cả batch được ghi bằng vài câu UPDATE hàng loạt trong 1 transaction.
+ * - Lỗi tạm thời: thử lại sau backoff luỹ thừa có jitter (lần thử sau đi qua provider kế tiếp);
+ *   hết max-attempts hoặc lỗi vĩnh viễn: DEAD (giữ lại để tra cứu).
+ *
+ * Metrics:
+ *  - notification.delivered: thông báo đã gửi (1 email có thể chứa nhiều thông báo)
+ *  - notification.coalesced: thông báo đi chung email với thông báo khác
+ *  - notification.superseded / retried / dead
+ *  - notification.latency: từ lúc nhận event tới lúc gửi xong
+ *  - notification.lag: tuổi (giây) của thông báo chưa gửi lâu nhất
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher implements DisposableBean {
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final Set<NotificationKind> LINK_KINDS = EnumSet.of(NotificationKind.PAYMENT_LINK_CREATED);
+
+    /**
+     * Kết quả gửi cho 1 nhóm (1 bệnh nhân, 1 kênh).
+     */
+    record Outcome(List<Notification> notifications, Result result, String error) {
+    }
+
+    enum Result {
+        SENT, RETRY, DEAD
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final BookingContactRepository bookingContactRepository;
+    private final RecipientDirectory recipientDirectory;
+    private final NotificationRenderer notificationRenderer;
+    private final Map<String, NotificationChannel> channels;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final Duration inFlightLease;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final Duration retention;
+
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("notification-send-", 0).factory());
+    private final Semaphore sendPermits;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final Counter deliveredCounter;
+    private final Counter coalescedCounter;
+    private final Counter supersededCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Timer latency;
+
+    public NotificationDispatcher(NotificationRepository notificationRepository,
+                                  BookingContactRepository bookingContactRepository,
+                                  RecipientDirectory recipientDirectory,
+                                  NotificationRenderer notificationRenderer,
+                                  List<NotificationChannel> channels,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${application.notification.batch-size:500}") int batchSize,
+                                  @Value("${application.notification.max-concurrent-sends:64}") int maxConcurrentSends,
+                                  @Value("${application.notification.in-flight-lease-seconds:120}") long inFlightLeaseSeconds,
+                                  @Value("${application.notification.max-attempts:6}") int maxAttempts,
+                                  @Value("${application.notification.backoff.base-ms:2000}") long backoffBaseMs,
+                                  @Value("${application.notification.backoff.max-ms:300000}") long backoffMaxMs,
+                                  @Value("${application.notification.retention-days:7}") long retentionDays) {
+        this.notificationRepository = notificationRepository;
+        this.bookingContactRepository = bookingContactRepository;
+        this.recipientDirectory = recipientDirectory;
+        this.notificationRenderer = notificationRenderer;
+        this.channels = channels.stream()
+                .collect(Collectors.toUnmodifiableMap(NotificationChannel::name, Function.identity()));
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendPermits = new Semaphore(maxConcurrentSends);
+        this.inFlightLease = Duration.ofSeconds(inFlightLeaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.retention = Duration.ofDays(retentionDays);
+
+        this.deliveredCounter = Counter.builder("notification.delivered")
+                .description("Notifications delivered, several may share one message")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("notification.coalesced")
+                .description("Notifications sent together with another notification of the same recipient")
+                .register(meterRegistry);
+        this.supersededCounter = Counter.builder("notification.superseded")
+                .description("Payment link notifications dropped because the booking already settled")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("notification.retried")
+                .description("Notifications rescheduled after a transient failure")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("notification.dead")
+                .description("Notifications given up after max attempts or a permanent failure")
+                .register(meterRegistry);
+        this.latency = Timer.builder("notification.latency")
+                .description("Time from event intake to delivered notification")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("notification.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("Age of the oldest undelivered notification")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.notification.poll-interval-ms:500}")
+    public void poll() {
+        dispatch();
+        refreshLag();
+    }
+
+    void dispatch() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed >= batchSize);
+        } catch (Exception e) {
+            log.error("Notification dispatch failed", e);
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * @return số thông báo đến hạn đã lấy (không tính thông báo gộp thêm)
+     */
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(inFlightLease);
+        List<Notification> due = new ArrayList<>();
+        List<Notification> claimed = transactionTemplate.execute(status -> {
+            due.addAll(notificationRepository.claimDue(now, leaseUntil, batchSize));
+            Set<String> patientIds = due.stream()
+                    .map(Notification::getPatientId)
+                    .filter(patientId -> patientId != null)
+                    .collect(Collectors.toSet());
+            List<Notification> all = new ArrayList<>(due);
+            if (!patientIds.isEmpty()) {
+                all.addAll(notificationRepository.claimFreshForPatients(patientIds, now, leaseUntil));
+            }
+            return all;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Outcome> outcomes = new ArrayList<>();
+        List<Notification> superseded = new ArrayList<>();
+        List<Notification> sendable = new ArrayList<>(claimed.size());
+        splitSuperseded(claimed, sendable, superseded);
+
+        List<CompletableFuture<Outcome>> pending = new ArrayList<>();
+        for (List<Notification> group : groupByRecipient(sendable, outcomes)) {
+            pending.add(CompletableFuture.supplyAsync(() -> send(group), workers));
+        }
+        for (CompletableFuture<Outcome> future : pending) {
+            outcomes.add(future.join());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> apply(outcomes, superseded));
+        return due.size();
+    }
+
+    // Cùng lượt có cả link thanh toán và kết quả của booking: bỏ link, chỉ báo kết quả
+    private void splitSuperseded(List<Notification> claimed, List<Notification> sendable,
+                                 List<Notification> superseded) {
+        Map<String, Set<NotificationKind>> kindsByBooking = new HashMap<>();
+        for (Notification notification : claimed) {
+            kindsByBooking.computeIfAbsent(notification.getBookingId(), bookingId -> EnumSet.noneOf(NotificationKind.class))
+                    .add(notification.getKind());
+        }
+        for (Notification notification : claimed) {
+            Set<NotificationKind> kinds = kindsByBooking.get(notification.getBookingId());
+            boolean dropped = LINK_KINDS.contains(notification.getKind())
+                    && kinds.stream().anyMatch(notification.getKind()::isSupersededBy);
+            (dropped ? superseded : sendable).add(notification);
+        }
+    }
+
+    // Nhóm theo (bệnh nhân, kênh); thông báo chưa biết bệnh nhân (BookingCreatedEvent chưa tới) thì chờ lượt sau
+    private List<List<Notification>> groupByRecipient(List<Notification> notifications, List<Outcome> outcomes) {
+        Map<String, List<Notification>> groups = new LinkedHashMap<>();
+        List<Notification> unknown = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.getPatientId() == null) {
+                unknown.add(notification);
+                continue;
+            }
+            groups.computeIfAbsent(notification.getPatientId() + "|" + notification.getChannel(), key -> new ArrayList<>())
+                    .add(notification);
+        }
+        if (!unknown.isEmpty()) {
+            outcomes.add(new Outcome(unknown, Result.RETRY, "Booking contact not received yet"));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    Outcome send(List<Notification> group) {
+        group.sort(Comparator.comparing(Notification::getCreatedAt).thenComparing(Notification::getId));
+        Notification first = group.get(0);
+        NotificationChannel channel = channels.get(first.getChannel());
+        if (channel == null) {
+            return new Outcome(group, Result.DEAD, "Unsupported channel " + first.getChannel());
+        }
+
+        Recipient recipient;
+        try {
+            recipient = recipientDirectory.find(first.getPatientId());
+        } catch (Exception e) {
+            return new Outcome(group, Result.RETRY, "Recipient lookup failed: " + e.getMessage());
+        }
+        if (recipient == null || recipient.email() == null || recipient.email().isBlank()) {
+            return new Outcome(group, Result.RETRY, "No contact for patient " + first.getPatientId());
+        }
+
+        int attempt = group.stream().mapToInt(Notification::getAttempts).max().orElse(0);
+        boolean acquired = false;
+        try {
+            OutgoingMessage message = notificationRenderer.render(recipient, group);
+            sendPermits.acquire();
+            acquired = true;
+            channel.send(message, attempt);
+            return new Outcome(group, Result.SENT, null);
+        } catch (NotificationSendException e) {
+            return new Outcome(group, e.retryable() ? Result.RETRY : Result.DEAD, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(group, Result.RETRY, "Interrupted");
+        } catch (Exception e) {
+            // Lỗi render (template / dữ liệu): gửi lại cũng vậy
+            log.error("Failed to render notification for patient {}", first.getPatientId(), e);
+            return new Outcome(group, Result.DEAD, "Render failed: " + e.getMessage());
+        } finally {
+            if (acquired) {
+                sendPermits.release();
+            }
+        }
+    }
+
+    private void apply(List<Outcome> outcomes, List<Notification> superseded) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!superseded.isEmpty()) {
+            notificationRepository.markDone(ids(superseded), NotificationStatus.SUPERSEDED, now);
+            supersededCounter.increment(superseded.size());
+        }
+
+        List<Long> sent = new ArrayList<>();
+        Map<String, List<Long>> dead = new LinkedHashMap<>();
+        for (Outcome outcome : outcomes) {
+            switch (outcome.result()) {
+                case SENT -> {
+                    outcome.notifications().forEach(notification -> {
+                        sent.add(notification.getId());
+                        latency.record(Duration.between(notification.getCreatedAt(), now));
+                    });
+                    if (outcome.notifications().size() > 1) {
+                        coalescedCounter.increment(outcome.notifications().size());
+                    }
+                }
+                case DEAD -> dead.computeIfAbsent(truncate(outcome.error()), error -> new ArrayList<>())
+                        .addAll(ids(outcome.notifications()));
+                case RETRY -> retry(outcome, now, dead);
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            notificationRepository.markDone(sent, NotificationStatus.SENT, now);
+            deliveredCounter.increment(sent.size());
+        }
+        dead.forEach((error, ids) -> {
+            notificationRepository.markDead(ids, error);
+            deadCounter.increment(ids.size());
+            log.error("Gave up {} notification(s): {}", ids.size(), error);
+        });
+    }
+
+    private void retry(Outcome outcome, LocalDateTime now, Map<String, List<Long>> dead) {
+        String error = truncate(outcome.error());
+        List<Long> retry = new ArrayList<>();
+        int attempts = 0;
+        for (Notification notification : outcome.notifications()) {
+            if (notification.getAttempts() + 1 >= maxAttempts) {
+                dead.computeIfAbsent(error, key -> new ArrayList<>()).add(notification.getId());
+            } else {
+                retry.add(notification.getId());
+                attempts = Math.max(attempts, notification.getAttempts() + 1);
+            }
+        }
+        if (retry.isEmpty()) {
+            return;
+        }
+        long delayMs = backoffMillis(attempts);
+        notificationRepository.reschedule(retry, now.plus(Duration.ofMillis(delayMs)), error);
+        retriedCounter.increment(retry.size());
+        log.warn("{} notification(s) failed (attempt {}/{}), retrying in {} ms: {}",
+                retry.size(), attempts, maxAttempts, delayMs, error);
+    }
+
+    /**
+     * Backoff luỹ thừa, jitter nửa trên: [cap/2, cap] với cap = min(max, base * 2^(attempts-1)),
+     * để thư lỗi cùng lúc (SMTP chập chờn) không cùng quay lại 1 thời điểm.
+     */
+    long backoffMillis(int attempts) {
+        long cap = backoffBaseMs << Math.min(Math.max(attempts, 1) - 1, 20);
+        cap = Math.min(backoffMaxMs, cap);
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    @Scheduled(cron = "${application.notification.cleanup-cron:0 30 * * * *}")
+    public void purgeDelivered() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status ->
+                notificationRepository.deleteDoneBefore(cutoff) + bookingContactRepository.deleteCreatedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} delivered notifications / booking contacts older than {}", deleted, cutoff);
+        }
+    }
+
+    private void refreshLag() {
+        try {
+            lagMillis.set(notificationRepository.findOldestPendingCreatedAt()
+                    .map(createdAt -> Math.max(0, Duration.between(createdAt, LocalDateTime.now()).toMillis()))
+                    .orElse(0L));
+        } catch (Exception e) {
+            log.warn("Failed to refresh notification lag: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        // Thư chưa gửi xong được dispatcher khác lấy lại sau in-flight-lease
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private static List<Long> ids(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getId).toList();
+    }
+
+    private static String truncate(String message) {
+        String value = String.valueOf(message);
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
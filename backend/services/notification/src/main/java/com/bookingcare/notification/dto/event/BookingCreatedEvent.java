@@ -0,0 +1,17 @@
+package com.bookingcare.notification.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingCreatedEvent {
+    private String bookingId;
+    private String packageScheduleId;
+    private String patientId;
+    private String clinicId;
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.bookingcare.notification.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.ZonedDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldExpiredEvent {
+    private String bookingId;
+    private String scheduleHoldId;
+    private String packageScheduleId;
+    private ZonedDateTime expiredAt;
+}
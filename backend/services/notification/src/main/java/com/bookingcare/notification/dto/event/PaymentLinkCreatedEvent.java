@@ -0,0 +1,15 @@
+package com.bookingcare.notification.dto.event;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLinkCreatedEvent {
+    private String bookingId;
+    private String checkoutUrl;
+    private Long orderCode;
+}
\ No newline at end of file
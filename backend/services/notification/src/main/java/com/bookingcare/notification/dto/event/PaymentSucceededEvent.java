@@ -0,0 +1,16 @@
+package com.bookingcare.notification.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSucceededEvent {
+    private String bookingId;
+    private String paymentId;
+    private String transactionId;
+}
\ No newline at end of file
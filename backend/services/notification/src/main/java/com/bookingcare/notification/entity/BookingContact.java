@@ -0,0 +1,23 @@
+package com.bookingcare.notification.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "booking_contacts")
+public class BookingContact {
+    @Id
+    @Column(name = "booking_id")
+    private String bookingId;
+    @Column(name = "patient_id", nullable = false)
+    private String patientId;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
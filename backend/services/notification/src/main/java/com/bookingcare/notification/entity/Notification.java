@@ -0,0 +1,50 @@
+package com.bookingcare.notification.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "notifications")
+public class Notification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "event_id")
+    private String eventId;
+    @Column(name = "booking_id", nullable = false)
+    private String bookingId;
+    @Column(name = "patient_id")
+    private String patientId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    private NotificationKind kind;
+    @Column(name = "channel", nullable = false)
+    private String channel;
+    // Biến cho template (checkoutUrl, reason, ...), không chứa thông tin liên lạc của bệnh nhân
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "params", nullable = false)
+    private Map<String, String> params;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private NotificationStatus status;
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    @Column(name = "last_error")
+    private String lastError;
+}
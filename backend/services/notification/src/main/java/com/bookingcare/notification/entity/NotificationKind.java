@@ -0,0 +1,42 @@
+package com.bookingcare.notification.entity;
+
+import java.util.Set;
+
+/**
+ * Loại thông báo, mỗi loại ứng với 1 fragment trong templates/email/items.html.
+ */
+public enum NotificationKind {
+    PAYMENT_LINK_CREATED("Thanh toán lịch khám của bạn", "paymentLink"),
+    PAYMENT_SUCCEEDED("Thanh toán thành công", "paymentSucceeded"),
+    PAYMENT_FAILED("Thanh toán không thành công", "paymentFailed"),
+    BOOKING_CONFIRMED("Lịch khám đã được xác nhận", "bookingConfirmed"),
+    HOLD_FAILED("Không giữ được lịch khám", "holdFailed"),
+    HOLD_EXPIRED("Lịch khám đã hết thời gian giữ chỗ", "holdExpired");
+
+    // Link thanh toán chưa gửi mà booking đã có kết quả: gửi link nữa chỉ gây nhầm lẫn
+    private static final Set<NotificationKind> SETTLED = Set.of(
+            PAYMENT_SUCCEEDED, PAYMENT_FAILED, BOOKING_CONFIRMED, HOLD_FAILED, HOLD_EXPIRED);
+
+    private final String subject;
+    private final String fragment;
+
+    NotificationKind(String subject, String fragment) {
+        this.subject = subject;
+        this.fragment = fragment;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getFragment() {
+        return fragment;
+    }
+
+    /**
+     * @return true nếu thông báo loại này không cần gửi nữa khi cùng booking đã có thông báo loại other
+     */
+    public boolean isSupersededBy(NotificationKind other) {
+        return this == PAYMENT_LINK_CREATED && SETTLED.contains(other);
+    }
+}
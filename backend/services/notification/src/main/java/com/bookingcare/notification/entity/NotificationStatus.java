@@ -0,0 +1,8 @@
+package com.bookingcare.notification.entity;
+
+public enum NotificationStatus {
+    PENDING,
+    SENT,
+    SUPERSEDED,
+    DEAD
+}
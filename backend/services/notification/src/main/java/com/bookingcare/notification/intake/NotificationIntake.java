@@ -0,0 +1,173 @@
+package com.bookingcare.notification.intake;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bookingcare.notification.channel.EmailChannel;
+import com.bookingcare.notification.dto.event.BookingConfirmedEvent;
+import com.bookingcare.notification.dto.event.BookingCreatedEvent;
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.notification.dto.event.HoldExpiredEvent;
+import com.bookingcare.notification.dto.event.HoldSlotFailedEvent;
+import com.bookingcare.notification.dto.event.PaymentFailedEvent;
+import com.bookingcare.notification.dto.event.PaymentLinkCreatedEvent;
+import com.bookingcare.notification.dto.event.PaymentSucceededEvent;
+import com.bookingcare.notification.entity.NotificationKind;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+import com.bookingcare.notification.repository.BookingContactRepository;
+import com.bookingcare.notification.repository.NotificationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ghi 1 batch event saga thành thông báo chờ gửi (1 transaction / batch Kafka).
+ *
+ * - BookingCreatedEvent: chỉ lưu booking -> bệnh nhân, các event sau chỉ mang bookingId.
+ * - Event cần báo cho bệnh nhân: 1 dòng notifications, đến hạn sau coalesce-window-ms để các event
+ *   cùng booking tới liền nhau (link thanh toán, thanh toán thành công, xác nhận lịch) đi chung 1 email.
+ * - Event lặp trùng (booking_id, kind) bị bỏ qua; eventType khác bị bỏ qua.
+ *
+ * Metrics: notification.queued{kind}, notification.duplicate
+ */
+@Component
+@Slf4j
+public class NotificationIntake {
+
+    private final NotificationRepository notificationRepository;
+    private final BookingContactRepository bookingContactRepository;
+    private final EventEnvelopeCodec eventEnvelopeCodec;
+    private final ObjectMapper objectMapper;
+    private final Duration coalesceWindow;
+
+    private final Map<NotificationKind, Counter> queuedCounters = new EnumMap<>(NotificationKind.class);
+    private final Counter duplicateCounter;
+
+    public NotificationIntake(NotificationRepository notificationRepository,
+                              BookingContactRepository bookingContactRepository,
+                              EventEnvelopeCodec eventEnvelopeCodec,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${application.notification.coalesce-window-ms:3000}") long coalesceWindowMs) {
+        this.notificationRepository = notificationRepository;
+        this.bookingContactRepository = bookingContactRepository;
+        this.eventEnvelopeCodec = eventEnvelopeCodec;
+        this.objectMapper = objectMapper;
+        this.coalesceWindow = Duration.ofMillis(coalesceWindowMs);
+
+        for (NotificationKind kind : NotificationKind.values()) {
+            queuedCounters.put(kind, Counter.builder("notification.queued")
+                    .description("Notifications queued from saga events")
+                    .tag("kind", kind.name())
+                    .register(meterRegistry));
+        }
+        this.duplicateCounter = Counter.builder("notification.duplicate")
+                .description("Saga events ignored because the notification was already queued")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return số thông báo mới được ghi
+     */
+    @Transactional
+    public int accept(List<EventEnvelope<Object>> envelopes) {
+        LocalDateTime now = LocalDateTime.now();
+        int queued = 0;
+        // BookingCreatedEvent trước, để thông báo cùng batch lấy được patient_id ngay lúc ghi
+        for (EventEnvelope<Object> envelope : envelopes) {
+            if ("BookingCreatedEvent".equals(envelope.getEventType())) {
+                BookingCreatedEvent event = eventEnvelopeCodec.payloadAs(envelope, BookingCreatedEvent.class);
+                if (event.getBookingId() != null && event.getPatientId() != null) {
+                    bookingContactRepository.append(event.getBookingId(), event.getPatientId(), now);
+                }
+            }
+        }
+        for (EventEnvelope<Object> envelope : envelopes) {
+            Pending pending = toPending(envelope);
+            if (pending == null || pending.bookingId() == null) {
+                continue;
+            }
+            int inserted = notificationRepository.append(envelope.getEventId(), pending.bookingId(),
+                    pending.kind().name(), EmailChannel.NAME, toJson(pending.params()), now, now.plus(coalesceWindow));
+            if (inserted == 0) {
+                duplicateCounter.increment();
+                log.debug("Notification {} for booking {} already queued", pending.kind(), pending.bookingId());
+                continue;
+            }
+            queuedCounters.get(pending.kind()).increment();
+            queued++;
+        }
+        return queued;
+    }
+
+    private record Pending(String bookingId, NotificationKind kind, Map<String, String> params) {
+    }
+
+    private Pending toPending(EventEnvelope<Object> envelope) {
+        String eventType = envelope.getEventType();
+        if (eventType == null) {
+            return null;
+        }
+        return switch (eventType) {
+            case "PaymentLinkCreatedEvent" -> {
+                PaymentLinkCreatedEvent event = eventEnvelopeCodec.payloadAs(envelope, PaymentLinkCreatedEvent.class);
+                yield new Pending(event.getBookingId(), NotificationKind.PAYMENT_LINK_CREATED,
+                        params("checkoutUrl", event.getCheckoutUrl(), "orderCode", event.getOrderCode()));
+            }
+            case "PaymentSucceededEvent" -> {
+                PaymentSucceededEvent event = eventEnvelopeCodec.payloadAs(envelope, PaymentSucceededEvent.class);
+                yield new Pending(event.getBookingId(), NotificationKind.PAYMENT_SUCCEEDED,
+                        params("transactionId", event.getTransactionId()));
+            }
+            case "PaymentFailedEvent" -> {
+                PaymentFailedEvent event = eventEnvelopeCodec.payloadAs(envelope, PaymentFailedEvent.class);
+                yield new Pending(event.getBookingId(), NotificationKind.PAYMENT_FAILED,
+                        params("reason", event.getReason()));
+            }
+            case "BookingConfirmedEvent" -> {
+                BookingConfirmedEvent event = eventEnvelopeCodec.payloadAs(envelope, BookingConfirmedEvent.class);
+                yield new Pending(event.getBookingId(), NotificationKind.BOOKING_CONFIRMED, params());
+            }
+            case "HoldSlotFailedEvent" -> {
+                HoldSlotFailedEvent event = eventEnvelopeCodec.payloadAs(envelope, HoldSlotFailedEvent.class);
+                yield new Pending(event.getBookingId(), NotificationKind.HOLD_FAILED,
+                        params("reason", event.getReason()));
+            }
+            case "HoldExpiredEvent" -> {
+                HoldExpiredEvent event = eventEnvelopeCodec.payloadAs(envelope, HoldExpiredEvent.class);
+                yield new Pending(event.getBookingId(), NotificationKind.HOLD_EXPIRED,
+                        params("expiredAt", event.getExpiredAt()));
+            }
+            default -> null;
+        };
+    }
+
+    private static Map<String, String> params(Object... keyValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            if (keyValues[i + 1] != null) {
+                params.put((String) keyValues[i], String.valueOf(keyValues[i + 1]));
+            }
+        }
+        return params;
+    }
+
+    private String toJson(Map<String, String> params) {
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize notification params", e);
+        }
+    }
+}
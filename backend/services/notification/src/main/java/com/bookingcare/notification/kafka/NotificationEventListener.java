@@ -0,0 +1,57 @@
+package com.bookingcare.notification.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.notification.config.KafkaConsumerConfig;
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.notification.intake.NotificationIntake;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đọc event saga theo batch: booking-events (BookingCreatedEvent), schedule-commands (BookingConfirmedEvent),
+ * schedule-events (HoldSlotFailedEvent, HoldExpiredEvent), payment-events (PaymentLinkCreatedEvent,
+ * PaymentSucceededEvent, PaymentFailedEvent).
+ *
+ * Offset chỉ được commit sau khi NotificationIntake ghi xong cả batch. Record không decode được
+ * được chuyển sang DLT ngay, không chặn các record sau nó.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationEventListener {
+
+    private final EventEnvelopeCodec eventEnvelopeCodec;
+    private final NotificationIntake notificationIntake;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @KafkaListener(topics = {"booking-events", "schedule-commands", "schedule-events", "payment-events"},
+            groupId = "notification-group",
+            containerFactory = KafkaConsumerConfig.BATCH_CONTAINER_FACTORY)
+    public void onEvents(List<ConsumerRecord<String, byte[]>> records) {
+        List<EventEnvelope<Object>> envelopes = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            try {
+                envelopes.add(eventEnvelopeCodec.decode(record.value()));
+            } catch (RuntimeException e) {
+                log.error("Undecodable event at {}-{}@{}, sending to dead letter topic: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                deadLetterPublishingRecoverer.accept(record, e);
+            }
+        }
+
+        int queued = notificationIntake.accept(envelopes);
+        log.debug("Notification batch: records={}, queued={}", records.size(), queued);
+    }
+}
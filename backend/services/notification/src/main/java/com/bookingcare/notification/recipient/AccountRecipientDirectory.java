@@ -0,0 +1,132 @@
+package com.bookingcare.notification.recipient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lấy email / tên bệnh nhân từ account-service (GET /api/v1/account/users/{id}, qua Eureka) và cache trong bộ nhớ.
+ *
+ * Endpoint yêu cầu quyền ADMIN: token của tài khoản dịch vụ cấu hình ở application.notification.account.token.
+ * Bệnh nhân không tồn tại cũng được cache (ngắn hơn), để booking của tài khoản đã xoá không hỏi lại liên tục.
+ *
+ * Metrics: notification.recipient.lookups{result=cached|fetched|not_found|error}
+ */
+@Component
+@Slf4j
+public class AccountRecipientDirectory implements RecipientDirectory {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record AccountUser(String id, String fullName, String email, boolean isDeleted) {
+    }
+
+    private record CachedRecipient(Recipient recipient, long expiresAtNanos) {
+    }
+
+    private final RestClient restClient;
+    private final String token;
+    private final long ttlNanos;
+    private final long notFoundTtlNanos;
+    private final int maxEntries;
+    private final Map<String, CachedRecipient> cache = new ConcurrentHashMap<>();
+
+    private final Counter cachedCounter;
+    private final Counter fetchedCounter;
+    private final Counter notFoundCounter;
+    private final Counter errorCounter;
+
+    public AccountRecipientDirectory(RestClient.Builder loadBalancedRestClientBuilder,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${application.notification.account.base-url:http://account-service}") String baseUrl,
+                                     @Value("${application.notification.account.token:}") String token,
+                                     @Value("${application.notification.account.cache-ttl-seconds:600}") long ttlSeconds,
+                                     @Value("${application.notification.account.not-found-ttl-seconds:60}") long notFoundTtlSeconds,
+                                     @Value("${application.notification.account.cache-max-entries:50000}") int maxEntries) {
+        this.restClient = loadBalancedRestClientBuilder.baseUrl(baseUrl).build();
+        this.token = token;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.notFoundTtlNanos = TimeUnit.SECONDS.toNanos(notFoundTtlSeconds);
+        this.maxEntries = maxEntries;
+
+        this.cachedCounter = lookupCounter(meterRegistry, "cached");
+        this.fetchedCounter = lookupCounter(meterRegistry, "fetched");
+        this.notFoundCounter = lookupCounter(meterRegistry, "not_found");
+        this.errorCounter = lookupCounter(meterRegistry, "error");
+    }
+
+    @Override
+    public Recipient find(String patientId) {
+        long now = System.nanoTime();
+        CachedRecipient cached = cache.get(patientId);
+        if (cached != null && cached.expiresAtNanos() - now > 0) {
+            cachedCounter.increment();
+            return cached.recipient();
+        }
+
+        Recipient recipient;
+        try {
+            recipient = fetch(patientId);
+        } catch (RuntimeException e) {
+            errorCounter.increment();
+            throw e;
+        }
+        (recipient == null ? notFoundCounter : fetchedCounter).increment();
+        if (cache.size() >= maxEntries) {
+            evictExpired(now);
+        }
+        cache.put(patientId, new CachedRecipient(recipient, now + (recipient == null ? notFoundTtlNanos : ttlNanos)));
+        return recipient;
+    }
+
+    private Recipient fetch(String patientId) {
+        AccountUser user;
+        try {
+            user = restClient.get()
+                    .uri("/api/v1/account/users/{id}", patientId)
+                    .headers(headers -> {
+                        if (!token.isBlank()) {
+                            headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+                        }
+                    })
+                    .retrieve()
+                    .body(AccountUser.class);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+        if (user == null || user.isDeleted() || user.email() == null || user.email().isBlank()) {
+            return null;
+        }
+        return new Recipient(patientId, user.email(), user.fullName());
+    }
+
+    private void evictExpired(long now) {
+        cache.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+        if (cache.size() >= maxEntries) {
+            log.debug("Recipient cache full ({} entries), clearing", cache.size());
+            cache.clear();
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("notification.recipient.lookups")
+                .description("Patient contact lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,4 @@
+package com.bookingcare.notification.recipient;
+
+public record Recipient(String patientId, String email, String fullName) {
+}
@@ -0,0 +1,14 @@
+package com.bookingcare.notification.recipient;
+
+/**
+ * Tra email / tên của bệnh nhân. Tách ra interface để test thay bằng danh bạ trong bộ nhớ.
+ */
+@FunctionalInterface
+public interface RecipientDirectory {
+
+    /**
+     * @return null nếu bệnh nhân không tồn tại, đã xoá hoặc không có email
+     * @throws RuntimeException khi không hỏi được (account-service lỗi / timeout): dispatcher thử lại sau
+     */
+    Recipient find(String patientId);
+}
@@ -0,0 +1,27 @@
+package com.bookingcare.notification.repository;
+
+import com.bookingcare.notification.entity.BookingContact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface BookingContactRepository extends JpaRepository<BookingContact, String> {
+
+    // BookingCreatedEvent lặp trả 0
+    @Modifying
+    @Query(value = """
+            INSERT INTO booking_contacts (booking_id, patient_id, created_at)
+            VALUES (:bookingId, :patientId, :now)
+            ON CONFLICT (booking_id) DO NOTHING
+            """, nativeQuery = true)
+    int append(@Param("bookingId") String bookingId,
+               @Param("patientId") String patientId,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM booking_contacts WHERE created_at < :cutoff", nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
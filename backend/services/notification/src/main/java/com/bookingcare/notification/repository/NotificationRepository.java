@@ -0,0 +1,106 @@
+package com.bookingcare.notification.repository;
+
+import com.bookingcare.notification.entity.Notification;
+import com.bookingcare.notification.entity.NotificationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Dedup theo (booking_id, kind): event lặp trả 0. patient_id lấy luôn từ booking_contacts nếu đã có
+    @Modifying
+    @Query(value = """
+            INSERT INTO notifications
+                (event_id, booking_id, patient_id, kind, channel, params, status, attempts, next_attempt_at, created_at)
+            VALUES (:eventId, :bookingId,
+                    (SELECT c.patient_id FROM booking_contacts c WHERE c.booking_id = :bookingId),
+                    :kind, :channel, CAST(:params AS jsonb), 'PENDING', 0, :notBefore, :now)
+            ON CONFLICT (booking_id, kind) DO NOTHING
+            """, nativeQuery = true)
+    int append(@Param("eventId") String eventId,
+               @Param("bookingId") String bookingId,
+               @Param("kind") String kind,
+               @Param("channel") String channel,
+               @Param("params") String params,
+               @Param("now") LocalDateTime now,
+               @Param("notBefore") LocalDateTime notBefore);
+
+    // Lấy thông báo đến hạn và đẩy next_attempt_at tới leaseUntil (dispatcher chết giữa chừng thì tự đến hạn lại).
+    // Row đang bị dispatcher khác khoá bị bỏ qua -> nhiều replica gửi song song không trùng
+    @Query(value = """
+            WITH due AS (
+                SELECT id FROM notifications
+                WHERE status = 'PENDING' AND next_attempt_at <= :now
+                ORDER BY next_attempt_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE notifications n SET next_attempt_at = :leaseUntil,
+                patient_id = COALESCE(n.patient_id,
+                        (SELECT c.patient_id FROM booking_contacts c WHERE c.booking_id = n.booking_id))
+            FROM due WHERE n.id = due.id
+            RETURNING n.*
+            """, nativeQuery = true)
+    List<Notification> claimDue(@Param("now") LocalDateTime now,
+                                @Param("leaseUntil") LocalDateTime leaseUntil,
+                                @Param("limit") int limit);
+
+    // Gộp: thông báo mới (chưa thử lần nào) của cùng bệnh nhân đi chung email với các thông báo vừa đến hạn,
+    // không chờ hết coalesce window của riêng nó
+    @Query(value = """
+            WITH fresh AS (
+                SELECT id FROM notifications
+                WHERE status = 'PENDING' AND attempts = 0 AND next_attempt_at > :now
+                  AND patient_id IN (:patientIds)
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE notifications n SET next_attempt_at = :leaseUntil
+            FROM fresh WHERE n.id = fresh.id
+            RETURNING n.*
+            """, nativeQuery = true)
+    List<Notification> claimFreshForPatients(@Param("patientIds") Collection<String> patientIds,
+                                             @Param("now") LocalDateTime now,
+                                             @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :status, n.sentAt = :now, n.lastError = NULL WHERE n.id IN :ids")
+    int markDone(@Param("ids") Collection<Long> ids,
+                 @Param("status") NotificationStatus status,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE Notification n SET n.attempts = n.attempts + 1, n.nextAttemptAt = :nextAttemptAt, n.lastError = :error
+            WHERE n.id IN :ids
+            """)
+    int reschedule(@Param("ids") Collection<Long> ids,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    @Modifying
+    @Query("""
+            UPDATE Notification n SET n.status = com.bookingcare.notification.entity.NotificationStatus.DEAD,
+                n.attempts = n.attempts + 1, n.lastError = :error
+            WHERE n.id IN :ids
+            """)
+    int markDead(@Param("ids") Collection<Long> ids, @Param("error") String error);
+
+    @Query("""
+            SELECT MIN(n.createdAt) FROM Notification n
+            WHERE n.status = com.bookingcare.notification.entity.NotificationStatus.PENDING
+            """)
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+
+    // DEAD được giữ lại để tra cứu / gửi lại bằng tay
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE status IN ('SENT', 'SUPERSEDED') AND sent_at < :cutoff",
+            nativeQuery = true)
+    int deleteDoneBefore(@Param("cutoff") LocalDateTime cutoff);
+}
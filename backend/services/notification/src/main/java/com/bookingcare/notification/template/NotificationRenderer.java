@@ -0,0 +1,116 @@
+package com.bookingcare.notification.template;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import com.bookingcare.notification.channel.OutgoingMessage;
+import com.bookingcare.notification.entity.Notification;
+import com.bookingcare.notification.entity.NotificationKind;
+import com.bookingcare.notification.recipient.Recipient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Render 1 email cho 1 bệnh nhân từ các thông báo đã gộp (templates/email/notification.html + items.html).
+ *
+ * Template được Thymeleaf parse 1 lần rồi giữ trong template cache (spring.thymeleaf.cache, mặc định bật);
+ * warmUp() render thử mọi loại lúc khởi động, nên thư đầu tiên không phải chờ parse và template lỗi
+ * làm service fail ngay khi start thay vì lúc gửi.
+ *
+ * Metrics: notification.render: thời gian render 1 email
+ */
+@Component
+@Slf4j
+public class NotificationRenderer {
+    static final String TEMPLATE = "email/notification";
+    private static final Locale LOCALE = Locale.forLanguageTag("vi-VN");
+
+    /**
+     * 1 khối trong email; getter để biểu thức template đọc được.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Item {
+        private final String fragment;
+        private final String bookingId;
+        private final Map<String, String> params;
+    }
+
+    private final ITemplateEngine templateEngine;
+    private final Timer renderTimer;
+
+    public NotificationRenderer(ITemplateEngine templateEngine, MeterRegistry meterRegistry) {
+        this.templateEngine = templateEngine;
+        this.renderTimer = Timer.builder("notification.render")
+                .description("Time to render one notification email")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long started = System.nanoTime();
+        List<Item> items = new ArrayList<>();
+        for (NotificationKind kind : EnumSet.allOf(NotificationKind.class)) {
+            items.add(new Item(kind.getFragment(), "WARMUP", Map.of("checkoutUrl", "https://example.com",
+                    "transactionId", "TXN_WARMUP")));
+        }
+        templateEngine.process(TEMPLATE, context("BookingCare", "warm-up", items));
+        log.info("Notification templates parsed and cached in {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @param notifications thông báo của cùng 1 bệnh nhân, theo thứ tự tạo
+     */
+    public OutgoingMessage render(Recipient recipient, List<Notification> notifications) {
+        return renderTimer.record(() -> {
+            String subject = subject(notifications);
+            List<Item> items = new ArrayList<>(notifications.size());
+            StringBuilder text = new StringBuilder();
+            text.append("Xin chào ").append(displayName(recipient)).append(",\n");
+            for (Notification notification : notifications) {
+                Map<String, String> params = notification.getParams() == null ? Map.of() : notification.getParams();
+                items.add(new Item(notification.getKind().getFragment(), notification.getBookingId(), params));
+                text.append("\n- ").append(notification.getKind().getSubject())
+                        .append(": lịch khám ").append(notification.getBookingId());
+                if (params.containsKey("checkoutUrl")) {
+                    text.append("\n  Thanh toán: ").append(params.get("checkoutUrl"));
+                }
+            }
+            String html = templateEngine.process(TEMPLATE, context(displayName(recipient), subject, items));
+            return new OutgoingMessage(recipient.email(), recipient.fullName(), subject, html, text.toString());
+        });
+    }
+
+    static String subject(List<Notification> notifications) {
+        if (notifications.size() == 1) {
+            return "BookingCare - " + notifications.get(0).getKind().getSubject();
+        }
+        return "BookingCare - " + notifications.size() + " cập nhật về lịch khám của bạn";
+    }
+
+    private static Context context(String recipientName, String subject, List<Item> items) {
+        Context context = new Context(LOCALE);
+        context.setVariable("recipientName", recipientName);
+        context.setVariable("subject", subject);
+        context.setVariable("items", items);
+        return context;
+    }
+
+    private static String displayName(Recipient recipient) {
+        return recipient.fullName() == null || recipient.fullName().isBlank() ? "bạn" : recipient.fullName();
+    }
+}
@@ -0,0 +1,30 @@
+-- booking -> bệnh nhân, dựng từ BookingCreatedEvent: các event sau của saga chỉ mang bookingId
+CREATE TABLE booking_contacts (
+    "booking_id" VARCHAR(255) PRIMARY KEY,
+    "patient_id" VARCHAR(255) NOT NULL,
+    "created_at" TIMESTAMP NOT NULL
+);
+
+-- Thông báo chờ gửi / đã gửi. NotificationEventListener ghi theo batch, NotificationDispatcher lấy dòng đến hạn,
+-- gộp theo bệnh nhân thành 1 email. Khoá (booking_id, kind): event lặp (redelivery / replay) không sinh thư thứ 2.
+CREATE TABLE notifications (
+    "id" BIGSERIAL PRIMARY KEY,
+    "event_id" VARCHAR(255),
+    "booking_id" VARCHAR(255) NOT NULL,
+    "patient_id" VARCHAR(255),
+    "kind" VARCHAR(50) NOT NULL,
+    "channel" VARCHAR(20) NOT NULL,
+    "params" JSONB NOT NULL DEFAULT '{}',
+    -- PENDING | SENT | SUPERSEDED (bị thông báo mới hơn cùng booking thay thế) | DEAD (hết lượt thử / lỗi vĩnh viễn)
+    "status" VARCHAR(20) NOT NULL,
+    "attempts" INTEGER NOT NULL DEFAULT 0,
+    "next_attempt_at" TIMESTAMP NOT NULL,
+    "created_at" TIMESTAMP NOT NULL,
+    "sent_at" TIMESTAMP,
+    "last_error" VARCHAR(1000),
+    CONSTRAINT uk_notifications_booking_kind UNIQUE ("booking_id", "kind")
+);
+
+CREATE INDEX idx_notifications_pending ON notifications ("next_attempt_at") WHERE "status" = 'PENDING';
+CREATE INDEX idx_notifications_pending_patient ON notifications ("patient_id") WHERE "status" = 'PENDING';
+CREATE INDEX idx_notifications_dead ON notifications ("created_at") WHERE "status" = 'DEAD';
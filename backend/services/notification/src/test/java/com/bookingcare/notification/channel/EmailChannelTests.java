@@ -0,0 +1,222 @@
+package com.bookingcare.notification.channel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * EmailChannel gửi qua FakeSmtpServer bằng jakarta.mail thật:
+ * - Thư multipart (text + html), kết nối SMTP được dùng lại và mở lại sau max-messages-per-connection
+ * - Giới hạn thư / giây theo provider
+ * - 5xx là lỗi vĩnh viễn, 4xx / không kết nối được là lỗi tạm thời; lần thử lại đi qua provider kế tiếp
+ * - @Tag("benchmark") (mvn test -Pbenchmark): provider có bắt tay chậm, pool kết nối so với mở 1 kết nối
+ *   cho mỗi thư (như JavaMailSender), chỉ ghi log
+ */
+@Slf4j
+class EmailChannelTests {
+    private FakeSmtpServer smtp;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<EmailChannel> channels = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        smtp = new FakeSmtpServer().start(0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channels.forEach(EmailChannel::destroy);
+        smtp.close();
+    }
+
+    @Test
+    void sendsMultipartMessage() throws Exception {
+        EmailChannel channel = channel(provider("primary", smtp.port(), 2, 1_000, 100));
+
+        channel.send(message("an@example.com"), 0);
+
+        assertEquals(1, smtp.messages());
+        String body = smtp.bodies().get(0);
+        assertTrue(body.contains("multipart/alternative"), body);
+        assertTrue(body.contains("To: =?UTF-8?"), body);
+        assertEquals(1.0, meterRegistry.get("notification.sent").tag("provider", "primary").counter().count());
+    }
+
+    @Test
+    void reusesPooledConnections() throws Exception {
+        EmailChannel channel = channel(provider("primary", smtp.port(), 2, 10_000, 100));
+
+        send(channel, 4, 60, 0);
+
+        assertEquals(60, smtp.messages());
+        assertTrue(smtp.connections() <= 2, "opened " + smtp.connections() + " connections");
+        assertEquals(smtp.connections(), channel.openedConnections().get(0));
+    }
+
+    @Test
+    void reconnectsAfterMaxMessagesPerConnection() throws Exception {
+        EmailChannel channel = channel(provider("primary", smtp.port(), 1, 10_000, 10));
+
+        send(channel, 1, 30, 0);
+
+        assertEquals(30, smtp.messages());
+        assertEquals(3, smtp.connections());
+    }
+
+    @Test
+    void pacesMessagesPerProvider() throws Exception {
+        EmailChannel channel = channel(provider("primary", smtp.port(), 8, 20, 100));
+
+        long started = System.nanoTime();
+        send(channel, 8, 21, 0);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        // 20 thư / giây: thư thứ 21 sớm nhất sau 1 giây
+        assertTrue(elapsedMs >= 950, "21 messages at 20/s took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void rejectedRecipientIsPermanent() {
+        EmailChannel channel = channel(provider("primary", smtp.port(), 2, 1_000, 100));
+        smtp.rcptReply = "550 5.1.1 No such user";
+
+        NotificationSendException e = assertThrows(NotificationSendException.class,
+                () -> channel.send(message("ghost@example.com"), 0));
+
+        assertFalse(e.retryable());
+        assertTrue(e.getMessage().contains("550"), e.getMessage());
+        assertEquals(1.0, meterRegistry.get("notification.send.failed").tag("retryable", "false").counter().count());
+    }
+
+    @Test
+    void temporaryRejectionIsRetryable() throws Exception {
+        EmailChannel channel = channel(provider("primary", smtp.port(), 2, 1_000, 100));
+        smtp.rcptReply = "450 4.2.1 Mailbox busy";
+
+        NotificationSendException e = assertThrows(NotificationSendException.class,
+                () -> channel.send(message("busy@example.com"), 0));
+        assertTrue(e.retryable());
+
+        // Kết nối vẫn dùng được sau khi server từ chối 1 thư
+        smtp.rcptReply = null;
+        channel.send(message("busy@example.com"), 0);
+        assertEquals(1, smtp.messages());
+    }
+
+    @Test
+    void retryGoesThroughNextProvider() throws Exception {
+        int unreachablePort;
+        try (FakeSmtpServer closed = new FakeSmtpServer().start(0)) {
+            unreachablePort = closed.port();
+        }
+        EmailChannel channel = channel(
+                provider("down", unreachablePort, 2, 1_000, 100),
+                provider("backup", smtp.port(), 2, 1_000, 100));
+
+        NotificationSendException e = assertThrows(NotificationSendException.class,
+                () -> channel.send(message("an@example.com"), 0));
+        assertTrue(e.retryable());
+
+        channel.send(message("an@example.com"), 1);
+        assertEquals(1, smtp.messages());
+        assertEquals(1.0, meterRegistry.get("notification.sent").tag("provider", "backup").counter().count());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkPooledConnectionsAgainstConnectionPerMessage() throws Exception {
+        // Bắt tay 100 ms (TCP + TLS + AUTH tới provider thật), nhận 1 thư 2 ms
+        smtp.connectLatencyMs = 100;
+        smtp.messageLatencyMs = 2;
+        EmailChannel perMessage = channel(provider("per-message", smtp.port(), 8, 10_000, 1));
+        EmailChannel pooled = channel(provider("pooled", smtp.port(), 8, 10_000, 1_000));
+
+        // warm-up jakarta.mail / JIT
+        send(pooled, 8, 50, 0);
+
+        long[] perMessageResult = send(perMessage, 8, 400, 0);
+        long[] pooledResult = send(pooled, 8, 400, 0);
+
+        log.info("SMTP handshake 100 ms: connection per message {} msg/s p99 {} ms, pooled(8) {} msg/s p99 {} ms",
+                Math.round(throughput(perMessageResult, 400)), percentile(perMessageResult, 0.99),
+                Math.round(throughput(pooledResult, 400)), percentile(pooledResult, 0.99));
+    }
+
+    // Trả về latency từng thư (ms), phần tử cuối là tổng thời gian (ms)
+    private static long[] send(EmailChannel channel, int concurrency, int count, int attempt) throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore permits = new Semaphore(concurrency);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String to = "patient" + i + "@example.com";
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    long sendStart = System.nanoTime();
+                    try {
+                        channel.send(message(to), attempt);
+                        return (System.nanoTime() - sendStart) / 1_000_000;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            long[] latencies = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                latencies[i] = futures.get(i).get();
+            }
+            latencies[count] = (System.nanoTime() - start) / 1_000_000;
+            return latencies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double throughput(long[] result, int count) {
+        return count * 1000.0 / Math.max(1, result[count]);
+    }
+
+    private static long percentile(long[] result, double percentile) {
+        long[] sorted = Arrays.copyOf(result, result.length - 1);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    private static OutgoingMessage message(String to) {
+        return new OutgoingMessage(to, "Nguyễn Văn An", "BookingCare - Lịch khám đã được xác nhận",
+                "<p>Lịch khám <strong>B-1</strong> đã được xác nhận.</p>", "Lịch khám B-1 đã được xác nhận.");
+    }
+
+    private static MailProviderProperties.Provider provider(String name, int port, int maxConnections,
+                                                            int ratePerSecond, int maxMessagesPerConnection) {
+        return new MailProviderProperties.Provider(name, "127.0.0.1", port, null, null, false,
+                maxConnections, ratePerSecond, maxMessagesPerConnection, 30_000, 2_000);
+    }
+
+    private EmailChannel channel(MailProviderProperties.Provider... providers) {
+        EmailChannel channel = new EmailChannel(
+                new MailProviderProperties("BookingCare <no-reply@bookingcare.local>", List.of(providers)),
+                meterRegistry);
+        channels.add(channel);
+        return channel;
+    }
+}
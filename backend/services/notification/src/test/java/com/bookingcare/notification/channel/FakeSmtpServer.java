@@ -0,0 +1,138 @@
+package com.bookingcare.notification.channel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SMTP server giả tối thiểu (EHLO / MAIL / RCPT / DATA / RSET / NOOP / QUIT) để test kênh email mà không cần
+ * mail server thật.
+ *
+ * Mô phỏng: thời gian bắt tay khi mở kết nối (TCP + TLS + AUTH của provider thật), thời gian nhận 1 thư,
+ * trả lời tuỳ chọn cho RCPT (vd 450 hộp thư tạm khoá, 550 không tồn tại).
+ *
+ * Chạy riêng: java ... FakeSmtpServer [port], rồi trỏ application.mail.providers[0].host/port vào đây.
+ */
+@Slf4j
+public class FakeSmtpServer implements AutoCloseable {
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocket serverSocket;
+
+    volatile long connectLatencyMs;
+    volatile long messageLatencyMs;
+    // null = 250; vd "450 4.2.1 Mailbox busy" hoặc "550 5.1.1 No such user"
+    volatile String rcptReply;
+
+    public FakeSmtpServer start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("fake-smtp-accept").start(this::acceptLoop);
+        return this;
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public int messages() {
+        return messages.get();
+    }
+
+    public List<String> bodies() {
+        return bodies;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                sessions.execute(() -> session(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream out = socket.getOutputStream();
+            sleep(connectLatencyMs);
+            reply(out, "220 fake-smtp ESMTP ready");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-fake-smtp\r\n250-8BITMIME\r\n250 SMTPUTF8");
+                    case "HELO", "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> reply(out, rcptReply == null ? "250 OK" : rcptReply);
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder body = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            body.append(line).append('\n');
+                        }
+                        sleep(messageLatencyMs);
+                        bodies.add(body.toString());
+                        messages.incrementAndGet();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // Client đóng kết nối
+        }
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        FakeSmtpServer server = new FakeSmtpServer().start(args.length > 0 ? Integer.parseInt(args[0]) : 1025);
+        log.info("Fake SMTP listening on port {}", server.port());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,236 @@
+package com.bookingcare.notification.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import com.bookingcare.notification.channel.NotificationChannel;
+import com.bookingcare.notification.channel.NotificationSendException;
+import com.bookingcare.notification.channel.OutgoingMessage;
+import com.bookingcare.notification.entity.Notification;
+import com.bookingcare.notification.entity.NotificationKind;
+import com.bookingcare.notification.entity.NotificationStatus;
+import com.bookingcare.notification.recipient.Recipient;
+import com.bookingcare.notification.repository.BookingContactRepository;
+import com.bookingcare.notification.repository.NotificationRepository;
+import com.bookingcare.notification.template.NotificationRenderer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * NotificationDispatcher với repository giả, template thật (templates/email) và kênh ghi lại thư:
+ * - Thông báo đến hạn + thông báo mới của cùng bệnh nhân gộp thành 1 email
+ * - Link thanh toán bị bỏ khi cùng lượt booking đã có kết quả
+ * - Lỗi tạm thời hẹn giờ thử lại, hết max-attempts / lỗi vĩnh viễn thành DEAD
+ * - Chưa biết bệnh nhân (BookingCreatedEvent chưa tới) thì chờ lượt sau, không gửi
+ */
+class NotificationDispatcherTests {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private NotificationRepository notificationRepository;
+    private RecordingChannel channel;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        channel = new RecordingChannel();
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        dispatcher = new NotificationDispatcher(notificationRepository, mock(BookingContactRepository.class),
+                patientId -> patientId.startsWith("ghost") ? null
+                        : new Recipient(patientId, patientId + "@example.com", "Bệnh nhân " + patientId),
+                new NotificationRenderer(templateEngine, meterRegistry),
+                List.of(channel),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                meterRegistry, 100, 8, 120, MAX_ATTEMPTS, 1_000, 60_000, 7);
+    }
+
+    @Test
+    void coalescesNotificationsOfSamePatientIntoOneEmail() {
+        Notification succeeded = notification("B-1", "P-1", NotificationKind.PAYMENT_SUCCEEDED, 0,
+                Map.of("transactionId", "TXN_42"));
+        Notification confirmed = notification("B-1", "P-1", NotificationKind.BOOKING_CONFIRMED, 0, Map.of());
+        Notification expired = notification("B-2", "P-2", NotificationKind.HOLD_EXPIRED, 0, Map.of());
+        when(notificationRepository.claimDue(any(), any(), eq(100))).thenReturn(List.of(succeeded, expired));
+        when(notificationRepository.claimFreshForPatients(eq(Set.of("P-1", "P-2")), any(), any()))
+                .thenReturn(List.of(confirmed));
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        assertEquals(2, channel.sent.size());
+        OutgoingMessage first = channel.to("P-1@example.com");
+        assertEquals("BookingCare - 2 cập nhật về lịch khám của bạn", first.subject());
+        assertTrue(first.html().contains("Thanh toán thành công"), first.html());
+        assertTrue(first.html().contains("TXN_42"), first.html());
+        assertTrue(first.html().contains("Lịch khám đã được xác nhận"), first.html());
+        assertTrue(first.html().contains("Bệnh nhân P-1"), first.html());
+        assertEquals("BookingCare - Lịch khám đã hết thời gian giữ chỗ", channel.to("P-2@example.com").subject());
+
+        verify(notificationRepository).markDone(
+                eq(ids(succeeded, confirmed, expired)), eq(NotificationStatus.SENT), any());
+    }
+
+    @Test
+    void paymentLinkIsSupersededWhenBookingAlreadySettled() {
+        Notification link = notification("B-1", "P-1", NotificationKind.PAYMENT_LINK_CREATED, 0,
+                Map.of("checkoutUrl", "https://pay.example.com/B-1"));
+        Notification failed = notification("B-1", "P-1", NotificationKind.PAYMENT_FAILED, 0, Map.of());
+        when(notificationRepository.claimDue(any(), any(), eq(100))).thenReturn(List.of(link));
+        when(notificationRepository.claimFreshForPatients(anyCollection(), any(), any())).thenReturn(List.of(failed));
+
+        dispatcher.dispatchBatch();
+
+        assertEquals(1, channel.sent.size());
+        OutgoingMessage message = channel.sent.get(0);
+        assertEquals("BookingCare - Thanh toán không thành công", message.subject());
+        assertFalse(message.html().contains("https://pay.example.com/B-1"), message.html());
+        verify(notificationRepository).markDone(eq(ids(link)), eq(NotificationStatus.SUPERSEDED), any());
+        verify(notificationRepository).markDone(eq(ids(failed)), eq(NotificationStatus.SENT), any());
+    }
+
+    @Test
+    void paymentLinkAloneIsSentWithCheckoutUrl() {
+        Notification link = notification("B-1", "P-1", NotificationKind.PAYMENT_LINK_CREATED, 0,
+                Map.of("checkoutUrl", "https://pay.example.com/B-1"));
+        when(notificationRepository.claimDue(any(), any(), eq(100))).thenReturn(List.of(link));
+
+        dispatcher.dispatchBatch();
+
+        OutgoingMessage message = channel.sent.get(0);
+        assertTrue(message.html().contains("href=\"https://pay.example.com/B-1\""), message.html());
+        assertTrue(message.text().contains("https://pay.example.com/B-1"), message.text());
+    }
+
+    @Test
+    void transientFailureIsRetriedThenGivenUp() {
+        channel.failure = NotificationSendException.retryable("SMTP primary replied 451", null);
+        Notification fresh = notification("B-1", "P-1", NotificationKind.BOOKING_CONFIRMED, 0, Map.of());
+        Notification lastTry = notification("B-2", "P-2", NotificationKind.BOOKING_CONFIRMED, MAX_ATTEMPTS - 1, Map.of());
+        when(notificationRepository.claimDue(any(), any(), eq(100))).thenReturn(List.of(fresh, lastTry));
+
+        dispatcher.dispatchBatch();
+
+        verify(notificationRepository).reschedule(eq(ids(fresh)), any(), eq("SMTP primary replied 451"));
+        verify(notificationRepository).markDead(eq(ids(lastTry)), eq("SMTP primary replied 451"));
+        verify(notificationRepository, never()).markDone(anyCollection(), eq(NotificationStatus.SENT), any());
+        // Lần thử thứ 3 đi qua provider theo attempts của thông báo
+        assertEquals(List.of(0, MAX_ATTEMPTS - 1), channel.attempts.stream().sorted().toList());
+    }
+
+    @Test
+    void permanentFailureIsDeadImmediately() {
+        channel.failure = NotificationSendException.permanent("SMTP primary replied 550", null);
+        Notification notification = notification("B-1", "P-1", NotificationKind.BOOKING_CONFIRMED, 0, Map.of());
+        when(notificationRepository.claimDue(any(), any(), eq(100))).thenReturn(List.of(notification));
+
+        dispatcher.dispatchBatch();
+
+        verify(notificationRepository).markDead(eq(ids(notification)), eq("SMTP primary replied 550"));
+        verify(notificationRepository, never()).reschedule(anyCollection(), any(), anyString());
+    }
+
+    @Test
+    void waitsForContactAndRecipient() {
+        Notification noContact = notification("B-1", null, NotificationKind.BOOKING_CONFIRMED, 0, Map.of());
+        Notification noEmail = notification("B-2", "ghost-1", NotificationKind.BOOKING_CONFIRMED, 0, Map.of());
+        when(notificationRepository.claimDue(any(), any(), eq(100))).thenReturn(List.of(noContact, noEmail));
+
+        dispatcher.dispatchBatch();
+
+        assertTrue(channel.sent.isEmpty());
+        verify(notificationRepository).reschedule(eq(ids(noContact)), any(), eq("Booking contact not received yet"));
+        verify(notificationRepository).reschedule(eq(ids(noEmail)), any(), eq("No contact for patient ghost-1"));
+    }
+
+    @Test
+    void backoffGrowsWithJitterAndIsCapped() {
+        for (int i = 0; i < 100; i++) {
+            long first = dispatcher.backoffMillis(1);
+            assertTrue(first >= 500 && first <= 1_000, "attempt 1: " + first);
+            long third = dispatcher.backoffMillis(3);
+            assertTrue(third >= 2_000 && third <= 4_000, "attempt 3: " + third);
+            long capped = dispatcher.backoffMillis(30);
+            assertTrue(capped >= 30_000 && capped <= 60_000, "attempt 30: " + capped);
+        }
+    }
+
+    private static Notification notification(String bookingId, String patientId, NotificationKind kind, int attempts,
+                                             Map<String, String> params) {
+        return Notification.builder()
+                .id(IDS.incrementAndGet())
+                .bookingId(bookingId)
+                .patientId(patientId)
+                .kind(kind)
+                .channel("EMAIL")
+                .params(params)
+                .status(NotificationStatus.PENDING)
+                .attempts(attempts)
+                .createdAt(LocalDateTime.now().minusSeconds(5).plusNanos(IDS.get()))
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static List<Long> ids(Notification... notifications) {
+        List<Long> ids = new ArrayList<>();
+        for (Notification notification : notifications) {
+            ids.add(notification.getId());
+        }
+        return ids;
+    }
+
+    private static final class RecordingChannel implements NotificationChannel {
+        final List<OutgoingMessage> sent = new CopyOnWriteArrayList<>();
+        final List<Integer> attempts = new CopyOnWriteArrayList<>();
+        volatile NotificationSendException failure;
+
+        @Override
+        public String name() {
+            return "EMAIL";
+        }
+
+        @Override
+        public void send(OutgoingMessage message, int attempt) throws NotificationSendException {
+            attempts.add(attempt);
+            if (failure != null) {
+                throw failure;
+            }
+            sent.add(message);
+        }
+
+        OutgoingMessage to(String email) {
+            return sent.stream().filter(message -> message.to().equals(email)).findFirst().orElseThrow();
+        }
+    }
+}
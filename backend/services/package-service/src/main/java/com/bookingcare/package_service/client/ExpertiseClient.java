@@ -12,7 +12,7 @@ import com.bookingcare.package_service.dto.DoctorsResponseDTO;
 
 @FeignClient(
         name = "expertise-service",
-        url = "${application.config.expertise-url}",
+        path = "/api/v1/expertise",
         configuration = FeignConfig.class
 )
 public interface ExpertiseClient {
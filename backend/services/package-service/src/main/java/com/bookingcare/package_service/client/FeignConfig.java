@@ -2,6 +2,7 @@ package com.bookingcare.package_service.client;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -9,7 +10,15 @@ import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import jakarta.servlet.http.HttpServletRequest;
 
+import com.bookingcare.common.client.ResilientFeignConfig;
+
+/**
+ * Feign client dùng chung (common-client): pool kết nối, bulkhead, circuit breaker, retry budget.
+ * Package com.bookingcare.common không nằm trong component scan nên phải @Import ở đây;
+ * cấu hình từng service đích nằm ở application.feign.clients trong config-server.
+ */
 @Configuration
+@Import(ResilientFeignConfig.class)
 public class FeignConfig {
     @Bean
     public RequestInterceptor forwardGatewayHeaders() {
@@ -1,5 +1,8 @@
 package com.bookingcare.package_service.controller;
 
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.package_service.dto.HealthCheckPackageBatchRequest;
 import com.bookingcare.package_service.dto.HealthCheckPackageDetailResponse;
 import com.bookingcare.package_service.dto.HealthCheckPackageRequest;
 import com.bookingcare.package_service.dto.HealthCheckPackageSpecialtyLinkRequest;
@@ -18,15 +21,20 @@ import com.bookingcare.package_service.service.MedicalTaxonomyService;
 import com.bookingcare.package_service.service.PackageMedicalCommandService;
 import com.bookingcare.package_service.service.PackageMedicalService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -78,6 +86,17 @@ public class PackageServiceController {
         return ResponseEntity.ok(packageMedicalService.getPackageById(id));
     }
 
+    /**
+     * Bulk lookup used by other services (booking) to enrich many records in one round-trip.
+     * Ids that do not exist or are deleted are omitted from the result.
+     */
+    @PostMapping("/packages/batch")
+    public ResponseEntity<List<HealthCheckPackageResponse>> getPackagesByIds(
+            @Valid @RequestBody HealthCheckPackageBatchRequest request
+    ) {
+        return ResponseEntity.ok(packageMedicalService.getPackagesByIds(request.ids()));
+    }
+
       /**
      * Public endpoint to list every specific medical service.
      */
@@ -229,8 +248,31 @@ public class PackageServiceController {
      * Admin endpoint to list packages awaiting moderation.
      */
     @GetMapping("/admin/packages/pending")
-    public ResponseEntity<List<HealthCheckPackageResponse>> getPendingPackages() {
-        return ResponseEntity.ok(packageMedicalCommandService.getPendingPackages());
+    public ResponseEntity<CursorPage<HealthCheckPackageResponse>> getPendingPackages(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(packageMedicalCommandService.getPendingPackages(cursor, limit));
+    }
+
+    /**
+     * Admin endpoint to export every pending package as NDJSON (one package per line).
+     */
+    @GetMapping(value = "/admin/packages/pending/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportPendingPackages() {
+        // The body is written on an async thread: carry the caller's SecurityContext over for requireAdmin()
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        StreamingResponseBody body = out -> {
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                packageMedicalCommandService.exportPendingPackages(out);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pending-packages.ndjson\"")
+                .body(body);
     }
 
      /**
@@ -257,8 +299,11 @@ public class PackageServiceController {
      * Admin endpoint to list packages that were rejected by moderators.
      */
     @GetMapping("/admin/packages/rejected")
-    public ResponseEntity<List<HealthCheckPackageResponse>> getRejectedPackages() {
-        return ResponseEntity.ok(packageMedicalCommandService.getRejectedPackages());
+    public ResponseEntity<CursorPage<HealthCheckPackageResponse>> getRejectedPackages(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(packageMedicalCommandService.getRejectedPackages(cursor, limit));
     }
 
     // CRUD endpoints for medical services
@@ -310,8 +355,11 @@ public class PackageServiceController {
      * Admin endpoint to list services that were rejected by moderators.
      */
     @GetMapping("/admin/services/rejected")
-    public ResponseEntity<List<HealthCheckPackageResponse>> getRejectedServices() {
-        return ResponseEntity.ok(packageMedicalCommandService.getRejectedServices());
+    public ResponseEntity<CursorPage<HealthCheckPackageResponse>> getRejectedServices(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(packageMedicalCommandService.getRejectedServices(cursor, limit));
     }
 
     
@@ -0,0 +1,14 @@
+package com.bookingcare.package_service.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record HealthCheckPackageBatchRequest(
+        @NotEmpty
+        @Size(max = 500)
+        List<UUID> ids
+) {
+}
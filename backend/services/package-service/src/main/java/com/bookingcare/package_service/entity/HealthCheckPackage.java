@@ -1,7 +1,10 @@
 package com.bookingcare.package_service.entity;
 
+import com.bookingcare.package_service.kafka.CatalogChangeListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -36,6 +39,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "health_check_package")
 public class HealthCheckPackage implements Serializable {
 
@@ -1,7 +1,10 @@
 package com.bookingcare.package_service.entity;
 
+import com.bookingcare.package_service.kafka.CatalogChangeListener;
+
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.MapsId;
@@ -22,6 +25,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "health_check_package_specialty")
 public class HealthCheckPackageSpecialty implements Serializable {
 
@@ -1,7 +1,10 @@
 package com.bookingcare.package_service.entity;
 
+import com.bookingcare.package_service.kafka.CatalogChangeListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -30,6 +33,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "medical_service")
 public class MedicalService implements Serializable {
 
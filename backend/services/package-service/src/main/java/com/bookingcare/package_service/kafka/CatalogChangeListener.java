@@ -0,0 +1,68 @@
+package com.bookingcare.package_service.kafka;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentPublisher;
+import com.bookingcare.common.messaging.catalog.CatalogInvalidationPublisher;
+import com.bookingcare.package_service.entity.HealthCheckPackage;
+import com.bookingcare.package_service.entity.HealthCheckPackageSpecialty;
+import com.bookingcare.package_service.entity.MedicalService;
+import com.bookingcare.package_service.entity.PackageType;
+import com.bookingcare.package_service.entity.SpecificMedicalService;
+import com.bookingcare.package_service.entity.SpecificMedicalServiceHealthCheckPackage;
+import com.bookingcare.package_service.entity.SpecificMedicalServiceMedicalService;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Entity listener: entity catalog thay đổi -> invalidate các region cache tương ứng ở gateway.
+ * Response gói khám nhúng loại gói / dịch vụ, nên đổi các entity đó cũng invalidate "packages".
+ * Gói / loại gói / chuyên khoa của gói thay đổi -> gửi lại document PACKAGE cho search-service.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogChangeListener {
+    public static final String PACKAGES = "packages";
+    public static final String PACKAGE_TYPES = "package-types";
+    public static final String MEDICAL_SERVICES = "medical-services";
+
+    private final CatalogInvalidationPublisher catalogInvalidationPublisher;
+    private final CatalogDocumentPublisher catalogDocumentPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        catalogInvalidationPublisher.regionsChanged(regionsOf(entity));
+        catalogDocumentPublisher.documentsChanged(documentsOf(entity));
+    }
+
+    static List<String> regionsOf(Object entity) {
+        return switch (entity) {
+            case PackageType ignored -> List.of(PACKAGE_TYPES, PACKAGES);
+            case MedicalService ignored -> List.of(MEDICAL_SERVICES, PACKAGES);
+            case SpecificMedicalService ignored -> List.of(MEDICAL_SERVICES, PACKAGES);
+            case SpecificMedicalServiceMedicalService ignored -> List.of(MEDICAL_SERVICES, PACKAGES);
+            case HealthCheckPackage ignored -> List.of(PACKAGES);
+            case HealthCheckPackageSpecialty ignored -> List.of(PACKAGES);
+            case SpecificMedicalServiceHealthCheckPackage ignored -> List.of(PACKAGES);
+            default -> List.of();
+        };
+    }
+
+    static List<String> documentsOf(Object entity) {
+        return switch (entity) {
+            case PackageType packageType -> List.of(CatalogDocumentAssembler.PACKAGE_TYPE + ":" + packageType.getId());
+            case HealthCheckPackage healthCheckPackage ->
+                    List.of(CatalogDocumentEvent.PACKAGE + ":" + healthCheckPackage.getId());
+            case HealthCheckPackageSpecialty link -> List.of(CatalogDocumentEvent.PACKAGE + ":" + link.getId().getPackageId());
+            default -> List.of();
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.bookingcare.package_service.kafka;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CatalogDocumentSource;
+import com.bookingcare.package_service.entity.ApprovalStatus;
+import com.bookingcare.package_service.entity.HealthCheckPackage;
+import com.bookingcare.package_service.entity.PackageType;
+import com.bookingcare.package_service.repository.HealthCheckPackageRepository;
+import com.bookingcare.package_service.repository.HealthCheckPackageSpecialtyRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Đọc trạng thái hiện tại của các document thay đổi để CatalogDocumentPublisher gửi cho search-service.
+ *
+ * Key: PACKAGE:id, PACKAGE_TYPE:id. Đổi loại gói -> gửi lại mọi gói thuộc loại đó (document gói mang tên loại gói).
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogDocumentAssembler implements CatalogDocumentSource {
+    public static final String SOURCE = "package-service";
+    public static final String PACKAGE_TYPE = "PACKAGE_TYPE";
+
+    private final HealthCheckPackageRepository healthCheckPackageRepository;
+    private final HealthCheckPackageSpecialtyRepository healthCheckPackageSpecialtyRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CatalogDocumentEvent> assemble(Collection<String> keys) {
+        Set<UUID> packageIds = new LinkedHashSet<>();
+        for (String key : keys) {
+            int separator = key.indexOf(':');
+            String type = key.substring(0, separator);
+            UUID id = UUID.fromString(key.substring(separator + 1));
+            switch (type) {
+                case CatalogDocumentEvent.PACKAGE -> packageIds.add(id);
+                case PACKAGE_TYPE -> packageIds.addAll(healthCheckPackageRepository.findIdsByPackageTypeId(id));
+                default -> {
+                }
+            }
+        }
+
+        Instant now = Instant.now();
+        List<CatalogDocumentEvent> events = new ArrayList<>(packageIds.size());
+        for (UUID packageId : packageIds) {
+            events.add(packageDocument(packageId, now));
+        }
+        return events;
+    }
+
+    private CatalogDocumentEvent packageDocument(UUID packageId, Instant now) {
+        HealthCheckPackage healthCheckPackage = healthCheckPackageRepository.findById(packageId).orElse(null);
+        if (healthCheckPackage == null || healthCheckPackage.isDeleted()
+                || healthCheckPackage.getStatus() != ApprovalStatus.APPROVED) {
+            return new CatalogDocumentEvent(CatalogDocumentEvent.PACKAGE, packageId.toString(), SOURCE, true,
+                    null, null, null, null, null, null, null, null, null, null, now);
+        }
+
+        PackageType packageType = healthCheckPackage.getPackageType();
+        List<String> specialtyIds = healthCheckPackageSpecialtyRepository.findSpecialtyIdsByPackageId(packageId).stream()
+                .map(UUID::toString)
+                .toList();
+        // Giá gói do booking-service quản lý, không gửi ở đây
+        return new CatalogDocumentEvent(CatalogDocumentEvent.PACKAGE, packageId.toString(), SOURCE, false,
+                healthCheckPackage.getName(), healthCheckPackage.getShortPackageInfo(), healthCheckPackage.getSlug(),
+                healthCheckPackage.getImage(), List.of(), null, specialtyIds,
+                packageType == null || packageType.isDeleted() ? null : packageType.getId().toString(),
+                packageType == null || packageType.isDeleted() ? null : packageType.getName(),
+                null, now);
+    }
+}
@@ -2,11 +2,19 @@ package com.bookingcare.package_service.repository;
 
 import com.bookingcare.package_service.entity.ApprovalStatus;
 import com.bookingcare.package_service.entity.HealthCheckPackage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface HealthCheckPackageRepository extends JpaRepository<HealthCheckPackage, UUID> {
 
@@ -14,9 +22,26 @@ public interface HealthCheckPackageRepository extends JpaRepository<HealthCheckP
 
     Optional<HealthCheckPackage> findByIdAndDeletedFalse(UUID id);
 
+    List<HealthCheckPackage> findAllByIdInAndDeletedFalse(Collection<UUID> ids);
+
     List<HealthCheckPackage> findAllByStatusAndDeletedFalse(ApprovalStatus status);
 
-    List<HealthCheckPackage> findAllByStatus(ApprovalStatus status);
+    // Keyset pagination over (status, id), backed by ix_health_check_package_status_id
+    List<HealthCheckPackage> findAllByStatusAndDeletedFalseOrderByIdAsc(ApprovalStatus status, Limit limit);
+
+    List<HealthCheckPackage> findAllByStatusAndDeletedFalseAndIdGreaterThanOrderByIdAsc(
+            ApprovalStatus status, UUID afterId, Limit limit);
+
+    // Export: rows are fetched lazily by fetch size; must run inside a transaction and be closed after use
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM HealthCheckPackage p WHERE p.status = :status AND p.deleted = false ORDER BY p.id")
+    Stream<HealthCheckPackage> streamAllByStatus(@Param("status") ApprovalStatus status);
 
     List<HealthCheckPackage> findAllByManagingDoctorIdAndDeletedFalse(String managingDoctorId);
+
+    @Query("SELECT p.id FROM HealthCheckPackage p WHERE p.packageType.id = :packageTypeId")
+    List<UUID> findIdsByPackageTypeId(@Param("packageTypeId") UUID packageTypeId);
 }
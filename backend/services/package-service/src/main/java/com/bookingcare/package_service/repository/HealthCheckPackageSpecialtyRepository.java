@@ -4,6 +4,8 @@ import com.bookingcare.package_service.entity.HealthCheckPackage;
 import com.bookingcare.package_service.entity.HealthCheckPackageSpecialty;
 import com.bookingcare.package_service.entity.HealthCheckPackageSpecialtyId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
@@ -13,4 +15,7 @@ public interface HealthCheckPackageSpecialtyRepository extends JpaRepository<Hea
     List<HealthCheckPackageSpecialty> findAllByHealthCheckPackage(HealthCheckPackage healthCheckPackage);
 
     List<HealthCheckPackageSpecialty> findAllByIdSpecialtyId(UUID specialtyId);
+
+    @Query("SELECT l.id.specialtyId FROM HealthCheckPackageSpecialty l WHERE l.id.packageId = :packageId")
+    List<UUID> findSpecialtyIdsByPackageId(@Param("packageId") UUID packageId);
 }
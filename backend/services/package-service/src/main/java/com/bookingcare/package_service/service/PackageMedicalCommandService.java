@@ -1,5 +1,8 @@
 package com.bookingcare.package_service.service;
 
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.common.pagination.PageCursor;
 import com.bookingcare.package_service.client.ExpertiseClient;
 import com.bookingcare.package_service.dto.DoctorsResponseDTO;
 import com.bookingcare.package_service.dto.HealthCheckPackageRequest;
@@ -25,14 +28,20 @@ import com.bookingcare.package_service.repository.PackageTypeRepository;
 import com.bookingcare.package_service.repository.SpecificMedicalServiceHealthCheckPackageRepository;
 import com.bookingcare.package_service.repository.SpecificMedicalServiceRepository;
 import com.bookingcare.package_service.security.CurrentUserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -47,6 +56,8 @@ public class PackageMedicalCommandService {
     private final PackageServiceMapper packageServiceMapper;
     private final CurrentUserService currentUserService;
     private final ExpertiseClient expertiseClient;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     /**
      * Create a draft health-check package owned by the current doctor.
@@ -148,36 +159,49 @@ public class PackageMedicalCommandService {
      * List every pending package for admins.
      */
     @Transactional(readOnly = true)
-    public List<HealthCheckPackageResponse> getPendingPackages() {
+    public CursorPage<HealthCheckPackageResponse> getPendingPackages(String cursor, Integer limit) {
         requireAdmin();
-        return listByStatus(ApprovalStatus.PENDING);
+        return listByStatus(ApprovalStatus.PENDING, cursor, limit);
+    }
+
+    /**
+     * Stream every pending package to the given output as NDJSON, in constant memory.
+     */
+    @Transactional(readOnly = true)
+    public long exportPendingPackages(OutputStream out) throws IOException {
+        requireAdmin();
+        try (Stream<HealthCheckPackage> packages = healthCheckPackageRepository.streamAllByStatus(ApprovalStatus.PENDING)) {
+            // Clearing the persistence context per batch keeps already-written entities from piling up
+            return NdjsonWriter.write(packages.map(packageServiceMapper::toHealthCheckPackageResponse), out,
+                    objectMapper, entityManager::clear);
+        }
     }
 
     /**
      * Alias for getPendingPackages maintained for API symmetry.
      */
     @Transactional(readOnly = true)
-    public List<HealthCheckPackageResponse> getPendingServices() {
+    public CursorPage<HealthCheckPackageResponse> getPendingServices(String cursor, Integer limit) {
         requireAdmin();
-        return listByStatus(ApprovalStatus.PENDING);
+        return listByStatus(ApprovalStatus.PENDING, cursor, limit);
     }
 
     /**
      * List every rejected package for admins.
      */
     @Transactional(readOnly = true)
-    public List<HealthCheckPackageResponse> getRejectedPackages() {
+    public CursorPage<HealthCheckPackageResponse> getRejectedPackages(String cursor, Integer limit) {
         requireAdmin();
-        return listByStatus(ApprovalStatus.REJECTED);
+        return listByStatus(ApprovalStatus.REJECTED, cursor, limit);
     }
 
     /**
      * Alias for getRejectedPackages maintained for API symmetry.
      */
     @Transactional(readOnly = true)
-    public List<HealthCheckPackageResponse> getRejectedServices() {
+    public CursorPage<HealthCheckPackageResponse> getRejectedServices(String cursor, Integer limit) {
         requireAdmin();
-        return listByStatus(ApprovalStatus.REJECTED);
+        return listByStatus(ApprovalStatus.REJECTED, cursor, limit);
     }
 
     /**
@@ -337,14 +361,19 @@ public class PackageMedicalCommandService {
     }
 
     /**
-     * List packages for admins filtered by the provided status while skipping deleted ones.
+     * Keyset page of packages for admins filtered by the provided status while skipping deleted ones.
      */
-    private List<HealthCheckPackageResponse> listByStatus(ApprovalStatus status) {
-        return healthCheckPackageRepository.findAllByStatus(status)
-                .stream()
-                .filter(pkg -> !pkg.isDeleted())
-                .map(packageServiceMapper::toHealthCheckPackageResponse)
-                .toList();
+    private CursorPage<HealthCheckPackageResponse> listByStatus(ApprovalStatus status, String cursor, Integer limit) {
+        int pageSize = PageCursor.clampLimit(limit);
+        String afterId = PageCursor.decode(cursor);
+
+        // Fetch one extra row to know whether another page exists
+        List<HealthCheckPackage> packages = afterId == null
+                ? healthCheckPackageRepository.findAllByStatusAndDeletedFalseOrderByIdAsc(status, Limit.of(pageSize + 1))
+                : healthCheckPackageRepository.findAllByStatusAndDeletedFalseAndIdGreaterThanOrderByIdAsc(
+                        status, UUID.fromString(afterId), Limit.of(pageSize + 1));
+        return CursorPage.of(packages, pageSize, pkg -> pkg.getId().toString(),
+                packageServiceMapper::toHealthCheckPackageResponse);
     }
 
     /**
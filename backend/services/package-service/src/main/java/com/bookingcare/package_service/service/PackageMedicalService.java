@@ -20,6 +20,7 @@ import com.bookingcare.package_service.repository.SpecificMedicalServiceMedicalS
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -148,4 +149,15 @@ public class PackageMedicalService {
 
         return packageServiceMapper.toHealthCheckPackageResponse(healthCheckPackage);
     }
+
+    /**
+     * Bulk lookup for cross-service enrichment: one query for all ids, missing or deleted ids are skipped.
+     */
+    public List<HealthCheckPackageResponse> getPackagesByIds(Collection<UUID> ids) {
+        return healthCheckPackageRepository
+                .findAllByIdInAndDeletedFalse(ids)
+                .stream()
+                .map(packageServiceMapper::toHealthCheckPackageResponse)
+                .toList();
+    }
 }
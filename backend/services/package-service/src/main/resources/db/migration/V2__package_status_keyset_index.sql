@@ -0,0 +1,7 @@
+-- ================================================
+-- Keyset pagination of moderation lists (pending / rejected):
+-- WHERE status = ? AND is_deleted = FALSE AND id > ? ORDER BY id LIMIT n
+-- ================================================
+CREATE INDEX IF NOT EXISTS ix_health_check_package_status_id
+  ON health_check_package (status, id)
+  WHERE is_deleted = FALSE;
@@ -16,10 +16,15 @@ public class ApplicationConfig {
     @Bean
     public PayOS payOS() {
         // Sử dụng builder để khởi tạo
-        return new PayOS(ClientOptions.builder()
+        ClientOptions.ClientOptionsBuilder options = ClientOptions.builder()
                 .clientId(payOSConfig.getClientId())
                 .apiKey(payOSConfig.getApiKey())
                 .checksumKey(payOSConfig.getChecksumKey())
-                .build());
+                .timeoutMs(payOSConfig.getTimeoutMs())
+                .maxRetries(payOSConfig.getMaxRetries());
+        if (payOSConfig.getBaseUrl() != null && !payOSConfig.getBaseUrl().isBlank()) {
+            options.baseURL(payOSConfig.getBaseUrl());
+        }
+        return new PayOS(options.build());
     }
 }
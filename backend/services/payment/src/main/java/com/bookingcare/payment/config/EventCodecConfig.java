@@ -0,0 +1,26 @@
+package com.bookingcare.payment.config;
+
+import com.bookingcare.common.messaging.codec.EventCodecConfiguration;
+import com.bookingcare.common.messaging.codec.EventSchemaRegistry;
+import com.bookingcare.payment.dto.event.PaymentFailedEvent;
+import com.bookingcare.payment.dto.event.PaymentLinkCreatedEvent;
+import com.bookingcare.payment.dto.event.PaymentRequestedEvent;
+import com.bookingcare.payment.dto.event.PaymentSucceededEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import(EventCodecConfiguration.class)
+public class EventCodecConfig {
+
+    // Các event payment-service gửi đi hoặc nhận vào
+    @Bean
+    public EventSchemaRegistry eventSchemaRegistry() {
+        return new EventSchemaRegistry()
+                .register(PaymentRequestedEvent.class)
+                .register(PaymentLinkCreatedEvent.class)
+                .register(PaymentSucceededEvent.class)
+                .register(PaymentFailedEvent.class);
+    }
+}
@@ -0,0 +1,20 @@
+package com.bookingcare.payment.config;
+
+import com.bookingcare.payment.ordercode.OrderCodeGenerator;
+import com.bookingcare.payment.ordercode.OrderCodeWorkerLease;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OrderCodeConfig {
+
+    @Bean
+    public OrderCodeGenerator orderCodeGenerator(OrderCodeWorkerLease orderCodeWorkerLease,
+                                                 @Value("${application.order-code.block-size:16}") int blockSize,
+                                                 @Value("${application.order-code.max-drift-ms:1000}") long maxDriftMs,
+                                                 @Value("${application.order-code.max-wait-ms:2000}") long maxWaitMs) {
+        return new OrderCodeGenerator(orderCodeWorkerLease::currentWorkerId, System::currentTimeMillis,
+                blockSize, maxDriftMs, maxWaitMs);
+    }
+}
@@ -14,6 +14,12 @@ public class PayOSConfig {
     private String apiKey;
     private String checksumKey;
 
+    // Để trống = https://api-merchant.payos.vn (đổi sang stub khi test tải)
+    private String baseUrl;
+    private int timeoutMs = 10_000;
+    // Retry đi qua hàng đợi payment_link_requests, SDK không tự retry
+    private int maxRetries = 0;
+
     // Lưu ý: Spring Boot tự động map "client-id" (YAML)
     //        thành "clientId" (Java camelCase)
 }
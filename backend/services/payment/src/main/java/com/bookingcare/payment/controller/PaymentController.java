@@ -1,5 +1,7 @@
 package com.bookingcare.payment.controller;
 
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
 import com.bookingcare.payment.dto.CreatePaymentLinkRequestBody;
 import com.bookingcare.payment.dto.PaymentRequestCreate;
 import com.bookingcare.payment.dto.PaymentResponseDTO;
@@ -7,14 +9,14 @@ import com.bookingcare.payment.dto.PaymentStatusUpdateRequest;
 import com.bookingcare.payment.dto.common.ApiResponse;
 import com.bookingcare.payment.service.interfaceService.PaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
 
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/payments")
@@ -28,13 +30,21 @@ public class PaymentController {
     //     PaymentResponseDTO response = paymentService.CreatePaymentAsync(request);
     //     return ResponseEntity.status(HttpStatus.CREATED).body(response);
     // }
+    // Phân trang keyset: truyền lại nextCursor của trang trước, limit mặc định 50, tối đa 500
     @GetMapping
-    public ResponseEntity<List<PaymentResponseDTO>> getAllPayments() {
-        // 1. Gọi service để lấy danh sách
-        List<PaymentResponseDTO> responseList = paymentService.GetAllPaymentsAsync();
+    public ResponseEntity<CursorPage<PaymentResponseDTO>> getAllPayments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(paymentService.GetAllPaymentsAsync(cursor, limit));
+    }
 
-        // 2. Trả về 200 OK cùng với danh sách
-        return ResponseEntity.ok(responseList);
+    // Export toàn bộ payment dạng NDJSON, stream thẳng từ DB ra response
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportPayments() {
+        StreamingResponseBody body = paymentService::ExportAllPaymentsAsync;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments.ndjson\"")
+                .body(body);
     }
 
     @GetMapping("/{id}")
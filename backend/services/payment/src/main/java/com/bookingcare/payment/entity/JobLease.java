@@ -0,0 +1,23 @@
+package com.bookingcare.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "job_leases")
+public class JobLease {
+    @Id
+    @Column(name = "name")
+    private String name;
+    @Column(name = "owner")
+    private String owner;
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
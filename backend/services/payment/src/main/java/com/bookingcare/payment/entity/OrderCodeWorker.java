@@ -0,0 +1,23 @@
+package com.bookingcare.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "order_code_workers")
+public class OrderCodeWorker {
+    @Id
+    @Column(name = "worker_id")
+    private Integer workerId;
+    @Column(name = "owner")
+    private String owner;
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,41 @@
+package com.bookingcare.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "payment_link_requests")
+public class PaymentLinkRequest {
+    @Id
+    @Column(name = "booking_id")
+    private String bookingId;
+    @Column(name = "order_code", nullable = false, unique = true)
+    private long orderCode;
+    @Column(name = "amount", nullable = false)
+    private long amount;
+    @Column(name = "description", nullable = false)
+    private String description;
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+    @Column(name = "return_url")
+    private String returnUrl;
+    @Column(name = "cancel_url")
+    private String cancelUrl;
+    @Column(name = "correlation_id")
+    private String correlationId;
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(name = "last_error")
+    private String lastError;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
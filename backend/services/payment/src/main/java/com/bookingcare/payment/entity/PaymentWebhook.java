@@ -0,0 +1,39 @@
+package com.bookingcare.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "payment_webhook_inbox")
+public class PaymentWebhook {
+    @Id
+    @Column(name = "order_code")
+    private long orderCode;
+    @Column(name = "code", nullable = false)
+    private String code;
+    @Column(name = "description")
+    private String description;
+    @Column(name = "amount")
+    private Long amount;
+    @Column(name = "reference")
+    private String reference;
+    @Column(name = "transaction_date_time")
+    private String transactionDateTime;
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    @Column(name = "last_error")
+    private String lastError;
+}
@@ -4,5 +4,7 @@ public enum Status {
     PENDING,
     COMPLETED,
     FAILED,
-    CANCELLED
+    CANCELLED,
+    // Webhook không áp dụng được sau max-attempts lần: cần kiểm tra tay, reconciler không tự chuyển
+    RECONCILE_REQUIRED
 }
@@ -0,0 +1,35 @@
+package com.bookingcare.payment.kafka.listener;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.KafkaBatchListenerConfig;
+import com.bookingcare.common.messaging.KeyedBatchProcessor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batch mode của PaymentEventListener. Mỗi message vẫn đi qua method
+ * transaction của PaymentEventListener nên DB commit trước khi offset được commit.
+ */
+@Component
+@ConditionalOnProperty(name = KafkaBatchListenerConfig.ENABLED_PROPERTY, havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentEventBatchListener {
+
+    private final PaymentEventListener paymentEventListener;
+    private final KeyedBatchProcessor keyedBatchProcessor;
+
+    @KafkaListener(topics = "payment-commands", groupId = "payment-group",
+            containerFactory = KafkaBatchListenerConfig.BATCH_CONTAINER_FACTORY)
+    public void handlePaymentCommands(List<ConsumerRecord<String, byte[]>> records) {
+        log.info("Payment received payment-commands batch: size={}", records.size());
+        keyedBatchProcessor.process(records, paymentEventListener::handlePaymentCommands);
+    }
+}
@@ -0,0 +1,36 @@
+package com.bookingcare.payment.kafka.outbox;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+import com.bookingcare.common.messaging.outbox.OutboxEventStore;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ghi event của payment-service vào outbox_events trong transaction hiện tại;
+ * OutboxRelay gửi lên topic payment-events sau khi transaction commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentEventOutbox {
+    public static final String TOPIC = "payment-events";
+    private static final String SOURCE = "payment-service";
+
+    private final OutboxEventStore outboxEventStore;
+    private final EventEnvelopeCodec eventEnvelopeCodec;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String eventType, String aggregateId, String correlationId, Object payload) {
+        EventEnvelope<Object> envelope = EventEnvelope.of(eventType, aggregateId, correlationId, SOURCE, payload);
+        byte[] encoded = eventEnvelopeCodec.encode(envelope);
+        outboxEventStore.append(TOPIC, aggregateId, eventType, encoded);
+        log.debug("Queued {} for {} in outbox: {} bytes ({})",
+                eventType, aggregateId, encoded.length, eventEnvelopeCodec.writeFormat());
+    }
+}
@@ -0,0 +1,7 @@
+package com.bookingcare.payment.link;
+
+/**
+ * Link thanh toán PayOS đã có cho 1 yêu cầu: vừa tạo, hoặc lấy lại link cũ khi orderCode đã tồn tại (reused).
+ */
+record CreatedLink(String paymentLinkId, String checkoutUrl, boolean reused) {
+}
@@ -0,0 +1,180 @@
+package com.bookingcare.payment.link;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.client.FeignResilienceProperties;
+import com.bookingcare.common.client.TargetGuard;
+import com.bookingcare.payment.entity.PaymentLinkRequest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import vn.payos.PayOS;
+import vn.payos.exception.APIException;
+import vn.payos.exception.ConnectionTimeoutException;
+import vn.payos.exception.InternalServerException;
+import vn.payos.exception.InvalidSignatureException;
+import vn.payos.exception.TooManyRequestsException;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.v2.paymentRequests.PaymentLinkItem;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+
+/**
+ * Gọi PayOS tạo link thanh toán sau bulkhead + circuit breaker (TargetGuard của common-client), phân loại lỗi cho dispatcher.
+ *
+ * - Timeout, mất kết nối, 429, 5xx: lỗi tạm thời, tính vào circuit breaker, được retry.
+ * - PayOS từ chối request (code khác "00", 4xx): lỗi nghiệp vụ, không retry, không tính vào circuit breaker.
+ * - Mã 231 (orderCode đã tồn tại): lần thử trước đã tạo link nhưng không nhận được response,
+ *   lấy lại link đó thay vì tạo link thứ 2 cho cùng booking.
+ *
+ * Metrics: payos.requests{operation, outcome} (histogram latency), payos.link.in-flight, payos.circuit.open.
+ */
+@Component
+@Slf4j
+public class PayOSLinkClient {
+    static final String ORDER_EXISTS = "231";
+    private static final Set<PaymentLinkStatus> REUSABLE_STATUSES =
+            Set.of(PaymentLinkStatus.PENDING, PaymentLinkStatus.PROCESSING, PaymentLinkStatus.PAID);
+
+    private final PayOS payOS;
+    private final TargetGuard guard;
+    private final String checkoutBaseUrl;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public PayOSLinkClient(PayOS payOS,
+                           MeterRegistry meterRegistry,
+                           @Value("${application.payment-link.max-concurrent:32}") int maxConcurrent,
+                           @Value("${application.payment-link.circuit.sliding-window:20}") int slidingWindow,
+                           @Value("${application.payment-link.circuit.minimum-calls:10}") int minimumCalls,
+                           @Value("${application.payment-link.circuit.failure-rate-percent:50}") int failureRatePercent,
+                           @Value("${application.payment-link.circuit.open-seconds:15}") long openSeconds,
+                           @Value("${payos.checkout-base-url:https://pay.payos.vn/web/}") String checkoutBaseUrl) {
+        this.payOS = payOS;
+        this.meterRegistry = meterRegistry;
+        this.checkoutBaseUrl = checkoutBaseUrl;
+        // Không chờ bulkhead, không retry ở đây: retry đi qua hàng đợi payment_link_requests (PaymentLinkDispatcher)
+        this.guard = new TargetGuard(new FeignResilienceProperties.Target(maxConcurrent, 0, slidingWindow,
+                minimumCalls, failureRatePercent, openSeconds, 1, 0, 0));
+
+        Gauge.builder("payos.link.in-flight", guard, TargetGuard::inFlight)
+                .description("PayOS payment link calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("payos.circuit.open", guard, value -> value.state() == TargetGuard.State.CLOSED ? 0 : 1)
+                .description("1 while the PayOS circuit breaker is open or half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return số chỗ lấy được trong bulkhead (tối đa max), mỗi chỗ trả lại bằng exitBulkhead()
+     */
+    int tryEnterBulkhead(int max) {
+        return guard.tryEnterBulkhead(max);
+    }
+
+    void exitBulkhead(int permits) {
+        guard.exitBulkhead(permits);
+    }
+
+    /**
+     * @return thời gian (ms) circuit breaker còn mở, 0 nếu được gọi PayOS
+     */
+    long circuitOpenMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(guard.remainingOpenNanos(System.nanoTime()));
+    }
+
+    CreatedLink create(PaymentLinkRequest request) throws PaymentLinkException {
+        long now = System.nanoTime();
+        if (!guard.tryAcquirePermission(now)) {
+            record("create", "REJECTED", now);
+            throw PaymentLinkException.rejected(TimeUnit.NANOSECONDS.toMillis(guard.remainingOpenNanos(now)));
+        }
+
+        long start = System.nanoTime();
+        try {
+            CreatePaymentLinkResponse response = payOS.paymentRequests().create(toPayOSRequest(request));
+            onResult(false, "create", "SUCCESS", start);
+            return new CreatedLink(response.getPaymentLinkId(), response.getCheckoutUrl(), false);
+        } catch (APIException e) {
+            if (ORDER_EXISTS.equals(e.getErrorCode().orElse(null))) {
+                onResult(false, "create", "EXISTS", start);
+                return existingLink(request);
+            }
+            if (e instanceof TooManyRequestsException || e instanceof InternalServerException
+                    || e.getStatusCode().orElse(0) >= 500) {
+                onResult(true, "create", "SERVER_ERROR", start);
+                throw PaymentLinkException.retryable("PayOS error: " + e.getMessage(), e);
+            }
+            onResult(false, "create", "REJECTED_BY_PAYOS", start);
+            throw PaymentLinkException.permanent("PayOS rejected payment link: "
+                    + e.getErrorCode().orElse("?") + " " + e.getErrorDesc().orElse(e.getMessage()), e);
+        } catch (ConnectionTimeoutException e) {
+            onResult(true, "create", "TIMEOUT", start);
+            throw PaymentLinkException.retryable("PayOS timeout: " + e.getMessage(), e);
+        } catch (InvalidSignatureException e) {
+            onResult(true, "create", "INVALID_SIGNATURE", start);
+            throw PaymentLinkException.permanent("PayOS response signature mismatch", e);
+        } catch (RuntimeException e) {
+            onResult(true, "create", "IO_ERROR", start);
+            throw PaymentLinkException.retryable("PayOS call failed: " + e.getMessage(), e);
+        }
+    }
+
+    private CreatedLink existingLink(PaymentLinkRequest request) throws PaymentLinkException {
+        long start = System.nanoTime();
+        PaymentLink link;
+        try {
+            link = payOS.paymentRequests().get(request.getOrderCode());
+            record("get", "SUCCESS", start);
+        } catch (RuntimeException e) {
+            record("get", "ERROR", start);
+            throw PaymentLinkException.retryable("PayOS lookup of existing order failed: " + e.getMessage(), e);
+        }
+
+        if (!REUSABLE_STATUSES.contains(link.getStatus())) {
+            throw PaymentLinkException.permanent("Existing PayOS payment link is " + link.getStatus(), null);
+        }
+        log.info("Reusing PayOS payment link {} for orderCode {}", link.getId(), request.getOrderCode());
+        return new CreatedLink(link.getId(), checkoutBaseUrl + link.getId(), true);
+    }
+
+    private static CreatePaymentLinkRequest toPayOSRequest(PaymentLinkRequest request) {
+        PaymentLinkItem item = PaymentLinkItem.builder()
+                .name(request.getProductName())
+                .quantity(1)
+                .price(request.getAmount())
+                .build();
+
+        return CreatePaymentLinkRequest.builder()
+                .orderCode(request.getOrderCode())
+                .description(request.getDescription())
+                .amount(request.getAmount())
+                .item(item)
+                .returnUrl(request.getReturnUrl())
+                .cancelUrl(request.getCancelUrl())
+                .build();
+    }
+
+    private void onResult(boolean failed, String operation, String outcome, long start) {
+        guard.onResult(failed, System.nanoTime());
+        record(operation, outcome, start);
+    }
+
+    private void record(String operation, String outcome, long start) {
+        timers.computeIfAbsent(operation + ":" + outcome, key -> Timer.builder("payos.requests")
+                        .description("PayOS API calls made by the payment link pipeline")
+                        .tags("operation", operation, "outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
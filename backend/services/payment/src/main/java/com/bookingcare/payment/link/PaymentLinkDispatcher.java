@@ -0,0 +1,265 @@
+package com.bookingcare.payment.link;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.payment.dto.event.PaymentFailedEvent;
+import com.bookingcare.payment.dto.event.PaymentLinkCreatedEvent;
+import com.bookingcare.payment.entity.Payment;
+import com.bookingcare.payment.entity.PaymentLinkRequest;
+import com.bookingcare.payment.entity.Status;
+import com.bookingcare.payment.kafka.outbox.PaymentEventOutbox;
+import com.bookingcare.payment.repository.PaymentLinkRequestRepository;
+import com.bookingcare.payment.repository.PaymentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+/**
+ * Lấy yêu cầu tạo link đến hạn trong payment_link_requests và gọi PayOS trên virtual thread.
+ *
+ * - Chỉ lấy đúng số chỗ còn trống trong bulkhead (FOR UPDATE SKIP LOCKED, nhiều replica không lấy trùng),
+ *   circuit breaker đang mở thì không lấy gì: yêu cầu nằm lại trong hàng đợi.
+ * - Lúc lấy ra, next_attempt_at bị đẩy tới hết in-flight-lease: replica chết giữa chừng thì yêu cầu tự đến hạn lại.
+ * - Thành công: lưu Payment PENDING + PaymentLinkCreatedEvent vào outbox, xoá yêu cầu (cùng 1 transaction).
+ * - Lỗi tạm thời: thử lại sau backoff luỹ thừa có jitter; hết max-attempts hoặc lỗi nghiệp vụ: PaymentFailedEvent.
+ *
+ * Metrics: payment.link.created / retried / failed, payment.link.latency (từ lúc nhận lệnh tới khi có link).
+ */
+@Component
+@Slf4j
+public class PaymentLinkDispatcher implements DisposableBean {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final PaymentLinkRequestRepository paymentLinkRequestRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentEventOutbox paymentEventOutbox;
+    private final PayOSLinkClient payOSLinkClient;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final Duration inFlightLease;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("payos-link-", 0).factory());
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    private final Counter createdCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer linkLatency;
+
+    public PaymentLinkDispatcher(PaymentLinkRequestRepository paymentLinkRequestRepository,
+                                 PaymentRepository paymentRepository,
+                                 PaymentEventOutbox paymentEventOutbox,
+                                 PayOSLinkClient payOSLinkClient,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${application.payment-link.batch-size:32}") int batchSize,
+                                 @Value("${application.payment-link.in-flight-lease-seconds:60}") long inFlightLeaseSeconds,
+                                 @Value("${application.payment-link.max-attempts:6}") int maxAttempts,
+                                 @Value("${application.payment-link.backoff.base-ms:1000}") long backoffBaseMs,
+                                 @Value("${application.payment-link.backoff.max-ms:60000}") long backoffMaxMs) {
+        this.paymentLinkRequestRepository = paymentLinkRequestRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentEventOutbox = paymentEventOutbox;
+        this.payOSLinkClient = payOSLinkClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.inFlightLease = Duration.ofSeconds(inFlightLeaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+
+        this.createdCounter = Counter.builder("payment.link.created")
+                .description("Payment links created and queued as PaymentLinkCreatedEvent")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("payment.link.retried")
+                .description("Payment link requests rescheduled after a transient PayOS failure")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("payment.link.failed")
+                .description("Payment link requests given up and queued as PaymentFailedEvent")
+                .register(meterRegistry);
+        this.linkLatency = Timer.builder("payment.link.latency")
+                .description("Time from payment command to created payment link")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.payment-link.poll-interval-ms:200}")
+    public void poll() {
+        dispatch();
+    }
+
+    /**
+     * Có yêu cầu mới vừa commit: lấy việc ngay trên virtual thread, gộp nhiều lần đánh thức liên tiếp.
+     */
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            workers.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    void dispatch() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (payOSLinkClient.circuitOpenMillis() == 0) {
+                int permits = payOSLinkClient.tryEnterBulkhead(batchSize);
+                if (permits == 0) {
+                    return;
+                }
+
+                List<PaymentLinkRequest> claimed;
+                try {
+                    claimed = transactionTemplate.execute(status -> claim(permits));
+                } catch (RuntimeException e) {
+                    payOSLinkClient.exitBulkhead(permits);
+                    throw e;
+                }
+                payOSLinkClient.exitBulkhead(permits - claimed.size());
+
+                for (PaymentLinkRequest request : claimed) {
+                    workers.execute(() -> process(request));
+                }
+                if (claimed.size() < permits) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Payment link dispatch failed", e);
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    private List<PaymentLinkRequest> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentLinkRequest> due = paymentLinkRequestRepository.claimDue(now, limit);
+        for (PaymentLinkRequest request : due) {
+            request.setNextAttemptAt(now.plus(inFlightLease));
+        }
+        return due;
+    }
+
+    private void process(PaymentLinkRequest request) {
+        try {
+            CreatedLink link = payOSLinkClient.create(request);
+            transactionTemplate.executeWithoutResult(status -> complete(request, link));
+        } catch (PaymentLinkException e) {
+            transactionTemplate.executeWithoutResult(status -> onFailure(request, e));
+        } catch (Exception e) {
+            // Lỗi DB: yêu cầu đến hạn lại sau in-flight-lease
+            log.error("Payment link request {} failed outside PayOS call", request.getBookingId(), e);
+        } finally {
+            payOSLinkClient.exitBulkhead(1);
+        }
+    }
+
+    private void complete(PaymentLinkRequest request, CreatedLink link) {
+        if (paymentLinkRequestRepository.deleteByBookingId(request.getBookingId()) == 0) {
+            log.info("Payment link for booking {} was already completed by another dispatcher", request.getBookingId());
+            return;
+        }
+
+        Payment payment = paymentRepository.save(Payment.builder()
+                .bookingId(request.getBookingId())
+                .orderCode(request.getOrderCode())
+                .amount(request.getAmount())
+                .description(request.getDescription())
+                .status(Status.PENDING)
+                .paymentDate(LocalDateTime.now())
+                .build());
+
+        paymentEventOutbox.append("PaymentLinkCreatedEvent", request.getBookingId(), request.getCorrelationId(),
+                PaymentLinkCreatedEvent.builder()
+                        .bookingId(request.getBookingId())
+                        .checkoutUrl(link.checkoutUrl())
+                        .orderCode(request.getOrderCode())
+                        .build());
+
+        createdCounter.increment();
+        linkLatency.record(Duration.between(request.getCreatedAt(), LocalDateTime.now()));
+        log.info("Payment link created: bookingId={}, paymentId={}, orderCode={}, attempts={}, reused={}",
+                request.getBookingId(), payment.getId(), request.getOrderCode(), request.getAttempts() + 1, link.reused());
+    }
+
+    private void onFailure(PaymentLinkRequest request, PaymentLinkException e) {
+        if (e.rejected()) {
+            // Circuit breaker mở: PayOS chưa được gọi, không tính là 1 lần thử
+            paymentLinkRequestRepository.reschedule(request.getBookingId(), request.getAttempts(),
+                    LocalDateTime.now().plus(Duration.ofMillis(Math.max(e.retryAfterMillis(), backoffBaseMs))),
+                    truncate(e.getMessage()));
+            return;
+        }
+
+        int attempts = request.getAttempts() + 1;
+        if (e.retryable() && attempts < maxAttempts) {
+            long delayMs = backoffMillis(attempts, e.retryAfterMillis());
+            paymentLinkRequestRepository.reschedule(request.getBookingId(), attempts,
+                    LocalDateTime.now().plus(Duration.ofMillis(delayMs)), truncate(e.getMessage()));
+            retriedCounter.increment();
+            log.warn("Payment link for booking {} failed (attempt {}/{}), retrying in {} ms: {}",
+                    request.getBookingId(), attempts, maxAttempts, delayMs, e.getMessage());
+            return;
+        }
+
+        if (paymentLinkRequestRepository.deleteByBookingId(request.getBookingId()) == 0) {
+            return;
+        }
+        paymentEventOutbox.append("PaymentFailedEvent", request.getBookingId(), request.getCorrelationId(),
+                PaymentFailedEvent.builder()
+                        .bookingId(request.getBookingId())
+                        .reason("PayOS API error: " + e.getMessage())
+                        .build());
+        failedCounter.increment();
+        log.error("Payment link for booking {} failed after {} attempt(s): {}",
+                request.getBookingId(), attempts, e.getMessage());
+    }
+
+    /**
+     * Backoff luỹ thừa, jitter nửa trên: [cap/2, cap] với cap = min(max, base * 2^(attempts-1)),
+     * để các yêu cầu lỗi cùng lúc (PayOS chập chờn) không cùng quay lại 1 thời điểm.
+     */
+    long backoffMillis(int attempts, long retryAfterMillis) {
+        long cap = backoffBaseMs << Math.min(attempts - 1, 20);
+        cap = Math.min(backoffMaxMs, cap);
+        long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+        return Math.max(delay, retryAfterMillis);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        // Yêu cầu chưa xong được dispatcher khác lấy lại sau in-flight-lease
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private static String truncate(String message) {
+        String value = String.valueOf(message);
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
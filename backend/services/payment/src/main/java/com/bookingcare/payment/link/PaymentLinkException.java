@@ -0,0 +1,44 @@
+package com.bookingcare.payment.link;
+
+/**
+ * Lần gọi PayOS tạo link không thành công.
+ *
+ * - retryable: lỗi tạm thời (timeout, mất kết nối, 429, 5xx) -> dispatcher hẹn giờ thử lại
+ * - rejected: circuit breaker đang mở, PayOS chưa được gọi -> không tính vào số lần thử
+ */
+class PaymentLinkException extends Exception {
+    private final boolean retryable;
+    private final boolean rejected;
+    private final long retryAfterMillis;
+
+    PaymentLinkException(String message, boolean retryable, boolean rejected, long retryAfterMillis, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+        this.rejected = rejected;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    static PaymentLinkException rejected(long retryAfterMillis) {
+        return new PaymentLinkException("PayOS circuit breaker is open", true, true, retryAfterMillis, null);
+    }
+
+    static PaymentLinkException retryable(String message, Throwable cause) {
+        return new PaymentLinkException(message, true, false, 0, cause);
+    }
+
+    static PaymentLinkException permanent(String message, Throwable cause) {
+        return new PaymentLinkException(message, false, false, 0, cause);
+    }
+
+    boolean retryable() {
+        return retryable;
+    }
+
+    boolean rejected() {
+        return rejected;
+    }
+
+    long retryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookingcare.payment.link;
+
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bookingcare.payment.entity.PaymentLinkRequest;
+import com.bookingcare.payment.ordercode.OrderCodeGenerator;
+import com.bookingcare.payment.repository.PaymentLinkRequestRepository;
+import com.bookingcare.payment.repository.PaymentRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ghi yêu cầu tạo link PayOS vào payment_link_requests trong transaction của consumer,
+ * rồi đánh thức PaymentLinkDispatcher sau khi commit (không chờ tới lần poll kế tiếp).
+ *
+ * orderCode được cấp 1 lần ở đây: mọi lần retry gửi cùng orderCode nên PayOS không tạo 2 link cho 1 booking.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentLinkQueue {
+    private final PaymentLinkRequestRepository paymentLinkRequestRepository;
+    private final PaymentRepository paymentRepository;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final PaymentLinkDispatcher paymentLinkDispatcher;
+
+    /**
+     * @return false nếu booking đã có yêu cầu đang chờ hoặc đã có payment (lệnh lặp từ booking-service)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean enqueue(String bookingId, long amount, String description, String productName,
+                           String returnUrl, String cancelUrl, String correlationId) {
+        if (paymentLinkRequestRepository.existsById(bookingId) || paymentRepository.findByBookingId(bookingId).isPresent()) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        paymentLinkRequestRepository.save(PaymentLinkRequest.builder()
+                .bookingId(bookingId)
+                .orderCode(orderCodeGenerator.nextOrderCode())
+                .amount(amount)
+                .description(description)
+                .productName(productName)
+                .returnUrl(returnUrl)
+                .cancelUrl(cancelUrl)
+                .correlationId(correlationId)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                paymentLinkDispatcher.wakeUp();
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package com.bookingcare.payment.ordercode;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Sinh orderCode cho PayOS kiểu Snowflake, vừa 53 bit (PayOS chỉ nhận số nguyên dương <= 2^53 - 1):
+ *
+ * <pre>
+ *  | 40 bit: ms kể từ 2025-01-01 UTC | 5 bit: worker id | 8 bit: sequence |
+ * </pre>
+ *
+ * - Worker id (0..31) là lease riêng của mỗi replica (OrderCodeWorkerLease) -> 2 replica không cấp trùng.
+ * - Phần (ms, sequence) là 1 bộ đếm tăng dần duy nhất (lastTick). Mỗi thread giữ 1 block blockSize
+ *   sequence, hết block mới CAS lấy block mới, nên đường nóng không có lock và rất ít CAS.
+ * - Đồng hồ lùi / cấp nhanh hơn 256 code/ms: bộ đếm không lùi theo đồng hồ mà "mượn" ms phía trước.
+ *   Chỉ khi bộ đếm chạy trước đồng hồ quá maxDriftMs mới chờ đồng hồ đuổi kịp, chờ quá maxWaitMs thì lỗi.
+ *
+ * Trần ~256k code/s cho mỗi replica, đủ dùng tới 2059. Code trong block giữ timestamp lúc lấy block,
+ * nên code của các thread khác nhau chỉ tăng dần gần đúng theo thời gian.
+ */
+public class OrderCodeGenerator {
+    public static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    public static final int WORKER_BITS = 5;
+    public static final int MAX_WORKERS = 1 << WORKER_BITS;
+    static final int TIMESTAMP_BITS = 40;
+    static final int SEQUENCE_BITS = 8;
+    public static final long MAX_ORDER_CODE = (1L << (TIMESTAMP_BITS + WORKER_BITS + SEQUENCE_BITS)) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TICK = 1L << (TIMESTAMP_BITS + SEQUENCE_BITS);
+
+    private final IntSupplier workerIds;
+    private final LongSupplier clock;
+    private final int blockSize;
+    private final long maxDriftTicks;
+    private final long maxWaitNanos;
+
+    // (ms kể từ EPOCH << SEQUENCE_BITS) | sequence: tick kế tiếp chưa cấp cho block nào
+    private final AtomicLong lastTick = new AtomicLong();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * @param workerIds worker id hiện tại, ném IllegalStateException nếu replica không còn giữ lease
+     * @param clock     epoch millis (System::currentTimeMillis)
+     */
+    public OrderCodeGenerator(IntSupplier workerIds, LongSupplier clock, int blockSize, long maxDriftMs, long maxWaitMs) {
+        if (blockSize < 1 || blockSize > SEQUENCE_MASK + 1) {
+            throw new IllegalArgumentException("blockSize must be between 1 and " + (SEQUENCE_MASK + 1));
+        }
+        this.workerIds = workerIds;
+        this.clock = clock;
+        this.blockSize = blockSize;
+        this.maxDriftTicks = maxDriftMs << SEQUENCE_BITS;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    }
+
+    public long nextOrderCode() {
+        Block block = blocks.get();
+        if (block.next == block.end) {
+            reserve(block);
+        }
+        long tick = block.next++;
+        return (tick >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS)
+                | (long) block.workerId << SEQUENCE_BITS
+                | tick & SEQUENCE_MASK;
+    }
+
+    public static long timestampOf(long orderCode) {
+        return (orderCode >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int workerIdOf(long orderCode) {
+        return (int) (orderCode >>> SEQUENCE_BITS) & (MAX_WORKERS - 1);
+    }
+
+    private void reserve(Block block) {
+        int workerId = workerIds.getAsInt();
+        if (workerId < 0 || workerId >= MAX_WORKERS) {
+            throw new IllegalStateException("Order code worker id out of range: " + workerId);
+        }
+
+        long waitStarted = 0;
+        while (true) {
+            long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long current = lastTick.get();
+            long start = Math.max(current, now);
+
+            if (start - now > maxDriftTicks) {
+                // Đồng hồ lùi mạnh hoặc cấp quá trần quá lâu: chờ đồng hồ đuổi kịp, không cấp code trùng
+                if (waitStarted == 0) {
+                    waitStarted = System.nanoTime();
+                } else if (System.nanoTime() - waitStarted > maxWaitNanos) {
+                    throw new IllegalStateException("Clock is " + ((start - now) >> SEQUENCE_BITS)
+                            + " ms behind the order code sequence, refusing to generate order codes");
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+
+            long end = start + blockSize;
+            if (end > MAX_TICK) {
+                throw new IllegalStateException("Order code timestamp space exhausted");
+            }
+            if (lastTick.compareAndSet(current, end)) {
+                block.next = start;
+                block.end = end;
+                block.workerId = workerId;
+                return;
+            }
+        }
+    }
+
+    private static final class Block {
+        long next;
+        long end;
+        int workerId;
+    }
+}
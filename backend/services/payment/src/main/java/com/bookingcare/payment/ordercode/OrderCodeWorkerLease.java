@@ -0,0 +1,140 @@
+package com.bookingcare.payment.ordercode;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.payment.repository.OrderCodeWorkerRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Worker id của OrderCodeGenerator, thuê theo replica trong bảng order_code_workers.
+ *
+ * - Khởi động: thuê 1 worker đã hết lease quá max-drift-ms
+ *   (code do chủ cũ cấp có timestamp tối đa lease_until + max-drift-ms, nhỏ hơn mọi code của chủ mới).
+ * - Gia hạn định kỳ; không gia hạn được tới khi lease hết thì currentWorkerId() ném lỗi thay vì cấp code
+ *   có thể trùng với replica đã lấy worker đó. Lần gia hạn sau thấy mất lease thì thuê worker khác.
+ * - Gia hạn chạy trên thread riêng, không dùng chung scheduler của Spring: job khác chạy lâu
+ *   (đối soát, outbox, webhook inbox) không làm lease hết hạn.
+ *
+ * Giả định đồng hồ các replica lệch nhau ít hơn max-drift-ms (NTP).
+ */
+@Component
+@Slf4j
+public class OrderCodeWorkerLease {
+    private final OrderCodeWorkerRepository orderCodeWorkerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration leaseDuration;
+    private final Duration maxDrift;
+    private final long renewIntervalMs;
+    private final String owner;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-code-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile int workerId = -1;
+    private volatile long validUntilNanos;
+
+    public OrderCodeWorkerLease(OrderCodeWorkerRepository orderCodeWorkerRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${application.order-code.lease-seconds:60}") long leaseSeconds,
+                                @Value("${application.order-code.max-drift-ms:1000}") long maxDriftMs,
+                                @Value("${application.order-code.renew-interval-ms:20000}") long renewIntervalMs) {
+        this.orderCodeWorkerRepository = orderCodeWorkerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.maxDrift = Duration.ofMillis(maxDriftMs);
+        this.renewIntervalMs = renewIntervalMs;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    @PostConstruct
+    public void start() {
+        acquire();
+        renewer.scheduleWithFixedDelay(this::renew, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void acquire() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> orderCodeWorkerRepository
+                .findClaimableWorkerId(now.minus(maxDrift))
+                .map(id -> {
+                    orderCodeWorkerRepository.claim(id, owner, now.plus(leaseDuration));
+                    return id;
+                })
+                .orElseThrow(() -> new IllegalStateException(
+                        "No free order code worker id (max " + OrderCodeGenerator.MAX_WORKERS + " payment replicas)")));
+
+        validUntilNanos = started + leaseDuration.toNanos();
+        workerId = claimed;
+        log.info("Acquired order code worker id {} as {}", claimed, owner);
+    }
+
+    void renew() {
+        long started = System.nanoTime();
+        int current = workerId;
+        try {
+            Integer renewed = transactionTemplate.execute(status ->
+                    orderCodeWorkerRepository.renew(current, owner, LocalDateTime.now().plus(leaseDuration)));
+            if (renewed != null && renewed == 1) {
+                validUntilNanos = started + leaseDuration.toNanos();
+                return;
+            }
+            log.warn("Order code worker id {} was taken over, acquiring a new one", current);
+            acquire();
+        } catch (RuntimeException e) {
+            log.error("Failed to renew order code worker id {}: {}", current, e.getMessage());
+        }
+    }
+
+    /**
+     * @throws IllegalStateException nếu lease đã hết hạn (không gia hạn được)
+     */
+    public int currentWorkerId() {
+        int current = workerId;
+        if (current < 0 || System.nanoTime() - validUntilNanos > 0) {
+            throw new IllegalStateException("Order code worker lease is not held, refusing to generate order codes");
+        }
+        return current;
+    }
+
+    @PreDestroy
+    public void release() {
+        renewer.shutdownNow();
+        int current = workerId;
+        if (current < 0) {
+            return;
+        }
+        workerId = -1;
+        try {
+            // Hết lease ngay: replica khác lấy được worker này sau max-drift-ms
+            transactionTemplate.executeWithoutResult(status ->
+                    orderCodeWorkerRepository.renew(current, owner, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release order code worker id {}: {}", current, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bookingcare.payment.reconcile;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import vn.payos.PayOS;
+import vn.payos.exception.APIException;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+
+/**
+ * GET /v2/payment-requests/{orderCode} qua SDK PayOS (response đã được SDK kiểm tra chữ ký).
+ */
+@Component
+@RequiredArgsConstructor
+public class PayOSPaymentStatusLookup implements PaymentStatusLookup {
+    // PayOS: "Đơn thanh toán không tồn tại"
+    static final String ORDER_NOT_FOUND = "101";
+
+    private final PayOS payOS;
+
+    @Override
+    public PaymentLinkStatus find(long orderCode) {
+        try {
+            return payOS.paymentRequests().get(orderCode).getStatus();
+        } catch (APIException e) {
+            if (ORDER_NOT_FOUND.equals(e.getErrorCode().orElse(null))) {
+                return null;
+            }
+            throw e;
+        }
+    }
+}
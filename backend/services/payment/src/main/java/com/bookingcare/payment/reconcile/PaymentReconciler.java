@@ -0,0 +1,375 @@
+package com.bookingcare.payment.reconcile;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.common.client.RequestPacer;
+import com.bookingcare.payment.dto.event.PaymentFailedEvent;
+import com.bookingcare.payment.dto.event.PaymentSucceededEvent;
+import com.bookingcare.payment.entity.Payment;
+import com.bookingcare.payment.entity.Status;
+import com.bookingcare.payment.kafka.outbox.PaymentEventOutbox;
+import com.bookingcare.payment.repository.JobLeaseRepository;
+import com.bookingcare.payment.repository.PaymentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+
+/**
+ * Đối soát payment PENDING với PayOS: webhook bị mất thì payment không kẹt PENDING mãi và saga booking vẫn kết thúc.
+ *
+ * - Chỉ 1 replica chạy tại 1 thời điểm (lease "payment-reconciliation" trong job_leases, gia hạn sau mỗi batch).
+ * - Cron chỉ kích hoạt lần chạy trên thread riêng rồi trả thread scheduler ngay: 1 lần chạy dài (backlog lớn)
+ *   không chặn các job định kỳ khác (gia hạn worker id orderCode, outbox, webhook inbox, link thanh toán).
+ *   Lần chạy trước chưa xong thì bỏ qua lần kích hoạt này.
+ * - Quét payment PENDING tạo trước min-age theo keyset id, mỗi batch batch-size dòng.
+ * - Hỏi trạng thái trên virtual thread, tối đa max-concurrent request cùng lúc và max-requests-per-second.
+ * - Lệch trạng thái: chuyển cả nhóm bằng 1 câu UPDATE ... WHERE status = 'PENDING' RETURNING (webhook về cùng lúc
+ *   thì chỉ 1 bên chuyển được, không publish trùng), ghi PaymentSucceededEvent / PaymentFailedEvent vào outbox.
+ *   Payment đã có webhook xử lý xong trong inbox thì không chuyển: kết quả do WebhookInboxProcessor quyết định
+ *   (kể cả RECONCILE_REQUIRED, chờ kiểm tra tay).
+ * - Tỉ lệ lỗi trong 1 batch >= abort-error-rate-percent: dừng lần chạy, lần sau quét lại từ đầu.
+ *
+ * Metrics:
+ *  - payment.reconciliation.checked / errors: số payment đã hỏi / hỏi lỗi
+ *  - payment.reconciliation.drift{remote}: payment PENDING nhưng PayOS báo PAID / CANCELLED / EXPIRED / FAILED / NOT_FOUND
+ *  - payment.reconciliation.run: thời gian 1 lần chạy; payment.reconciliation.last-run.drift: số payment lệch lần gần nhất
+ */
+@Component
+@Slf4j
+public class PaymentReconciler {
+    static final String LEASE_NAME = "payment-reconciliation";
+    private static final String NOT_FOUND = "NOT_FOUND";
+
+    private final PaymentRepository paymentRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final PaymentEventOutbox paymentEventOutbox;
+    private final PaymentStatusLookup paymentStatusLookup;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxConcurrent;
+    private final int maxRequestsPerSecond;
+    private final Duration minAge;
+    private final Duration leaseDuration;
+    private final int abortErrorRatePercent;
+    private final String owner;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("payment-reconciler").factory());
+    private final Counter checkedCounter;
+    private final Counter errorCounter;
+    private final Map<String, Counter> driftCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+    private final AtomicLong lastRunDrift = new AtomicLong();
+
+    public PaymentReconciler(PaymentRepository paymentRepository,
+                             JobLeaseRepository jobLeaseRepository,
+                             PaymentEventOutbox paymentEventOutbox,
+                             PaymentStatusLookup paymentStatusLookup,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${application.reconciliation.batch-size:500}") int batchSize,
+                             @Value("${application.reconciliation.max-concurrent:16}") int maxConcurrent,
+                             @Value("${application.reconciliation.max-requests-per-second:200}") int maxRequestsPerSecond,
+                             @Value("${application.reconciliation.min-age-minutes:30}") long minAgeMinutes,
+                             @Value("${application.reconciliation.lease-seconds:300}") long leaseSeconds,
+                             @Value("${application.reconciliation.abort-error-rate-percent:50}") int abortErrorRatePercent) {
+        this.paymentRepository = paymentRepository;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.paymentEventOutbox = paymentEventOutbox;
+        this.paymentStatusLookup = paymentStatusLookup;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxConcurrent = maxConcurrent;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.abortErrorRatePercent = abortErrorRatePercent;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+
+        this.meterRegistry = meterRegistry;
+        this.checkedCounter = Counter.builder("payment.reconciliation.checked")
+                .description("Pending payments checked against PayOS")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("payment.reconciliation.errors")
+                .description("PayOS status lookups that failed during reconciliation")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("payment.reconciliation.run")
+                .description("Duration of one reconciliation run")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconciliation.last-run.drift", lastRunDrift, AtomicLong::get)
+                .description("Payments whose status differed from PayOS in the last reconciliation run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Kết quả 1 lần chạy. drift: số payment lệch theo trạng thái PayOS (kể cả NOT_FOUND), applied: số payment đã chuyển.
+     */
+    public record Report(int checked, Map<String, Integer> drift, int applied, int errors, boolean aborted, long durationMs) {
+    }
+
+    @Scheduled(cron = "${application.reconciliation.cron:0 */10 * * * *}")
+    public void scheduledRun() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Payment reconciliation is still running, skipping this trigger");
+            return;
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    Report report = runExclusive();
+                    if (report != null) {
+                        log.info("Payment reconciliation finished: {}", report);
+                    }
+                } catch (Exception e) {
+                    log.error("Payment reconciliation failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Đang tắt service
+            running.set(false);
+        }
+    }
+
+    /**
+     * Chạy ngay trên thread hiện tại.
+     *
+     * @return null nếu lần chạy khác (replica này hoặc replica khác) đang chạy
+     */
+    public Report run() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return runExclusive();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+    }
+
+    // Caller đã giữ cờ running
+    private Report runExclusive() {
+        if (!renewLease()) {
+            log.debug("Payment reconciliation is running on another replica");
+            return null;
+        }
+        try {
+            return runTimer.record(this::reconcile);
+        } finally {
+            releaseLease();
+        }
+    }
+
+    private Report reconcile() {
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        RequestPacer pacer = new RequestPacer(maxRequestsPerSecond);
+        Semaphore permits = new Semaphore(maxConcurrent);
+
+        int checked = 0;
+        int applied = 0;
+        int errors = 0;
+        boolean aborted = false;
+        Map<String, Integer> drift = new ConcurrentHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String afterId = "";
+            while (true) {
+                List<Payment> batch = paymentRepository.findByStatusAndPaymentDateBeforeAndIdGreaterThanOrderByIdAsc(
+                        Status.PENDING, cutoff, afterId, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+
+                Map<Long, String> remote = new ConcurrentHashMap<>();
+                int batchErrors = lookup(batch, remote, executor, permits, pacer);
+                checked += batch.size() - batchErrors;
+                errors += batchErrors;
+
+                Map<Status, List<Long>> transitions = new EnumMap<>(Status.class);
+                for (Map.Entry<Long, String> entry : remote.entrySet()) {
+                    String remoteStatus = entry.getValue();
+                    Status target = targetStatus(remoteStatus);
+                    if (target == null && !NOT_FOUND.equals(remoteStatus)) {
+                        continue;
+                    }
+                    drift.merge(remoteStatus, 1, Integer::sum);
+                    driftCounter(remoteStatus).increment();
+                    if (target != null) {
+                        transitions.computeIfAbsent(target, key -> new ArrayList<>()).add(entry.getKey());
+                    }
+                }
+                if (!transitions.isEmpty()) {
+                    Integer count = transactionTemplate.execute(status -> apply(transitions));
+                    applied += count == null ? 0 : count;
+                }
+
+                if (batchErrors * 100 >= abortErrorRatePercent * batch.size()) {
+                    log.warn("Payment reconciliation aborted: {}/{} PayOS lookups failed in the last batch",
+                            batchErrors, batch.size());
+                    aborted = true;
+                    break;
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                if (!renewLease()) {
+                    log.warn("Payment reconciliation lease was taken over, stopping");
+                    aborted = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted = true;
+        }
+
+        lastRunDrift.set(drift.values().stream().mapToInt(Integer::intValue).sum());
+        return new Report(checked, Map.copyOf(drift), applied, errors, aborted,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    /**
+     * Hỏi trạng thái cả batch song song; remote nhận orderCode -> trạng thái PayOS (hoặc NOT_FOUND).
+     *
+     * @return số lần hỏi lỗi
+     */
+    private int lookup(List<Payment> batch, Map<Long, String> remote, ExecutorService executor,
+                       Semaphore permits, RequestPacer pacer) throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(batch.size());
+        for (Payment payment : batch) {
+            permits.acquire();
+            executor.execute(() -> {
+                try {
+                    pacer.await();
+                    PaymentLinkStatus status = paymentStatusLookup.find(payment.getOrderCode());
+                    remote.put(payment.getOrderCode(), status == null ? NOT_FOUND : status.name());
+                    checkedCounter.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.incrementAndGet();
+                } catch (RuntimeException e) {
+                    log.debug("PayOS lookup failed for orderCode {}: {}", payment.getOrderCode(), e.getMessage());
+                    failures.incrementAndGet();
+                    errorCounter.increment();
+                } finally {
+                    permits.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return failures.get();
+    }
+
+    private int apply(Map<Status, List<Long>> transitions) {
+        int applied = 0;
+        for (Map.Entry<Status, List<Long>> entry : transitions.entrySet()) {
+            List<Payment> changed = paymentRepository.reconcilePendingByOrderCodes(entry.getKey().name(), entry.getValue());
+            for (Payment payment : changed) {
+                String correlationId = "reconcile-" + payment.getOrderCode();
+                if (entry.getKey() == Status.COMPLETED) {
+                    paymentEventOutbox.append("PaymentSucceededEvent", payment.getBookingId(), correlationId,
+                            PaymentSucceededEvent.builder()
+                                    .bookingId(payment.getBookingId())
+                                    .paymentId(payment.getId())
+                                    .transactionId("TXN_" + payment.getOrderCode() + "_RECONCILED")
+                                    .build());
+                } else {
+                    paymentEventOutbox.append("PaymentFailedEvent", payment.getBookingId(), correlationId,
+                            PaymentFailedEvent.builder()
+                                    .bookingId(payment.getBookingId())
+                                    .reason("Payment " + entry.getKey() + " at PayOS (reconciliation)")
+                                    .build());
+                }
+            }
+            applied += changed.size();
+            log.info("Reconciliation moved {} payment(s) from PENDING to {}", changed.size(), entry.getKey());
+        }
+        return applied;
+    }
+
+    // null = PayOS vẫn đang chờ (PENDING / PROCESSING / UNDERPAID) hoặc không có đơn: giữ nguyên
+    static Status targetStatus(String remoteStatus) {
+        return switch (remoteStatus) {
+            case "PAID" -> Status.COMPLETED;
+            case "CANCELLED", "EXPIRED" -> Status.CANCELLED;
+            case "FAILED" -> Status.FAILED;
+            default -> null;
+        };
+    }
+
+    private Counter driftCounter(String remoteStatus) {
+        return driftCounters.computeIfAbsent(remoteStatus, key -> Counter.builder("payment.reconciliation.drift")
+                .description("Pending payments whose PayOS status differs")
+                .tag("remote", key)
+                .register(meterRegistry));
+    }
+
+    private boolean renewLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer acquired = transactionTemplate.execute(status ->
+                jobLeaseRepository.tryAcquire(LEASE_NAME, owner, now, now.plus(leaseDuration)));
+        return acquired != null && acquired == 1;
+    }
+
+    private void releaseLease() {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jobLeaseRepository.release(LEASE_NAME, owner, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release payment reconciliation lease: {}", e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
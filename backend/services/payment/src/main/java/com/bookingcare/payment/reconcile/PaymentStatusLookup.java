@@ -0,0 +1,16 @@
+package com.bookingcare.payment.reconcile;
+
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+
+/**
+ * Trạng thái 1 đơn thanh toán phía nhà cung cấp (PayOS), dùng khi đối soát.
+ */
+@FunctionalInterface
+public interface PaymentStatusLookup {
+
+    /**
+     * @return trạng thái link thanh toán, null nếu nhà cung cấp không có đơn với orderCode này
+     * @throws RuntimeException lỗi gọi nhà cung cấp (timeout, 429, 5xx, ...)
+     */
+    PaymentLinkStatus find(long orderCode);
+}
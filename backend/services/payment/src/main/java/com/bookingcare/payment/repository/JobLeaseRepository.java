@@ -0,0 +1,27 @@
+package com.bookingcare.payment.repository;
+
+import com.bookingcare.payment.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // 1 = lấy được / gia hạn được lease; 0 = replica khác đang giữ
+    @Modifying
+    @Query(value = """
+            UPDATE job_leases SET owner = :owner, lease_until = :leaseUntil
+            WHERE name = :name AND (lease_until < :now OR owner = :owner)
+            """, nativeQuery = true)
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query(value = "UPDATE job_leases SET lease_until = :now WHERE name = :name AND owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
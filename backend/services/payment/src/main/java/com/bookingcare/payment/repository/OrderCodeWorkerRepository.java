@@ -0,0 +1,40 @@
+package com.bookingcare.payment.repository;
+
+import com.bookingcare.payment.entity.OrderCodeWorker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OrderCodeWorkerRepository extends JpaRepository<OrderCodeWorker, Integer> {
+
+    // Worker đã hết lease đủ lâu; khoá dòng để 2 replica khởi động cùng lúc không lấy trùng
+    @Query(value = """
+            SELECT worker_id FROM order_code_workers
+            WHERE lease_until < :expiredBefore
+            ORDER BY worker_id
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<Integer> findClaimableWorkerId(@Param("expiredBefore") LocalDateTime expiredBefore);
+
+    @Modifying
+    @Query(value = "UPDATE order_code_workers SET owner = :owner, lease_until = :leaseUntil WHERE worker_id = :workerId",
+            nativeQuery = true)
+    int claim(@Param("workerId") int workerId,
+              @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // 0 = lease đã bị replica khác lấy (lease hết hạn trong lúc không gia hạn được)
+    @Modifying
+    @Query(value = """
+            UPDATE order_code_workers SET lease_until = :leaseUntil
+            WHERE worker_id = :workerId AND owner = :owner
+            """, nativeQuery = true)
+    int renew(@Param("workerId") int workerId,
+              @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+}
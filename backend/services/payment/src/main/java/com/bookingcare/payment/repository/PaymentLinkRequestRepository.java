@@ -0,0 +1,42 @@
+package com.bookingcare.payment.repository;
+
+import com.bookingcare.payment.entity.PaymentLinkRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentLinkRequestRepository extends JpaRepository<PaymentLinkRequest, String> {
+
+    // Row đang bị dispatcher khác khoá sẽ bị bỏ qua -> nhiều replica lấy việc song song không trùng
+    @Query(value = """
+            SELECT * FROM payment_link_requests
+            WHERE next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<PaymentLinkRequest> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("""
+            UPDATE PaymentLinkRequest r SET r.attempts = :attempts, r.nextAttemptAt = :nextAttemptAt, r.lastError = :error
+            WHERE r.bookingId = :bookingId
+            """)
+    int reschedule(@Param("bookingId") String bookingId,
+                   @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    // 0 = dispatcher khác đã ghi kết quả cho request này (lease in-flight hết hạn giữa chừng)
+    @Modifying
+    @Query("DELETE FROM PaymentLinkRequest r WHERE r.bookingId = :bookingId")
+    int deleteByBookingId(@Param("bookingId") String bookingId);
+
+    @Query("SELECT MIN(r.createdAt) FROM PaymentLinkRequest r")
+    Optional<LocalDateTime> findOldestCreatedAt();
+}
@@ -1,11 +1,78 @@
 package com.bookingcare.payment.repository;
 
 import com.bookingcare.payment.entity.Payment;
+import com.bookingcare.payment.entity.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PaymentRepository extends JpaRepository<Payment, String> {
     Optional<Payment> findByBookingId(String bookingId);
     Optional<Payment> findByOrderCode(long orderCode);
+    List<Payment> findByOrderCodeIn(Collection<Long> orderCodes);
+
+    // Webhook thành công theo batch: 1 câu UPDATE cho cả batch, trả về payment vừa chuyển PENDING -> COMPLETED
+    // (payment không có trong kết quả: chưa tồn tại hoặc đã xử lý trước đó)
+    @Query(value = """
+            UPDATE payments SET status = 'COMPLETED'
+            WHERE order_code IN (:orderCodes) AND status = 'PENDING'
+            RETURNING *
+            """, nativeQuery = true)
+    List<Payment> completePendingByOrderCodes(@Param("orderCodes") Collection<Long> orderCodes);
+
+    // Webhook "00" tới sau webhook thất bại: FAILED là trạng thái cuối (booking đã huỷ theo PaymentFailedEvent),
+    // không chuyển COMPLETED mà đánh dấu RECONCILE_REQUIRED để kiểm tra / hoàn tiền tay
+    @Query(value = """
+            UPDATE payments SET status = 'RECONCILE_REQUIRED'
+            WHERE order_code IN (:orderCodes) AND status = 'FAILED'
+            RETURNING *
+            """, nativeQuery = true)
+    List<Payment> flagFailedByOrderCodes(@Param("orderCodes") Collection<Long> orderCodes);
+
+    // Chuyển cả nhóm payment còn PENDING sang status, trả về payment thực sự được chuyển
+    @Query(value = """
+            UPDATE payments SET status = :status
+            WHERE order_code IN (:orderCodes) AND status = 'PENDING'
+            RETURNING *
+            """, nativeQuery = true)
+    List<Payment> transitionPendingByOrderCodes(@Param("status") String status,
+                                                @Param("orderCodes") Collection<Long> orderCodes);
+
+    // Đối soát: như transitionPendingByOrderCodes nhưng bỏ qua payment đã có webhook xử lý xong trong inbox
+    // (webhook đã / đang quyết định kết quả, reconciler không publish event thứ 2)
+    @Query(value = """
+            UPDATE payments p SET status = :status
+            WHERE p.order_code IN (:orderCodes) AND p.status = 'PENDING'
+              AND NOT EXISTS (
+                  SELECT 1 FROM payment_webhook_inbox w
+                  WHERE w.order_code = p.order_code AND w.processed_at IS NOT NULL)
+            RETURNING *
+            """, nativeQuery = true)
+    List<Payment> reconcilePendingByOrderCodes(@Param("status") String status,
+                                               @Param("orderCodes") Collection<Long> orderCodes);
+
+    // Phân trang keyset theo khoá chính
+    List<Payment> findAllByOrderByIdAsc(Limit limit);
+    List<Payment> findByIdGreaterThanOrderByIdAsc(String afterId, Limit limit);
+    // Đối soát: payment theo trạng thái, tạo trước cutoff, keyset theo id (idx_payments_status_id)
+    List<Payment> findByStatusAndPaymentDateBeforeAndIdGreaterThanOrderByIdAsc(Status status, LocalDateTime cutoff,
+                                                                               String afterId, Limit limit);
+
+    // Export: đọc dần theo fetch size, dùng trong transaction và đóng stream sau khi dùng
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p ORDER BY p.id")
+    Stream<Payment> streamAllOrderById();
 }
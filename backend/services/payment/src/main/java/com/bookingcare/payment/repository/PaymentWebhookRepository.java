@@ -0,0 +1,83 @@
+package com.bookingcare.payment.repository;
+
+import com.bookingcare.payment.entity.PaymentWebhook;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentWebhookRepository extends JpaRepository<PaymentWebhook, Long> {
+
+    // Dedup theo order_code: webhook lặp trả 0. Riêng webhook thành công ("00") được ghi đè
+    // 1 webhook không thành công trước đó của cùng đơn và xử lý lại.
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_webhook_inbox
+                (order_code, code, description, amount, reference, transaction_date_time, received_at, attempts, next_attempt_at)
+            VALUES (:orderCode, :code, :description, :amount, :reference, :transactionDateTime, :now, 0, :now)
+            ON CONFLICT (order_code) DO UPDATE SET
+                code = EXCLUDED.code,
+                description = EXCLUDED.description,
+                amount = EXCLUDED.amount,
+                reference = EXCLUDED.reference,
+                transaction_date_time = EXCLUDED.transaction_date_time,
+                received_at = EXCLUDED.received_at,
+                attempts = 0,
+                next_attempt_at = EXCLUDED.next_attempt_at,
+                processed_at = NULL,
+                last_error = NULL
+            WHERE payment_webhook_inbox.code <> '00' AND EXCLUDED.code = '00'
+            """, nativeQuery = true)
+    int append(@Param("orderCode") long orderCode,
+               @Param("code") String code,
+               @Param("description") String description,
+               @Param("amount") Long amount,
+               @Param("reference") String reference,
+               @Param("transactionDateTime") String transactionDateTime,
+               @Param("now") LocalDateTime now);
+
+    // Row đang bị processor khác khoá sẽ bị bỏ qua -> nhiều replica xử lý song song không trùng
+    @Query(value = """
+            SELECT * FROM payment_webhook_inbox
+            WHERE processed_at IS NULL AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<PaymentWebhook> claimBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Xử lý lại từng dòng sau khi cả batch lỗi: chỉ khoá dòng còn chưa xử lý
+    @Query(value = """
+            SELECT * FROM payment_webhook_inbox
+            WHERE order_code = :orderCode AND processed_at IS NULL
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<PaymentWebhook> claim(@Param("orderCode") long orderCode);
+
+    @Modifying
+    @Query("UPDATE PaymentWebhook w SET w.processedAt = :now, w.lastError = :error WHERE w.orderCode IN :orderCodes")
+    int markProcessed(@Param("orderCodes") Collection<Long> orderCodes,
+                      @Param("now") LocalDateTime now,
+                      @Param("error") String error);
+
+    @Modifying
+    @Query("""
+            UPDATE PaymentWebhook w SET w.attempts = w.attempts + 1, w.nextAttemptAt = :nextAttemptAt, w.lastError = :error
+            WHERE w.orderCode IN :orderCodes
+            """)
+    int reschedule(@Param("orderCodes") Collection<Long> orderCodes,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    @Query("SELECT MIN(w.receivedAt) FROM PaymentWebhook w WHERE w.processedAt IS NULL")
+    Optional<LocalDateTime> findOldestPendingReceivedAt();
+
+    @Modifying
+    @Query(value = "DELETE FROM payment_webhook_inbox WHERE processed_at < :cutoff", nativeQuery = true)
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,5 +1,8 @@
 package com.bookingcare.payment.service.implementService;
 
+import com.bookingcare.common.pagination.CursorPage;
+import com.bookingcare.common.pagination.NdjsonWriter;
+import com.bookingcare.common.pagination.PageCursor;
 import com.bookingcare.payment.dto.CreatePaymentLinkRequestBody;
 import com.bookingcare.payment.dto.PaymentRequestCreate;
 import com.bookingcare.payment.dto.PaymentResponseDTO;
@@ -7,10 +10,14 @@ import com.bookingcare.payment.dto.PaymentStatusUpdateRequest;
 import com.bookingcare.payment.entity.Payment;
 import com.bookingcare.payment.entity.Status;
 import com.bookingcare.payment.mapper.PaymentMapper;
+import com.bookingcare.payment.ordercode.OrderCodeGenerator;
 import com.bookingcare.payment.repository.PaymentRepository;
 import com.bookingcare.payment.service.interfaceService.PaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import vn.payos.PayOS;
@@ -19,9 +26,11 @@ import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
 import vn.payos.model.v2.paymentRequests.PaymentLinkItem;
 import vn.payos.model.webhooks.WebhookData;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -30,6 +39,9 @@ import java.util.stream.Collectors;
 public class PaymentServiceIMP implements PaymentService {
     private final PaymentRepository paymentRepository;
     private final PayOS payOS;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final OrderCodeGenerator orderCodeGenerator;
     // @Override
     // public PaymentResponseDTO CreatePaymentAsync(PaymentRequestCreate requestDTO){
     //     log.info("Creating payment with order code: {}", requestDTO);
@@ -44,21 +56,28 @@ public class PaymentServiceIMP implements PaymentService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<PaymentResponseDTO> GetAllPaymentsAsync(){
-        log.info("Fetching all payments...");
+    public CursorPage<PaymentResponseDTO> GetAllPaymentsAsync(String cursor, Integer limit){
+        int pageSize = PageCursor.clampLimit(limit);
+        String afterId = PageCursor.decode(cursor);
 
-        // 1. Gọi repository để lấy TẤT CẢ entity Payment từ DB
-        List<Payment> payments = paymentRepository.findAll();
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<Payment> payments = afterId == null
+                ? paymentRepository.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : paymentRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
 
-        // 2. Dùng Java Stream để chuyển (map) danh sách List<Payment>
-        //    thành danh sách List<PaymentResponseDTO>
-        List<PaymentResponseDTO> responseDTOs = payments.stream()
-                .map(PaymentMapper::toPaymentResponse) // Dùng hàm static
-                // .map(PaymentMapper::toPaymentResponse) // Cách viết ngắn gọn hơn
-                .collect(Collectors.toList());
+        return CursorPage.of(payments, pageSize, Payment::getId, PaymentMapper::toPaymentResponse);
+    }
 
-        log.info("Found {} payments.", responseDTOs.size());
-        return responseDTOs;
+    @Override
+    @Transactional(readOnly = true)
+    public long ExportAllPaymentsAsync(OutputStream out) throws IOException {
+        try (Stream<Payment> payments = paymentRepository.streamAllOrderById()) {
+            // Clear persistence context theo lô: entity đã ghi ra response không còn bị giữ trong RAM
+            long rows = NdjsonWriter.write(payments.map(PaymentMapper::toPaymentResponse), out, objectMapper,
+                    entityManager::clear);
+            log.info("Exported {} payments.", rows);
+            return rows;
+        }
     }
 
     @Override
@@ -125,8 +144,8 @@ public class PaymentServiceIMP implements PaymentService {
     @Transactional(rollbackFor = Exception.class)
     public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequestBody requestBody) throws Exception {
 
-        // BƯỚC 1: TẠO ORDER CODE
-        long orderCode = System.currentTimeMillis() / 1000;
+        // BƯỚC 1: TẠO ORDER CODE (duy nhất giữa các replica, xem OrderCodeGenerator)
+        long orderCode = orderCodeGenerator.nextOrderCode();
         log.info("New payment link request for orderCode: {}", orderCode);
 
         // BƯỚC 2: LƯU GIAO DỊCH (LẦN 1 - TẠO MỚI)
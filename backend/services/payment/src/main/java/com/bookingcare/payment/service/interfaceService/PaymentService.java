@@ -1,8 +1,11 @@
 package com.bookingcare.payment.service.interfaceService;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 
+import com.bookingcare.common.pagination.CursorPage;
 import com.bookingcare.payment.dto.CreatePaymentLinkRequestBody;
 import com.bookingcare.payment.dto.PaymentRequestCreate;
 import com.bookingcare.payment.dto.PaymentResponseDTO;
@@ -12,7 +15,9 @@ import vn.payos.model.webhooks.WebhookData;
 
 
 public interface PaymentService {
-    List<PaymentResponseDTO> GetAllPaymentsAsync();
+    CursorPage<PaymentResponseDTO> GetAllPaymentsAsync(String cursor, Integer limit);
+    // Ghi toàn bộ payment ra NDJSON, trả về số dòng đã ghi
+    long ExportAllPaymentsAsync(OutputStream out) throws IOException;
     PaymentResponseDTO GetPaymentByIdAsync(String paymentId);
     // PaymentResponseDTO CreatePaymentAsync(PaymentRequestCreate paymentRequestCreate);
     PaymentResponseDTO UpdatePaymentAsync(String id, PaymentStatusUpdateRequest request);
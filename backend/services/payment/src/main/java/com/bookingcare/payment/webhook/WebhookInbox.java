@@ -0,0 +1,71 @@
+package com.bookingcare.payment.webhook;
+
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bookingcare.payment.repository.PaymentWebhookRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import vn.payos.model.webhooks.WebhookData;
+
+/**
+ * Bước 1 của webhook PayOS: ghi webhook đã xác thực vào payment_webhook_inbox (1 câu INSERT),
+ * controller trả 200 ngay. Cập nhật payments + publish event do WebhookInboxProcessor làm theo batch.
+ *
+ * Metrics: payment.webhook.received{result=queued|duplicate}
+ */
+@Component
+public class WebhookInbox {
+    private final PaymentWebhookRepository paymentWebhookRepository;
+    private final WebhookInboxProcessor webhookInboxProcessor;
+    private final Counter queuedCounter;
+    private final Counter duplicateCounter;
+
+    public WebhookInbox(PaymentWebhookRepository paymentWebhookRepository,
+                        WebhookInboxProcessor webhookInboxProcessor,
+                        MeterRegistry meterRegistry) {
+        this.paymentWebhookRepository = paymentWebhookRepository;
+        this.webhookInboxProcessor = webhookInboxProcessor;
+        this.queuedCounter = Counter.builder("payment.webhook.received")
+                .description("Verified PayOS webhooks")
+                .tag("result", "queued")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("payment.webhook.received")
+                .description("Verified PayOS webhooks")
+                .tag("result", "duplicate")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false nếu đã nhận webhook này của orderCode (PayOS gửi lại), không xử lý lần nữa
+     */
+    @Transactional
+    public boolean append(WebhookData data) {
+        int inserted = paymentWebhookRepository.append(
+                data.getOrderCode(),
+                data.getCode(),
+                data.getDesc(),
+                data.getAmount(),
+                data.getReference(),
+                data.getTransactionDateTime(),
+                LocalDateTime.now());
+        if (inserted == 0) {
+            duplicateCounter.increment();
+            return false;
+        }
+
+        queuedCounter.increment();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                webhookInboxProcessor.wakeUp();
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,368 @@
+package com.bookingcare.payment.webhook;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.payment.dto.event.PaymentFailedEvent;
+import com.bookingcare.payment.dto.event.PaymentSucceededEvent;
+import com.bookingcare.payment.entity.Payment;
+import com.bookingcare.payment.entity.PaymentWebhook;
+import com.bookingcare.payment.entity.Status;
+import com.bookingcare.payment.kafka.outbox.PaymentEventOutbox;
+import com.bookingcare.payment.repository.PaymentRepository;
+import com.bookingcare.payment.repository.PaymentWebhookRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bước 2 của webhook PayOS: xử lý payment_webhook_inbox theo batch.
+ *
+ * Mỗi batch chạy trong 1 transaction: khoá row bằng FOR UPDATE SKIP LOCKED, chuyển toàn bộ payment
+ * thành công PENDING -> COMPLETED và thất bại PENDING -> FAILED bằng UPDATE ... RETURNING, ghi
+ * PaymentSucceededEvent / PaymentFailedEvent vào outbox cho payment thực sự được chuyển rồi đánh dấu processed_at.
+ * Payment chưa có (webhook tới trước khi dispatcher lưu payment) được thử lại sau retry-delay-ms, tối đa max-attempts lần.
+ * FAILED là trạng thái cuối: webhook thành công tới sau webhook thất bại (booking đã bị huỷ) chuyển payment
+ * FAILED -> RECONCILE_REQUIRED để kiểm tra / hoàn tiền tay, không publish PaymentSucceededEvent.
+ *
+ * Batch lỗi (rollback) được xử lý lại từng dòng trong transaction riêng: dòng vẫn lỗi được thử lại sau
+ * retry-delay-ms, hết max-attempts lần thì đánh dấu processed_at kèm lỗi và chuyển payment PENDING -> RECONCILE_REQUIRED,
+ * không để payment kẹt PENDING và không chặn các webhook khác.
+ *
+ * Metrics:
+ *  - payment.webhook.processed{outcome=completed|failed|duplicate|not_found|reconcile_required}
+ *  - payment.webhook.batch: thời gian xử lý 1 batch
+ *  - payment.webhook.lag: tuổi (giây) của webhook chưa xử lý lâu nhất
+ */
+@Component
+@Slf4j
+public class WebhookInboxProcessor implements DisposableBean {
+    static final String SUCCESS_CODE = "00";
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final PaymentWebhookRepository paymentWebhookRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentEventOutbox paymentEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration retention;
+
+    // 1 thread xử lý / replica: batch lớn dần theo tải thay vì nhiều transaction nhỏ tranh nhau
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("payos-webhook").factory());
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean signalled = new AtomicBoolean();
+
+    private final Timer batchTimer;
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+    private final Counter notFoundCounter;
+    private final Counter reconcileRequiredCounter;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public WebhookInboxProcessor(PaymentWebhookRepository paymentWebhookRepository,
+                                 PaymentRepository paymentRepository,
+                                 PaymentEventOutbox paymentEventOutbox,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${application.webhook-inbox.batch-size:200}") int batchSize,
+                                 @Value("${application.webhook-inbox.max-attempts:10}") int maxAttempts,
+                                 @Value("${application.webhook-inbox.retry-delay-ms:2000}") long retryDelayMs,
+                                 @Value("${application.webhook-inbox.retention-days:7}") long retentionDays) {
+        this.paymentWebhookRepository = paymentWebhookRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentEventOutbox = paymentEventOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+        this.retention = Duration.ofDays(retentionDays);
+
+        this.batchTimer = Timer.builder("payment.webhook.batch")
+                .description("Time to process one batch of PayOS webhooks")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.completedCounter = processedCounter(meterRegistry, "completed");
+        this.failedCounter = processedCounter(meterRegistry, "failed");
+        this.duplicateCounter = processedCounter(meterRegistry, "duplicate");
+        this.notFoundCounter = processedCounter(meterRegistry, "not_found");
+        this.reconcileRequiredCounter = processedCounter(meterRegistry, "reconcile_required");
+        Gauge.builder("payment.webhook.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("Age of the oldest unprocessed PayOS webhook")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.webhook-inbox.poll-interval-ms:500}")
+    public void poll() {
+        drain();
+        refreshLag();
+    }
+
+    /**
+     * Có webhook mới vừa commit: xử lý ngay trên thread của processor, gộp nhiều lần đánh thức liên tiếp.
+     */
+    public void wakeUp() {
+        signalled.set(true);
+        if (!draining.get()) {
+            worker.execute(this::drain);
+        }
+    }
+
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            do {
+                signalled.set(false);
+                // Drain liên tục khi inbox đang đầy, dừng khi gặp batch chưa đủ
+                int processed;
+                do {
+                    processed = processNextBatch();
+                } while (processed == batchSize);
+            } while (signalled.get());
+        } catch (Exception e) {
+            log.error("Webhook inbox processing failed", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${application.webhook-inbox.cleanup-cron:0 15 * * * *}")
+    public void purgeProcessed() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status ->
+                paymentWebhookRepository.deleteProcessedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} processed webhooks older than {}", deleted, cutoff);
+        }
+    }
+
+    private int processNextBatch() {
+        try {
+            Integer processed = transactionTemplate.execute(status -> processBatch());
+            return processed == null ? 0 : processed;
+        } catch (RuntimeException e) {
+            log.warn("Webhook batch failed, retrying rows one by one: {}", e.getMessage());
+            return processOneByOne();
+        }
+    }
+
+    int processBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentWebhook> batch = paymentWebhookRepository.claimBatch(now, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        apply(batch, now);
+        return batch.size();
+    }
+
+    /**
+     * Mỗi dòng 1 transaction: 1 dòng lỗi chỉ rollback chính nó, lỗi được ghi lại để không bị claim lại ngay.
+     */
+    int processOneByOne() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentWebhook> batch = transactionTemplate.execute(status ->
+                paymentWebhookRepository.claimBatch(now, batchSize));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        for (PaymentWebhook webhook : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        paymentWebhookRepository.claim(webhook.getOrderCode())
+                                .ifPresent(row -> apply(List.of(row), now)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply webhook for orderCode {}: {}", webhook.getOrderCode(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> recordFailure(webhook, e, now));
+            }
+        }
+        return batch.size();
+    }
+
+    private void apply(List<PaymentWebhook> batch, LocalDateTime now) {
+        Timer.Sample sample = Timer.start();
+        Map<Long, PaymentWebhook> succeeded = new LinkedHashMap<>();
+        Map<Long, PaymentWebhook> failed = new LinkedHashMap<>();
+        for (PaymentWebhook webhook : batch) {
+            (SUCCESS_CODE.equals(webhook.getCode()) ? succeeded : failed).put(webhook.getOrderCode(), webhook);
+        }
+
+        List<Long> done = new ArrayList<>(batch.size());
+        Set<Long> notFound = new HashSet<>();
+
+        if (!succeeded.isEmpty()) {
+            for (Payment payment : paymentRepository.completePendingByOrderCodes(succeeded.keySet())) {
+                PaymentWebhook webhook = succeeded.remove(payment.getOrderCode());
+                paymentEventOutbox.append("PaymentSucceededEvent", payment.getBookingId(), correlationId(webhook),
+                        PaymentSucceededEvent.builder()
+                                .bookingId(payment.getBookingId())
+                                .paymentId(payment.getId())
+                                .transactionId(transactionId(webhook))
+                                .build());
+                done.add(webhook.getOrderCode());
+                completedCounter.increment();
+            }
+
+            // Tiền về sau khi payment đã FAILED: không publish PaymentSucceededEvent cho booking đã huỷ
+            if (!succeeded.isEmpty()) {
+                for (Payment payment : paymentRepository.flagFailedByOrderCodes(succeeded.keySet())) {
+                    log.error("Webhook Error: orderCode {} paid after payment {} failed, flagged for manual review / refund",
+                            payment.getOrderCode(), payment.getId());
+                    succeeded.remove(payment.getOrderCode());
+                    done.add(payment.getOrderCode());
+                    reconcileRequiredCounter.increment();
+                }
+            }
+
+            // Còn lại: payment đã COMPLETED (hoặc đã huỷ) từ trước, hoặc chưa có payment
+            if (!succeeded.isEmpty()) {
+                for (Payment payment : paymentRepository.findByOrderCodeIn(succeeded.keySet())) {
+                    log.warn("Payment with orderCode {} was already processed. Current status: {}",
+                            payment.getOrderCode(), payment.getStatus());
+                    succeeded.remove(payment.getOrderCode());
+                    done.add(payment.getOrderCode());
+                    duplicateCounter.increment();
+                }
+                notFound.addAll(succeeded.keySet());
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            for (Payment payment : paymentRepository.transitionPendingByOrderCodes(Status.FAILED.name(), failed.keySet())) {
+                PaymentWebhook webhook = failed.remove(payment.getOrderCode());
+                paymentEventOutbox.append("PaymentFailedEvent", payment.getBookingId(), correlationId(webhook),
+                        PaymentFailedEvent.builder()
+                                .bookingId(payment.getBookingId())
+                                .reason("Payment failed - Code: " + webhook.getCode() + ", Reason: " + webhook.getDescription())
+                                .build());
+                done.add(webhook.getOrderCode());
+                failedCounter.increment();
+            }
+
+            // Còn lại: payment đã được webhook / reconciler chuyển trước đó, hoặc chưa có payment
+            if (!failed.isEmpty()) {
+                for (Payment payment : paymentRepository.findByOrderCodeIn(failed.keySet())) {
+                    log.warn("Payment with orderCode {} was already processed. Current status: {}",
+                            payment.getOrderCode(), payment.getStatus());
+                    failed.remove(payment.getOrderCode());
+                    done.add(payment.getOrderCode());
+                    duplicateCounter.increment();
+                }
+                notFound.addAll(failed.keySet());
+            }
+        }
+
+        if (!done.isEmpty()) {
+            paymentWebhookRepository.markProcessed(done, now, null);
+        }
+        if (!notFound.isEmpty()) {
+            retryOrGiveUp(batch, notFound, now);
+        }
+
+        long elapsedNanos = sample.stop(batchTimer);
+        log.debug("Webhook batch processed: claimed={}, done={}, notFound={}, took={}ms",
+                batch.size(), done.size(), notFound.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    private void recordFailure(PaymentWebhook webhook, RuntimeException cause, LocalDateTime now) {
+        List<Long> orderCode = List.of(webhook.getOrderCode());
+        String error = truncate("Apply failed: " + cause.getMessage());
+        if (webhook.getAttempts() + 1 < maxAttempts) {
+            paymentWebhookRepository.reschedule(orderCode, now.plus(retryDelay), error);
+            return;
+        }
+
+        paymentWebhookRepository.markProcessed(orderCode, now, error);
+        List<Payment> flagged = paymentRepository.transitionPendingByOrderCodes(Status.RECONCILE_REQUIRED.name(), orderCode);
+        log.error("Webhook Error: giving up on orderCode {} after {} attempts, payment {}: {}",
+                webhook.getOrderCode(), maxAttempts, flagged.isEmpty() ? "unchanged" : "needs reconciliation", error);
+        reconcileRequiredCounter.increment();
+    }
+
+    private void retryOrGiveUp(List<PaymentWebhook> batch, Set<Long> notFound, LocalDateTime now) {
+        List<Long> retry = new ArrayList<>();
+        List<Long> giveUp = new ArrayList<>();
+        for (PaymentWebhook webhook : batch) {
+            if (notFound.contains(webhook.getOrderCode())) {
+                (webhook.getAttempts() + 1 < maxAttempts ? retry : giveUp).add(webhook.getOrderCode());
+            }
+        }
+
+        if (!retry.isEmpty()) {
+            paymentWebhookRepository.reschedule(retry, now.plus(retryDelay), "Payment not found");
+        }
+        if (!giveUp.isEmpty()) {
+            log.error("Webhook Error: Payment not found with orderCode(s) {} after {} attempts", giveUp, maxAttempts);
+            paymentWebhookRepository.markProcessed(giveUp, now, "Payment not found");
+            notFoundCounter.increment(giveUp.size());
+        }
+    }
+
+    private void refreshLag() {
+        try {
+            lagMillis.set(paymentWebhookRepository.findOldestPendingReceivedAt()
+                    .map(receivedAt -> Math.max(0, Duration.between(receivedAt, LocalDateTime.now()).toMillis()))
+                    .orElse(0L));
+        } catch (Exception e) {
+            log.warn("Failed to refresh webhook inbox lag: {}", e.getMessage());
+        }
+    }
+
+    // Cùng 1 webhook luôn cho cùng transactionId, kể cả khi batch bị xử lý lại
+    private static String transactionId(PaymentWebhook webhook) {
+        return "TXN_" + webhook.getOrderCode() + "_" + webhook.getReceivedAt().atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static String correlationId(PaymentWebhook webhook) {
+        return "webhook-" + webhook.getOrderCode();
+    }
+
+    private static Counter processedCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment.webhook.processed")
+                .description("PayOS webhooks processed from the inbox")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        worker.shutdown();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+            worker.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Event đã được consumer của payment-service xử lý (dedup theo EventEnvelope.eventId),
+-- chỉ giữ khoá + thời điểm xử lý, dọn theo application.event-dedup.retention-days
+CREATE TABLE processed_events (
+    "event_id" VARCHAR(64) PRIMARY KEY,
+    "event_type" VARCHAR(100) NOT NULL,
+    "processed_at" TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_processed_events_processed_at ON processed_events ("processed_at");
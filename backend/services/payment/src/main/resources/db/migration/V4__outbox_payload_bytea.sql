@@ -0,0 +1,4 @@
+-- Payload outbox lưu dạng byte để chứa được cả JSON lẫn binary envelope (EventEnvelopeCodec),
+-- event JSON chưa gửi được giữ nguyên nội dung (UTF-8)
+ALTER TABLE outbox_events
+    ALTER COLUMN "payload" TYPE BYTEA USING convert_to("payload", 'UTF8');
@@ -0,0 +1,11 @@
+-- Worker id của OrderCodeGenerator: mỗi replica payment-service thuê 1 dòng (lease gia hạn định kỳ),
+-- nên 2 replica không bao giờ cấp order code trùng nhau. 32 dòng = 5 bit worker trong order code.
+CREATE TABLE order_code_workers (
+    "worker_id" INTEGER PRIMARY KEY,
+    "owner" VARCHAR(100),
+    "lease_until" TIMESTAMP NOT NULL
+);
+
+INSERT INTO order_code_workers ("worker_id", "owner", "lease_until")
+SELECT worker_id, NULL, TIMESTAMP '1970-01-01 00:00:00'
+FROM generate_series(0, 31) AS worker_id;
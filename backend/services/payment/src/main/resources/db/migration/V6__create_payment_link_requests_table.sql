@@ -0,0 +1,19 @@
+-- Hàng đợi tạo link PayOS: consumer payment-commands chỉ ghi 1 dòng, PaymentLinkDispatcher gọi PayOS
+-- trên virtual thread và retry theo next_attempt_at. Dòng bị xoá khi đã có kết quả (link / thất bại hẳn).
+CREATE TABLE payment_link_requests (
+    "booking_id" VARCHAR(255) PRIMARY KEY,
+    "order_code" BIGINT NOT NULL UNIQUE,
+    "amount" BIGINT NOT NULL,
+    "description" VARCHAR(255) NOT NULL,
+    "product_name" VARCHAR(255) NOT NULL,
+    "return_url" VARCHAR(1000),
+    "cancel_url" VARCHAR(1000),
+    "correlation_id" VARCHAR(255),
+    "attempts" INTEGER NOT NULL DEFAULT 0,
+    -- Lúc được lấy ra xử lý: đẩy next_attempt_at tới hết lease in-flight, replica chết giữa chừng thì dòng tự đến hạn lại
+    "next_attempt_at" TIMESTAMP NOT NULL,
+    "last_error" VARCHAR(1000),
+    "created_at" TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_payment_link_requests_next_attempt_at ON payment_link_requests ("next_attempt_at");
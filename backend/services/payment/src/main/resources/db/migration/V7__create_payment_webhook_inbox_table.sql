@@ -0,0 +1,21 @@
+-- Webhook PayOS đã xác thực chữ ký: controller chỉ ghi 1 dòng rồi trả 200 ngay,
+-- WebhookInboxProcessor cập nhật payments theo batch và ghi event vào outbox.
+-- Khoá theo order_code: PayOS gửi lại cùng webhook -> ON CONFLICT không đổi gì; riêng webhook "00" ghi đè
+-- (DO UPDATE) webhook không thành công trước đó của cùng đơn và được xử lý lại.
+CREATE TABLE payment_webhook_inbox (
+    "order_code" BIGINT PRIMARY KEY,
+    "code" VARCHAR(10) NOT NULL,
+    "description" VARCHAR(255),
+    "amount" BIGINT,
+    "reference" VARCHAR(255),
+    "transaction_date_time" VARCHAR(50),
+    "received_at" TIMESTAMP NOT NULL,
+    "attempts" INTEGER NOT NULL DEFAULT 0,
+    "next_attempt_at" TIMESTAMP NOT NULL,
+    -- NULL = chưa xử lý; dòng đã xử lý được giữ lại để dedup, dọn theo application.webhook-inbox.retention-days
+    "processed_at" TIMESTAMP,
+    "last_error" VARCHAR(1000)
+);
+
+CREATE INDEX idx_payment_webhook_inbox_pending ON payment_webhook_inbox ("next_attempt_at") WHERE "processed_at" IS NULL;
+CREATE INDEX idx_payment_webhook_inbox_processed_at ON payment_webhook_inbox ("processed_at");
@@ -0,0 +1,13 @@
+-- Job định kỳ chỉ 1 replica chạy tại 1 thời điểm (đối soát PayOS): replica nào cập nhật được dòng thì chạy,
+-- gia hạn lease_until sau mỗi batch, replica chết giữa chừng thì replica khác chạy lại sau khi lease hết.
+CREATE TABLE job_leases (
+    "name" VARCHAR(100) PRIMARY KEY,
+    "owner" VARCHAR(100),
+    "lease_until" TIMESTAMP NOT NULL
+);
+
+INSERT INTO job_leases ("name", "owner", "lease_until")
+VALUES ('payment-reconciliation', NULL, TIMESTAMP '1970-01-01 00:00:00');
+
+-- Đối soát quét payment PENDING theo keyset id
+CREATE INDEX idx_payments_status_id ON payments ("status", "id");
@@ -0,0 +1,149 @@
+package com.bookingcare.payment.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.bookingcare.payment.dto.common.ApiResponse;
+import com.bookingcare.payment.webhook.WebhookInbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.payos.PayOS;
+import vn.payos.core.ClientOptions;
+import vn.payos.crypto.CryptoProviderImpl;
+import vn.payos.model.webhooks.WebhookData;
+
+/**
+ * Bước 1 của webhook: chỉ xác thực chữ ký + ghi inbox rồi trả lời PayOS.
+ * @Tag("benchmark") (mvn test -Pbenchmark) đo phần CPU của đường ack (verify HMAC), inbox giả lập, chỉ ghi log.
+ */
+@Slf4j
+class PaymentWebhookControllerTests {
+    private static final String CHECKSUM_KEY = "webhook-checksum-key";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private PayOS payOS;
+    private WebhookInbox inbox;
+    private PaymentWebhookController controller;
+
+    @BeforeEach
+    void setUp() {
+        payOS = new PayOS(ClientOptions.builder()
+                .clientId("client")
+                .apiKey("api-key")
+                .checksumKey(CHECKSUM_KEY)
+                .build());
+        inbox = mock(WebhookInbox.class);
+        controller = new PaymentWebhookController(payOS, inbox);
+    }
+
+    @Test
+    void verifiedWebhookIsQueuedAndAcknowledged() {
+        when(inbox.append(any())).thenReturn(true);
+
+        ResponseEntity<ApiResponse<WebhookData>> response = controller.payosTransferHandler(signedWebhook(123456L, true));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(123456L, response.getBody().getData().getOrderCode());
+        verify(inbox).append(any());
+    }
+
+    @Test
+    void tamperedWebhookIsRejectedWithoutQueueing() {
+        Map<String, Object> body = signedWebhook(123456L, true);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = (Map<String, Object>) body.get("data");
+        data.put("amount", 1L);
+
+        ResponseEntity<ApiResponse<WebhookData>> response = controller.payosTransferHandler(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(null, response.getBody().getData());
+        verify(inbox, never()).append(any());
+    }
+
+    @Test
+    void storageFailureAsksPayOSToRetry() {
+        when(inbox.append(any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        ResponseEntity<ApiResponse<WebhookData>> response = controller.payosTransferHandler(signedWebhook(123456L, true));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @SuppressWarnings("unchecked")
+    void benchmarkAckPath() {
+        // stubOnly: không ghi lại từng lần gọi, benchmark không đo chi phí của Mockito
+        WebhookInbox fastInbox = mock(WebhookInbox.class, withSettings().stubOnly());
+        when(fastInbox.append(any())).thenReturn(true);
+        PaymentWebhookController controller = new PaymentWebhookController(payOS, fastInbox);
+        int calls = 20_000;
+        Map<String, Object>[] bodies = new Map[calls];
+        for (int i = 0; i < calls; i++) {
+            bodies[i] = signedWebhook(1_000_000L + i, true);
+        }
+
+        // warm-up JIT
+        for (int i = 0; i < 5_000; i++) {
+            controller.payosTransferHandler(bodies[i]);
+        }
+
+        long[] nanos = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            controller.payosTransferHandler(bodies[i]);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[calls / 2];
+        long p99 = nanos[(int) (calls * 0.99)];
+
+        log.info("webhook ack (verify + queue): p50 {} us, p99 {} us", p50 / 1_000, p99 / 1_000);
+    }
+
+    private static Map<String, Object> signedWebhook(long orderCode, boolean success) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("orderCode", orderCode);
+        data.put("amount", 150_000L);
+        data.put("description", "BK" + orderCode);
+        data.put("accountNumber", "0000000000");
+        data.put("reference", "FT" + orderCode);
+        data.put("transactionDateTime", "2025-01-01 10:00:00");
+        data.put("currency", "VND");
+        data.put("paymentLinkId", "link" + orderCode);
+        data.put("code", success ? "00" : "01");
+        data.put("desc", success ? "success" : "failed");
+        data.put("counterAccountBankId", "");
+        data.put("counterAccountBankName", "");
+        data.put("counterAccountName", "");
+        data.put("counterAccountNumber", "");
+        data.put("virtualAccountName", "");
+        data.put("virtualAccountNumber", "");
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", "00");
+        body.put("desc", "success");
+        body.put("success", true);
+        body.put("data", data);
+        body.put("signature", new CryptoProviderImpl().createSignatureFromObj(
+                MAPPER.convertValue(data, WebhookData.class), CHECKSUM_KEY));
+        return body;
+    }
+}
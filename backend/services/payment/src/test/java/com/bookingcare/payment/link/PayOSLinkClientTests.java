@@ -0,0 +1,224 @@
+package com.bookingcare.payment.link;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.bookingcare.payment.entity.PaymentLinkRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import vn.payos.PayOS;
+import vn.payos.core.ClientOptions;
+
+/**
+ * PayOSLinkClient gọi PayOSStubServer qua SDK thật (ký / kiểm tra chữ ký, phân loại lỗi):
+ * - Thành công, orderCode trùng (231) lấy lại link cũ thay vì tạo link thứ 2
+ * - Timeout / 503 là lỗi tạm thời và mở circuit breaker; lỗi nghiệp vụ không retry
+ * - @Tag("benchmark") (mvn test -Pbenchmark): PayOS có spike latency, gọi song song sau bulkhead
+ *   so với gọi tuần tự trên thread consumer, chỉ ghi log
+ */
+@Slf4j
+class PayOSLinkClientTests {
+    private static final String CHECKSUM_KEY = "stub-checksum-key";
+    private static final AtomicLong ORDER_CODES = new AtomicLong(System.currentTimeMillis());
+
+    private PayOSStubServer stub;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new PayOSStubServer(CHECKSUM_KEY).start(0);
+        stub.baseLatencyMs = 5;
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void createsSignedPaymentLink() throws Exception {
+        PayOSLinkClient client = client(10_000, 32, 10);
+        PaymentLinkRequest request = request(150_000);
+
+        CreatedLink link = client.create(request);
+
+        assertEquals("stub" + Long.toHexString(request.getOrderCode()), link.paymentLinkId());
+        assertTrue(link.checkoutUrl().startsWith("https://pay.payos.vn/web/"));
+        assertFalse(link.reused());
+    }
+
+    @Test
+    void duplicateOrderCodeReusesExistingLink() throws Exception {
+        PayOSLinkClient client = client(10_000, 32, 10);
+        PaymentLinkRequest request = request(150_000);
+
+        CreatedLink first = client.create(request);
+        // Lần thử trước đã tạo link nhưng response bị mất: gửi lại cùng orderCode
+        CreatedLink retried = client.create(request);
+
+        assertTrue(retried.reused());
+        assertEquals(first.checkoutUrl(), retried.checkoutUrl());
+        assertEquals(first.paymentLinkId(), retried.paymentLinkId());
+        assertEquals(2, stub.createCalls());
+        assertEquals(1, stub.linkCount());
+    }
+
+    @Test
+    void businessErrorIsPermanentAndDoesNotOpenCircuit() {
+        PayOSLinkClient client = client(10_000, 32, 3);
+
+        for (int i = 0; i < 5; i++) {
+            PaymentLinkException e = assertThrows(PaymentLinkException.class, () -> client.create(request(0)));
+            assertFalse(e.retryable());
+            assertFalse(e.rejected());
+        }
+        assertEquals(0, client.circuitOpenMillis());
+    }
+
+    @Test
+    void timeoutsAreRetryableAndOpenCircuit() {
+        stub.baseLatencyMs = 1_000;
+        PayOSLinkClient client = client(100, 32, 3);
+
+        for (int i = 0; i < 3; i++) {
+            PaymentLinkException e = assertThrows(PaymentLinkException.class, () -> client.create(request(150_000)));
+            assertTrue(e.retryable());
+            assertFalse(e.rejected());
+        }
+
+        long callsBefore = stub.createCalls();
+        PaymentLinkException rejected = assertThrows(PaymentLinkException.class, () -> client.create(request(150_000)));
+        assertTrue(rejected.rejected());
+        assertTrue(rejected.retryAfterMillis() > 0);
+        assertTrue(client.circuitOpenMillis() > 0);
+        // Circuit mở: không gửi request nào tới PayOS
+        assertEquals(callsBefore, stub.createCalls());
+    }
+
+    @Test
+    void serverErrorsAreRetryable() {
+        stub.errorRate = 1.0;
+        PayOSLinkClient client = client(10_000, 32, 10);
+
+        PaymentLinkException e = assertThrows(PaymentLinkException.class, () -> client.create(request(150_000)));
+        assertTrue(e.retryable());
+    }
+
+    @Test
+    void bulkheadHandsOutOnlyFreePermits() {
+        PayOSLinkClient client = client(10_000, 4, 10);
+
+        assertEquals(3, client.tryEnterBulkhead(3));
+        assertEquals(1, client.tryEnterBulkhead(3));
+        assertEquals(0, client.tryEnterBulkhead(3));
+        client.exitBulkhead(4);
+        assertEquals(4, client.tryEnterBulkhead(10));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkBulkheadAgainstSequentialCalls() throws Exception {
+        stub.baseLatencyMs = 20;
+        stub.spikeProbability = 0.02;
+        stub.spikeLatencyMs = 500;
+        PayOSLinkClient client = client(10_000, 64, 50);
+
+        // warm-up SDK / JIT
+        run(client, 1, 20);
+
+        // Cách cũ: mỗi thread consumer (concurrency 3) gọi PayOS đồng bộ, 1 spike chặn cả partition
+        long[] sequential = run(client, 3, 300);
+        // Dispatcher: tối đa 64 lần gọi cùng lúc trên virtual thread
+        long[] bulkhead = run(client, 64, 1_500);
+
+        log.info("PayOS stub 20 ms + 2% spikes 500 ms: sequential(3) {} links/s p99 {} ms, bulkhead(64) {} links/s p99 {} ms",
+                Math.round(throughput(sequential, 300)), percentile(sequential, 0.99),
+                Math.round(throughput(bulkhead, 1_500)), percentile(bulkhead, 0.99));
+    }
+
+    // Trả về latency từng lần gọi (ms), phần tử cuối là tổng thời gian (ms)
+    private static long[] run(PayOSLinkClient client, int concurrency, int calls) throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore permits = new Semaphore(concurrency);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    long callStart = System.nanoTime();
+                    try {
+                        client.create(request(150_000));
+                        return (System.nanoTime() - callStart) / 1_000_000;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            long[] latencies = new long[calls + 1];
+            for (int i = 0; i < calls; i++) {
+                latencies[i] = futures.get(i).get();
+            }
+            latencies[calls] = (System.nanoTime() - start) / 1_000_000;
+            return latencies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double throughput(long[] result, int calls) {
+        return calls * 1000.0 / Math.max(1, result[calls]);
+    }
+
+    private static long percentile(long[] result, double percentile) {
+        long[] sorted = Arrays.copyOf(result, result.length - 1);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    private PayOSLinkClient client(int timeoutMs, int maxConcurrent, int minimumCalls) {
+        PayOS payOS = new PayOS(ClientOptions.builder()
+                .clientId("stub-client")
+                .apiKey("stub-api-key")
+                .checksumKey(CHECKSUM_KEY)
+                .baseURL(stub.baseUrl())
+                .timeoutMs(timeoutMs)
+                .maxRetries(0)
+                .build());
+        return new PayOSLinkClient(payOS, new SimpleMeterRegistry(), maxConcurrent, minimumCalls * 2, minimumCalls,
+                50, 15, "https://pay.payos.vn/web/");
+    }
+
+    private static PaymentLinkRequest request(long amount) {
+        long orderCode = ORDER_CODES.incrementAndGet();
+        return PaymentLinkRequest.builder()
+                .bookingId("BOOKING-" + orderCode)
+                .orderCode(orderCode)
+                .amount(amount)
+                .description("BK" + orderCode % 1_000_000)
+                .productName("Khám tổng quát")
+                .returnUrl("http://localhost:3000/payment/success")
+                .cancelUrl("http://localhost:3000/payment/cancel")
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
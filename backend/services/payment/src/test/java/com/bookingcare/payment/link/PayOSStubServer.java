@@ -0,0 +1,185 @@
+package com.bookingcare.payment.link;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.payos.crypto.CryptoProviderImpl;
+
+/**
+ * Stub PayOS (POST / GET /v2/payment-requests) để test tải pipeline tạo link mà không gọi PayOS thật.
+ *
+ * Response được ký bằng checksum key như PayOS nên đi qua được kiểm tra chữ ký của SDK.
+ * Mô phỏng: latency nền, spike ngẫu nhiên (spikeProbability), cửa sổ spike định kỳ (PayOS chập chờn),
+ * tỉ lệ 503, orderCode trùng trả mã 231.
+ *
+ * Chạy riêng: java ... PayOSStubServer [port] [checksumKey], rồi đặt payos.base-url=http://localhost:port
+ */
+@Slf4j
+public class PayOSStubServer implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String checksumKey;
+    private final CryptoProviderImpl crypto = new CryptoProviderImpl();
+    private final Map<Long, Map<String, Object>> links = new ConcurrentHashMap<>();
+    private final AtomicLong createCalls = new AtomicLong();
+    private final long startedAt = System.currentTimeMillis();
+    private HttpServer server;
+
+    volatile long baseLatencyMs = 20;
+    volatile double spikeProbability;
+    volatile long spikeLatencyMs = 2_000;
+    // Cứ spikeEveryMs thì có spikeWindowMs mọi request đều chậm spikeLatencyMs (0 = tắt)
+    volatile long spikeEveryMs;
+    volatile long spikeWindowMs;
+    volatile double errorRate;
+
+    public PayOSStubServer(String checksumKey) {
+        this.checksumKey = checksumKey;
+    }
+
+    public PayOSStubServer start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v2/payment-requests", this::handle);
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long createCalls() {
+        return createCalls.get();
+    }
+
+    public int linkCount() {
+        return links.size();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            simulateLatency();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, 503, Map.of("code", "503", "desc", "Service unavailable"));
+                return;
+            }
+
+            if ("POST".equals(exchange.getRequestMethod())) {
+                create(exchange);
+            } else {
+                String path = exchange.getRequestURI().getPath();
+                get(exchange, Long.parseLong(path.substring(path.lastIndexOf('/') + 1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        createCalls.incrementAndGet();
+        JsonNode body = MAPPER.readTree(exchange.getRequestBody());
+        long orderCode = body.path("orderCode").asLong();
+        if (body.path("amount").asLong() <= 0) {
+            send(exchange, 200, Map.of("code", "20", "desc", "Thông tin truyền lên không đúng"));
+            return;
+        }
+
+        Map<String, Object> link = new LinkedHashMap<>();
+        link.put("bin", "970422");
+        link.put("accountNumber", "0000000000");
+        link.put("accountName", "BOOKINGCARE STUB");
+        link.put("amount", body.path("amount").asLong());
+        link.put("description", body.path("description").asText());
+        link.put("orderCode", orderCode);
+        link.put("currency", "VND");
+        link.put("paymentLinkId", "stub" + Long.toHexString(orderCode));
+        link.put("status", "PENDING");
+        link.put("checkoutUrl", "https://pay.payos.vn/web/stub" + Long.toHexString(orderCode));
+        link.put("qrCode", "stub-qr-" + orderCode);
+
+        if (links.putIfAbsent(orderCode, link) != null) {
+            send(exchange, 200, Map.of("code", PayOSLinkClient.ORDER_EXISTS, "desc", "Đơn thanh toán đã tồn tại"));
+            return;
+        }
+        sendSigned(exchange, link);
+    }
+
+    private void get(HttpExchange exchange, long orderCode) throws IOException {
+        Map<String, Object> link = links.get(orderCode);
+        if (link == null) {
+            send(exchange, 200, Map.of("code", "101", "desc", "Không tìm thấy đơn thanh toán"));
+            return;
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", link.get("paymentLinkId"));
+        data.put("orderCode", orderCode);
+        data.put("amount", link.get("amount"));
+        data.put("amountPaid", 0);
+        data.put("amountRemaining", link.get("amount"));
+        data.put("status", link.get("status"));
+        data.put("createdAt", "2025-01-01T00:00:00+07:00");
+        sendSigned(exchange, data);
+    }
+
+    private void sendSigned(HttpExchange exchange, Map<String, Object> data) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", "00");
+        body.put("desc", "success");
+        body.put("data", data);
+        body.put("signature", crypto.createSignatureFromObj(data, checksumKey));
+        send(exchange, 200, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long latency = baseLatencyMs;
+        if (spikeEveryMs > 0 && (System.currentTimeMillis() - startedAt) % spikeEveryMs < spikeWindowMs) {
+            latency = spikeLatencyMs;
+        } else if (spikeProbability > 0 && ThreadLocalRandom.current().nextDouble() < spikeProbability) {
+            latency = spikeLatencyMs;
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8099;
+        String checksumKey = args.length > 1 ? args[1] : "stub-checksum-key";
+        PayOSStubServer stub = new PayOSStubServer(checksumKey).start(port);
+        stub.spikeProbability = Double.parseDouble(System.getProperty("stub.spike-probability", "0.02"));
+        stub.errorRate = Double.parseDouble(System.getProperty("stub.error-rate", "0"));
+        log.info("PayOS stub listening on {}", stub.baseUrl());
+        Thread.currentThread().join();
+    }
+}
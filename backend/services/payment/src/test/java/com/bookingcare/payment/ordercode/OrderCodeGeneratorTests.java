@@ -0,0 +1,204 @@
+package com.bookingcare.payment.ordercode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * - Không trùng khi nhiều thread / nhiều worker cấp cùng lúc (hàng triệu code)
+ * - Đồng hồ lùi: vẫn tăng dần trong giới hạn drift, quá giới hạn thì từ chối
+ * - @Tag("benchmark") (mvn test -Pbenchmark): so với cách cũ (synchronized, 1 lock cho mọi code), chỉ ghi log
+ */
+@Slf4j
+class OrderCodeGeneratorTests {
+    private static final int THREADS = 16;
+    private static final int CODES_PER_THREAD = 250_000;
+
+    // Đồng hồ chạy nhanh 1000 lần: test đo tranh chấp giữa các thread, không bị trần 256 code/ms chặn lại
+    private static final long STARTED_NANOS = System.nanoTime();
+    private static final LongSupplier FAST_CLOCK =
+            () -> System.currentTimeMillis() + (System.nanoTime() - STARTED_NANOS) / 1_000;
+
+    @Test
+    void uniqueUnderContentionAcrossThreadsAndWorkers() throws Exception {
+        OrderCodeGenerator first = new OrderCodeGenerator(() -> 3, FAST_CLOCK, 16, 1_000, 2_000);
+        OrderCodeGenerator second = new OrderCodeGenerator(() -> 17, FAST_CLOCK, 16, 1_000, 2_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                OrderCodeGenerator generator = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    long[] codes = new long[CODES_PER_THREAD];
+                    for (int i = 0; i < codes.length; i++) {
+                        codes[i] = generator.nextOrderCode();
+                    }
+                    return codes;
+                }));
+            }
+
+            long[] all = new long[THREADS * CODES_PER_THREAD];
+            int position = 0;
+            for (Future<long[]> future : futures) {
+                long[] codes = future.get();
+                // Trong 1 thread code luôn tăng dần
+                for (int i = 1; i < codes.length; i++) {
+                    assertTrue(codes[i] > codes[i - 1], "codes of one thread must increase");
+                }
+                System.arraycopy(codes, 0, all, position, codes.length);
+                position += codes.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertTrue(all[i] != all[i - 1], "duplicate order code " + all[i]);
+            }
+            assertTrue(all[0] > 0);
+            assertTrue(all[all.length - 1] <= OrderCodeGenerator.MAX_ORDER_CODE, "order code must fit in 53 bits");
+            assertTrue(all[all.length - 1] < 1L << 53);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void encodesTimestampAndWorkerId() {
+        long now = System.currentTimeMillis();
+        OrderCodeGenerator generator = new OrderCodeGenerator(() -> 31, () -> now, 1, 1_000, 2_000);
+
+        long code = generator.nextOrderCode();
+
+        assertEquals(31, OrderCodeGenerator.workerIdOf(code));
+        assertEquals(now, OrderCodeGenerator.timestampOf(code));
+        // Lớn hơn mọi orderCode cũ (epoch giây)
+        assertTrue(code > now / 1000);
+    }
+
+    @Test
+    void clockGoingBackwardsKeepsCodesIncreasing() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        OrderCodeGenerator generator = new OrderCodeGenerator(() -> 1, clock::get, 1, 1_000, 50);
+
+        long before = generator.nextOrderCode();
+        clock.addAndGet(-500);
+        long afterSmallStep = generator.nextOrderCode();
+        assertTrue(afterSmallStep > before, "small backward step borrows from the last timestamp");
+
+        clock.addAndGet(-5_000);
+        assertThrows(IllegalStateException.class, generator::nextOrderCode);
+
+        clock.addAndGet(5_500);
+        assertTrue(generator.nextOrderCode() > afterSmallStep);
+    }
+
+    @Test
+    void burstBeyondSequenceCapacityBorrowsAheadWithinDrift() {
+        long now = System.currentTimeMillis();
+        OrderCodeGenerator generator = new OrderCodeGenerator(() -> 0, () -> now, 16, 10, 50);
+
+        // 256 code / ms, cho chạy trước 10 ms -> cấp được ~11 ms sequence rồi từ chối
+        long last = 0;
+        for (int i = 0; i < 256 * 10; i++) {
+            long code = generator.nextOrderCode();
+            assertTrue(code > last);
+            last = code;
+        }
+        assertTrue(OrderCodeGenerator.timestampOf(last) > now);
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 256 * 2; i++) {
+                generator.nextOrderCode();
+            }
+        });
+    }
+
+    @Test
+    void lostLeaseStopsGeneration() {
+        OrderCodeGenerator generator = new OrderCodeGenerator(() -> {
+            throw new IllegalStateException("lease lost");
+        }, FAST_CLOCK, 16, 1_000, 2_000);
+
+        assertThrows(IllegalStateException.class, generator::nextOrderCode);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstSynchronizedGenerator() throws Exception {
+        OrderCodeGenerator generator = new OrderCodeGenerator(() -> 5, FAST_CLOCK, 16, 1_000, 2_000);
+        SynchronizedGenerator legacy = new SynchronizedGenerator(5);
+
+        // warm-up JIT
+        run(generator::nextOrderCode, 4, 200_000);
+        run(legacy::next, 4, 200_000);
+
+        double singleThread = run(generator::nextOrderCode, 1, 2_000_000);
+        double contended = run(generator::nextOrderCode, THREADS, CODES_PER_THREAD);
+        double legacyContended = run(legacy::next, THREADS, CODES_PER_THREAD);
+
+        log.info("nextOrderCode(): 1 thread {} codes/s, {} threads {} codes/s, synchronized {} codes/s",
+                Math.round(singleThread), THREADS, Math.round(contended), Math.round(legacyContended));
+    }
+
+    private static double run(LongSupplier call, int threads, int codesPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long sink = 0;
+                    for (int i = 0; i < codesPerThread; i++) {
+                        sink ^= call.getAsLong();
+                    }
+                    return sink;
+                }));
+            }
+            for (Future<Long> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            return (double) threads * codesPerThread * 1_000_000_000.0 / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Snowflake cổ điển: 1 lock, đọc đồng hồ mỗi code
+    private static final class SynchronizedGenerator {
+        private final long workerId;
+        private long lastMillis = -1;
+        private long sequence;
+
+        SynchronizedGenerator(long workerId) {
+            this.workerId = workerId;
+        }
+
+        synchronized long next() {
+            long now = FAST_CLOCK.getAsLong() - OrderCodeGenerator.EPOCH_MILLIS;
+            if (now <= lastMillis) {
+                sequence = (sequence + 1) & 0xFF;
+                if (sequence == 0) {
+                    lastMillis++;
+                }
+            } else {
+                lastMillis = now;
+                sequence = 0;
+            }
+            return lastMillis << 13 | workerId << 8 | sequence;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.bookingcare.payment.ordercode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.payment.repository.OrderCodeWorkerRepository;
+
+/**
+ * OrderCodeWorkerLease với lease 1 s, gia hạn mỗi 100 ms:
+ * - Tự gia hạn trên thread riêng, không cần scheduler của Spring
+ * - Gia hạn bị treo quá lease-seconds: currentWorkerId() từ chối, gia hạn lại được thì cấp tiếp
+ */
+class OrderCodeWorkerLeaseTests {
+    private static final int WORKER_ID = 7;
+
+    private OrderCodeWorkerRepository repository;
+    private OrderCodeWorkerLease lease;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OrderCodeWorkerRepository.class);
+        when(repository.findClaimableWorkerId(any())).thenReturn(Optional.of(WORKER_ID));
+        lease = new OrderCodeWorkerLease(repository, new DirectTransactionTemplate(), 1, 1_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lease.release();
+    }
+
+    @Test
+    void renewsOnOwnThread() throws Exception {
+        when(repository.renew(eq(WORKER_ID), anyString(), any())).thenReturn(1);
+
+        lease.start();
+
+        verify(repository, timeout(3_000).atLeast(3)).renew(eq(WORKER_ID), anyString(), any());
+        // Lease 1 s từ lúc thuê đã qua, vẫn giữ được nhờ gia hạn
+        Thread.sleep(1_200);
+        assertEquals(WORKER_ID, lease.currentWorkerId());
+    }
+
+    @Test
+    void renewalDelayedPastLeaseStopsGenerationUntilRenewed() throws Exception {
+        CountDownLatch databaseBack = new CountDownLatch(1);
+        when(repository.renew(eq(WORKER_ID), anyString(), any())).thenAnswer(invocation -> {
+            databaseBack.await();
+            return 1;
+        });
+
+        lease.start();
+        assertEquals(WORKER_ID, lease.currentWorkerId());
+
+        // Lần gia hạn đầu treo quá lease-seconds: không cấp code có thể trùng với replica khác
+        assertTrue(await(() -> {
+            try {
+                lease.currentWorkerId();
+                return false;
+            } catch (IllegalStateException e) {
+                return true;
+            }
+        }, 3_000));
+        // Quá cả hạn mà lần gia hạn đang treo sẽ đặt (bắt đầu lúc 100 ms + 1 s)
+        Thread.sleep(300);
+        assertThrows(IllegalStateException.class, lease::currentWorkerId);
+
+        databaseBack.countDown();
+        assertTrue(await(() -> {
+            try {
+                return lease.currentWorkerId() == WORKER_ID;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        }, 3_000));
+        verify(repository, atLeast(2)).renew(anyInt(), anyString(), any());
+    }
+
+    private static boolean await(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+
+    // Chạy callback ngay trên thread hiện tại, không cần transaction manager
+    private static final class DirectTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(mock(TransactionStatus.class));
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.bookingcare.payment.reconcile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.payment.dto.event.PaymentFailedEvent;
+import com.bookingcare.payment.dto.event.PaymentSucceededEvent;
+import com.bookingcare.payment.entity.Payment;
+import com.bookingcare.payment.entity.Status;
+import com.bookingcare.payment.kafka.outbox.PaymentEventOutbox;
+import com.bookingcare.payment.repository.JobLeaseRepository;
+import com.bookingcare.payment.repository.PaymentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+
+/**
+ * PaymentReconciler trên bảng payments giả lập trong bộ nhớ và PayOS giả (PaymentStatusLookup):
+ * - Lệch trạng thái được chuyển theo nhóm, mỗi payment chuyển được sinh đúng 1 event saga
+ * - Payment đã có webhook xử lý xong trong inbox thì không chuyển
+ * - Lỗi PayOS vượt ngưỡng thì dừng, lease đang bị giữ thì không chạy
+ * - Cron chỉ kích hoạt lần chạy trên thread riêng, lần chạy trước chưa xong thì bỏ qua
+ * - Nhiều batch, PayOS trả lời sau ~2 ms: số lần gọi PayOS cùng lúc không vượt maxConcurrent
+ *   (giới hạn request / giây do RequestPacer của common-client đảm nhận, test ở RequestPacerTests)
+ * - @Tag("benchmark") (mvn test -Pbenchmark): 100k payment PENDING, chỉ ghi log tốc độ và peak in-flight
+ */
+@Slf4j
+class PaymentReconcilerTests {
+    private final NavigableMap<String, Payment> payments = new ConcurrentSkipListMap<>();
+    // orderCode có dòng payment_webhook_inbox đã processed
+    private final Set<Long> processedWebhooks = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PaymentRepository paymentRepository;
+    private JobLeaseRepository jobLeaseRepository;
+    private PaymentEventOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(PaymentRepository.class, withSettings().stubOnly());
+        jobLeaseRepository = mock(JobLeaseRepository.class);
+        outbox = mock(PaymentEventOutbox.class);
+
+        when(paymentRepository.findByStatusAndPaymentDateBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(Status.PENDING), any(), anyString(), any())).thenAnswer(invocation -> {
+                    LocalDateTime cutoff = invocation.getArgument(1);
+                    String afterId = invocation.getArgument(2);
+                    Limit limit = invocation.getArgument(3);
+                    List<Payment> page = new ArrayList<>();
+                    for (Payment payment : payments.tailMap(afterId, false).values()) {
+                        if (payment.getStatus() == Status.PENDING && payment.getPaymentDate().isBefore(cutoff)) {
+                            page.add(payment);
+                            if (page.size() == limit.max()) {
+                                break;
+                            }
+                        }
+                    }
+                    return page;
+                });
+        when(paymentRepository.reconcilePendingByOrderCodes(anyString(), anyCollection())).thenAnswer(invocation -> {
+            Status target = Status.valueOf(invocation.getArgument(0));
+            Collection<Long> orderCodes = invocation.getArgument(1);
+            List<Payment> changed = new ArrayList<>();
+            for (Long orderCode : orderCodes) {
+                Payment payment = payments.get(id(orderCode));
+                if (payment != null && payment.getStatus() == Status.PENDING && !processedWebhooks.contains(orderCode)) {
+                    payment.setStatus(target);
+                    changed.add(payment);
+                }
+            }
+            return changed;
+        });
+        when(jobLeaseRepository.tryAcquire(eq(PaymentReconciler.LEASE_NAME), anyString(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void appliesDriftGroupedByRemoteStatus() {
+        for (long orderCode = 1; orderCode <= 7; orderCode++) {
+            addPending(orderCode, 60);
+        }
+        addPending(8, 5); // mới tạo, chưa đủ min-age: không hỏi PayOS
+        Map<Long, PaymentLinkStatus> remote = Map.of(
+                1L, PaymentLinkStatus.PAID, 2L, PaymentLinkStatus.PAID,
+                3L, PaymentLinkStatus.CANCELLED, 4L, PaymentLinkStatus.EXPIRED,
+                5L, PaymentLinkStatus.FAILED, 6L, PaymentLinkStatus.PENDING);
+
+        PaymentReconciler.Report report = reconciler(remote::get, 3, 4, 1_000).run();
+
+        assertEquals(7, report.checked());
+        assertEquals(Map.of("PAID", 2, "CANCELLED", 1, "EXPIRED", 1, "FAILED", 1, "NOT_FOUND", 1), report.drift());
+        assertEquals(5, report.applied());
+        assertFalse(report.aborted());
+        assertEquals(Status.COMPLETED, payments.get(id(1)).getStatus());
+        assertEquals(Status.CANCELLED, payments.get(id(4)).getStatus());
+        assertEquals(Status.FAILED, payments.get(id(5)).getStatus());
+        assertEquals(Status.PENDING, payments.get(id(6)).getStatus());
+        assertEquals(Status.PENDING, payments.get(id(7)).getStatus());
+
+        verify(outbox).append(eq("PaymentSucceededEvent"), eq("BOOKING-1"), eq("reconcile-1"), any(PaymentSucceededEvent.class));
+        verify(outbox).append(eq("PaymentFailedEvent"), eq("BOOKING-3"), eq("reconcile-3"), any(PaymentFailedEvent.class));
+        verify(outbox, never()).append(any(), eq("BOOKING-6"), any(), any());
+        verify(outbox, never()).append(any(), eq("BOOKING-8"), any(), any());
+        verify(jobLeaseRepository).release(eq(PaymentReconciler.LEASE_NAME), anyString(), any());
+        assertEquals(1.0, meterRegistry.get("payment.reconciliation.drift").tag("remote", "NOT_FOUND").counter().count());
+        assertEquals(6.0, meterRegistry.get("payment.reconciliation.last-run.drift").gauge().value());
+    }
+
+    @Test
+    void paymentSettledByWebhookMeanwhileIsNotPublishedTwice() {
+        addPending(1, 60);
+        // Webhook về đúng lúc đang hỏi PayOS: payment đã COMPLETED trước khi reconciler UPDATE
+        PaymentReconciler.Report report = reconciler(orderCode -> {
+            payments.get(id(orderCode)).setStatus(Status.COMPLETED);
+            return PaymentLinkStatus.PAID;
+        }, 10, 4, 1_000).run();
+
+        assertEquals(Map.of("PAID", 1), report.drift());
+        assertEquals(0, report.applied());
+        verify(outbox, never()).append(any(), any(), any(), any());
+    }
+
+    @Test
+    void paymentWithProcessedWebhookIsLeftToInbox() {
+        addPending(1, 60);
+        addPending(2, 60);
+        // Webhook của 1 đã xử lý xong (vd. hết lượt thử, chờ kiểm tra tay): reconciler không publish event thứ 2
+        processedWebhooks.add(1L);
+
+        PaymentReconciler.Report report = reconciler(orderCode -> PaymentLinkStatus.CANCELLED, 10, 4, 1_000).run();
+
+        assertEquals(1, report.applied());
+        assertEquals(Status.PENDING, payments.get(id(1)).getStatus());
+        assertEquals(Status.CANCELLED, payments.get(id(2)).getStatus());
+        verify(outbox, never()).append(any(), eq("BOOKING-1"), any(), any());
+        verify(outbox).append(eq("PaymentFailedEvent"), eq("BOOKING-2"), eq("reconcile-2"), any(PaymentFailedEvent.class));
+    }
+
+    @Test
+    void abortsWhenPayOSKeepsFailing() {
+        for (long orderCode = 1; orderCode <= 30; orderCode++) {
+            addPending(orderCode, 60);
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        PaymentReconciler.Report report = reconciler(orderCode -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("PayOS 503");
+        }, 10, 4, 1_000).run();
+
+        assertTrue(report.aborted());
+        assertEquals(10, report.errors());
+        // Dừng sau batch đầu, không hỏi tiếp 20 payment còn lại
+        assertEquals(10, calls.get());
+        verify(outbox, never()).append(any(), any(), any(), any());
+    }
+
+    @Test
+    void skipsRunWhenLeaseIsHeldElsewhere() {
+        addPending(1, 60);
+        when(jobLeaseRepository.tryAcquire(eq(PaymentReconciler.LEASE_NAME), anyString(), any(), any())).thenReturn(0);
+
+        AtomicInteger calls = new AtomicInteger();
+
+        assertNull(reconciler(orderCode -> {
+            calls.incrementAndGet();
+            return PaymentLinkStatus.PAID;
+        }, 10, 4, 1_000).run());
+        assertEquals(0, calls.get());
+        assertEquals(Status.PENDING, payments.get(id(1)).getStatus());
+    }
+
+    @Test
+    void scheduledRunDoesNotBlockSchedulerAndSkipsWhileRunning() throws Exception {
+        addPending(1, 60);
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        PaymentReconciler reconciler = reconciler(orderCode -> {
+            calls.incrementAndGet();
+            lookupStarted.countDown();
+            try {
+                releaseLookup.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PaymentLinkStatus.PAID;
+        }, 10, 4, 1_000);
+        try {
+            // Thread scheduler trả về ngay dù PayOS chưa trả lời
+            reconciler.scheduledRun();
+            assertTrue(lookupStarted.await(5, TimeUnit.SECONDS));
+            assertTrue(reconciler.isRunning());
+
+            reconciler.scheduledRun();
+            assertNull(reconciler.run());
+
+            releaseLookup.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (reconciler.isRunning() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(reconciler.isRunning());
+            assertEquals(1, calls.get());
+            assertEquals(Status.COMPLETED, payments.get(id(1)).getStatus());
+            verify(jobLeaseRepository).release(eq(PaymentReconciler.LEASE_NAME), anyString(), any());
+        } finally {
+            releaseLookup.countDown();
+            reconciler.stop();
+        }
+    }
+
+    @Test
+    void boundsConcurrentLookupsAcrossBatches() {
+        int maxConcurrent = 16;
+        AtomicInteger peakInFlight = new AtomicInteger();
+
+        PaymentReconciler.Report report = reconcileAgainstSlowPayOS(5_000, maxConcurrent, peakInFlight);
+
+        assertEquals(5_000, report.checked());
+        assertEquals(Map.of("PAID", 50, "EXPIRED", 50), report.drift());
+        assertEquals(100, report.applied());
+        assertTrue(peakInFlight.get() <= maxConcurrent, "peak in-flight " + peakInFlight.get());
+        assertEquals(Status.COMPLETED, payments.get(id(100)).getStatus());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkHundredThousandPendingPayments() {
+        AtomicInteger peakInFlight = new AtomicInteger();
+
+        PaymentReconciler.Report report = reconcileAgainstSlowPayOS(100_000, 64, peakInFlight);
+
+        log.info("Reconciled {} pending payments in {} ms ({} lookups/s, peak in-flight {}): drift {}",
+                report.checked(), report.durationMs(), report.checked() * 1000 / Math.max(1, report.durationMs()),
+                peakInFlight.get(), report.drift());
+    }
+
+    // PayOS giả trả lời sau ~2 ms: ~1% đã thanh toán, ~1% hết hạn nhưng webhook bị mất
+    private PaymentReconciler.Report reconcileAgainstSlowPayOS(int total, int maxConcurrent, AtomicInteger peakInFlight) {
+        for (long orderCode = 1; orderCode <= total; orderCode++) {
+            addPending(orderCode, 60);
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        LongFunction<PaymentLinkStatus> payOS = orderCode -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return switch ((int) (orderCode % 100)) {
+                case 0 -> PaymentLinkStatus.PAID;
+                case 1 -> PaymentLinkStatus.EXPIRED;
+                default -> PaymentLinkStatus.PENDING;
+            };
+        };
+        return reconciler(payOS::apply, 500, maxConcurrent, 25_000).run();
+    }
+
+    private PaymentReconciler reconciler(PaymentStatusLookup lookup, int batchSize, int maxConcurrent,
+                                         int maxRequestsPerSecond) {
+        return new PaymentReconciler(paymentRepository, jobLeaseRepository, outbox, lookup,
+                new DirectTransactionTemplate(), meterRegistry,
+                batchSize, maxConcurrent, maxRequestsPerSecond, 30, 300, 50);
+    }
+
+    private void addPending(long orderCode, long ageMinutes) {
+        payments.put(id(orderCode), Payment.builder()
+                .id(id(orderCode))
+                .bookingId("BOOKING-" + orderCode)
+                .orderCode(orderCode)
+                .amount(150_000L)
+                .status(Status.PENDING)
+                .paymentDate(LocalDateTime.now().minusMinutes(ageMinutes))
+                .build());
+    }
+
+    // id cố định độ dài để thứ tự chuỗi trùng thứ tự số, giống keyset theo id trong Postgres
+    private static String id(long orderCode) {
+        return String.format("PAY-%09d", orderCode);
+    }
+
+    // Chạy callback ngay trên thread hiện tại, không cần transaction manager
+    private static final class DirectTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(mock(TransactionStatus.class));
+        }
+    }
+}
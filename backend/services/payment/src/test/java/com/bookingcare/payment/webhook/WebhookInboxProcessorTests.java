@@ -0,0 +1,206 @@
+package com.bookingcare.payment.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.payment.dto.event.PaymentFailedEvent;
+import com.bookingcare.payment.dto.event.PaymentSucceededEvent;
+import com.bookingcare.payment.entity.Payment;
+import com.bookingcare.payment.entity.PaymentWebhook;
+import com.bookingcare.payment.entity.Status;
+import com.bookingcare.payment.kafka.outbox.PaymentEventOutbox;
+import com.bookingcare.payment.repository.PaymentRepository;
+import com.bookingcare.payment.repository.PaymentWebhookRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Xử lý 1 batch inbox: 1 câu UPDATE cho mọi webhook thành công, event vào outbox,
+ * webhook lặp / payment đã xử lý không sinh event, payment chưa có thì thử lại rồi bỏ.
+ * Webhook thành công tới sau khi payment đã FAILED: payment chuyển RECONCILE_REQUIRED, không publish event.
+ * Batch lỗi được xử lý lại từng dòng: dòng vẫn lỗi thử lại, hết lượt thì payment chuyển RECONCILE_REQUIRED.
+ */
+class WebhookInboxProcessorTests {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private PaymentWebhookRepository webhookRepository;
+    private PaymentRepository paymentRepository;
+    private PaymentEventOutbox outbox;
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookInboxProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        webhookRepository = mock(PaymentWebhookRepository.class);
+        paymentRepository = mock(PaymentRepository.class);
+        outbox = mock(PaymentEventOutbox.class);
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new WebhookInboxProcessor(webhookRepository, paymentRepository, outbox,
+                new DirectTransactionTemplate(), meterRegistry, 100, MAX_ATTEMPTS, 2_000, 7);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        processor.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void completesSuccessfulPaymentsWithOneSetBasedUpdate() {
+        when(webhookRepository.claimBatch(any(), eq(100))).thenReturn(List.of(
+                webhook(1, "00", 0), webhook(2, "00", 0), webhook(3, "00", 0), webhook(4, "01", 0)));
+        when(paymentRepository.completePendingByOrderCodes(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(payment(1, Status.COMPLETED), payment(2, Status.COMPLETED)));
+        // 3 đã COMPLETED từ webhook trước: không publish lại
+        when(paymentRepository.findByOrderCodeIn(Set.of(3L))).thenReturn(List.of(payment(3, Status.COMPLETED)));
+        when(paymentRepository.transitionPendingByOrderCodes("FAILED", Set.of(4L)))
+                .thenReturn(List.of(payment(4, Status.FAILED)));
+
+        assertEquals(4, processor.processBatch());
+
+        verify(paymentRepository, times(1)).completePendingByOrderCodes(anyCollection());
+        verify(outbox).append(eq("PaymentSucceededEvent"), eq("BOOKING-1"), eq("webhook-1"), any(PaymentSucceededEvent.class));
+        verify(outbox).append(eq("PaymentSucceededEvent"), eq("BOOKING-2"), eq("webhook-2"), any(PaymentSucceededEvent.class));
+        verify(outbox, never()).append(eq("PaymentSucceededEvent"), eq("BOOKING-3"), any(), any());
+        verify(outbox).append(eq("PaymentFailedEvent"), eq("BOOKING-4"), eq("webhook-4"), any(PaymentFailedEvent.class));
+
+        ArgumentCaptor<Collection<Long>> processed = ArgumentCaptor.forClass(Collection.class);
+        verify(webhookRepository).markProcessed(processed.capture(), any(), isNull());
+        assertEquals(Set.of(1L, 2L, 3L, 4L), Set.copyOf(processed.getValue()));
+        verify(webhookRepository, never()).reschedule(anyCollection(), any(), any());
+    }
+
+    @Test
+    void failedWebhookForSettledPaymentIsNotPublishedAgain() {
+        when(webhookRepository.claimBatch(any(), eq(100))).thenReturn(List.of(webhook(4, "01", 0)));
+        // Reconciler đã chuyển payment trước khi webhook thất bại được xử lý
+        when(paymentRepository.transitionPendingByOrderCodes("FAILED", Set.of(4L))).thenReturn(List.of());
+        when(paymentRepository.findByOrderCodeIn(Set.of(4L))).thenReturn(List.of(payment(4, Status.CANCELLED)));
+
+        processor.processBatch();
+
+        verify(outbox, never()).append(any(), any(), any(), any());
+        verify(webhookRepository).markProcessed(eq(List.of(4L)), any(), isNull());
+    }
+
+    @Test
+    void successAfterFailureIsFlaggedNotPublished() {
+        // Webhook "01" đã chuyển payment 4 sang FAILED (booking bị huỷ), sau đó PayOS gửi "00" cho cùng đơn
+        when(webhookRepository.claimBatch(any(), eq(100))).thenReturn(List.of(webhook(4, "00", 0)));
+        when(paymentRepository.completePendingByOrderCodes(Set.of(4L))).thenReturn(List.of());
+        when(paymentRepository.flagFailedByOrderCodes(Set.of(4L)))
+                .thenReturn(List.of(payment(4, Status.RECONCILE_REQUIRED)));
+
+        processor.processBatch();
+
+        verify(outbox, never()).append(any(), any(), any(), any());
+        verify(paymentRepository, never()).findByOrderCodeIn(anyCollection());
+        verify(webhookRepository).markProcessed(eq(List.of(4L)), any(), isNull());
+        assertEquals(1.0, meterRegistry.get("payment.webhook.processed").tag("outcome", "reconcile_required")
+                .counter().count());
+    }
+
+    @Test
+    void rowThatKeepsFailingIsFlaggedForReconciliation() {
+        // 7 hết lượt thử, 9 còn lượt, 8 không lỗi
+        List<PaymentWebhook> batch = List.of(
+                webhook(7, "00", MAX_ATTEMPTS - 1), webhook(8, "00", 0), webhook(9, "00", 0));
+        when(webhookRepository.claimBatch(any(), eq(100))).thenReturn(batch);
+        batch.forEach(webhook -> when(webhookRepository.claim(webhook.getOrderCode())).thenReturn(Optional.of(webhook)));
+        when(paymentRepository.completePendingByOrderCodes(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> orderCodes = invocation.getArgument(0);
+            if (orderCodes.contains(7L) || orderCodes.contains(9L)) {
+                throw new IllegalStateException("outbox serialization failed");
+            }
+            return List.of(payment(8, Status.COMPLETED));
+        });
+
+        processor.drain();
+
+        verify(outbox).append(eq("PaymentSucceededEvent"), eq("BOOKING-8"), eq("webhook-8"), any(PaymentSucceededEvent.class));
+        verify(webhookRepository).markProcessed(eq(List.of(8L)), any(), isNull());
+        verify(webhookRepository).reschedule(eq(List.of(9L)), any(), startsWith("Apply failed"));
+        verify(webhookRepository).markProcessed(eq(List.of(7L)), any(), startsWith("Apply failed"));
+        verify(paymentRepository).transitionPendingByOrderCodes("RECONCILE_REQUIRED", List.of(7L));
+        verify(paymentRepository, never()).transitionPendingByOrderCodes(eq("RECONCILE_REQUIRED"), eq(List.of(9L)));
+        assertEquals(1.0, meterRegistry.get("payment.webhook.processed").tag("outcome", "reconcile_required")
+                .counter().count());
+    }
+
+    @Test
+    void missingPaymentIsRetriedThenGivenUp() {
+        when(webhookRepository.claimBatch(any(), eq(100))).thenReturn(List.of(
+                webhook(5, "00", 0), webhook(6, "00", MAX_ATTEMPTS - 1)));
+        when(paymentRepository.completePendingByOrderCodes(anyCollection())).thenReturn(List.of());
+        when(paymentRepository.findByOrderCodeIn(anyCollection())).thenReturn(List.of());
+
+        processor.processBatch();
+
+        verify(webhookRepository).reschedule(eq(List.of(5L)), any(), eq("Payment not found"));
+        verify(webhookRepository).markProcessed(eq(List.of(6L)), any(), eq("Payment not found"));
+        verify(outbox, never()).append(any(), any(), any(), any());
+    }
+
+    @Test
+    void emptyInboxDoesNothing() {
+        when(webhookRepository.claimBatch(any(), eq(100))).thenReturn(List.of());
+
+        assertEquals(0, processor.processBatch());
+
+        verify(paymentRepository, never()).completePendingByOrderCodes(anyCollection());
+    }
+
+    private static PaymentWebhook webhook(long orderCode, String code, int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        return PaymentWebhook.builder()
+                .orderCode(orderCode)
+                .code(code)
+                .description("00".equals(code) ? "success" : "failed")
+                .amount(150_000L)
+                .receivedAt(now)
+                .attempts(attempts)
+                .nextAttemptAt(now)
+                .build();
+    }
+
+    private static Payment payment(long orderCode, Status status) {
+        return Payment.builder()
+                .id("PAY-" + orderCode)
+                .bookingId("BOOKING-" + orderCode)
+                .orderCode(orderCode)
+                .amount(150_000L)
+                .status(status)
+                .build();
+    }
+
+    // Chạy callback ngay trên thread hiện tại, exception đi ra như rollback
+    private static final class DirectTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(mock(TransactionStatus.class));
+        }
+    }
+}
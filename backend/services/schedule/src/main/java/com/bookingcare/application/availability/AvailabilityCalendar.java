@@ -0,0 +1,228 @@
+package com.bookingcare.application.availability;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bookingcare.application.dto.QueryAvailabilityCalendarResponse;
+import com.bookingcare.application.dto.QueryDayAvailabilityResponse;
+import com.bookingcare.application.dto.SlotSeatCount;
+import com.bookingcare.application.ports.output.IPackageScheduleQueryRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read model chỗ trống theo ngày của từng gói khám, phục vụ màn hình chọn lịch của bệnh nhân.
+ *
+ * - Mỗi gói được nạp 1 lần từ DB (1 query, các slot chưa xoá từ hôm nay), lưu dạng mảng:
+ *   slot sắp theo ngày, dayStart[d] là vị trí slot đầu tiên của ngày thứ d, seats[i] là số chỗ còn lại.
+ * - Hold / release / expire trên SlotReservationEngine cập nhật seats[i] tăng dần sau khi transaction commit.
+ *   Confirm (held -> booked) không đổi số chỗ còn lại.
+ * - Thay đổi từ replica khác hoặc admin sửa slot: nạp lại sau refresh-after-seconds / khi bị invalidate.
+ * - Gói không có slot nào trong DB (packageId sai / không tồn tại) không được cache, tránh endpoint public
+ *   bị lấp đầy cache bằng packageId rác.
+ */
+@Component
+@Slf4j
+public class AvailabilityCalendar {
+    public static final int MAX_RANGE_DAYS = 92;
+
+    private final IPackageScheduleQueryRepository _packageScheduleQueryRepository;
+    private final LoadingCache<String, PackageCalendar> calendars;
+
+    // packageScheduleId -> calendar đang chứa slot đó
+    private final ConcurrentHashMap<String, PackageCalendar> calendarBySlot = new ConcurrentHashMap<>();
+
+    public AvailabilityCalendar(IPackageScheduleQueryRepository packageScheduleQueryRepository,
+                                @Value("${application.availability.max-packages:10000}") long maxPackages,
+                                @Value("${application.availability.refresh-after-seconds:30}") long refreshAfterSeconds) {
+        this._packageScheduleQueryRepository = packageScheduleQueryRepository;
+        this.calendars = Caffeine.newBuilder()
+                .maximumSize(maxPackages)
+                .refreshAfterWrite(Duration.ofSeconds(refreshAfterSeconds))
+                .<String, PackageCalendar>removalListener((packageId, calendar, cause) -> {
+                    if (calendar != null) {
+                        calendar.slotIndex.keySet().forEach(slotId -> calendarBySlot.remove(slotId, calendar));
+                    }
+                })
+                .build(this::load);
+    }
+
+    /**
+     * Chỗ trống từng ngày trong [from, to] (tối đa MAX_RANGE_DAYS ngày), không gọi DB khi gói đã được nạp.
+     *
+     * @return null nếu gói không tồn tại
+     */
+    public QueryAvailabilityCalendarResponse getCalendar(String packageId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        PackageCalendar calendar = calendars.get(packageId);
+        return calendar != null ? calendar.read(from, to) : null;
+    }
+
+    /**
+     * Số chỗ còn lại của slot thay đổi delta (hold: -1, release / expire: +1).
+     * Trong transaction thì chỉ áp dụng sau khi commit.
+     */
+    public void seatsChanged(String packageScheduleId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(packageScheduleId, delta);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(packageScheduleId, delta);
+            }
+        });
+    }
+
+    /**
+     * Bỏ calendar của gói (admin tạo / sửa / xoá slot), lần đọc sau nạp lại từ DB.
+     */
+    public void invalidate(String packageId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            calendars.invalidate(packageId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                calendars.invalidate(packageId);
+            }
+        });
+    }
+
+    private void apply(String packageScheduleId, int delta) {
+        PackageCalendar calendar = calendarBySlot.get(packageScheduleId);
+        if (calendar == null) {
+            // Gói chưa được nạp (hoặc đã bị evict), lần đọc sau sẽ lấy số liệu mới từ DB
+            return;
+        }
+        if (calendars.asMap().get(calendar.packageId) != calendar) {
+            calendarBySlot.remove(packageScheduleId, calendar);
+            return;
+        }
+        calendar.add(packageScheduleId, delta);
+    }
+
+    private PackageCalendar load(String packageId) {
+        List<SlotSeatCount> slots = _packageScheduleQueryRepository
+                .findSeatCountsByPackageId(packageId, LocalDate.now());
+        if (slots.isEmpty() && !_packageScheduleQueryRepository.existsByPackageId(packageId)) {
+            // Caffeine không cache null: lần hỏi sau lại tra DB
+            log.debug("No schedules for package {}, availability calendar not cached", packageId);
+            return null;
+        }
+
+        PackageCalendar calendar = new PackageCalendar(packageId, slots);
+        calendar.slotIndex.keySet().forEach(slotId -> calendarBySlot.put(slotId, calendar));
+
+        log.debug("Loaded availability calendar for package {}: {} slots", packageId, slots.size());
+        return calendar;
+    }
+
+    static final class PackageCalendar {
+        private final String packageId;
+        private final long firstEpochDay;
+        private final int[] dayStart;
+        private final AtomicIntegerArray seats;
+        private final Map<String, Integer> slotIndex;
+
+        /**
+         * @param slots đã sắp theo scheduleDate
+         */
+        PackageCalendar(String packageId, List<SlotSeatCount> slots) {
+            this.packageId = packageId;
+            this.seats = new AtomicIntegerArray(slots.size());
+            this.slotIndex = new HashMap<>(slots.size() * 2);
+
+            if (slots.isEmpty()) {
+                this.firstEpochDay = 0;
+                this.dayStart = new int[] {0};
+                return;
+            }
+
+            this.firstEpochDay = slots.get(0).scheduleDate().toEpochDay();
+            long lastEpochDay = slots.get(slots.size() - 1).scheduleDate().toEpochDay();
+            this.dayStart = new int[(int) (lastEpochDay - firstEpochDay) + 2];
+
+            int day = 0;
+            for (int i = 0; i < slots.size(); i++) {
+                SlotSeatCount slot = slots.get(i);
+                int slotDay = (int) (slot.scheduleDate().toEpochDay() - firstEpochDay);
+                while (day < slotDay) {
+                    dayStart[++day] = i;
+                }
+                seats.set(i, slot.availableSeats());
+                slotIndex.put(slot.packageScheduleId(), i);
+            }
+            while (day < dayStart.length - 1) {
+                dayStart[++day] = slots.size();
+            }
+        }
+
+        void add(String packageScheduleId, int delta) {
+            Integer index = slotIndex.get(packageScheduleId);
+            if (index != null) {
+                seats.addAndGet(index, delta);
+            }
+        }
+
+        QueryAvailabilityCalendarResponse read(LocalDate from, LocalDate to) {
+            List<QueryDayAvailabilityResponse> days = new ArrayList<>((int) ChronoUnit.DAYS.between(from, to) + 1);
+            long hash = 0xcbf29ce484222325L;
+            hash = mix(hash, packageId.hashCode());
+            hash = mix(hash, from.toEpochDay());
+
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                long day = date.toEpochDay() - firstEpochDay;
+                int start = 0;
+                int end = 0;
+                if (day >= 0 && day < dayStart.length - 1) {
+                    start = dayStart[(int) day];
+                    end = dayStart[(int) day + 1];
+                }
+
+                int availableSeats = 0;
+                int openSlots = 0;
+                for (int i = start; i < end; i++) {
+                    int remaining = seats.get(i);
+                    if (remaining > 0) {
+                        availableSeats += remaining;
+                        openSlots++;
+                    }
+                }
+
+                days.add(new QueryDayAvailabilityResponse(date, availableSeats, openSlots, end - start));
+                hash = mix(mix(mix(hash, availableSeats), openSlots), end - start);
+            }
+
+            return new QueryAvailabilityCalendarResponse(packageId, from, to, Long.toHexString(hash), days);
+        }
+
+        // FNV-1a 64-bit trên từng giá trị
+        private static long mix(long hash, long value) {
+            return (hash ^ value) * 0x100000001b3L;
+        }
+    }
+}
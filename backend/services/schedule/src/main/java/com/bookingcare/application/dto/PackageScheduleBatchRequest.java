@@ -0,0 +1,10 @@
+package com.bookingcare.application.dto;
+
+import java.util.List;
+
+public record PackageScheduleBatchRequest(
+    List<String> packageScheduleIds
+) {
+    // Số id tối đa mỗi request, client (booking) chia batch theo giới hạn này
+    public static final int MAX_IDS = 500;
+}
@@ -0,0 +1,18 @@
+package com.bookingcare.application.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lịch chỗ trống theo ngày của 1 gói khám.
+ *
+ * @param version hash nội dung của khoảng ngày, dùng làm ETag (cùng dữ liệu thì cùng version)
+ */
+public record QueryAvailabilityCalendarResponse(
+        String packageId,
+        LocalDate from,
+        LocalDate to,
+        String version,
+        List<QueryDayAvailabilityResponse> days
+) {
+}
@@ -0,0 +1,11 @@
+package com.bookingcare.application.dto;
+
+import java.time.LocalDate;
+
+public record QueryDayAvailabilityResponse(
+        LocalDate date,
+        int availableSeats,
+        int openSlots,
+        int totalSlots
+) {
+}
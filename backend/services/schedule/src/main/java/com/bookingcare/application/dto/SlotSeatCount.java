@@ -0,0 +1,13 @@
+package com.bookingcare.application.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Số chỗ còn lại của 1 slot: capacity + overbook_limit - booked_count - held_count.
+ */
+public record SlotSeatCount(
+        String packageScheduleId,
+        LocalDate scheduleDate,
+        Integer availableSeats
+) {
+}
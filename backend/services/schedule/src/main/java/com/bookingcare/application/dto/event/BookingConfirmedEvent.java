@@ -1,4 +1,4 @@
-﻿package com.bookingcare.application.dto.event;
+package com.bookingcare.application.dto.event;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
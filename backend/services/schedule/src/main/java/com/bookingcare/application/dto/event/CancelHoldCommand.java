@@ -0,0 +1,16 @@
+package com.bookingcare.application.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelHoldCommand {
+    private String bookingId;
+    private String scheduleHoldId; // null nếu booking chưa nhận được HoldSlotSucceededEvent
+    private String reason;
+}
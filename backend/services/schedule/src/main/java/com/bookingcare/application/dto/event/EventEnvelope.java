@@ -1,35 +0,0 @@
-﻿package com.bookingcare.application.dto.event;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import java.time.ZonedDateTime;
-import java.util.UUID;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class EventEnvelope<T> {
-    private String eventId;
-    private String eventType;
-    private String aggregateId;
-    private String correlationId;
-    private ZonedDateTime timestamp;
-    private String source;
-    private T payload;
-
-    public static <T> EventEnvelope<T> of(String eventType, String aggregateId, 
-                                           String correlationId, String source, T payload) {
-        return EventEnvelope.<T>builder()
-                .eventId(UUID.randomUUID().toString())
-                .eventType(eventType)
-                .aggregateId(aggregateId)
-                .correlationId(correlationId)
-                .timestamp(ZonedDateTime.now())
-                .source(source)
-                .payload(payload)
-                .build();
-    }
-}
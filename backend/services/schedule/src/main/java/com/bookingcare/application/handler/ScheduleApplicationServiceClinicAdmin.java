@@ -5,12 +5,14 @@ import java.util.List;
 
 import org.springframework.stereotype.Service;
 
+import com.bookingcare.application.availability.AvailabilityCalendar;
 import com.bookingcare.application.dto.PackageScheduleRequest;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
 import com.bookingcare.application.mapper.ScheduleApplicationMapper;
 import com.bookingcare.application.ports.input.IScheduleApplicationServiceClinicAdmin;
 import com.bookingcare.application.ports.output.IHealthCheckPackageDoctorSchedulesRepository;
 import com.bookingcare.application.ports.output.IHealthCheckPackageSchedulesRepository;
+import com.bookingcare.application.ports.output.IPackageScheduleQueryRepository;
 import com.bookingcare.application.ports.output.IScheduleRepository;
 import com.bookingcare.domain.entity.HealthCheckPackageSchedule;
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleDoctor;
@@ -31,6 +33,8 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
     private final IScheduleRepository _scheduleRepository;
     private final ScheduleApplicationMapper scheduleMapper;
     private final ClinicBranchPackageClient clinicBranchPackageClient;
+    private final IPackageScheduleQueryRepository _packageScheduleQueryRepository;
+    private final AvailabilityCalendar _availabilityCalendar;
 
     
 
@@ -45,18 +49,7 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
             
             clinicBranchId = clinicBranchId.trim();
             
-            // 2. Fetch clinic branch details using OpenFeign
-            log.debug("Fetching clinic branch details for ID: {}", clinicBranchId);
-            
-            List<ClinicBranchPackageResponse> clinicBranchPackages = clinicBranchPackageClient.getClinicBranchesByPackageId(clinicBranchId);
-            
-            if (clinicBranchPackages == null || clinicBranchPackages.isEmpty()) {
-                log.warn("Clinic branch not found: {}", clinicBranchId);
-                return new ArrayList<>();
-            }
-            
-            
-            // 3. Fetch health check packages for the clinic branch using OpenFeign
+            // 2. Fetch health check packages for the clinic branch using OpenFeign (1 lần gọi)
             log.debug("Fetching health check packages for clinic branch: {}", clinicBranchId);
             
             List<ClinicBranchPackageResponse> packages = clinicBranchPackageClient.getClinicBranchesByPackageId(clinicBranchId);
@@ -69,10 +62,11 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
             log.debug("Found {} health check packages for clinic branch: {}", 
                     packages.size(), clinicBranchId);
             
-            // 4. Extract package IDs from the response
+            // 3. Extract package IDs from the response
             List<String> packageIds = packages.stream()
                     .map(ClinicBranchPackageResponse::getHealthcheckPackageId)
                     .filter(id -> id != null && !id.isEmpty())
+                    .distinct()
                     .toList();
             
             log.debug("Extracted {} package IDs from clinic branch packages", packageIds.size());
@@ -82,53 +76,9 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
                 return new ArrayList<>();
             }
             
-            // 5. Fetch all schedules for these packages
-            List<QueryPackageScheduleResponse> allSchedules = new ArrayList<>();
-            
-            for (String packageId : packageIds) {
-                try {
-                    log.debug("Fetching schedules for package ID: {}", packageId);
-                    
-                    var packageSchedules = _healthCheckPackageSchedulesRepository
-                            .findByPackageIdAndNotDeleted(packageId);
-                    
-                    if (packageSchedules == null || packageSchedules.isEmpty()) {
-                        log.debug("No schedules found for package: {}", packageId);
-                        continue;
-                    }
-                    
-                    // 6. Map package schedules to response DTOs
-                    var scheduleResponses = packageSchedules.stream()
-                            .map(packageSchedule -> {
-                                try {
-                                    var schedule = _scheduleRepository.findById(packageSchedule.getScheduleId())
-                                            .orElse(null);
-                                    
-                                    if (schedule == null) {
-                                        log.warn("Schedule not found for package schedule: {}", 
-                                                packageSchedule.getPackageScheduleId());
-                                        return null;
-                                    }
-                                    
-                                    return scheduleMapper.toQueryPackageScheduleResponse(packageSchedule, schedule);
-                                } catch (Exception e) {
-                                    log.error("Error mapping package schedule {}: {}", 
-                                            packageSchedule.getPackageScheduleId(), e.getMessage());
-                                    return null;
-                                }
-                            })
-                            .filter(response -> response != null)
-                            .toList();
-                    
-                    allSchedules.addAll(scheduleResponses);
-                    log.debug("Added {} schedules for package: {}", scheduleResponses.size(), packageId);
-                    
-                } catch (Exception e) {
-                    log.error("Error fetching schedules for package {}: {}", packageId, e.getMessage());
-                    // Continue with next package instead of failing
-                    continue;
-                }
-            }
+            // 4. Fetch all schedules for these packages: 1 query (IN packageIds, JOIN schedule)
+            List<QueryPackageScheduleResponse> allSchedules = _packageScheduleQueryRepository
+                    .findByPackageIdsAndNotDeleted(packageIds);
             
             log.info("Successfully fetched {} total schedules for clinic branch: {}", 
                     allSchedules.size(), clinicBranchId);
@@ -191,6 +141,7 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
             
             // 5. Save to database
             var savedPackageSchedule = _healthCheckPackageSchedulesRepository.save(newPackageSchedule);
+            _availabilityCalendar.invalidate(request.packageId());
             
             log.info("Successfully created package schedule: {} for package: {}, schedule: {}, date: {}",
                     newPackageSchedule, request.packageId(), request.scheduleId(), 
@@ -247,7 +198,9 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
                 }
             }
             
-            // 5. Update fields
+            // 5. Update fields (slot có thể chuyển sang gói khác -> invalidate calendar của cả 2 gói)
+            _availabilityCalendar.invalidate(existingPackageSchedule.getPackageId());
+            _availabilityCalendar.invalidate(request.packageId());
             existingPackageSchedule.setPackageId(request.packageId());
             existingPackageSchedule.setScheduleId(request.scheduleId());
             existingPackageSchedule.setScheduleDate(request.getScheduleDate());
@@ -317,6 +270,7 @@ public class ScheduleApplicationServiceClinicAdmin implements IScheduleApplicati
             existingPackageSchedule.setUpdatedAt(ZonedDateTime.now());
             
             _healthCheckPackageSchedulesRepository.save(existingPackageSchedule);
+            _availabilityCalendar.invalidate(existingPackageSchedule.getPackageId());
             
             log.info("Successfully deleted package schedule: {}", packageScheduleId);
             return true;
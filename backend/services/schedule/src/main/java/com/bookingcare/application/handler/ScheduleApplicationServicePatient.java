@@ -4,21 +4,24 @@ package com.bookingcare.application.handler;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.UUID;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 
 import org.springframework.stereotype.Service;
 
+import com.bookingcare.application.availability.AvailabilityCalendar;
 import com.bookingcare.application.dto.PackageDetailResponse;
+import com.bookingcare.application.dto.QueryAvailabilityCalendarResponse;
 import com.bookingcare.application.dto.QueryHealthCheckPackageSchedulesResponse;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.application.dto.QueryScheduleHoldResponse;
 import com.bookingcare.application.mapper.ScheduleApplicationMapper;
 import com.bookingcare.application.ports.input.IScheduleApplicationServicePatient;
 import com.bookingcare.application.ports.output.IHealthCheckPackageSchedulesRepository;
-import com.bookingcare.application.ports.output.IHealthCheckPackageDoctorSchedulesRepository;
 import com.bookingcare.application.ports.output.IHealthPackageServicePort;
+import com.bookingcare.application.ports.output.IPackageScheduleQueryRepository;
 import com.bookingcare.application.ports.output.IScheduleHoldRepository;
-import com.bookingcare.application.ports.output.IScheduleRepository;
+import com.bookingcare.application.reservation.SlotReservationEngine;
 import com.bookingcare.domain.entity.ScheduleHold;
 
 import jakarta.transaction.Transactional;
@@ -30,29 +33,18 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ScheduleApplicationServicePatient implements IScheduleApplicationServicePatient {
     private final IHealthCheckPackageSchedulesRepository _healthCheckPackageSchedulesRepository;
-    private final IHealthCheckPackageDoctorSchedulesRepository _healthCheckPackageDoctorSchedulesRepository;
-    private final IScheduleRepository _scheduleRepository;
     private final ScheduleApplicationMapper scheduleMapper;
     private final IHealthPackageServicePort _healthPackageServicePort;
+    private final SlotReservationEngine _slotReservationEngine;
     private final IScheduleHoldRepository _scheduleHoldRepository;
+    private final IPackageScheduleQueryRepository _packageScheduleQueryRepository;
+    private final AvailabilityCalendar _availabilityCalendar;
 
     @Override
     public List<QueryPackageScheduleResponse> getPackageScheduleByPackageId(String packageId) {
         try {
-            // Implement the logic to fetch the package schedule by ID
-
-            return _healthCheckPackageSchedulesRepository
-                    .findByPackageId(packageId)
-                    .stream()
-                    .map(healthCheckPackageSchedule -> {
-                        // Fetch Schedule object từ scheduleId
-                        var schedule = _scheduleRepository.findById(healthCheckPackageSchedule.getScheduleId());
-                        return scheduleMapper.toQueryPackageScheduleResponse(
-                                healthCheckPackageSchedule,
-                                schedule.orElse(null)
-                        );
-                    })
-                    .toList();
+            // 1 query: package schedule JOIN schedule, không findById schedule theo từng dòng
+            return _packageScheduleQueryRepository.findByPackageId(packageId);
         } catch (Exception e) {
             // Log the exception (logging framework assumed to be set up)
             log.error("Error fetching package schedule: " + e.getMessage());
@@ -94,109 +86,48 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
             }
 
             // Lấy danh sách schedule theo packageId và date
-            return _healthCheckPackageSchedulesRepository
-                    .findByPackageIdAndScheduleDate(packageDetailResponse.id().toString(), date)
-                    .stream()
-                    .map(healthCheckPackageSchedule -> {
-                        // Fetch Schedule object từ scheduleId
-                        var schedule = _scheduleRepository.findById(healthCheckPackageSchedule.getScheduleId());
-                        return scheduleMapper.toQueryPackageScheduleResponse(
-                                healthCheckPackageSchedule,
-                                schedule.orElse(null)
-                        );
-                    })
-                    .toList();
+            return _packageScheduleQueryRepository
+                    .findByPackageIdAndScheduleDate(packageDetailResponse.id().toString(), date);
         } catch (Exception e) {
             log.error("Error fetching health check package schedules: " + e.getMessage());
             throw e;
         }
     }
 
+    @Override
+    public QueryAvailabilityCalendarResponse getAvailabilityCalendar(String packageId, LocalDate from, LocalDate to) {
+        LocalDate rangeFrom = from != null ? from : LocalDate.now();
+        LocalDate rangeTo = to != null ? to : rangeFrom.plusMonths(1).minusDays(1);
+
+        return _availabilityCalendar.getCalendar(packageId, rangeFrom, rangeTo);
+    }
+
     @Transactional
     @Override
-    public String holdScheduleForBooking(String packageScheduleId, String bookingId) {
-    try {
-            // 1. Kiểm tra slot còn chỗ trống không
-            var packageSchedule = _healthCheckPackageSchedulesRepository
-                    .findById(packageScheduleId)
-                    .orElseThrow(() -> new RuntimeException("Package schedule not found: " + packageScheduleId));
-            
-            // Kiểm tra capacity
-            int availableSlots = packageSchedule.getCapacity() - packageSchedule.getBookedCount();
-            if (availableSlots <= 0) {
-                throw new RuntimeException("No available slots for package schedule: " + packageScheduleId);
-            }
-            
-            // 2. Tạo ScheduleHold record
-            String scheduleHoldId = generateScheduleHoldId(); // H + timestamp hoặc UUID
-            ScheduleHold scheduleHold = ScheduleHold.builder()
-                    .id(scheduleHoldId)
-                    .packageScheduleId(packageScheduleId)
-                    .bookingId(bookingId)
-                    .status("HOLD")
-                    .expireAt(ZonedDateTime.now().plusMinutes(15)) // Giữ chỗ 15 phút
-                    .createdAt(ZonedDateTime.now())
-                    .updatedAt(ZonedDateTime.now())
-                    .build();
-            
-            // 3. Lưu vào database
-            _scheduleHoldRepository.save(scheduleHold);
-            
-            log.info("Hold schedule created: {} for booking: {}", scheduleHoldId, bookingId);
-            return scheduleHoldId;
-        
+    public QueryScheduleHoldResponse holdScheduleForBooking(String packageScheduleId, String bookingId) {
+        try {
+            // Giữ chỗ bằng 1 câu UPDATE có điều kiện trên slot + tạo ScheduleHold (15 phút)
+            ScheduleHold scheduleHold = _slotReservationEngine.hold(packageScheduleId, bookingId);
+
+            log.info("Hold schedule created: {} for booking: {}", scheduleHold.getId(), bookingId);
+            return scheduleMapper.toQueryScheduleHoldResponse(scheduleHold);
+
         } catch (Exception e) {
             log.error("Error holding schedule: " + e.getMessage());
             throw e;
         }
     }
 
-    // Helper method để generate scheduleHoldId
-    private String generateScheduleHoldId() {
-        return "H" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8);
-    }
-
     @Transactional
     @Override
     public Boolean confirmHoldScheduleForBooking(String scheduleHoldId, String bookingId) {
         try {
-            // 1. Kiểm tra ScheduleHold tồn tại và trạng thái
-            var scheduleHold = _scheduleHoldRepository
-                    .findById(scheduleHoldId)
-                    .orElseThrow(() -> new RuntimeException("Schedule hold not found: " + scheduleHoldId));
-            
-            // Kiểm tra bookingId khớp
-            if (!scheduleHold.getBookingId().equals(bookingId)) {
-                throw new RuntimeException("BookingId mismatch for hold: " + scheduleHoldId);
-            }
-            
-            // Kiểm tra trạng thái là HOLD
-            if (!"HOLD".equals(scheduleHold.getStatus())) {
-                throw new RuntimeException("Hold status is not HOLD: " + scheduleHoldId);
-            }
-            
-            // Kiểm tra hold chưa expire
-            if (ZonedDateTime.now().isAfter(scheduleHold.getExpireAt())) {
-                throw new RuntimeException("Hold has expired: " + scheduleHoldId);
-            }
-            
-            // 2. Cập nhật ScheduleHold status thành BOOKED
-            scheduleHold.setStatus("BOOKED");
-            scheduleHold.setUpdatedAt(ZonedDateTime.now());
-            _scheduleHoldRepository.save(scheduleHold);
-            
-            // 3. Cập nhật bookedCount trong HealthCheckPackageSchedule
-            var packageSchedule = _healthCheckPackageSchedulesRepository
-                    .findById(scheduleHold.getPackageScheduleId())
-                    .orElseThrow(() -> new RuntimeException("Package schedule not found: " + scheduleHold.getPackageScheduleId()));
-            
-            packageSchedule.setBookedCount(packageSchedule.getBookedCount() + 1);
-            packageSchedule.setUpdatedAt(ZonedDateTime.now());
-            _healthCheckPackageSchedulesRepository.save(packageSchedule);
-            
+            // HOLD -> BOOKED, held_count - 1, booked_count + 1
+            _slotReservationEngine.confirm(scheduleHoldId, bookingId);
+
             log.info("Hold schedule confirmed: {} for booking: {}", scheduleHoldId, bookingId);
             return true;
-            
+
         } catch (Exception e) {
             log.error("Error confirming hold schedule: " + e.getMessage());
             throw e;
@@ -207,29 +138,12 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
     @Override
     public Boolean expiredHoldScheduleForBooking(String scheduleHoldId, String bookingId) {
         try {
-            // 1. Kiểm tra ScheduleHold tồn tại
-            var scheduleHold = _scheduleHoldRepository
-                    .findById(scheduleHoldId)
-                    .orElseThrow(() -> new RuntimeException("Schedule hold not found: " + scheduleHoldId));
-            
-            // Kiểm tra bookingId khớp
-            if (!scheduleHold.getBookingId().equals(bookingId)) {
-                throw new RuntimeException("BookingId mismatch for hold: " + scheduleHoldId);
-            }
-            
-            // Kiểm tra trạng thái là HOLD (chưa confirm)
-            if (!"HOLD".equals(scheduleHold.getStatus())) {
-                throw new RuntimeException("Cannot cancel hold with status: " + scheduleHold.getStatus());
-            }
-            
-            // 2. Cập nhật ScheduleHold status thành RELEASED
-            scheduleHold.setStatus("RELEASED");
-            scheduleHold.setUpdatedAt(ZonedDateTime.now());
-            _scheduleHoldRepository.save(scheduleHold);
-            
+            // Chỉ release hold chưa confirm (HOLD -> RELEASED)
+            _slotReservationEngine.release(scheduleHoldId, bookingId, false);
+
             log.info("Hold schedule cancelled: {} for booking: {}", scheduleHoldId, bookingId);
             return true;
-            
+
         } catch (Exception e) {
             log.error("Error cancelling hold schedule: " + e.getMessage());
             throw e;
@@ -238,6 +152,54 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
 
 
 
+    @Transactional
+    @Override
+    public int releaseUnconfirmedHoldsForBooking(String scheduleHoldId, String bookingId) {
+        try {
+            List<String> holdIds = scheduleHoldId != null
+                    ? List.of(scheduleHoldId)
+                    : _scheduleHoldRepository.findActiveHoldsByBookingId(bookingId).stream()
+                            .map(ScheduleHold::getId)
+                            .toList();
+
+            int released = 0;
+            for (String holdId : holdIds) {
+                // Chỉ HOLD -> RELEASED, hold đã BOOKED / EXPIRED giữ nguyên
+                var hold = _scheduleHoldRepository.findById(holdId).orElse(null);
+                if (hold == null || !SlotReservationEngine.STATUS_HOLD.equals(hold.getStatus())) {
+                    continue;
+                }
+                _slotReservationEngine.release(holdId, bookingId, false);
+                released++;
+            }
+
+            log.info("Released {} unconfirmed holds for booking: {}", released, bookingId);
+            return released;
+
+        } catch (Exception e) {
+            log.error("Error releasing unconfirmed holds: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    @Transactional
+    @Override
+    public List<QueryScheduleHoldResponse> expireDueHolds(int batchSize) {
+        try {
+            // Claim các hold quá hạn (SKIP LOCKED) rồi HOLD -> EXPIRED, trả chỗ về slot
+            return _scheduleHoldRepository
+                    .claimExpiredHolds(ZonedDateTime.now(), batchSize)
+                    .stream()
+                    .filter(_slotReservationEngine::expire)
+                    .map(scheduleMapper::toQueryScheduleHoldResponse)
+                    .toList();
+        } catch (Exception e) {
+            log.error("Error expiring due holds: " + e.getMessage());
+            throw e;
+        }
+    }
+
+
     @Override
     public Boolean isScheduleAvailable(String packageScheduleId) {
         try {
@@ -252,8 +214,10 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
                 return false;
             }
             
-            // 3. Tính số chỗ còn trống
-            int availableSlots = packageSchedule.getCapacity() - packageSchedule.getBookedCount();
+            // 3. Tính số chỗ còn trống (trừ cả các chỗ đang HOLD)
+            int heldCount = packageSchedule.getHeldCount() != null ? packageSchedule.getHeldCount() : 0;
+            int occupied = packageSchedule.getBookedCount() + heldCount;
+            int availableSlots = packageSchedule.getCapacity() - occupied;
             
             // 4. Kiểm tra còn chỗ trống hoặc có thể overbook
             if (availableSlots > 0) {
@@ -263,15 +227,15 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
             
             // 5. Kiểm tra xem có thể overbook không
             int totalCapacityWithOverbook = packageSchedule.getCapacity() + packageSchedule.getOverbookLimit();
-            if (packageSchedule.getBookedCount() < totalCapacityWithOverbook) {
-                log.info("Schedule available with overbook: {} (booked: {}, capacity with overbook: {})", 
-                        packageScheduleId, packageSchedule.getBookedCount(), totalCapacityWithOverbook);
+            if (occupied < totalCapacityWithOverbook) {
+                log.info("Schedule available with overbook: {} (occupied: {}, capacity with overbook: {})", 
+                        packageScheduleId, occupied, totalCapacityWithOverbook);
                 return true;
             }
             
             // 6. Hết chỗ, không thể overbook
-            log.warn("Schedule is full with no overbook available: {} (booked: {}, total capacity: {})", 
-                    packageScheduleId, packageSchedule.getBookedCount(), totalCapacityWithOverbook);
+            log.warn("Schedule is full with no overbook available: {} (occupied: {}, total capacity: {})", 
+                    packageScheduleId, occupied, totalCapacityWithOverbook);
             return false;
             
         } catch (Exception e) {
@@ -285,40 +249,12 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
     @Override
     public Boolean cancelHoldScheduleForBooking(String scheduleHoldId, String bookingId) {
         try {
-            // 1. Kiểm tra ScheduleHold tồn tại
-            var scheduleHold = _scheduleHoldRepository
-                    .findById(scheduleHoldId)
-                    .orElseThrow(() -> new RuntimeException("Schedule hold not found: " + scheduleHoldId));
-            
-            // Kiểm tra bookingId khớp
-            if (!scheduleHold.getBookingId().equals(bookingId)) {
-                throw new RuntimeException("BookingId mismatch for hold: " + scheduleHoldId);
-            }
-            
-            // Kiểm tra trạng thái là HOLD hoặc BOOKED
-            if (!"HOLD".equals(scheduleHold.getStatus()) && !"BOOKED".equals(scheduleHold.getStatus())) {
-                throw new RuntimeException("Cannot cancel hold with status: " + scheduleHold.getStatus());
-            }
-            
-            // 2. Nếu status là BOOKED, cần giảm bookedCount
-            if ("BOOKED".equals(scheduleHold.getStatus())) {
-                var packageSchedule = _healthCheckPackageSchedulesRepository
-                        .findById(scheduleHold.getPackageScheduleId())
-                        .orElseThrow(() -> new RuntimeException("Package schedule not found: " + scheduleHold.getPackageScheduleId()));
-                
-                packageSchedule.setBookedCount(packageSchedule.getBookedCount() - 1);
-                packageSchedule.setUpdatedAt(ZonedDateTime.now());
-                _healthCheckPackageSchedulesRepository.save(packageSchedule);
-            }
-            
-            // 3. Cập nhật ScheduleHold status thành RELEASED
-            scheduleHold.setStatus("RELEASED");
-            scheduleHold.setUpdatedAt(ZonedDateTime.now());
-            _scheduleHoldRepository.save(scheduleHold);
-            
-            log.info("Hold schedule released: {} for booking: {} (status: {})", scheduleHoldId, bookingId, scheduleHold.getStatus());
+            // HOLD hoặc BOOKED -> RELEASED, trả chỗ về đúng counter
+            String previousStatus = _slotReservationEngine.release(scheduleHoldId, bookingId, true);
+
+            log.info("Hold schedule released: {} for booking: {} (status: {})", scheduleHoldId, bookingId, previousStatus);
             return true;
-            
+
         } catch (Exception e) {
             log.error("Error releasing hold schedule: " + e.getMessage());
             throw e;
@@ -326,41 +262,29 @@ public class ScheduleApplicationServicePatient implements IScheduleApplicationSe
     }
 
 
+    @Override
+    public List<QueryPackageScheduleResponse> getPackageSchedulesByIds(List<String> packageScheduleIds) {
+        try {
+            // 1 query: package schedule JOIN schedule cho cả batch
+            return _packageScheduleQueryRepository.findByPackageScheduleIds(new LinkedHashSet<>(packageScheduleIds));
+        } catch (Exception e) {
+            log.error("Error fetching package schedules by ids: " + e.getMessage());
+            throw e;
+        }
+    }
+
     @Override
     public List<QueryPackageScheduleResponse> getPackageScheduleByDoctorId(String doctorId) {
         try {
-            // Lấy danh sách HealthCheckPackageScheduleDoctor theo doctorId
-            var doctorSchedules = _healthCheckPackageDoctorSchedulesRepository
-                    .findByDoctorId(doctorId);
-            
-            if (doctorSchedules == null || doctorSchedules.isEmpty()) {
+            // 1 query: doctor schedule JOIN package schedule JOIN schedule
+            var packageSchedules = _packageScheduleQueryRepository.findByDoctorId(doctorId);
+
+            if (packageSchedules.isEmpty()) {
                 log.warn("No package schedules found for doctor: {}", doctorId);
                 return new ArrayList<>();
             }
-            
-            // Lấy thông tin chi tiết từ packageScheduleId
-            return doctorSchedules.stream()
-                    .map(doctorSchedule -> {
-                        // Fetch HealthCheckPackageSchedule object từ packageScheduleId
-                        var packageSchedule = _healthCheckPackageSchedulesRepository
-                                .findById(doctorSchedule.getPackageScheduleId());
-                        
-                        if (packageSchedule.isEmpty()) {
-                            log.warn("Package schedule not found: {}", doctorSchedule.getPackageScheduleId());
-                            return null;
-                        }
-                        
-                        // Fetch Schedule object từ scheduleId
-                        var schedule = _scheduleRepository
-                                .findById(packageSchedule.get().getScheduleId());
-                        
-                        return scheduleMapper.toQueryPackageScheduleResponse(
-                                packageSchedule.get(),
-                                schedule.orElse(null)
-                        );
-                    })
-                    .filter(response -> response != null)
-                    .toList();
+
+            return packageSchedules;
         } catch (Exception e) {
             log.error("Error fetching package schedules for doctor: " + e.getMessage());
             throw e;
@@ -3,8 +3,10 @@ package com.bookingcare.application.ports.input;
 import java.time.LocalDate;
 import java.util.List;
 
+import com.bookingcare.application.dto.QueryAvailabilityCalendarResponse;
 import com.bookingcare.application.dto.QueryHealthCheckPackageSchedulesResponse;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.application.dto.QueryScheduleHoldResponse;
 
 public interface IScheduleApplicationServicePatient {
     // Tìm schedule dựa vào packageID
@@ -14,14 +16,20 @@ public interface IScheduleApplicationServicePatient {
     List<QueryPackageScheduleResponse> getHealthCheckPackageSchedulesBySlugAndDate(String healthCheckPackageSlug, LocalDate date);
     // Boolean updateHealthCheckPackageSchedules(UpdateHealthCheckPackageSchedulesCommand command);
 
+    // Lịch chỗ trống theo ngày của gói khám trong [from, to] (null: từ hôm nay, 1 tháng); null nếu gói không tồn tại
+    QueryAvailabilityCalendarResponse getAvailabilityCalendar(String packageId, LocalDate from, LocalDate to);
+
     // Lấy chi tiết thông tin của HealthCheckPackageSchedule bằng ID
     QueryHealthCheckPackageSchedulesResponse getHealthCheckPackageScheduleById(String packageScheduleId);
 
+    // Internal - Lấy nhiều package schedule (kèm khung giờ) trong 1 query, cho các service khác enrich dữ liệu
+    List<QueryPackageScheduleResponse> getPackageSchedulesByIds(List<String> packageScheduleIds);
+
     // Lấy schedule dựa vào doctorId
     List<QueryPackageScheduleResponse> getPackageScheduleByDoctorId(String doctorId);
 
-    // Internal - Giữ chỗ cho booking
-    String holdScheduleForBooking(String packageScheduleId, String bookingId);
+    // Internal - Giữ chỗ cho booking, trả về hold vừa lưu (id, expireAt)
+    QueryScheduleHoldResponse holdScheduleForBooking(String packageScheduleId, String bookingId);
 
     // Internal - Xác nhận giữ chỗ cho booking
     Boolean confirmHoldScheduleForBooking(String scheduleHoldId, String bookingId);
@@ -30,9 +38,16 @@ public interface IScheduleApplicationServicePatient {
     Boolean expiredHoldScheduleForBooking(String scheduleHoldId, String bookingId);
 
 
+    // Internal - Hết hạn các hold đã quá expire_at (theo batch), trả về các hold vừa bị EXPIRED
+    List<QueryScheduleHoldResponse> expireDueHolds(int batchSize);
+
     // Internal - Hủy giữ chỗ cho booking
     Boolean cancelHoldScheduleForBooking(String scheduleHoldId, String bookingId);
 
+    // Internal - Trả các hold chưa confirm của booking (saga bên booking-service bị timeout),
+    // scheduleHoldId = null thì tìm theo bookingId. Trả về số hold đã release
+    int releaseUnconfirmedHoldsForBooking(String scheduleHoldId, String bookingId);
+
     // Internal - Kiểm tra lịch còn trống không
     Boolean isScheduleAvailable(String packageScheduleId);
 
@@ -19,5 +19,13 @@ public interface IHealthCheckPackageSchedulesRepository {
 
     List<HealthCheckPackageSchedule> findByPackageIdAndNotDeleted(String packageId);
 
+    // Seat counters - trả về false nếu điều kiện không thỏa (hết chỗ / counter đã về 0)
+    boolean reserveSeat(String packageScheduleId);
+
+    boolean commitHeldSeat(String packageScheduleId);
+
+    boolean releaseHeldSeat(String packageScheduleId);
+
+    boolean releaseBookedSeat(String packageScheduleId);
 
 }
@@ -0,0 +1,9 @@
+package com.bookingcare.application.ports.output;
+
+/**
+ * Ghi event vào outbox trong transaction hiện tại. Event chỉ được gửi lên Kafka
+ * (bởi OutboxRelay) sau khi transaction commit.
+ */
+public interface IOutboxEventRepository {
+    void append(String topic, String messageKey, String eventType, byte[] payload);
+}
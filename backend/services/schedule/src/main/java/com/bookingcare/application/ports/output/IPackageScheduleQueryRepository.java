@@ -0,0 +1,30 @@
+package com.bookingcare.application.ports.output;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.application.dto.SlotSeatCount;
+
+/**
+ * Read model lịch gói khám kèm khung giờ (schedule), mỗi method là 1 query.
+ */
+public interface IPackageScheduleQueryRepository {
+    List<QueryPackageScheduleResponse> findByPackageId(String packageId);
+
+    List<QueryPackageScheduleResponse> findByPackageIdAndScheduleDate(String packageId, LocalDate scheduleDate);
+
+    List<QueryPackageScheduleResponse> findByPackageIdsAndNotDeleted(Collection<String> packageIds);
+
+    // Bulk lookup theo packageScheduleId (id không tồn tại bị bỏ qua)
+    List<QueryPackageScheduleResponse> findByPackageScheduleIds(Collection<String> packageScheduleIds);
+
+    List<QueryPackageScheduleResponse> findByDoctorId(String doctorId);
+
+    // Số chỗ còn lại của các slot chưa xoá từ ngày fromDate, sắp theo ngày (nạp AvailabilityCalendar)
+    List<SlotSeatCount> findSeatCountsByPackageId(String packageId, LocalDate fromDate);
+
+    // Gói đã từng có slot (kể cả đã xoá / đã qua), phân biệt gói không tồn tại với gói hết lịch
+    boolean existsByPackageId(String packageId);
+}
@@ -1,10 +1,27 @@
 package com.bookingcare.application.ports.output;
 
 import com.bookingcare.domain.entity.ScheduleHold;
+
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface IScheduleHoldRepository {
     ScheduleHold save(ScheduleHold scheduleHold);
     Optional<ScheduleHold> findById(String id);
     void delete(ScheduleHold scheduleHold);
+
+    // Chỉ đổi status khi status hiện tại đúng bằng fromStatus (compare-and-set)
+    boolean transitionStatus(String id, String fromStatus, String toStatus);
+
+    // HOLD -> BOOKED nếu hold chưa hết hạn tại thời điểm now
+    boolean confirmActiveHold(String id, ZonedDateTime now);
+
+    // Tối đa limit hold HOLD có expire_at <= until, hết hạn sớm nhất trước
+    List<ScheduleHold> findHoldsExpiringBefore(ZonedDateTime until, int limit);
+
+    List<ScheduleHold> findActiveHoldsByBookingId(String bookingId);
+
+    // Khoá (FOR UPDATE SKIP LOCKED) tối đa limit hold đã quá hạn, phải gọi trong transaction
+    List<ScheduleHold> claimExpiredHolds(ZonedDateTime now, int limit);
 }
\ No newline at end of file
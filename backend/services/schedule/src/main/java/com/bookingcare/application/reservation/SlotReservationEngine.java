@@ -0,0 +1,167 @@
+package com.bookingcare.application.reservation;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.application.availability.AvailabilityCalendar;
+import com.bookingcare.application.ports.output.IHealthCheckPackageSchedulesRepository;
+import com.bookingcare.application.ports.output.IScheduleHoldRepository;
+import com.bookingcare.domain.entity.ScheduleHold;
+import com.bookingcare.domain.exception.ScheduleDomainException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Giữ / xác nhận / trả chỗ trên 1 slot (health_check_package_schedules).
+ *
+ * Mỗi thay đổi số chỗ là 1 câu UPDATE có điều kiện trên row của slot
+ * (held_count, booked_count), nên không bao giờ oversell dù có nhiều replica.
+ * Engine không cache trạng thái hết chỗ: chỗ do replica khác trả về phải giữ được ngay.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SlotReservationEngine {
+    public static final String STATUS_HOLD = "HOLD";
+    public static final String STATUS_BOOKED = "BOOKED";
+    public static final String STATUS_RELEASED = "RELEASED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    static final Duration HOLD_DURATION = Duration.ofMinutes(15);
+
+    private final IHealthCheckPackageSchedulesRepository _healthCheckPackageSchedulesRepository;
+    private final IScheduleHoldRepository _scheduleHoldRepository;
+    private final AvailabilityCalendar _availabilityCalendar;
+
+    /**
+     * Giữ 1 chỗ cho booking. Phải chạy trong transaction của caller để
+     * việc tăng held_count và insert schedule_holds commit cùng nhau.
+     */
+    public ScheduleHold hold(String packageScheduleId, String bookingId) {
+        if (!_healthCheckPackageSchedulesRepository.reserveSeat(packageScheduleId)) {
+            var packageSchedule = _healthCheckPackageSchedulesRepository
+                    .findById(packageScheduleId)
+                    .orElseThrow(() -> new ScheduleDomainException("Package schedule not found: " + packageScheduleId));
+
+            if (Boolean.TRUE.equals(packageSchedule.getIsDeleted())) {
+                throw new ScheduleDomainException("Package schedule is deleted: " + packageScheduleId);
+            }
+
+            throw new ScheduleDomainException("No available slots for package schedule: " + packageScheduleId);
+        }
+        _availabilityCalendar.seatsChanged(packageScheduleId, -1);
+
+        ZonedDateTime now = ZonedDateTime.now();
+        ScheduleHold scheduleHold = ScheduleHold.builder()
+                .id(generateScheduleHoldId())
+                .packageScheduleId(packageScheduleId)
+                .bookingId(bookingId)
+                .status(STATUS_HOLD)
+                .expireAt(now.plus(HOLD_DURATION))
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        return _scheduleHoldRepository.save(scheduleHold);
+    }
+
+    /**
+     * HOLD -> BOOKED, chuyển chỗ từ held_count sang booked_count (số chỗ còn lại không đổi).
+     */
+    public ScheduleHold confirm(String scheduleHoldId, String bookingId) {
+        ScheduleHold scheduleHold = loadHold(scheduleHoldId, bookingId);
+
+        if (!STATUS_HOLD.equals(scheduleHold.getStatus())) {
+            throw new ScheduleDomainException("Hold status is not HOLD: " + scheduleHoldId);
+        }
+
+        ZonedDateTime now = ZonedDateTime.now();
+        if (!_scheduleHoldRepository.confirmActiveHold(scheduleHoldId, now)) {
+            throw new ScheduleDomainException("Hold has expired or is no longer active: " + scheduleHoldId);
+        }
+
+        if (!_healthCheckPackageSchedulesRepository.commitHeldSeat(scheduleHold.getPackageScheduleId())) {
+            throw new ScheduleDomainException("Seat counters out of sync for package schedule: "
+                    + scheduleHold.getPackageScheduleId());
+        }
+
+        scheduleHold.setStatus(STATUS_BOOKED);
+        scheduleHold.setUpdatedAt(now);
+        return scheduleHold;
+    }
+
+    /**
+     * Trả chỗ về slot (status -> RELEASED).
+     *
+     * @param includeBooked true nếu được phép huỷ cả hold đã BOOKED (giảm booked_count)
+     * @return status của hold trước khi release
+     */
+    public String release(String scheduleHoldId, String bookingId, boolean includeBooked) {
+        ScheduleHold scheduleHold = loadHold(scheduleHoldId, bookingId);
+        String previousStatus = scheduleHold.getStatus();
+
+        boolean releasable = STATUS_HOLD.equals(previousStatus)
+                || (includeBooked && STATUS_BOOKED.equals(previousStatus));
+        if (!releasable) {
+            throw new ScheduleDomainException("Cannot cancel hold with status: " + previousStatus);
+        }
+
+        if (!_scheduleHoldRepository.transitionStatus(scheduleHoldId, previousStatus, STATUS_RELEASED)) {
+            throw new ScheduleDomainException("Hold was modified concurrently: " + scheduleHoldId);
+        }
+
+        String packageScheduleId = scheduleHold.getPackageScheduleId();
+        boolean released = STATUS_BOOKED.equals(previousStatus)
+                ? _healthCheckPackageSchedulesRepository.releaseBookedSeat(packageScheduleId)
+                : _healthCheckPackageSchedulesRepository.releaseHeldSeat(packageScheduleId);
+        if (released) {
+            _availabilityCalendar.seatsChanged(packageScheduleId, 1);
+        } else {
+            log.warn("Seat counter already at zero for package schedule: {} (hold: {})",
+                    packageScheduleId, scheduleHoldId);
+        }
+
+        return previousStatus;
+    }
+
+    /**
+     * HOLD -> EXPIRED cho hold đã quá hạn, trả chỗ về held_count.
+     *
+     * @return false nếu hold không còn ở trạng thái HOLD (đã confirm / release trước đó)
+     */
+    public boolean expire(ScheduleHold scheduleHold) {
+        if (!_scheduleHoldRepository.transitionStatus(scheduleHold.getId(), STATUS_HOLD, STATUS_EXPIRED)) {
+            return false;
+        }
+
+        String packageScheduleId = scheduleHold.getPackageScheduleId();
+        if (_healthCheckPackageSchedulesRepository.releaseHeldSeat(packageScheduleId)) {
+            _availabilityCalendar.seatsChanged(packageScheduleId, 1);
+        } else {
+            log.warn("Seat counter already at zero for package schedule: {} (hold: {})",
+                    packageScheduleId, scheduleHold.getId());
+        }
+
+        scheduleHold.setStatus(STATUS_EXPIRED);
+        return true;
+    }
+
+    private ScheduleHold loadHold(String scheduleHoldId, String bookingId) {
+        var scheduleHold = _scheduleHoldRepository
+                .findById(scheduleHoldId)
+                .orElseThrow(() -> new ScheduleDomainException("Schedule hold not found: " + scheduleHoldId));
+
+        if (!scheduleHold.getBookingId().equals(bookingId)) {
+            throw new ScheduleDomainException("BookingId mismatch for hold: " + scheduleHoldId);
+        }
+        return scheduleHold;
+    }
+
+    private String generateScheduleHoldId() {
+        return "H" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -3,14 +3,22 @@ package com.bookingcare.container.controller;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.bookingcare.application.dto.ApiResponse;
+import com.bookingcare.application.dto.PackageScheduleBatchRequest;
+import com.bookingcare.application.dto.QueryAvailabilityCalendarResponse;
 import com.bookingcare.application.dto.QueryHealthCheckPackageSchedulesResponse;
 import com.bookingcare.application.dto.QueryPackageScheduleResponse;
 import com.bookingcare.application.ports.input.IScheduleApplicationServicePatient;
@@ -52,6 +60,25 @@ public class ScheduleControllerPatient {
         return new ApiResponse<>(200, "Success", response);
     }
 
+    /**
+     * [Internal API] Get many package schedules (with time slot) in one call.
+     * Ids that do not exist are omitted; used by booking-service to enrich bookings in 1 round-trip.
+     */
+    @PostMapping("/package-schedules/batch")
+    public ApiResponse<List<QueryPackageScheduleResponse>> getPackageSchedulesByIds(
+            @RequestBody PackageScheduleBatchRequest request) {
+        List<String> ids = request.packageScheduleIds();
+        if (ids == null || ids.isEmpty() || ids.size() > PackageScheduleBatchRequest.MAX_IDS) {
+            log.warn("Invalid package schedule batch request: {} ids", ids == null ? 0 : ids.size());
+            return new ApiResponse<>(400,
+                    "packageScheduleIds must contain 1.." + PackageScheduleBatchRequest.MAX_IDS + " ids", null);
+        }
+
+        List<QueryPackageScheduleResponse> response = _scheduleApplicationService.getPackageSchedulesByIds(ids);
+
+        return new ApiResponse<>(200, "Success", response);
+    }
+
     /**
      * Get all package schedules by package ID
      * Returns a list of all available schedules for a specific health check package
@@ -104,6 +131,53 @@ public class ScheduleControllerPatient {
         return new ApiResponse<>(200, "Success", response);
     }
 
+    /**
+     * Get remaining seats per day of a health check package in a date range
+     * Served from the in-memory availability calendar; supports If-None-Match so clients can poll cheaply
+     * 
+     * @param packageId The ID of the health check package
+     * @param from First day of the range (default: today)
+     * @param to Last day of the range (default: one month from {@code from}, at most 92 days)
+     * @return QueryAvailabilityCalendarResponse with one entry per day, 304 if the ETag still matches,
+     *         or 404 if the package has no schedules
+     */
+    @GetMapping("/availability/{packageId}")
+    public ResponseEntity<ApiResponse<QueryAvailabilityCalendarResponse>> getAvailabilityCalendar(
+            @PathVariable String packageId,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            WebRequest webRequest) {
+        log.debug("Fetching availability calendar for package ID: {} from {} to {}", packageId, from, to);
+
+        if (packageId == null || packageId.isEmpty()) {
+            log.warn("Invalid package ID provided");
+            return ResponseEntity.badRequest().body(new ApiResponse<>(400, "Invalid package ID", null));
+        }
+
+        QueryAvailabilityCalendarResponse response;
+        try {
+            response = _scheduleApplicationService.getAvailabilityCalendar(packageId, from, to);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid availability range for package {}: {}", packageId, e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(400, e.getMessage(), null));
+        }
+        if (response == null) {
+            log.warn("Package not found: {}", packageId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>(404, "Package not found", null));
+        }
+
+        String eTag = "\"" + response.version() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            // 304, Spring đã set status + ETag
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(new ApiResponse<>(200, "Success", response));
+    }
+
     /**
      * Get all package schedules assigned to a specific doctor
      * Retrieves all health check package slots where a particular doctor is assigned
@@ -145,7 +219,7 @@ public class ScheduleControllerPatient {
             return new ApiResponse<>(400, "Invalid package schedule ID or booking ID", null);
         }
 
-        String scheduleHoldId = _scheduleApplicationService.holdScheduleForBooking(packageScheduleId, bookingId);
+        String scheduleHoldId = _scheduleApplicationService.holdScheduleForBooking(packageScheduleId, bookingId).id();
 
         return new ApiResponse<>(200, "Schedule held successfully", scheduleHoldId);
     }
@@ -21,6 +21,7 @@ public class HealthCheckPackageSchedule {
     private LocalDate scheduleDate;
     private Integer capacity;
     private Integer bookedCount;
+    private Integer heldCount;
     private Integer overbookLimit;
     private ZonedDateTime createdAt;
     private ZonedDateTime updatedAt;
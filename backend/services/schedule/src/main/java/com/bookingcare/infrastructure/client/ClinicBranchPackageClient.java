@@ -10,7 +10,7 @@ import com.bookingcare.infrastructure.client.dto.ClinicBranchPackageResponse;
 
 @FeignClient(
         name = "clinic-service",
-        url = "${application.config.clinic-service-url}",
+        path = "/api/v1/clinics",
         configuration = FeignConfig.class
 )
 public interface ClinicBranchPackageClient {
@@ -14,7 +14,7 @@ import com.bookingcare.infrastructure.client.dto.HealthCheckPackageResponse;
 
 @FeignClient(
         name = "package-service",
-        url = "${application.config.package-service-url}",
+        path = "/api/v1/packages-services",
         configuration = FeignConfig.class
 )
 public interface HealthPackageServiceClient {
@@ -102,4 +102,24 @@ public class HealthCheckPackageSchedulesRepository implements IHealthCheckPackag
                 .toList();
         }
 
-}
\ No newline at end of file
+        @Override
+        public boolean reserveSeat(String packageScheduleId) {
+                return _healthCheckPackageScheduleJpaRepository.reserveSeat(packageScheduleId) == 1;
+        }
+
+        @Override
+        public boolean commitHeldSeat(String packageScheduleId) {
+                return _healthCheckPackageScheduleJpaRepository.commitHeldSeat(packageScheduleId) == 1;
+        }
+
+        @Override
+        public boolean releaseHeldSeat(String packageScheduleId) {
+                return _healthCheckPackageScheduleJpaRepository.releaseHeldSeat(packageScheduleId) == 1;
+        }
+
+        @Override
+        public boolean releaseBookedSeat(String packageScheduleId) {
+                return _healthCheckPackageScheduleJpaRepository.releaseBookedSeat(packageScheduleId) == 1;
+        }
+
+}
@@ -0,0 +1,19 @@
+package com.bookingcare.infrastructure.dataaccess.adapter;
+
+import org.springframework.stereotype.Repository;
+
+import com.bookingcare.application.ports.output.IOutboxEventRepository;
+import com.bookingcare.common.messaging.outbox.OutboxEventStore;
+
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxEventRepository implements IOutboxEventRepository {
+    private final OutboxEventStore _outboxEventStore;
+
+    @Override
+    public void append(String topic, String messageKey, String eventType, byte[] payload) {
+        _outboxEventStore.append(topic, messageKey, eventType, payload);
+    }
+}
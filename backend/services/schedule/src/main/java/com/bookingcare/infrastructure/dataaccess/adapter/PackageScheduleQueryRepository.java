@@ -0,0 +1,78 @@
+package com.bookingcare.infrastructure.dataaccess.adapter;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.stereotype.Repository;
+
+import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.application.dto.SlotSeatCount;
+import com.bookingcare.application.ports.output.IPackageScheduleQueryRepository;
+import com.bookingcare.infrastructure.dataaccess.mapper.ScheduleInfrastructureMapper;
+import com.bookingcare.infrastructure.dataaccess.repository.IPackageScheduleQueryJpaRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class PackageScheduleQueryRepository implements IPackageScheduleQueryRepository {
+    private final IPackageScheduleQueryJpaRepository _packageScheduleQueryJpaRepository;
+    private final ScheduleInfrastructureMapper mapper;
+
+    @Override
+    public List<QueryPackageScheduleResponse> findByPackageId(String packageId) {
+        return _packageScheduleQueryJpaRepository.findByPackageId(packageId)
+                .stream()
+                .map(mapper::toQueryPackageScheduleResponse)
+                .toList();
+    }
+
+    @Override
+    public List<QueryPackageScheduleResponse> findByPackageIdAndScheduleDate(String packageId, LocalDate scheduleDate) {
+        return _packageScheduleQueryJpaRepository.findByPackageIdAndScheduleDate(packageId, scheduleDate)
+                .stream()
+                .map(mapper::toQueryPackageScheduleResponse)
+                .toList();
+    }
+
+    @Override
+    public List<QueryPackageScheduleResponse> findByPackageIdsAndNotDeleted(Collection<String> packageIds) {
+        if (packageIds.isEmpty()) {
+            return List.of();
+        }
+        return _packageScheduleQueryJpaRepository.findByPackageIdsAndNotDeleted(packageIds)
+                .stream()
+                .map(mapper::toQueryPackageScheduleResponse)
+                .toList();
+    }
+
+    @Override
+    public List<QueryPackageScheduleResponse> findByPackageScheduleIds(Collection<String> packageScheduleIds) {
+        if (packageScheduleIds.isEmpty()) {
+            return List.of();
+        }
+        return _packageScheduleQueryJpaRepository.findByPackageScheduleIds(packageScheduleIds)
+                .stream()
+                .map(mapper::toQueryPackageScheduleResponse)
+                .toList();
+    }
+
+    @Override
+    public List<QueryPackageScheduleResponse> findByDoctorId(String doctorId) {
+        return _packageScheduleQueryJpaRepository.findByDoctorId(doctorId)
+                .stream()
+                .map(mapper::toQueryPackageScheduleResponse)
+                .toList();
+    }
+
+    @Override
+    public List<SlotSeatCount> findSeatCountsByPackageId(String packageId, LocalDate fromDate) {
+        return _packageScheduleQueryJpaRepository.findSeatCountsByPackageId(packageId, fromDate);
+    }
+
+    @Override
+    public boolean existsByPackageId(String packageId) {
+        return _packageScheduleQueryJpaRepository.existsByPackageId(packageId);
+    }
+}
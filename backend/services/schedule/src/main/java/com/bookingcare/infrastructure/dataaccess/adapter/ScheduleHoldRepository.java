@@ -1,5 +1,7 @@
 package com.bookingcare.infrastructure.dataaccess.adapter;
 
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,5 +45,42 @@ public class ScheduleHoldRepository implements IScheduleHoldRepository{
         var jpaEntity = mapper.toJpaEntity(scheduleHold);
         _holdJpaRepository.delete(jpaEntity);
     }
+
+    @Override
+    public boolean transitionStatus(String id, String fromStatus, String toStatus) {
+        return _holdJpaRepository.transitionStatus(id, fromStatus, toStatus, ZonedDateTime.now()) == 1;
+    }
+
+    @Override
+    public boolean confirmActiveHold(String id, ZonedDateTime now) {
+        return _holdJpaRepository.confirmActiveHold(id, now) == 1;
+    }
+
+    @Override
+    public List<ScheduleHold> findHoldsExpiringBefore(ZonedDateTime until, int limit) {
+        return _holdJpaRepository
+                .findHoldsExpiringBefore(until, limit)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    @Override
+    public List<ScheduleHold> findActiveHoldsByBookingId(String bookingId) {
+        return _holdJpaRepository
+                .findActiveHoldsByBookingId(bookingId)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    @Override
+    public List<ScheduleHold> claimExpiredHolds(ZonedDateTime now, int limit) {
+        return _holdJpaRepository
+                .claimExpiredHolds(now, limit)
+                .stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
     
 }
@@ -47,6 +47,10 @@ public class HealthCheckPackageScheduleJpaEntity {
     @Column(name = "booked_count", nullable = false)
     private Integer bookedCount;
 
+    // Chỉ được thay đổi qua các câu UPDATE có điều kiện của IHealthCheckPackageScheduleJpaRepository
+    @Column(name = "held_count", nullable = false, insertable = false, updatable = false)
+    private Integer heldCount;
+
     @Column(name = "overbook_limit", nullable = false)
     private Integer overbookLimit;
 
@@ -2,6 +2,8 @@ package com.bookingcare.infrastructure.dataaccess.mapper;
 
 import org.springframework.stereotype.Component;
 
+import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.application.dto.QueryScheduleResponse;
 import com.bookingcare.domain.entity.HealthCheckPackageSchedule;
 import com.bookingcare.domain.entity.HealthCheckPackageScheduleDoctor;
 import com.bookingcare.domain.entity.Schedule;
@@ -10,6 +12,7 @@ import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageSchedu
 import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageScheduleDoctorJpaEntity;
 import com.bookingcare.infrastructure.dataaccess.entity.ScheduleJpaEntity;
 import com.bookingcare.infrastructure.dataaccess.entity.ScheduleHoldJpaEntity;
+import com.bookingcare.infrastructure.dataaccess.projection.PackageScheduleView;
 
 @Component
 public class ScheduleInfrastructureMapper {
@@ -27,6 +30,7 @@ public class ScheduleInfrastructureMapper {
                 .scheduleDate(entity.getScheduleDate())
                 .capacity(entity.getCapacity())
                 .bookedCount(entity.getBookedCount())
+                .heldCount(entity.getHeldCount())
                 .overbookLimit(entity.getOverbookLimit())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
@@ -46,6 +50,7 @@ public class ScheduleInfrastructureMapper {
                 .scheduleDate(domain.getScheduleDate())
                 .capacity(domain.getCapacity())
                 .bookedCount(domain.getBookedCount())
+                .heldCount(domain.getHeldCount())
                 .overbookLimit(domain.getOverbookLimit())
                 .createdAt(domain.getCreatedAt())
                 .updatedAt(domain.getUpdatedAt())
@@ -143,4 +148,22 @@ public class ScheduleInfrastructureMapper {
                 .updatedAt(domain.getUpdatedAt())
                 .build();
     }
+
+    // PackageScheduleView (read model) Mappings
+    public QueryPackageScheduleResponse toQueryPackageScheduleResponse(PackageScheduleView view) {
+        if (view == null) {
+            return null;
+        }
+
+        return new QueryPackageScheduleResponse(
+                view.packageScheduleId(),
+                view.packageId(),
+                new QueryScheduleResponse(
+                        view.scheduleId(),
+                        view.startTime(),
+                        view.endTime(),
+                        view.dayId().toString()),
+                view.scheduleDate(),
+                view.isDeleted());
+    }
 }
@@ -0,0 +1,21 @@
+package com.bookingcare.infrastructure.dataaccess.projection;
+
+import java.time.LocalDate;
+
+import com.bookingcare.domain.valueobject.DayId;
+
+/**
+ * 1 dòng health_check_package_schedules JOIN schedules, đọc bằng constructor expression
+ * của IPackageScheduleQueryJpaRepository (không load entity, không lazy-load schedule).
+ */
+public record PackageScheduleView(
+        String packageScheduleId,
+        String packageId,
+        LocalDate scheduleDate,
+        Boolean isDeleted,
+        String scheduleId,
+        String startTime,
+        String endTime,
+        DayId dayId
+) {
+}
@@ -5,7 +5,9 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageScheduleJpaEntity;
 
@@ -24,4 +26,35 @@ public interface IHealthCheckPackageScheduleJpaRepository extends JpaRepository<
     @Query("SELECT h FROM HealthCheckPackageScheduleJpaEntity h WHERE h.packageId = :packageId AND h.isDeleted = FALSE")
     List<HealthCheckPackageScheduleJpaEntity> findByPackageIdAndIsDeletedFalse(String packageId);
 
+    // ==== Seat counters: mỗi thao tác là 1 câu UPDATE có điều kiện, row lock chỉ giữ trong 1 statement ==== //
+
+    @Modifying
+    @Query(value = "UPDATE health_check_package_schedules " +
+            "SET held_count = held_count + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE package_schedule_id = :packageScheduleId " +
+            "AND is_deleted = FALSE " +
+            "AND booked_count + held_count < capacity + overbook_limit", nativeQuery = true)
+    int reserveSeat(@Param("packageScheduleId") String packageScheduleId);
+
+    @Modifying
+    @Query(value = "UPDATE health_check_package_schedules " +
+            "SET held_count = held_count - 1, booked_count = booked_count + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE package_schedule_id = :packageScheduleId " +
+            "AND held_count > 0", nativeQuery = true)
+    int commitHeldSeat(@Param("packageScheduleId") String packageScheduleId);
+
+    @Modifying
+    @Query(value = "UPDATE health_check_package_schedules " +
+            "SET held_count = held_count - 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE package_schedule_id = :packageScheduleId " +
+            "AND held_count > 0", nativeQuery = true)
+    int releaseHeldSeat(@Param("packageScheduleId") String packageScheduleId);
+
+    @Modifying
+    @Query(value = "UPDATE health_check_package_schedules " +
+            "SET booked_count = booked_count - 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE package_schedule_id = :packageScheduleId " +
+            "AND booked_count > 0", nativeQuery = true)
+    int releaseBookedSeat(@Param("packageScheduleId") String packageScheduleId);
+
 }
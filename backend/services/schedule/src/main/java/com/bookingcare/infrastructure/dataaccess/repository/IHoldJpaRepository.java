@@ -1,9 +1,45 @@
 package com.bookingcare.infrastructure.dataaccess.repository;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.bookingcare.infrastructure.dataaccess.entity.ScheduleHoldJpaEntity;
 
 public interface IHoldJpaRepository extends JpaRepository<ScheduleHoldJpaEntity, String> {
-    
+
+    @Modifying
+    @Query("UPDATE ScheduleHoldJpaEntity h SET h.status = :toStatus, h.updatedAt = :now " +
+           "WHERE h.id = :id AND h.status = :fromStatus")
+    int transitionStatus(@Param("id") String id,
+                         @Param("fromStatus") String fromStatus,
+                         @Param("toStatus") String toStatus,
+                         @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE ScheduleHoldJpaEntity h SET h.status = 'BOOKED', h.updatedAt = :now " +
+           "WHERE h.id = :id AND h.status = 'HOLD' AND h.expireAt > :now")
+    int confirmActiveHold(@Param("id") String id, @Param("now") ZonedDateTime now);
+
+    // Hold sắp hết hạn, theo thứ tự expire_at (idx_schedule_holds_active)
+    @Query(value = "SELECT * FROM schedule_holds " +
+            "WHERE status = 'HOLD' AND expire_at <= :until " +
+            "ORDER BY expire_at " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ScheduleHoldJpaEntity> findHoldsExpiringBefore(@Param("until") ZonedDateTime until, @Param("limit") int limit);
+
+    @Query("SELECT h FROM ScheduleHoldJpaEntity h WHERE h.bookingId = :bookingId AND h.status = 'HOLD'")
+    List<ScheduleHoldJpaEntity> findActiveHoldsByBookingId(@Param("bookingId") String bookingId);
+
+    // SKIP LOCKED: nhiều replica cùng quét thì mỗi hold chỉ được 1 replica claim
+    @Query(value = "SELECT * FROM schedule_holds " +
+            "WHERE status = 'HOLD' AND expire_at <= :now " +
+            "ORDER BY expire_at " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScheduleHoldJpaEntity> claimExpiredHolds(@Param("now") ZonedDateTime now, @Param("limit") int limit);
 }
@@ -0,0 +1,81 @@
+package com.bookingcare.infrastructure.dataaccess.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.bookingcare.application.dto.SlotSeatCount;
+import com.bookingcare.infrastructure.dataaccess.entity.HealthCheckPackageScheduleJpaEntity;
+import com.bookingcare.infrastructure.dataaccess.projection.PackageScheduleView;
+
+/**
+ * Read path cho các API liệt kê lịch của gói khám: mỗi method là đúng 1 câu SELECT
+ * (package schedule JOIN schedule), thay cho việc findById schedule theo từng dòng.
+ */
+public interface IPackageScheduleQueryJpaRepository extends Repository<HealthCheckPackageScheduleJpaEntity, String> {
+
+    String SELECT_VIEW = """
+            SELECT new com.bookingcare.infrastructure.dataaccess.projection.PackageScheduleView(
+                h.packageScheduleId, h.packageId, h.scheduleDate, h.isDeleted,
+                s.id, s.startTime, s.endTime, s.dayId)
+            """;
+
+    @Query(SELECT_VIEW + """
+            FROM HealthCheckPackageScheduleJpaEntity h JOIN h.schedule s
+            WHERE h.packageId = :packageId
+            ORDER BY h.scheduleDate, s.startTime
+            """)
+    List<PackageScheduleView> findByPackageId(@Param("packageId") String packageId);
+
+    @Query(SELECT_VIEW + """
+            FROM HealthCheckPackageScheduleJpaEntity h JOIN h.schedule s
+            WHERE h.packageId = :packageId AND h.scheduleDate = :scheduleDate
+            ORDER BY s.startTime
+            """)
+    List<PackageScheduleView> findByPackageIdAndScheduleDate(@Param("packageId") String packageId,
+                                                             @Param("scheduleDate") LocalDate scheduleDate);
+
+    @Query(SELECT_VIEW + """
+            FROM HealthCheckPackageScheduleJpaEntity h JOIN h.schedule s
+            WHERE h.packageId IN :packageIds AND h.isDeleted = FALSE
+            ORDER BY h.packageId, h.scheduleDate, s.startTime
+            """)
+    List<PackageScheduleView> findByPackageIdsAndNotDeleted(@Param("packageIds") Collection<String> packageIds);
+
+    @Query(SELECT_VIEW + """
+            FROM HealthCheckPackageScheduleJpaEntity h JOIN h.schedule s
+            WHERE h.packageScheduleId IN :packageScheduleIds
+            """)
+    List<PackageScheduleView> findByPackageScheduleIds(@Param("packageScheduleIds") Collection<String> packageScheduleIds);
+
+    @Query(SELECT_VIEW + """
+            FROM HealthCheckPackageScheduleDoctorJpaEntity d
+            JOIN HealthCheckPackageScheduleJpaEntity h ON h.packageScheduleId = d.packageScheduleId
+            JOIN h.schedule s
+            WHERE d.doctorId = :doctorId
+            ORDER BY h.scheduleDate, s.startTime
+            """)
+    List<PackageScheduleView> findByDoctorId(@Param("doctorId") String doctorId);
+
+    @Query("""
+            SELECT new com.bookingcare.application.dto.SlotSeatCount(
+                h.packageScheduleId, h.scheduleDate,
+                h.capacity + h.overbookLimit - h.bookedCount - h.heldCount)
+            FROM HealthCheckPackageScheduleJpaEntity h
+            WHERE h.packageId = :packageId AND h.isDeleted = FALSE AND h.scheduleDate >= :fromDate
+            ORDER BY h.scheduleDate
+            """)
+    List<SlotSeatCount> findSeatCountsByPackageId(@Param("packageId") String packageId,
+                                                  @Param("fromDate") LocalDate fromDate);
+
+    @Query("""
+            SELECT COUNT(h) > 0
+            FROM HealthCheckPackageScheduleJpaEntity h
+            WHERE h.packageId = :packageId
+            """)
+    boolean existsByPackageId(@Param("packageId") String packageId);
+}
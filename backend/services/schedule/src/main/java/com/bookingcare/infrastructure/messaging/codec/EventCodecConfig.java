@@ -0,0 +1,33 @@
+package com.bookingcare.infrastructure.messaging.codec;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.bookingcare.application.dto.event.BookingConfirmedEvent;
+import com.bookingcare.application.dto.event.BookingCreatedEvent;
+import com.bookingcare.application.dto.event.CancelHoldCommand;
+import com.bookingcare.common.messaging.codec.EventCodecConfiguration;
+import com.bookingcare.common.messaging.codec.EventSchemaRegistry;
+import com.bookingcare.infrastructure.messaging.event.HoldExpiredEvent;
+import com.bookingcare.infrastructure.messaging.event.HoldSlotFailedEvent;
+import com.bookingcare.infrastructure.messaging.event.HoldSlotSucceededEvent;
+
+@Configuration
+@Import(EventCodecConfiguration.class)
+public class EventCodecConfig {
+
+    /**
+     * Các event schedule-service gửi đi hoặc nhận vào.
+     */
+    @Bean
+    public EventSchemaRegistry eventSchemaRegistry() {
+        return new EventSchemaRegistry()
+                .register(BookingCreatedEvent.class)
+                .register(BookingConfirmedEvent.class)
+                .register(CancelHoldCommand.class)
+                .register(HoldSlotSucceededEvent.class)
+                .register(HoldSlotFailedEvent.class)
+                .register(HoldExpiredEvent.class);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bookingcare.infrastructure.messaging.event;
+
+import java.time.ZonedDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldExpiredEvent {
+    private String bookingId;
+    private String scheduleHoldId;
+    private String packageScheduleId;
+    private ZonedDateTime expiredAt;
+}
@@ -0,0 +1,42 @@
+package com.bookingcare.infrastructure.messaging.listener;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.KafkaBatchListenerConfig;
+import com.bookingcare.common.messaging.KeyedBatchProcessor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batch mode của BookingEventListener. Mỗi message vẫn đi qua method
+ * transaction của BookingEventListener nên DB commit trước khi offset được commit.
+ */
+@Component
+@ConditionalOnProperty(name = KafkaBatchListenerConfig.ENABLED_PROPERTY, havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class BookingEventBatchListener {
+
+    private final BookingEventListener bookingEventListener;
+    private final KeyedBatchProcessor keyedBatchProcessor;
+
+    @KafkaListener(topics = "booking-events", groupId = "schedule-group",
+            containerFactory = KafkaBatchListenerConfig.BATCH_CONTAINER_FACTORY)
+    public void handleBookingEvents(List<ConsumerRecord<String, byte[]>> records) {
+        log.info("Schedule received booking-events batch: size={}", records.size());
+        keyedBatchProcessor.process(records, bookingEventListener::handleBookingEvents);
+    }
+
+    @KafkaListener(topics = "schedule-commands", groupId = "schedule-group",
+            containerFactory = KafkaBatchListenerConfig.BATCH_CONTAINER_FACTORY)
+    public void handleScheduleCommands(List<ConsumerRecord<String, byte[]>> records) {
+        log.info("Schedule received schedule-commands batch: size={}", records.size());
+        keyedBatchProcessor.process(records, bookingEventListener::handleScheduleCommands);
+    }
+}
@@ -1,20 +1,24 @@
 package com.bookingcare.infrastructure.messaging.listener;
 
+import com.bookingcare.application.dto.QueryScheduleHoldResponse;
 import com.bookingcare.application.dto.event.BookingConfirmedEvent;
 import com.bookingcare.application.dto.event.BookingCreatedEvent;
-import com.bookingcare.application.dto.event.EventEnvelope;
+import com.bookingcare.application.dto.event.CancelHoldCommand;
+import com.bookingcare.common.messaging.EventEnvelope;
 import com.bookingcare.application.ports.input.IScheduleApplicationServicePatient;
+import com.bookingcare.common.messaging.ProcessedEventStore;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+import com.bookingcare.domain.exception.ScheduleDomainException;
 import com.bookingcare.infrastructure.messaging.event.HoldSlotFailedEvent;
 import com.bookingcare.infrastructure.messaging.event.HoldSlotSucceededEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bookingcare.infrastructure.messaging.publisher.ScheduleEventPublisher;
+import com.bookingcare.infrastructure.scheduling.HoldExpiryReaper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.time.ZonedDateTime;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 @RequiredArgsConstructor
@@ -22,130 +26,159 @@ import java.time.ZonedDateTime;
 public class BookingEventListener {
 
     private final IScheduleApplicationServicePatient scheduleService;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final ScheduleEventPublisher scheduleEventPublisher;
+    private final HoldExpiryReaper holdExpiryReaper;
+    private final ProcessedEventStore processedEventStore;
+    private final EventEnvelopeCodec eventEnvelopeCodec;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Step 3: Handle BookingCreatedEvent - Hold slot
+     *
+     * Dấu processed_events, hold và HoldSlotSucceededEvent ghi trong 1 transaction. Giữ chỗ bị từ chối
+     * (ScheduleDomainException: hết chỗ, lịch đã xoá...) thì transaction đó rollback hết, dấu processed_events
+     * được ghi lại cùng HoldSlotFailedEvent trong transaction thứ 2, nên lần giao lại bị bỏ qua thay vì
+     * giữ chỗ lại và gửi thêm Succeeded sau Failed.
+     * Lỗi khác (decode, DB, outbox, kể cả khi đang giữ chỗ) được ném ra để container retry / chuyển sang DLT,
+     * không thành HoldSlotFailedEvent.
      */
-    @KafkaListener(topics = "booking-events", groupId = "schedule-group")
-    @Transactional
-    public void handleBookingEvents(String jsonMessage) {
+    @KafkaListener(topics = "booking-events", groupId = "schedule-group",
+            autoStartup = "#{!${application.kafka.batch-listener.enabled:false}}")
+    public void handleBookingEvents(byte[] message) {
+        EventEnvelope<?> envelope = eventEnvelopeCodec.decode(message);
+
+        log.info("Schedule received event: type={}, aggregateId={}", 
+                envelope.getEventType(), envelope.getAggregateId());
+
         try {
-            EventEnvelope<?> envelope = objectMapper.readValue(jsonMessage, EventEnvelope.class);
-            
-            log.info("Schedule received event: type={}, aggregateId={}", 
-                    envelope.getEventType(), envelope.getAggregateId());
-
-            if ("BookingCreatedEvent".equals(envelope.getEventType())) {
-                handleBookingCreated(envelope);
-            }
-        } catch (Exception e) {
-            log.error("Error handling booking event", e);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!processedEventStore.markProcessed(envelope.getEventId(), envelope.getEventType())) {
+                    log.info("Skipping duplicate event: eventId={}, type={}", envelope.getEventId(), envelope.getEventType());
+                    return;
+                }
+
+                if ("BookingCreatedEvent".equals(envelope.getEventType())) {
+                    handleBookingCreated(envelope);
+                }
+            });
+        } catch (HoldSlotException e) {
+            log.error("Failed to hold slot for booking: {}", envelope.getAggregateId(), e.getCause());
+            transactionTemplate.executeWithoutResult(status -> publishHoldSlotFailed(envelope, e.getCause()));
         }
     }
 
     private void handleBookingCreated(EventEnvelope<?> envelope) {
-        try {
-            BookingCreatedEvent event = objectMapper.convertValue(
-                    envelope.getPayload(), BookingCreatedEvent.class);
+        BookingCreatedEvent event = eventEnvelopeCodec.payloadAs(envelope, BookingCreatedEvent.class);
 
-            log.info("Attempting to hold slot: bookingId={}, packageScheduleId={}", 
-                    event.getBookingId(), event.getPackageScheduleId());
+        log.info("Attempting to hold slot: bookingId={}, packageScheduleId={}", 
+                event.getBookingId(), event.getPackageScheduleId());
 
-            // Call domain service to hold slot - returns holdId (String)
-            String holdId = scheduleService.holdScheduleForBooking(
+        // Call domain service to hold slot - returns the persisted hold
+        QueryScheduleHoldResponse hold;
+        try {
+            hold = scheduleService.holdScheduleForBooking(
                     event.getPackageScheduleId(),
                     event.getBookingId()
             );
+        } catch (ScheduleDomainException e) {
+            throw new HoldSlotException(e);
+        }
 
-            // Publish HoldSlotSucceededEvent
-            HoldSlotSucceededEvent successEvent = HoldSlotSucceededEvent.builder()
-                    .bookingId(event.getBookingId())
-                    .scheduleHoldId(holdId)
-                    .holdExpireAt(ZonedDateTime.now().plusMinutes(15)) // 15 minutes hold
-                    .packageScheduleId(event.getPackageScheduleId())
-                    .build();
-
-            publishScheduleEvent("HoldSlotSucceededEvent", event.getBookingId(), 
-                    envelope.getCorrelationId(), successEvent);
-
-            log.info("Slot hold succeeded: bookingId={}, holdId={}", 
-                    event.getBookingId(), holdId);
-
-        } catch (Exception e) {
-            log.error("Failed to hold slot for booking: {}", envelope.getAggregateId(), e);
-            
-            // Publish HoldSlotFailedEvent
-            HoldSlotFailedEvent failedEvent = HoldSlotFailedEvent.builder()
-                    .bookingId(envelope.getAggregateId())
-                    .reason(e.getMessage())
-                    .build();
-
-            publishScheduleEvent("HoldSlotFailedEvent", envelope.getAggregateId(), 
-                    envelope.getCorrelationId(), failedEvent);
+        // Publish HoldSlotSucceededEvent (expire_at đúng như đã lưu trong schedule_holds)
+        HoldSlotSucceededEvent successEvent = HoldSlotSucceededEvent.builder()
+                .bookingId(event.getBookingId())
+                .scheduleHoldId(hold.id())
+                .holdExpireAt(hold.expireAt())
+                .packageScheduleId(event.getPackageScheduleId())
+                .build();
+
+        scheduleEventPublisher.publishScheduleEvent("HoldSlotSucceededEvent", event.getBookingId(), 
+                envelope.getCorrelationId(), successEvent);
+        // Chỉ hẹn giờ sau khi hold đã commit
+        holdExpiryReaper.track(hold.id(), hold.expireAt());
+
+        log.info("Slot hold succeeded: bookingId={}, holdId={}", 
+                event.getBookingId(), hold.id());
+    }
+
+    private void publishHoldSlotFailed(EventEnvelope<?> envelope, Throwable cause) {
+        // Lần giao khác đã ghi kết quả cho event này
+        if (!processedEventStore.markProcessed(envelope.getEventId(), envelope.getEventType())) {
+            log.info("Skipping duplicate event: eventId={}, type={}", envelope.getEventId(), envelope.getEventType());
+            return;
         }
+
+        HoldSlotFailedEvent failedEvent = HoldSlotFailedEvent.builder()
+                .bookingId(envelope.getAggregateId())
+                .reason(cause.getMessage())
+                .build();
+
+        scheduleEventPublisher.publishScheduleEvent("HoldSlotFailedEvent", envelope.getAggregateId(), 
+                envelope.getCorrelationId(), failedEvent);
     }
 
     /**
      * Step 7: Handle BookingConfirmedEvent - Confirm hold to BOOKED
      */
-    @KafkaListener(topics = "schedule-commands", groupId = "schedule-group")
+    @KafkaListener(topics = "schedule-commands", groupId = "schedule-group",
+            autoStartup = "#{!${application.kafka.batch-listener.enabled:false}}")
     @Transactional
-    public void handleScheduleCommands(String jsonMessage) {
-        try {
-            EventEnvelope<?> envelope = objectMapper.readValue(jsonMessage, EventEnvelope.class);
-            
-            log.info("Schedule received command: type={}, aggregateId={}", 
-                    envelope.getEventType(), envelope.getAggregateId());
-
-            if ("BookingConfirmedEvent".equals(envelope.getEventType())) {
-                handleBookingConfirmed(envelope);
-            }
-        } catch (Exception e) {
-            log.error("Error handling schedule command", e);
+    public void handleScheduleCommands(byte[] message) {
+        EventEnvelope<?> envelope = eventEnvelopeCodec.decode(message);
+        
+        log.info("Schedule received command: type={}, aggregateId={}", 
+                envelope.getEventType(), envelope.getAggregateId());
+
+        if (!processedEventStore.markProcessed(envelope.getEventId(), envelope.getEventType())) {
+            log.info("Skipping duplicate command: eventId={}, type={}", envelope.getEventId(), envelope.getEventType());
+            return;
+        }
+
+        // Lỗi được ném ra: rollback cả dấu processed_events, container giao lại command
+        if ("BookingConfirmedEvent".equals(envelope.getEventType())) {
+            handleBookingConfirmed(envelope);
+        } else if ("CancelHoldCommand".equals(envelope.getEventType())) {
+            handleCancelHold(envelope);
         }
     }
 
     private void handleBookingConfirmed(EventEnvelope<?> envelope) {
-        try {
-            BookingConfirmedEvent event = objectMapper.convertValue(
-                    envelope.getPayload(), BookingConfirmedEvent.class);
-
-            log.info("Confirming hold: scheduleHoldId={}", event.getScheduleHoldId());
+        BookingConfirmedEvent event = eventEnvelopeCodec.payloadAs(envelope, BookingConfirmedEvent.class);
 
-            // Confirm hold → status BOOKED
-            scheduleService.confirmHoldScheduleForBooking(
-                    event.getScheduleHoldId(),
-                    event.getBookingId()
-            );
+        log.info("Confirming hold: scheduleHoldId={}", event.getScheduleHoldId());
 
-            log.info("Hold confirmed to BOOKED: holdId={}, bookingId={}", 
-                    event.getScheduleHoldId(), event.getBookingId());
+        // Confirm hold → status BOOKED
+        scheduleService.confirmHoldScheduleForBooking(
+                event.getScheduleHoldId(),
+                event.getBookingId()
+        );
 
-        } catch (Exception e) {
-            log.error("Failed to confirm hold: {}", envelope.getAggregateId(), e);
-        }
+        log.info("Hold confirmed to BOOKED: holdId={}, bookingId={}", 
+                event.getScheduleHoldId(), event.getBookingId());
     }
 
-    private void publishScheduleEvent(String eventType, String aggregateId, 
-                                       String correlationId, Object payload) {
-        try {
-            EventEnvelope<Object> envelope = EventEnvelope.of(
-                    eventType,
-                    aggregateId,
-                    correlationId,
-                    "schedule-service",
-                    payload
-            );
+    /**
+     * Compensation: saga bên booking-service bị timeout -> trả hold chưa confirm về slot
+     */
+    private void handleCancelHold(EventEnvelope<?> envelope) {
+        CancelHoldCommand command = eventEnvelopeCodec.payloadAs(envelope, CancelHoldCommand.class);
 
-            String json = objectMapper.writeValueAsString(envelope);
-            kafkaTemplate.send("schedule-events", aggregateId, json);
-            
-            log.info("Published {}: aggregateId={}", eventType, aggregateId);
-        } catch (Exception e) {
-            log.error("Failed to publish schedule event", e);
-            throw new RuntimeException(e);
+        int released = scheduleService.releaseUnconfirmedHoldsForBooking(
+                command.getScheduleHoldId(),
+                command.getBookingId()
+        );
+
+        log.info("Cancel hold command processed: bookingId={}, released={}, reason={}",
+                command.getBookingId(), released, command.getReason());
+    }
+
+    /**
+     * Giữ chỗ bị từ chối theo nghiệp vụ (hết chỗ, lịch không hợp lệ...): kết quả của saga là HoldSlotFailedEvent,
+     * không retry.
+     */
+    private static class HoldSlotException extends RuntimeException {
+        HoldSlotException(Throwable cause) {
+            super(cause);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.bookingcare.infrastructure.messaging.publisher;
+
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.application.ports.output.IOutboxEventRepository;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ghi schedule event vào outbox trong transaction của caller, OutboxRelay gửi lên Kafka
+ * sau khi commit (event và thay đổi hold/slot luôn đi cùng nhau).
+ */
+@Component
+@Slf4j
+public class ScheduleEventPublisher {
+
+    public static final String SCHEDULE_EVENTS_TOPIC = "schedule-events";
+
+    private final IOutboxEventRepository _outboxEventRepository;
+    private final EventEnvelopeCodec eventEnvelopeCodec;
+
+    public ScheduleEventPublisher(IOutboxEventRepository outboxEventRepository,
+                                  EventEnvelopeCodec eventEnvelopeCodec) {
+        this._outboxEventRepository = outboxEventRepository;
+        this.eventEnvelopeCodec = eventEnvelopeCodec;
+    }
+
+    public void publishScheduleEvent(String eventType, String aggregateId,
+                                     String correlationId, Object payload) {
+        try {
+            EventEnvelope<Object> envelope = EventEnvelope.of(
+                    eventType,
+                    aggregateId,
+                    correlationId,
+                    "schedule-service",
+                    payload
+            );
+
+            byte[] encoded = eventEnvelopeCodec.encode(envelope);
+            _outboxEventRepository.append(SCHEDULE_EVENTS_TOPIC, aggregateId, eventType, encoded);
+
+            log.info("Queued {} in outbox: aggregateId={}", eventType, aggregateId);
+        } catch (Exception e) {
+            log.error("Failed to publish schedule event", e);
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.bookingcare.infrastructure.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.application.dto.QueryScheduleHoldResponse;
+import com.bookingcare.application.ports.input.IScheduleApplicationServicePatient;
+import com.bookingcare.application.ports.output.IScheduleHoldRepository;
+import com.bookingcare.infrastructure.messaging.event.HoldExpiredEvent;
+import com.bookingcare.infrastructure.messaging.publisher.ScheduleEventPublisher;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tự động hết hạn các ScheduleHold quá expire_at và trả chỗ về slot.
+ *
+ * - Một DelayQueue giữ deadline của các hold đang HOLD (thêm mới sau khi hold commit);
+ *   worker thread ngủ tới deadline sớm nhất.
+ * - Lúc start chỉ reap hold đã quá hạn (claim theo batch) và nạp các hold hết hạn trong
+ *   1 chu kỳ sweep tới, không nạp toàn bộ bảng.
+ * - Một sweep định kỳ bắt các hold do replica khác tạo ra hoặc bị sót.
+ * - Việc claim dùng FOR UPDATE SKIP LOCKED nên nhiều replica chạy song song vẫn an toàn.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HoldExpiryReaper {
+
+    private final IScheduleApplicationServicePatient _scheduleApplicationService;
+    private final IScheduleHoldRepository _scheduleHoldRepository;
+    private final ScheduleEventPublisher _scheduleEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<HoldDeadline> deadlines = new DelayQueue<>();
+    private final ReentrantLock reapLock = new ReentrantLock();
+
+    @Value("${application.hold-expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${application.hold-expiry.sweep-interval-ms:30000}")
+    private long sweepIntervalMs;
+
+    private volatile Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reapExpiredHolds();
+
+        // Hold hết hạn sau chu kỳ sweep đầu tiên (hoặc vượt batchSize) do sweep xử lý
+        var upcomingHolds = _scheduleHoldRepository.findHoldsExpiringBefore(
+                ZonedDateTime.now().plus(Duration.ofMillis(sweepIntervalMs)), batchSize);
+        upcomingHolds.forEach(hold -> offer(hold.getId(), hold.getExpireAt()));
+        log.info("Hold expiry reaper started with {} upcoming holds", upcomingHolds.size());
+
+        worker = Thread.ofVirtual().name("hold-expiry-reaper").start(this::runLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        worker = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Hẹn giờ hết hạn cho hold vừa tạo. Gọi trong transaction thì chỉ hẹn sau khi commit,
+     * hold bị rollback không để lại deadline.
+     */
+    public void track(String scheduleHoldId, ZonedDateTime expireAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            offer(scheduleHoldId, expireAt);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                offer(scheduleHoldId, expireAt);
+            }
+        });
+    }
+
+    private void offer(String scheduleHoldId, ZonedDateTime expireAt) {
+        if (expireAt != null) {
+            deadlines.offer(new HoldDeadline(scheduleHoldId, expireAt.toInstant().toEpochMilli()));
+        }
+    }
+
+    int trackedDeadlines() {
+        return deadlines.size();
+    }
+
+    @Scheduled(fixedDelayString = "${application.hold-expiry.sweep-interval-ms:30000}",
+            initialDelayString = "${application.hold-expiry.sweep-interval-ms:30000}")
+    public void sweep() {
+        reapExpiredHolds();
+    }
+
+    private void runLoop() {
+        List<HoldDeadline> due = new ArrayList<>();
+        while (worker != null) {
+            try {
+                deadlines.take();
+                // Gom các deadline đã tới cùng lúc vào 1 lần reap
+                deadlines.drainTo(due);
+                due.clear();
+                reapExpiredHolds();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error in hold expiry loop: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    void reapExpiredHolds() {
+        // Worker và sweep không cần chạy chồng nhau trên cùng 1 replica
+        if (!reapLock.tryLock()) {
+            return;
+        }
+        try {
+            int total = 0;
+            List<QueryScheduleHoldResponse> expired;
+            do {
+                // Expire + ghi HoldExpiredEvent vào outbox trong cùng 1 transaction
+                expired = transactionTemplate.execute(status -> {
+                    var batch = _scheduleApplicationService.expireDueHolds(batchSize);
+                    batch.forEach(this::publishHoldExpired);
+                    return batch;
+                });
+                total += expired.size();
+            } while (expired.size() == batchSize);
+
+            if (total > 0) {
+                log.info("Expired {} schedule holds", total);
+            }
+        } catch (Exception e) {
+            log.error("Error reaping expired holds: {}", e.getMessage(), e);
+        } finally {
+            reapLock.unlock();
+        }
+    }
+
+    private void publishHoldExpired(QueryScheduleHoldResponse hold) {
+        HoldExpiredEvent event = HoldExpiredEvent.builder()
+                .bookingId(hold.bookingId())
+                .scheduleHoldId(hold.id())
+                .packageScheduleId(hold.packageScheduleId())
+                .expiredAt(hold.expireAt())
+                .build();
+
+        _scheduleEventPublisher.publishScheduleEvent("HoldExpiredEvent", hold.bookingId(),
+                hold.bookingId(), event);
+    }
+
+    private record HoldDeadline(String scheduleHoldId, long expireAtMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expireAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expireAtMillis, ((HoldDeadline) other).expireAtMillis);
+        }
+    }
+}
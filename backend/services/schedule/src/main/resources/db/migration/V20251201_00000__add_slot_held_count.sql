@@ -0,0 +1,20 @@
+-- ============================================
+-- Đếm số chỗ đang HOLD ngay trên slot để giữ chỗ bằng 1 câu UPDATE có điều kiện
+--   available = capacity + overbook_limit - booked_count - held_count
+-- ============================================
+
+ALTER TABLE health_check_package_schedules
+    ADD COLUMN held_count INT NOT NULL DEFAULT 0;
+
+-- Backfill từ các hold đang active
+UPDATE health_check_package_schedules hcps
+SET held_count = (
+    SELECT COUNT(*)
+    FROM schedule_holds sh
+    WHERE sh.package_schedule_id = hcps.package_schedule_id
+      AND sh.status = 'HOLD'
+);
+
+ALTER TABLE health_check_package_schedules
+    ADD CONSTRAINT ck_hcps_seat_counters
+        CHECK (held_count >= 0 AND booked_count >= 0);
@@ -0,0 +1,9 @@
+-- ============================================
+-- Index cho hold-expiry reaper: quét các hold HOLD theo expire_at
+--   SELECT ... WHERE status = 'HOLD' AND expire_at <= now()
+--   ORDER BY expire_at LIMIT n FOR UPDATE SKIP LOCKED
+-- ============================================
+
+CREATE INDEX idx_schedule_holds_hold_expire
+    ON schedule_holds (expire_at)
+    WHERE status = 'HOLD';
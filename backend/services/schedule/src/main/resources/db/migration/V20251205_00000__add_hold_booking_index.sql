@@ -0,0 +1,4 @@
+-- Tìm hold đang active của 1 booking (CancelHoldCommand khi saga bên booking bị timeout)
+CREATE INDEX idx_schedule_holds_booking_active
+    ON schedule_holds (booking_id)
+    WHERE status = 'HOLD';
@@ -0,0 +1,18 @@
+-- ============================================
+-- Gộp index của schedule_holds:
+--   - idx_schedule_holds_hold_expire (V20251202) trùng vai trò với idx_schedule_holds_active
+--   - idx_schedule_holds_active (package_schedule_id) không còn query nào dùng: số chỗ đã nằm trên
+--     health_check_package_schedules (held_count, booked_count), không đếm hold theo slot nữa
+-- Thay bằng 1 index partial theo expire_at cho hold đang HOLD, dùng cho:
+--   SELECT ... WHERE status = 'HOLD' AND expire_at <= :now
+--   ORDER BY expire_at LIMIT n FOR UPDATE SKIP LOCKED     (reaper claim)
+--   SELECT ... WHERE status = 'HOLD' AND expire_at <= :until
+--   ORDER BY expire_at LIMIT n                           (reaper start)
+-- ============================================
+
+DROP INDEX IF EXISTS idx_schedule_holds_hold_expire;
+DROP INDEX IF EXISTS idx_schedule_holds_active;
+
+CREATE INDEX idx_schedule_holds_active
+    ON schedule_holds (expire_at)
+    WHERE status = 'HOLD';
@@ -0,0 +1,137 @@
+package com.bookingcare.application.availability;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bookingcare.application.dto.QueryAvailabilityCalendarResponse;
+import com.bookingcare.application.dto.QueryDayAvailabilityResponse;
+import com.bookingcare.application.dto.SlotSeatCount;
+import com.bookingcare.application.ports.output.IPackageScheduleQueryRepository;
+
+/**
+ * AvailabilityCalendar: nạp 1 lần, cập nhật tăng dần theo hold / release, version (ETag) đổi theo nội dung.
+ * Gói không tồn tại trả null và không bị cache; gói đã hết lịch vẫn có calendar rỗng.
+ */
+class AvailabilityCalendarTests {
+    private static final String PACKAGE_ID = "PKG01";
+    private static final int SLOTS_PER_DAY = 8;
+    private static final int DAYS = 30;
+    private static final int READS = 10_000;
+
+    private final LocalDate today = LocalDate.now();
+    private IPackageScheduleQueryRepository repository;
+    private AvailabilityCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        List<SlotSeatCount> slots = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            // Chủ nhật (day % 7 == 6) không có slot
+            if (day % 7 == 6) {
+                continue;
+            }
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                slots.add(new SlotSeatCount(slotId(day, slot), today.plusDays(day), slot == 0 ? 0 : 2));
+            }
+        }
+
+        repository = mock(IPackageScheduleQueryRepository.class);
+        when(repository.findSeatCountsByPackageId(eq(PACKAGE_ID), any())).thenReturn(slots);
+        calendar = new AvailabilityCalendar(repository, 100, 3600);
+    }
+
+    @Test
+    void monthIsServedFromMemoryAndTracksTransitions() {
+        QueryAvailabilityCalendarResponse month = calendar.getCalendar(PACKAGE_ID, today, today.plusDays(DAYS - 1));
+
+        assertEquals(DAYS, month.days().size());
+        assertDay(month.days().get(0), 14, 7, 8);
+        assertDay(month.days().get(6), 0, 0, 0);
+
+        calendar.seatsChanged(slotId(0, 1), -1);
+        calendar.seatsChanged(slotId(0, 1), -1);
+        QueryAvailabilityCalendarResponse afterHolds = calendar.getCalendar(PACKAGE_ID, today, today.plusDays(DAYS - 1));
+        assertDay(afterHolds.days().get(0), 12, 6, 8);
+        assertNotEquals(month.version(), afterHolds.version());
+
+        calendar.seatsChanged(slotId(0, 1), 1);
+        calendar.seatsChanged(slotId(0, 1), 1);
+        QueryAvailabilityCalendarResponse afterRelease = calendar.getCalendar(PACKAGE_ID, today, today.plusDays(DAYS - 1));
+        assertEquals(month, afterRelease);
+
+        // Slot của gói chưa nạp: bỏ qua
+        calendar.seatsChanged("UNKNOWN_SLOT", -1);
+
+        // Đọc lặp lại chỉ đi qua bộ nhớ, không xuống repository thêm lần nào
+        for (int i = 0; i < READS; i++) {
+            assertEquals(month, calendar.getCalendar(PACKAGE_ID, today, today.plusDays(DAYS - 1)));
+        }
+        verify(repository, times(1)).findSeatCountsByPackageId(eq(PACKAGE_ID), any());
+    }
+
+    @Test
+    void invalidateReloadsFromRepository() {
+        calendar.getCalendar(PACKAGE_ID, today, today.plusDays(6));
+        calendar.invalidate(PACKAGE_ID);
+        calendar.getCalendar(PACKAGE_ID, today, today.plusDays(6));
+
+        verify(repository, times(2)).findSeatCountsByPackageId(eq(PACKAGE_ID), any());
+    }
+
+    @Test
+    void unknownPackageIsNotCached() {
+        when(repository.findSeatCountsByPackageId(eq("NO_SUCH_PKG"), any())).thenReturn(List.of());
+        when(repository.existsByPackageId("NO_SUCH_PKG")).thenReturn(false);
+
+        assertNull(calendar.getCalendar("NO_SUCH_PKG", today, today.plusDays(6)));
+        assertNull(calendar.getCalendar("NO_SUCH_PKG", today, today.plusDays(6)));
+
+        verify(repository, times(2)).findSeatCountsByPackageId(eq("NO_SUCH_PKG"), any());
+    }
+
+    @Test
+    void packageWithoutUpcomingSlotsIsCachedEmpty() {
+        when(repository.findSeatCountsByPackageId(eq("PAST_PKG"), any())).thenReturn(List.of());
+        when(repository.existsByPackageId("PAST_PKG")).thenReturn(true);
+
+        QueryAvailabilityCalendarResponse week = calendar.getCalendar("PAST_PKG", today, today.plusDays(6));
+        calendar.getCalendar("PAST_PKG", today, today.plusDays(6));
+
+        assertEquals(7, week.days().size());
+        assertDay(week.days().get(0), 0, 0, 0);
+        verify(repository, times(1)).findSeatCountsByPackageId(eq("PAST_PKG"), any());
+    }
+
+    @Test
+    void rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> calendar.getCalendar(PACKAGE_ID, today.plusDays(1), today));
+        assertThrows(IllegalArgumentException.class,
+                () -> calendar.getCalendar(PACKAGE_ID, today, today.plusDays(AvailabilityCalendar.MAX_RANGE_DAYS)));
+    }
+
+    private static void assertDay(QueryDayAvailabilityResponse day, int availableSeats, int openSlots, int totalSlots) {
+        assertEquals(availableSeats, day.availableSeats());
+        assertEquals(openSlots, day.openSlots());
+        assertEquals(totalSlots, day.totalSlots());
+    }
+
+    private static String slotId(int day, int slot) {
+        return "PKGSCHDL_PKG01_SLOT" + slot + "_D" + day;
+    }
+}
@@ -0,0 +1,242 @@
+package com.bookingcare.application.reservation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.bookingcare.application.availability.AvailabilityCalendar;
+import com.bookingcare.application.ports.output.IHealthCheckPackageSchedulesRepository;
+import com.bookingcare.application.ports.output.IScheduleHoldRepository;
+import com.bookingcare.domain.entity.HealthCheckPackageSchedule;
+import com.bookingcare.domain.entity.ScheduleHold;
+import com.bookingcare.domain.exception.ScheduleDomainException;
+import com.bookingcare.infrastructure.dataaccess.adapter.HealthCheckPackageSchedulesRepository;
+import com.bookingcare.infrastructure.dataaccess.adapter.ScheduleHoldRepository;
+import com.bookingcare.infrastructure.dataaccess.mapper.ScheduleInfrastructureMapper;
+import com.bookingcare.infrastructure.dataaccess.repository.IHealthCheckPackageScheduleJpaRepository;
+import com.bookingcare.infrastructure.dataaccess.repository.IHoldJpaRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * SlotReservationEngine:
+ * - releasedSeatIsImmediatelyAvailableAgain: luôn chạy, repository giả lập held_count trong bộ nhớ.
+ * - concurrentHoldsNeverOversell: Postgres thật dựng bằng Testcontainers (chỉ bỏ qua khi máy không có Docker).
+ *   10k hold + release chạy song song, mỗi lần 1 transaction, qua đúng câu UPDATE reserveSeat / releaseHeldSeat.
+ */
+class SlotReservationEngineTests {
+    private static final String SLOT_ID = "RESVTEST_PS01";
+    private static final int CAPACITY = 50;
+    private static final int ATTEMPTS = 10_000;
+    // Cứ mỗi RELEASE_EVERY hold thành công thì trả lại ngay, để release chạy xen với reserve
+    private static final int RELEASE_EVERY = 5;
+    private static final int POOL_SIZE = 32;
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+
+    @Test
+    void releasedSeatIsImmediatelyAvailableAgain() {
+        AtomicInteger heldCount = new AtomicInteger();
+        IHealthCheckPackageSchedulesRepository packageSchedulesRepository = mock(IHealthCheckPackageSchedulesRepository.class);
+        IScheduleHoldRepository holdRepository = mock(IScheduleHoldRepository.class);
+
+        when(packageSchedulesRepository.reserveSeat(SLOT_ID))
+                .thenAnswer(invocation -> heldCount.getAndUpdate(c -> c < CAPACITY ? c + 1 : c) < CAPACITY);
+        when(packageSchedulesRepository.releaseHeldSeat(SLOT_ID))
+                .thenAnswer(invocation -> heldCount.getAndUpdate(c -> c > 0 ? c - 1 : c) > 0);
+        when(packageSchedulesRepository.findById(SLOT_ID)).thenReturn(Optional.of(
+                HealthCheckPackageSchedule.builder()
+                        .packageScheduleId(SLOT_ID)
+                        .capacity(CAPACITY)
+                        .bookedCount(0)
+                        .overbookLimit(0)
+                        .isDeleted(false)
+                        .build()));
+
+        when(holdRepository.save(any(ScheduleHold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(holdRepository.findById(anyString())).thenAnswer(invocation -> Optional.of(
+                ScheduleHold.builder()
+                        .id(invocation.getArgument(0))
+                        .packageScheduleId(SLOT_ID)
+                        .bookingId("B_RELEASE")
+                        .status(SlotReservationEngine.STATUS_HOLD)
+                        .build()));
+        when(holdRepository.transitionStatus(anyString(), anyString(), anyString())).thenReturn(true);
+
+        SlotReservationEngine engine = new SlotReservationEngine(packageSchedulesRepository, holdRepository,
+                mock(AvailabilityCalendar.class));
+
+        for (int i = 0; i < CAPACITY; i++) {
+            engine.hold(SLOT_ID, "B" + i);
+        }
+        assertThrows(ScheduleDomainException.class, () -> engine.hold(SLOT_ID, "B_FULL"));
+
+        assertEquals(SlotReservationEngine.STATUS_HOLD, engine.release("H_ANY", "B_RELEASE", false));
+
+        // Không cache "hết chỗ": chỗ vừa trả giữ được ngay
+        assertNotNull(engine.hold(SLOT_ID, "B_AFTER_RELEASE"));
+        assertEquals(CAPACITY, heldCount.get());
+    }
+
+    @Test
+    void concurrentHoldsNeverOversell() throws Exception {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is required for Testcontainers");
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE)) {
+            postgres.start();
+            runContention(postgres);
+        }
+    }
+
+    private static void runContention(PostgreSQLContainer<?> postgres) throws Exception {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+        EntityManagerFactory emf = entityManagerFactory(dataSource);
+        try {
+            insertFixtures(dataSource);
+
+            JpaRepositoryFactory factory = new JpaRepositoryFactory(
+                    SharedEntityManagerCreator.createSharedEntityManager(emf));
+            ScheduleInfrastructureMapper mapper = new ScheduleInfrastructureMapper();
+            SlotReservationEngine engine = new SlotReservationEngine(
+                    new HealthCheckPackageSchedulesRepository(
+                            factory.getRepository(IHealthCheckPackageScheduleJpaRepository.class), mapper),
+                    new ScheduleHoldRepository(factory.getRepository(IHoldJpaRepository.class), mapper),
+                    mock(AvailabilityCalendar.class));
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new JpaTransactionManager(emf));
+
+            CountDownLatch startGate = new CountDownLatch(1);
+            AtomicInteger succeeded = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            AtomicInteger released = new AtomicInteger();
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE)) {
+                List<Future<?>> futures = new ArrayList<>(ATTEMPTS);
+                for (int i = 0; i < ATTEMPTS; i++) {
+                    String bookingId = "RESVTEST_B" + i;
+                    futures.add(executor.submit(() -> {
+                        startGate.await();
+                        ScheduleHold hold;
+                        try {
+                            hold = transactionTemplate.execute(status -> engine.hold(SLOT_ID, bookingId));
+                        } catch (ScheduleDomainException e) {
+                            rejected.incrementAndGet();
+                            return null;
+                        }
+                        if (succeeded.incrementAndGet() % RELEASE_EVERY == 0) {
+                            transactionTemplate.executeWithoutResult(
+                                    status -> engine.release(hold.getId(), bookingId, false));
+                            released.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                startGate.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            int heldCount = queryInt(dataSource,
+                    "SELECT held_count FROM health_check_package_schedules WHERE package_schedule_id = '" + SLOT_ID + "'");
+            int activeHolds = queryInt(dataSource,
+                    "SELECT COUNT(*) FROM schedule_holds WHERE package_schedule_id = '" + SLOT_ID + "' AND status = 'HOLD'");
+
+            assertEquals(ATTEMPTS, succeeded.get() + rejected.get());
+            // 10k lượt tranh 50 chỗ: phần lớn phải bị từ chối, và slot phải từng đầy
+            assertTrue(rejected.get() > 0, "no attempt was rejected");
+            assertTrue(succeeded.get() >= CAPACITY, "slot never filled: " + succeeded.get() + " held");
+            assertEquals(succeeded.get() / RELEASE_EVERY, released.get());
+            assertTrue(heldCount <= CAPACITY, "oversold: held_count " + heldCount);
+            assertEquals(succeeded.get() - released.get(), heldCount);
+            assertEquals(heldCount, activeHolds);
+            // Chỗ được trả lại phải giữ lại được: slot chỉ còn thiếu các chỗ trả về sau lượt hold cuối (tối đa 1 / thread)
+            assertTrue(heldCount >= CAPACITY - POOL_SIZE, "released seats were not reused: held_count " + heldCount);
+        } finally {
+            deleteFixtures(dataSource);
+            emf.close();
+            dataSource.close();
+        }
+    }
+
+    private static EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        jpaProperties.put("hibernate.hbm2ddl.auto", "none");
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.bookingcare.infrastructure.dataaccess.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(jpaProperties);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private static int queryInt(DataSource dataSource, String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static void insertFixtures(DataSource dataSource) throws Exception {
+        deleteFixtures(dataSource);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    "INSERT INTO schedules (id, start_time, end_time, day_id) VALUES ('RESVTEST_SLOT01', '08:00', '09:00', 'MON')");
+            statement.executeUpdate(String.format(
+                    "INSERT INTO health_check_package_schedules "
+                            + "(package_schedule_id, package_id, schedule_id, schedule_date, capacity) "
+                            + "VALUES ('%s', 'RESVTEST_PKG01', 'RESVTEST_SLOT01', CURRENT_DATE + 1, %d)",
+                    SLOT_ID, CAPACITY));
+        }
+    }
+
+    private static void deleteFixtures(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM schedule_holds WHERE package_schedule_id LIKE 'RESVTEST_%'");
+            statement.executeUpdate("DELETE FROM health_check_package_schedules WHERE package_schedule_id LIKE 'RESVTEST_%'");
+            statement.executeUpdate("DELETE FROM schedules WHERE id LIKE 'RESVTEST_%'");
+        }
+    }
+}
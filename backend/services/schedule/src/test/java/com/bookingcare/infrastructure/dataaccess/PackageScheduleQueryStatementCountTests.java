@@ -0,0 +1,174 @@
+package com.bookingcare.infrastructure.dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.bookingcare.application.dto.QueryPackageScheduleResponse;
+import com.bookingcare.infrastructure.dataaccess.adapter.PackageScheduleQueryRepository;
+import com.bookingcare.infrastructure.dataaccess.mapper.ScheduleInfrastructureMapper;
+import com.bookingcare.infrastructure.dataaccess.repository.IHealthCheckPackageScheduleJpaRepository;
+import com.bookingcare.infrastructure.dataaccess.repository.IPackageScheduleQueryJpaRepository;
+import com.bookingcare.infrastructure.dataaccess.repository.IScheduleJpaRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Đếm số câu SQL (Hibernate statistics) của các API liệt kê lịch gói khám:
+ * read model mới phải là 1 statement / request, cách cũ là 1 + N (findById schedule theo từng dòng).
+ *
+ * - queriesCompileAgainstMapping: luôn chạy, chỉ bootstrap Hibernate (không mở connection)
+ *   để kiểm tra các câu JPQL của IPackageScheduleQueryJpaRepository.
+ * - singleStatementPerRequest: Postgres thật dựng bằng Testcontainers (chỉ bỏ qua khi máy không có Docker).
+ */
+class PackageScheduleQueryStatementCountTests {
+    private static final String PACKAGE_ID = "N1TEST_PKG01";
+    private static final String DOCTOR_ID = "N1TEST_DOCTOR01";
+    private static final LocalDate DATE = LocalDate.of(2025, 12, 1);
+    private static final int SLOTS_PER_DAY = 8;
+    private static final int DAYS = 5;
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+
+    @Test
+    void queriesCompileAgainstMapping() {
+        // Không có DB: Hibernate không đọc JDBC metadata, repository factory vẫn validate @Query
+        DataSource unreachable = new DriverManagerDataSource("jdbc:postgresql://localhost:1/unreachable");
+        EntityManagerFactory emf = entityManagerFactory(unreachable, Map.of(
+                "hibernate.boot.allow_jdbc_metadata_access", "false"));
+        try {
+            JpaRepositoryFactory factory = new JpaRepositoryFactory(
+                    SharedEntityManagerCreator.createSharedEntityManager(emf));
+            assertNotNull(factory.getRepository(IPackageScheduleQueryJpaRepository.class));
+        } finally {
+            emf.close();
+        }
+    }
+
+    @Test
+    void singleStatementPerRequest() throws Exception {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is required for Testcontainers");
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE)) {
+            postgres.start();
+            countStatements(new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        }
+    }
+
+    private static void countStatements(DataSource dataSource) throws Exception {
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+        EntityManagerFactory emf = entityManagerFactory(dataSource, Map.of(
+                "hibernate.generate_statistics", "true"));
+        try {
+            insertFixtures(dataSource);
+
+            JpaRepositoryFactory factory = new JpaRepositoryFactory(
+                    SharedEntityManagerCreator.createSharedEntityManager(emf));
+            PackageScheduleQueryRepository readModel = new PackageScheduleQueryRepository(
+                    factory.getRepository(IPackageScheduleQueryJpaRepository.class),
+                    new ScheduleInfrastructureMapper());
+            IHealthCheckPackageScheduleJpaRepository packageSchedules =
+                    factory.getRepository(IHealthCheckPackageScheduleJpaRepository.class);
+            IScheduleJpaRepository schedules = factory.getRepository(IScheduleJpaRepository.class);
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+            assertSingleStatement(statistics, SLOTS_PER_DAY * DAYS,
+                    () -> readModel.findByPackageId(PACKAGE_ID));
+            assertSingleStatement(statistics, SLOTS_PER_DAY,
+                    () -> readModel.findByPackageIdAndScheduleDate(PACKAGE_ID, DATE));
+            assertSingleStatement(statistics, SLOTS_PER_DAY * DAYS,
+                    () -> readModel.findByPackageIdsAndNotDeleted(List.of(PACKAGE_ID, "N1TEST_PKG_MISSING")));
+            assertSingleStatement(statistics, DAYS,
+                    () -> readModel.findByDoctorId(DOCTOR_ID));
+
+            // Cách cũ để so sánh: findByPackageId rồi findById schedule cho từng dòng
+            statistics.clear();
+            packageSchedules.findByPackageId(PACKAGE_ID)
+                    .forEach(slot -> schedules.findById(slot.getScheduleId()));
+            assertEquals(1 + SLOTS_PER_DAY * DAYS, statistics.getPrepareStatementCount());
+        } finally {
+            deleteFixtures(dataSource);
+            emf.close();
+        }
+    }
+
+    private static void assertSingleStatement(Statistics statistics, int expectedRows,
+                                              Supplier<List<QueryPackageScheduleResponse>> request) {
+        statistics.clear();
+        List<QueryPackageScheduleResponse> result = request.get();
+        assertEquals(expectedRows, result.size());
+        result.forEach(row -> assertNotNull(row.schedule()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static EntityManagerFactory entityManagerFactory(DataSource dataSource, Map<String, String> properties) {
+        Map<String, Object> jpaProperties = new HashMap<>(properties);
+        jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        jpaProperties.put("hibernate.hbm2ddl.auto", "none");
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.bookingcare.infrastructure.dataaccess.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(jpaProperties);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private static void insertFixtures(DataSource dataSource) throws Exception {
+        deleteFixtures(dataSource);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                statement.addBatch(String.format(
+                        "INSERT INTO schedules (id, start_time, end_time, day_id) VALUES ('N1TEST_SLOT%02d', '%02d:00', '%02d:00', 'MON')",
+                        slot, 8 + slot, 9 + slot));
+            }
+            for (int day = 0; day < DAYS; day++) {
+                for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                    String packageScheduleId = String.format("N1TEST_PS_%d_%02d", day, slot);
+                    statement.addBatch(String.format(
+                            "INSERT INTO health_check_package_schedules (package_schedule_id, package_id, schedule_id, schedule_date) "
+                                    + "VALUES ('%s', '%s', 'N1TEST_SLOT%02d', DATE '%s')",
+                            packageScheduleId, PACKAGE_ID, slot, DATE.plusDays(day)));
+                    if (slot == 0) {
+                        statement.addBatch(String.format(
+                                "INSERT INTO health_check_package_schedules_doctor (id, package_schedule_id, doctor_id) "
+                                        + "VALUES ('N1TEST_HPSD_%d', '%s', '%s')",
+                                day, packageScheduleId, DOCTOR_ID));
+                    }
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void deleteFixtures(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM health_check_package_schedules_doctor WHERE id LIKE 'N1TEST_%'");
+            statement.executeUpdate("DELETE FROM health_check_package_schedules WHERE package_schedule_id LIKE 'N1TEST_%'");
+            statement.executeUpdate("DELETE FROM schedules WHERE id LIKE 'N1TEST_%'");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.bookingcare.infrastructure.messaging.listener;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.application.dto.QueryScheduleHoldResponse;
+import com.bookingcare.application.dto.event.BookingConfirmedEvent;
+import com.bookingcare.application.dto.event.BookingCreatedEvent;
+import com.bookingcare.application.ports.input.IScheduleApplicationServicePatient;
+import com.bookingcare.common.messaging.EventEnvelope;
+import com.bookingcare.common.messaging.ProcessedEventStore;
+import com.bookingcare.common.messaging.codec.EventEnvelopeCodec;
+import com.bookingcare.domain.exception.ScheduleDomainException;
+import com.bookingcare.infrastructure.messaging.event.HoldSlotFailedEvent;
+import com.bookingcare.infrastructure.messaging.event.HoldSlotSucceededEvent;
+import com.bookingcare.infrastructure.messaging.publisher.ScheduleEventPublisher;
+import com.bookingcare.infrastructure.scheduling.HoldExpiryReaper;
+
+/**
+ * BookingEventListener với transaction manager giả:
+ * - Giữ chỗ bị từ chối (ScheduleDomainException): transaction đầu rollback, dấu processed_events ghi lại
+ *   cùng HoldSlotFailedEvent
+ * - Lỗi hạ tầng khi giữ chỗ: ném ra cho container retry / DLT, không ghi dấu, không gửi HoldSlotFailedEvent
+ * - Lần giao lại sau khi đã báo lỗi: bỏ qua, không gửi thêm event
+ * - HoldSlotSucceededEvent mang expire_at của hold đã lưu
+ * - Command lỗi: ném ra cho container retry / DLT, không nuốt
+ */
+class BookingEventListenerTests {
+    private static final byte[] MESSAGE = new byte[] {1};
+    // Khác now + 15 phút: event phải mang đúng expire_at đã lưu
+    private static final ZonedDateTime EXPIRE_AT = ZonedDateTime.parse("2030-01-01T08:15:00+07:00");
+
+    private IScheduleApplicationServicePatient scheduleService;
+    private ScheduleEventPublisher scheduleEventPublisher;
+    private HoldExpiryReaper holdExpiryReaper;
+    private ProcessedEventStore processedEventStore;
+    private EventEnvelopeCodec eventEnvelopeCodec;
+    private PlatformTransactionManager transactionManager;
+    private BookingEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        scheduleService = mock(IScheduleApplicationServicePatient.class);
+        scheduleEventPublisher = mock(ScheduleEventPublisher.class);
+        holdExpiryReaper = mock(HoldExpiryReaper.class);
+        processedEventStore = mock(ProcessedEventStore.class);
+        eventEnvelopeCodec = mock(EventEnvelopeCodec.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        listener = new BookingEventListener(scheduleService, scheduleEventPublisher, holdExpiryReaper,
+                processedEventStore, eventEnvelopeCodec, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void failedHoldRecordsMarkerWithFailureEvent() {
+        EventEnvelope<Object> envelope = bookingCreated();
+        when(processedEventStore.markProcessed("EVT-1", "BookingCreatedEvent")).thenReturn(true);
+        when(scheduleService.holdScheduleForBooking("PS-1", "B-1")).thenThrow(new ScheduleDomainException("Slot full"));
+
+        listener.handleBookingEvents(MESSAGE);
+
+        // Lần 1 rollback (kể cả dấu processed_events), lần 2 commit dấu + HoldSlotFailedEvent
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(processedEventStore, times(2)).markProcessed("EVT-1", "BookingCreatedEvent");
+        verify(scheduleEventPublisher).publishScheduleEvent(eq("HoldSlotFailedEvent"), eq("B-1"), eq("CORR-1"),
+                eq(HoldSlotFailedEvent.builder().bookingId("B-1").reason("Slot full").build()));
+        verify(scheduleEventPublisher, never()).publishScheduleEvent(eq("HoldSlotSucceededEvent"), anyString(), any(), any());
+        verify(holdExpiryReaper, never()).track(any(), any());
+        verify(eventEnvelopeCodec).payloadAs(envelope, BookingCreatedEvent.class);
+    }
+
+    @Test
+    void infrastructureFailureWhileHoldingIsRethrown() {
+        bookingCreated();
+        when(processedEventStore.markProcessed("EVT-1", "BookingCreatedEvent")).thenReturn(true);
+        when(scheduleService.holdScheduleForBooking("PS-1", "B-1")).thenThrow(new IllegalStateException("DB down"));
+
+        assertThrows(IllegalStateException.class, () -> listener.handleBookingEvents(MESSAGE));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(processedEventStore, times(1)).markProcessed("EVT-1", "BookingCreatedEvent");
+        verify(scheduleEventPublisher, never()).publishScheduleEvent(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void redeliveryAfterFailureIsSkipped() {
+        bookingCreated();
+        when(processedEventStore.markProcessed("EVT-1", "BookingCreatedEvent")).thenReturn(false);
+
+        listener.handleBookingEvents(MESSAGE);
+
+        verify(scheduleService, never()).holdScheduleForBooking(anyString(), anyString());
+        verify(scheduleEventPublisher, never()).publishScheduleEvent(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void concurrentDeliveryWinsFailurePath() {
+        bookingCreated();
+        // Lần giao khác đã commit kết quả giữa 2 transaction
+        when(processedEventStore.markProcessed("EVT-1", "BookingCreatedEvent")).thenReturn(true, false);
+        when(scheduleService.holdScheduleForBooking("PS-1", "B-1")).thenThrow(new ScheduleDomainException("Slot full"));
+
+        listener.handleBookingEvents(MESSAGE);
+
+        verify(scheduleEventPublisher, never()).publishScheduleEvent(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void succeededEventCarriesPersistedExpiry() {
+        bookingCreated();
+        when(processedEventStore.markProcessed("EVT-1", "BookingCreatedEvent")).thenReturn(true);
+        when(scheduleService.holdScheduleForBooking("PS-1", "B-1")).thenReturn(hold("H-1", EXPIRE_AT));
+
+        listener.handleBookingEvents(MESSAGE);
+
+        verify(scheduleEventPublisher).publishScheduleEvent(eq("HoldSlotSucceededEvent"), eq("B-1"), eq("CORR-1"),
+                eq(HoldSlotSucceededEvent.builder().bookingId("B-1").scheduleHoldId("H-1")
+                        .holdExpireAt(EXPIRE_AT).packageScheduleId("PS-1").build()));
+        verify(holdExpiryReaper).track("H-1", EXPIRE_AT);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void outboxFailureIsRethrown() {
+        bookingCreated();
+        when(processedEventStore.markProcessed("EVT-1", "BookingCreatedEvent")).thenReturn(true);
+        when(scheduleService.holdScheduleForBooking("PS-1", "B-1")).thenReturn(hold("H-1", EXPIRE_AT));
+        doThrow(new IllegalStateException("outbox down")).when(scheduleEventPublisher)
+                .publishScheduleEvent(eq("HoldSlotSucceededEvent"), anyString(), any(), any());
+
+        assertThrows(IllegalStateException.class, () -> listener.handleBookingEvents(MESSAGE));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(processedEventStore, times(1)).markProcessed("EVT-1", "BookingCreatedEvent");
+    }
+
+    @Test
+    void commandFailureIsRethrown() {
+        EventEnvelope<Object> envelope = envelope("BookingConfirmedEvent");
+        when(eventEnvelopeCodec.decode(MESSAGE)).thenReturn(envelope);
+        when(eventEnvelopeCodec.payloadAs(envelope, BookingConfirmedEvent.class))
+                .thenReturn(BookingConfirmedEvent.builder().bookingId("B-1").scheduleHoldId("H-1").build());
+        when(processedEventStore.markProcessed("EVT-1", "BookingConfirmedEvent")).thenReturn(true);
+        when(scheduleService.confirmHoldScheduleForBooking("H-1", "B-1")).thenThrow(new IllegalStateException("DB down"));
+
+        assertThrows(IllegalStateException.class, () -> listener.handleScheduleCommands(MESSAGE));
+    }
+
+    private EventEnvelope<Object> bookingCreated() {
+        EventEnvelope<Object> envelope = envelope("BookingCreatedEvent");
+        when(eventEnvelopeCodec.decode(MESSAGE)).thenReturn(envelope);
+        when(eventEnvelopeCodec.payloadAs(envelope, BookingCreatedEvent.class))
+                .thenReturn(BookingCreatedEvent.builder().bookingId("B-1").packageScheduleId("PS-1").build());
+        return envelope;
+    }
+
+    private static QueryScheduleHoldResponse hold(String holdId, ZonedDateTime expireAt) {
+        return new QueryScheduleHoldResponse(holdId, "PS-1", "B-1", "HOLD", expireAt,
+                expireAt.minusMinutes(15), expireAt.minusMinutes(15));
+    }
+
+    private static EventEnvelope<Object> envelope(String eventType) {
+        return EventEnvelope.builder()
+                .eventId("EVT-1")
+                .eventType(eventType)
+                .aggregateId("B-1")
+                .correlationId("CORR-1")
+                .build();
+    }
+}
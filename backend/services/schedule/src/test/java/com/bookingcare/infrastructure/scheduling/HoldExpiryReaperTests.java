@@ -0,0 +1,111 @@
+package com.bookingcare.infrastructure.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bookingcare.application.ports.input.IScheduleApplicationServicePatient;
+import com.bookingcare.application.ports.output.IScheduleHoldRepository;
+import com.bookingcare.domain.entity.ScheduleHold;
+import com.bookingcare.infrastructure.messaging.publisher.ScheduleEventPublisher;
+
+/**
+ * HoldExpiryReaper:
+ * - Start: reap hold đã quá hạn theo batch, chỉ nạp hold hết hạn trong 1 chu kỳ sweep (có LIMIT)
+ * - track() trong transaction chỉ hẹn giờ sau commit, rollback thì không để lại deadline
+ */
+class HoldExpiryReaperTests {
+    private static final int BATCH_SIZE = 50;
+    private static final long SWEEP_INTERVAL_MS = 30_000;
+
+    private IScheduleApplicationServicePatient scheduleService;
+    private IScheduleHoldRepository scheduleHoldRepository;
+    private HoldExpiryReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        scheduleService = mock(IScheduleApplicationServicePatient.class);
+        scheduleHoldRepository = mock(IScheduleHoldRepository.class);
+        reaper = new HoldExpiryReaper(scheduleService, scheduleHoldRepository, mock(ScheduleEventPublisher.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(reaper, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(reaper, "sweepIntervalMs", SWEEP_INTERVAL_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reaper.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void startLoadsOnlyHoldsDueWithinSweepWindow() {
+        when(scheduleService.expireDueHolds(BATCH_SIZE)).thenReturn(List.of());
+        ZonedDateTime soon = ZonedDateTime.now().plusSeconds(10);
+        when(scheduleHoldRepository.findHoldsExpiringBefore(any(), anyInt()))
+                .thenReturn(List.of(hold("H-1", soon), hold("H-2", soon.plusSeconds(5))));
+
+        ZonedDateTime before = ZonedDateTime.now();
+        reaper.start();
+
+        verify(scheduleService).expireDueHolds(BATCH_SIZE);
+        ArgumentCaptor<ZonedDateTime> until = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(scheduleHoldRepository).findHoldsExpiringBefore(until.capture(), eq(BATCH_SIZE));
+        assertTrue(!until.getValue().isBefore(before.plusSeconds(30))
+                && !until.getValue().isAfter(ZonedDateTime.now().plusSeconds(30)), until.getValue().toString());
+        assertEquals(2, reaper.trackedDeadlines());
+    }
+
+    @Test
+    void trackWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        reaper.track("H-1", ZonedDateTime.now().plusMinutes(15));
+        assertEquals(0, reaper.trackedDeadlines());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, reaper.trackedDeadlines());
+    }
+
+    @Test
+    void trackIsDroppedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        reaper.track("H-1", ZonedDateTime.now().plusMinutes(15));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0, reaper.trackedDeadlines());
+    }
+
+    private static ScheduleHold hold(String id, ZonedDateTime expireAt) {
+        return ScheduleHold.builder()
+                .id(id)
+                .packageScheduleId("PS-1")
+                .bookingId("B-" + id)
+                .status("HOLD")
+                .expireAt(expireAt)
+                .build();
+    }
+}
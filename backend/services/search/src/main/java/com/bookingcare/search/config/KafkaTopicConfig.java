@@ -0,0 +1,21 @@
+package com.bookingcare.search.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // Topic compact: giữ bản mới nhất của mỗi key type:id@source, replica mới replay là đủ toàn bộ catalog
+    @Bean
+    public NewTopic catalogDocumentsTopic(@Value("${application.catalog-documents.topic:catalog-documents}") String topic) {
+        return TopicBuilder.name(topic)
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+}
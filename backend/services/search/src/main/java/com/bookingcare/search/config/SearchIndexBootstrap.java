@@ -0,0 +1,72 @@
+package com.bookingcare.search.config;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.search.index.CatalogIndex;
+import com.bookingcare.search.kafka.CatalogDocumentListener;
+import com.bookingcare.search.seed.SeedCatalogLoader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lúc khởi động: dựng index từ file seed (application.search.seed-dir, bỏ trống = không dùng seed),
+ * sau đó mới bật listener Kafka để replay topic document lên trên.
+ */
+@Component
+@Slf4j
+public class SearchIndexBootstrap implements ApplicationRunner {
+    private final CatalogIndex catalogIndex;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final String seedDir;
+
+    public SearchIndexBootstrap(CatalogIndex catalogIndex,
+                                KafkaListenerEndpointRegistry listenerRegistry,
+                                @Value("${application.search.seed-dir:}") String seedDir) {
+        this.catalogIndex = catalogIndex;
+        this.listenerRegistry = listenerRegistry;
+        this.seedDir = seedDir;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            loadSeed();
+        } finally {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(CatalogDocumentListener.LISTENER_ID);
+            if (container != null) {
+                container.start();
+            }
+        }
+    }
+
+    private void loadSeed() {
+        if (seedDir == null || seedDir.isBlank()) {
+            return;
+        }
+        Path directory = Path.of(seedDir);
+        if (!Files.isDirectory(directory)) {
+            log.warn("Search seed directory {} not found, starting with an empty index", directory);
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<CatalogDocumentEvent> events = SeedCatalogLoader.load(directory);
+            catalogIndex.replaceAll(events);
+            log.info("Built catalog index from seed {}: {} documents from {} events in {} ms",
+                    directory, catalogIndex.size(), events.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Failed to build catalog index from seed {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bookingcare.search.controller;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.search.dto.SearchResponseDTO;
+import com.bookingcare.search.index.CatalogIndex;
+import com.bookingcare.search.index.SearchQuery;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/search")
+@RequiredArgsConstructor
+public class SearchController {
+    private static final Set<String> TYPES = Set.of(
+            CatalogDocumentEvent.CLINIC, CatalogDocumentEvent.DOCTOR,
+            CatalogDocumentEvent.SPECIALTY, CatalogDocumentEvent.PACKAGE);
+
+    private final CatalogIndex catalogIndex;
+
+    // Tìm phòng khám / bác sĩ / chuyên khoa / gói khám: không dấu, chịu lỗi gõ, lọc + đếm theo facet.
+    @GetMapping
+    public ResponseEntity<SearchResponseDTO> search(
+            @RequestParam(value = "q", required = false) String text,
+            @RequestParam(value = "type", required = false) List<String> types,
+            @RequestParam(value = "specialtyId", required = false) String specialtyId,
+            @RequestParam(value = "packageTypeId", required = false) String packageTypeId,
+            @RequestParam(value = "city", required = false) String city,
+            @RequestParam(value = "minPrice", required = false) Long minPrice,
+            @RequestParam(value = "maxPrice", required = false) Long maxPrice,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+
+        Set<String> typeFilter = new HashSet<>();
+        if (types != null) {
+            for (String type : types) {
+                String normalized = type.trim().toUpperCase(Locale.ROOT);
+                if (!TYPES.contains(normalized)) {
+                    throw new IllegalArgumentException("Unknown type: " + type);
+                }
+                typeFilter.add(normalized);
+            }
+        }
+
+        SearchQuery query = new SearchQuery(text, typeFilter, specialtyId, packageTypeId, city, minPrice, maxPrice,
+                limit == null ? CatalogIndex.DEFAULT_LIMIT : limit);
+        return ResponseEntity.ok(catalogIndex.search(query));
+    }
+}
@@ -0,0 +1,11 @@
+package com.bookingcare.search.dto;
+
+/**
+ * @param value giá trị để truyền lại vào filter (id chuyên khoa, id loại gói, thành phố, khoảng giá "min-max")
+ */
+public record FacetCountDTO(
+        String value,
+        String label,
+        int count
+) {
+}
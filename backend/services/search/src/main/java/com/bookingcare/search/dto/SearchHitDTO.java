@@ -0,0 +1,18 @@
+package com.bookingcare.search.dto;
+
+import java.util.List;
+
+public record SearchHitDTO(
+        String type,
+        String id,
+        String title,
+        String subtitle,
+        String slug,
+        String image,
+        List<String> cities,
+        List<String> specialties,
+        String packageType,
+        Long price,
+        float score
+) {
+}
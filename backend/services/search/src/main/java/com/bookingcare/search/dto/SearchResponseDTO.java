@@ -0,0 +1,16 @@
+package com.bookingcare.search.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @param total  số document khớp query + filter (hits chỉ gồm limit document đầu)
+ * @param facets type / specialty / packageType / city / price -> số document khớp theo từng giá trị
+ */
+public record SearchResponseDTO(
+        int total,
+        long tookMicros,
+        List<SearchHitDTO> hits,
+        Map<String, List<FacetCountDTO>> facets
+) {
+}
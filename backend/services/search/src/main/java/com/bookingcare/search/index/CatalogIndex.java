@@ -0,0 +1,560 @@
+package com.bookingcare.search.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CityNames;
+import com.bookingcare.common.messaging.catalog.SearchText;
+import com.bookingcare.search.dto.FacetCountDTO;
+import com.bookingcare.search.dto.SearchHitDTO;
+import com.bookingcare.search.dto.SearchResponseDTO;
+import com.bookingcare.search.index.TermDictionary.FuzzyTerm;
+import com.bookingcare.search.index.TermDictionary.Postings;
+
+/**
+ * Inverted index trong RAM cho phòng khám, bác sĩ, chuyên khoa và gói khám.
+ *
+ * - Document = gộp các phần theo source (CatalogDocumentEvent): phần chính của service sở hữu,
+ *   cities / price do service khác bổ sung. Chỉ document có phần chính mới tìm được.
+ * - Term là từ đã bỏ dấu (SearchText); title được boost cao nhất, thêm term ghép 2 từ liền nhau của title
+ *   để "noisoi" vẫn ra "Nội soi". Từ cuối của query được mở rộng theo prefix, từ không có trong index
+ *   thì tìm term cách 1-2 lỗi gõ (TermDictionary.fuzzy). Mọi từ của query đều phải khớp.
+ * - Tên chuyên khoa của bác sĩ / gói khám lấy từ document SPECIALTY lúc index, đổi tên chuyên khoa thì
+ *   index lại các document tham chiếu nó.
+ * - Cập nhật 1 document = bỏ doc id cũ, thêm doc id mới; doc id cũ chỉ bị lọc khi đọc, số doc chết vượt
+ *   số doc sống thì dựng lại postings.
+ *
+ * Đọc / ghi qua ReentrantReadWriteLock; replaceAll dựng state mới ngoài lock rồi đổi 1 lần.
+ */
+@Component
+public class CatalogIndex {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    static final float TITLE_BOOST = 3f;
+    static final float TITLE_PAIR_BOOST = 2f;
+    static final float KEYWORD_BOOST = 1f;
+    static final float CONTEXT_BOOST = 0.5f;
+
+    private static final float EXACT_WEIGHT = 1f;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float FUZZY_WEIGHT = 0.7f;
+    private static final float TITLE_PREFIX_BONUS = 2f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_FACET_VALUES = 10;
+    private static final int MIN_DEAD_DOCS_TO_COMPACT = 1_024;
+
+    // Khoảng giá cho facet price (VND)
+    private static final long[] PRICE_BOUNDS = {0, 500_000, 1_000_000, 2_000_000, 5_000_000};
+
+    private static final Map<String, String> TYPE_TERMS = Map.of(
+            CatalogDocumentEvent.CLINIC, "phòng khám bệnh viện cơ sở y tế",
+            CatalogDocumentEvent.DOCTOR, "bác sĩ",
+            CatalogDocumentEvent.SPECIALTY, "chuyên khoa",
+            CatalogDocumentEvent.PACKAGE, "gói khám");
+
+    private static final Comparator<IndexedDocument> BY_TITLE = Comparator.comparing(IndexedDocument::titleKey);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    /**
+     * Áp dụng 1 phần document (upsert hoặc xoá phần của source đó).
+     */
+    public void apply(CatalogDocumentEvent event) {
+        lock.writeLock().lock();
+        try {
+            state.apply(event);
+            state = state.compacted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ index từ events (seed / replay), index cũ vẫn phục vụ query đến lúc đổi.
+     */
+    public void replaceAll(Collection<CatalogDocumentEvent> events) {
+        State rebuilt = new State();
+        events.forEach(rebuilt::apply);
+        State compacted = rebuilt.compacted();
+
+        lock.writeLock().lock();
+        try {
+            state = compacted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchResponseDTO search(SearchQuery query) {
+        long start = System.nanoTime();
+        int limit = query.limit() <= 0 ? DEFAULT_LIMIT : Math.min(query.limit(), MAX_LIMIT);
+        String cityKey = cityKey(query.city());
+        String queryKey = SearchText.normalize(query.text());
+
+        lock.readLock().lock();
+        try {
+            State current = state;
+            float[] scores = queryKey == null ? null : current.score(queryKey, !query.text().endsWith(" "));
+
+            Facets facets = new Facets();
+            Comparator<Candidate> ranking = Comparator.comparingDouble(Candidate::score)
+                    .thenComparing(Candidate::document, BY_TITLE.reversed());
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, ranking);
+            int total = 0;
+
+            for (int doc = 0; doc < current.documents.size(); doc++) {
+                IndexedDocument document = current.documents.get(doc);
+                if (document == null || (scores != null && scores[doc] <= 0) || !accepts(document, query, cityKey)) {
+                    continue;
+                }
+
+                float score = scores == null ? 0 : scores[doc];
+                if (queryKey != null && document.titleKey().startsWith(queryKey)) {
+                    score += TITLE_PREFIX_BONUS;
+                }
+
+                total++;
+                facets.add(document);
+                top.add(new Candidate(document, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<SearchHitDTO> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                hits.add(toHit(top.poll()));
+            }
+            Collections.reverse(hits);
+
+            return new SearchResponseDTO(total, (System.nanoTime() - start) / 1_000, hits, facets.toDTO());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean accepts(IndexedDocument document, SearchQuery query, String cityKey) {
+        if (!query.types().isEmpty() && !query.types().contains(document.type())) {
+            return false;
+        }
+        if (query.specialtyId() != null && !document.specialties().containsKey(query.specialtyId())
+                && !(CatalogDocumentEvent.SPECIALTY.equals(document.type()) && document.id().equals(query.specialtyId()))) {
+            return false;
+        }
+        if (query.packageTypeId() != null && !query.packageTypeId().equals(document.packageTypeId())) {
+            return false;
+        }
+        if (cityKey != null && !document.cityKeys().contains(cityKey)) {
+            return false;
+        }
+        if (query.minPrice() != null || query.maxPrice() != null) {
+            Long price = document.price();
+            if (price == null
+                    || (query.minPrice() != null && price < query.minPrice())
+                    || (query.maxPrice() != null && price > query.maxPrice())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String cityKey(String city) {
+        String canonical = CityNames.fromAddress(city);
+        return SearchText.normalize(canonical != null ? canonical : city);
+    }
+
+    private static SearchHitDTO toHit(Candidate candidate) {
+        IndexedDocument document = candidate.document();
+        return new SearchHitDTO(
+                document.type(),
+                document.id(),
+                document.title(),
+                document.subtitle(),
+                document.slug(),
+                document.image(),
+                document.cities(),
+                document.specialties().values().stream().filter(Objects::nonNull).toList(),
+                document.packageTypeName(),
+                document.price(),
+                candidate.score());
+    }
+
+    private record Candidate(IndexedDocument document, float score) {
+    }
+
+    record IndexedDocument(
+            String key,
+            String type,
+            String id,
+            String title,
+            String titleKey,
+            String subtitle,
+            String slug,
+            String image,
+            List<String> keywords,
+            List<String> cities,
+            Set<String> cityKeys,
+            // specialty id -> tên (null khi chưa có document SPECIALTY)
+            Map<String, String> specialties,
+            String packageTypeId,
+            String packageTypeName,
+            Long price
+    ) {
+    }
+
+    /**
+     * Dữ liệu của 1 phiên bản index. Không thread-safe, CatalogIndex giữ lock.
+     */
+    private static final class State {
+        // document key -> source -> phần document
+        private final Map<String, Map<String, CatalogDocumentEvent>> parts = new HashMap<>();
+        // specialty id -> key các document tham chiếu chuyên khoa đó
+        private final Map<String, Set<String>> referencesBySpecialty = new HashMap<>();
+        private final Map<String, Integer> docIdByKey = new HashMap<>();
+        private final List<IndexedDocument> documents = new ArrayList<>();
+        private final TermDictionary dictionary = new TermDictionary();
+        private int liveDocs;
+
+        void apply(CatalogDocumentEvent event) {
+            String key = event.documentKey();
+            Map<String, CatalogDocumentEvent> documentParts = parts.computeIfAbsent(key, ignored -> new HashMap<>());
+            CatalogDocumentEvent existing = documentParts.get(event.source());
+            if (existing != null && existing.changedAt() != null && event.changedAt() != null
+                    && event.changedAt().isBefore(existing.changedAt())) {
+                // Message cũ đến sau (replay / retry), giữ bản mới hơn
+                return;
+            }
+
+            if (event.deleted()) {
+                documentParts.remove(event.source());
+            } else {
+                documentParts.put(event.source(), event);
+            }
+            if (documentParts.isEmpty()) {
+                parts.remove(key);
+            }
+
+            reindex(key);
+            if (CatalogDocumentEvent.SPECIALTY.equals(event.type())) {
+                for (String reference : List.copyOf(referencesBySpecialty.getOrDefault(event.id(), Set.of()))) {
+                    reindex(reference);
+                }
+            }
+        }
+
+        private void reindex(String key) {
+            Integer previous = docIdByKey.remove(key);
+            if (previous != null) {
+                IndexedDocument old = documents.set(previous, null);
+                liveDocs--;
+                for (String specialtyId : old.specialties().keySet()) {
+                    Set<String> references = referencesBySpecialty.get(specialtyId);
+                    if (references != null) {
+                        references.remove(key);
+                    }
+                }
+            }
+
+            IndexedDocument document = merge(key, parts.get(key));
+            if (document != null) {
+                add(document);
+            }
+        }
+
+        private void add(IndexedDocument document) {
+            int doc = documents.size();
+            documents.add(document);
+            docIdByKey.put(document.key(), doc);
+            liveDocs++;
+            for (String specialtyId : document.specialties().keySet()) {
+                referencesBySpecialty.computeIfAbsent(specialtyId, ignored -> new HashSet<>()).add(document.key());
+            }
+
+            List<String> titleTokens = SearchText.tokens(document.title());
+            index(doc, titleTokens, TITLE_BOOST);
+            for (int i = 0; i + 1 < titleTokens.size(); i++) {
+                dictionary.add(titleTokens.get(i) + titleTokens.get(i + 1), doc, TITLE_PAIR_BOOST);
+            }
+
+            index(doc, SearchText.tokens(document.subtitle()), KEYWORD_BOOST);
+            for (String keyword : document.keywords()) {
+                index(doc, SearchText.tokens(keyword), KEYWORD_BOOST);
+            }
+            for (String specialty : document.specialties().values()) {
+                index(doc, SearchText.tokens(specialty), KEYWORD_BOOST);
+            }
+            index(doc, SearchText.tokens(document.packageTypeName()), KEYWORD_BOOST);
+
+            for (String city : document.cities()) {
+                index(doc, SearchText.tokens(city), CONTEXT_BOOST);
+                for (String alias : CityNames.aliases(city)) {
+                    index(doc, SearchText.tokens(alias), CONTEXT_BOOST);
+                }
+            }
+            index(doc, SearchText.tokens(TYPE_TERMS.get(document.type())), CONTEXT_BOOST);
+        }
+
+        private void index(int doc, List<String> tokens, float boost) {
+            for (String token : tokens) {
+                dictionary.add(token, doc, boost);
+            }
+        }
+
+        private IndexedDocument merge(String key, Map<String, CatalogDocumentEvent> documentParts) {
+            if (documentParts == null) {
+                return null;
+            }
+            CatalogDocumentEvent primary = null;
+            for (CatalogDocumentEvent part : documentParts.values()) {
+                if (part.title() != null) {
+                    primary = part;
+                    break;
+                }
+            }
+            if (primary == null) {
+                return null;
+            }
+
+            Set<String> keywords = new LinkedHashSet<>();
+            Set<String> cities = new LinkedHashSet<>();
+            Set<String> specialtyIds = new LinkedHashSet<>();
+            Long price = null;
+            for (CatalogDocumentEvent part : documentParts.values()) {
+                addAll(keywords, part.keywords());
+                addAll(cities, part.cities());
+                addAll(specialtyIds, part.specialtyIds());
+                if (part.price() != null && (price == null || part.price() < price)) {
+                    price = part.price();
+                }
+            }
+
+            Set<String> cityKeys = new HashSet<>();
+            for (String city : cities) {
+                String cityKey = SearchText.normalize(city);
+                if (cityKey != null) {
+                    cityKeys.add(cityKey);
+                }
+            }
+
+            Map<String, String> specialties = new LinkedHashMap<>();
+            for (String specialtyId : specialtyIds) {
+                Integer specialtyDoc = docIdByKey.get(CatalogDocumentEvent.SPECIALTY + ":" + specialtyId);
+                specialties.put(specialtyId, specialtyDoc == null ? null : documents.get(specialtyDoc).title());
+            }
+
+            String titleKey = SearchText.normalize(primary.title());
+            return new IndexedDocument(
+                    key,
+                    primary.type(),
+                    primary.id(),
+                    primary.title(),
+                    titleKey == null ? "" : titleKey,
+                    primary.subtitle(),
+                    primary.slug(),
+                    primary.image(),
+                    List.copyOf(keywords),
+                    List.copyOf(cities),
+                    Set.copyOf(cityKeys),
+                    Collections.unmodifiableMap(specialties),
+                    primary.packageTypeId(),
+                    primary.packageTypeName(),
+                    price);
+        }
+
+        private static void addAll(Set<String> target, List<String> values) {
+            if (values == null) {
+                return;
+            }
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    target.add(value);
+                }
+            }
+        }
+
+        /**
+         * State mới chỉ gồm doc sống khi doc chết chiếm quá nửa, ngược lại trả về chính nó.
+         */
+        State compacted() {
+            int deadDocs = documents.size() - liveDocs;
+            if (deadDocs < MIN_DEAD_DOCS_TO_COMPACT || deadDocs <= liveDocs) {
+                return this;
+            }
+
+            State compacted = new State();
+            compacted.parts.putAll(parts);
+            // Chuyên khoa trước để bác sĩ / gói khám lấy được tên chuyên khoa
+            documents.stream()
+                    .filter(document -> document != null && CatalogDocumentEvent.SPECIALTY.equals(document.type()))
+                    .forEach(compacted::add);
+            documents.stream()
+                    .filter(document -> document != null && !CatalogDocumentEvent.SPECIALTY.equals(document.type()))
+                    .forEach(compacted::add);
+            return compacted;
+        }
+
+        /**
+         * Điểm từng doc cho query đã chuẩn hoá; 0 = không khớp đủ mọi từ.
+         */
+        float[] score(String queryKey, boolean expandLastToken) {
+            String[] tokens = queryKey.split(" ");
+            int size = documents.size();
+            float[] scores = new float[size];
+            int[] matchedTokens = new int[size];
+            float[] tokenScores = new float[size];
+            int[] touched = new int[size];
+
+            for (int i = 0; i < tokens.length; i++) {
+                int touchedCount = 0;
+                for (Map.Entry<String, Float> candidate
+                        : candidates(tokens[i], expandLastToken && i == tokens.length - 1).entrySet()) {
+                    Postings postings = dictionary.get(candidate.getKey());
+                    for (int position = 0; position < postings.size(); position++) {
+                        int doc = postings.doc(position);
+                        if (matchedTokens[doc] != i) {
+                            continue;
+                        }
+                        float score = candidate.getValue() * postings.boost(position);
+                        if (tokenScores[doc] == 0) {
+                            touched[touchedCount++] = doc;
+                        }
+                        tokenScores[doc] = Math.max(tokenScores[doc], score);
+                    }
+                }
+
+                for (int t = 0; t < touchedCount; t++) {
+                    int doc = touched[t];
+                    scores[doc] += tokenScores[doc];
+                    matchedTokens[doc]++;
+                    tokenScores[doc] = 0;
+                }
+            }
+
+            for (int doc = 0; doc < size; doc++) {
+                if (matchedTokens[doc] != tokens.length) {
+                    scores[doc] = 0;
+                }
+            }
+            return scores;
+        }
+
+        /**
+         * term -> trọng số: chính nó, các term nhận nó làm prefix (từ cuối), hoặc term gần đúng khi nó
+         * không có trong index.
+         */
+        private Map<String, Float> candidates(String token, boolean expandPrefix) {
+            Map<String, Float> candidates = new LinkedHashMap<>();
+            if (dictionary.get(token) != null) {
+                candidates.put(token, EXACT_WEIGHT);
+            }
+            if (expandPrefix) {
+                for (String term : dictionary.withPrefix(token, MAX_PREFIX_EXPANSIONS)) {
+                    candidates.put(term, PREFIX_WEIGHT * (0.5f + 0.5f * token.length() / term.length()));
+                }
+            }
+            if (candidates.isEmpty()) {
+                for (FuzzyTerm fuzzy : dictionary.fuzzy(token, maxEdits(token))) {
+                    candidates.put(fuzzy.term(), FUZZY_WEIGHT / fuzzy.distance());
+                }
+            }
+            return candidates;
+        }
+
+        private static int maxEdits(String token) {
+            if (token.length() < 3 || token.chars().allMatch(Character::isDigit)) {
+                return 0;
+            }
+            return token.length() < 8 ? 1 : 2;
+        }
+    }
+
+    /**
+     * Đếm số document khớp theo từng giá trị facet.
+     */
+    private static final class Facets {
+        private final Map<String, Map<String, FacetCounter>> counters = new LinkedHashMap<>();
+
+        Facets() {
+            for (String facet : List.of("type", "specialty", "packageType", "city", "price")) {
+                counters.put(facet, new HashMap<>());
+            }
+        }
+
+        void add(IndexedDocument document) {
+            count("type", document.type(), document.type());
+            document.specialties().forEach((specialtyId, name) -> count("specialty", specialtyId, name));
+            if (document.packageTypeId() != null) {
+                count("packageType", document.packageTypeId(), document.packageTypeName());
+            }
+            for (String city : document.cities()) {
+                count("city", city, city);
+            }
+            if (document.price() != null) {
+                String bucket = priceBucket(document.price());
+                count("price", bucket, bucket);
+            }
+        }
+
+        private void count(String facet, String value, String label) {
+            counters.get(facet).computeIfAbsent(value, ignored -> new FacetCounter(label)).count++;
+        }
+
+        Map<String, List<FacetCountDTO>> toDTO() {
+            Map<String, List<FacetCountDTO>> result = new LinkedHashMap<>();
+            counters.forEach((facet, values) -> result.put(facet, values.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<String, FacetCounter>>comparingInt(entry -> entry.getValue().count)
+                            .reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(MAX_FACET_VALUES)
+                    .map(entry -> new FacetCountDTO(entry.getKey(), entry.getValue().label, entry.getValue().count))
+                    .toList()));
+            return result;
+        }
+
+        private static String priceBucket(long price) {
+            for (int i = PRICE_BOUNDS.length - 1; i >= 0; i--) {
+                if (price >= PRICE_BOUNDS[i]) {
+                    return i == PRICE_BOUNDS.length - 1
+                            ? PRICE_BOUNDS[i] + "-"
+                            : PRICE_BOUNDS[i] + "-" + (PRICE_BOUNDS[i + 1] - 1);
+                }
+            }
+            return "0-" + (PRICE_BOUNDS[1] - 1);
+        }
+
+        private static final class FacetCounter {
+            private final String label;
+            private int count;
+
+            FacetCounter(String label) {
+                this.label = label;
+            }
+        }
+    }
+}
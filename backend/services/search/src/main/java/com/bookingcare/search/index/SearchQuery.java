@@ -0,0 +1,29 @@
+package com.bookingcare.search.index;
+
+import java.util.Set;
+
+/**
+ * Query tìm catalog. text rỗng = lọc thuần theo facet; các filter null = không lọc.
+ *
+ * @param types    CLINIC / DOCTOR / SPECIALTY / PACKAGE, rỗng = mọi loại
+ * @param city     tên hoặc cách viết bất kỳ của thành phố ("TP.HCM", "ho chi minh")
+ * @param minPrice giá gói tối thiểu (VND); có minPrice / maxPrice thì chỉ trả document có giá
+ */
+public record SearchQuery(
+        String text,
+        Set<String> types,
+        String specialtyId,
+        String packageTypeId,
+        String city,
+        Long minPrice,
+        Long maxPrice,
+        int limit
+) {
+    public SearchQuery {
+        types = types == null ? Set.of() : Set.copyOf(types);
+    }
+
+    public static SearchQuery text(String text, int limit) {
+        return new SearchQuery(text, Set.of(), null, null, null, null, null, limit);
+    }
+}
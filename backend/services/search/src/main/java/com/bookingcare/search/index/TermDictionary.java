@@ -0,0 +1,178 @@
+package com.bookingcare.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Từ điển term -> postings của CatalogIndex.
+ *
+ * - TreeMap để lấy các term theo prefix (autocomplete từ cuối của query).
+ * - Bigram (có đánh dấu đầu / cuối: "^s", "so", "oi", "i$") -> term để tìm term gần đúng: 1 lỗi gõ
+ *   làm mất tối đa 3 bigram (đổi chỗ 2 ký tự), nên chỉ tính edit distance với term chung đủ bigram
+ *   thay vì cả từ điển.
+ *
+ * Không thread-safe, CatalogIndex giữ lock.
+ */
+final class TermDictionary {
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, List<String>> termsByBigram = new HashMap<>();
+
+    void add(String term, int doc, float boost) {
+        Postings postings = terms.get(term);
+        if (postings == null) {
+            postings = new Postings();
+            terms.put(term, postings);
+            for (String bigram : bigrams(term)) {
+                termsByBigram.computeIfAbsent(bigram, ignored -> new ArrayList<>()).add(term);
+            }
+        }
+        postings.add(doc, boost);
+    }
+
+    Postings get(String term) {
+        return terms.get(term);
+    }
+
+    int size() {
+        return terms.size();
+    }
+
+    /**
+     * Tối đa max term bắt đầu bằng prefix (không gồm chính prefix), theo thứ tự từ điển.
+     */
+    List<String> withPrefix(String prefix, int max) {
+        SortedMap<String, Postings> range = terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false);
+        List<String> result = new ArrayList<>(Math.min(max, range.size()));
+        for (String term : range.keySet()) {
+            if (result.size() == max) {
+                break;
+            }
+            result.add(term);
+        }
+        return result;
+    }
+
+    /**
+     * Các term khác term cách tối đa maxEdits phép sửa (thêm / xoá / thay / đổi chỗ 2 ký tự liền nhau).
+     */
+    List<FuzzyTerm> fuzzy(String term, int maxEdits) {
+        if (maxEdits <= 0) {
+            return List.of();
+        }
+
+        Set<String> grams = bigrams(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            for (String candidate : termsByBigram.getOrDefault(gram, List.of())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        int minShared = Math.max(1, grams.size() - 3 * maxEdits);
+        List<FuzzyTerm> result = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            if (entry.getValue() < minShared || candidate.equals(term)) {
+                continue;
+            }
+            int distance = distance(term, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                result.add(new FuzzyTerm(candidate, distance));
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> bigrams(String term) {
+        String padded = "^" + term + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * Optimal string alignment distance, dừng sớm khi chắc chắn > max (trả về max + 1).
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    record FuzzyTerm(String term, int distance) {
+    }
+
+    /**
+     * Doc id tăng dần; boost là boost cao nhất của term trong doc (title > keyword > thành phố).
+     */
+    static final class Postings {
+        private int[] docs = new int[4];
+        private float[] boosts = new float[4];
+        private int size;
+
+        void add(int doc, float boost) {
+            if (size > 0 && docs[size - 1] == doc) {
+                boosts[size - 1] = Math.max(boosts[size - 1], boost);
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                boosts = Arrays.copyOf(boosts, size * 2);
+            }
+            docs[size] = doc;
+            boosts[size] = boost;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int doc(int position) {
+            return docs[position];
+        }
+
+        float boost(int position) {
+            return boosts[position];
+        }
+    }
+}
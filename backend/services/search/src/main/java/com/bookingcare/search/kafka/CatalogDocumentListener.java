@@ -0,0 +1,50 @@
+package com.bookingcare.search.kafka;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.search.index.CatalogIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhận document catalog từ clinic / expertise / package-service (topic application.catalog-documents.topic).
+ *
+ * Mỗi replica dùng 1 group id riêng và đọc topic compact từ đầu, nên replica nào cũng dựng đủ index.
+ * Listener chỉ chạy sau khi SearchIndexBootstrap nạp seed xong, để message thật đè lên seed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogDocumentListener {
+    public static final String LISTENER_ID = "catalog-documents";
+
+    private final CatalogIndex catalogIndex;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
+            autoStartup = "false",
+            topics = "${application.catalog-documents.topic:catalog-documents}",
+            groupId = "search-index-${random.uuid}",
+            properties = "auto.offset.reset=earliest")
+    public void onDocument(String message) {
+        if (message == null) {
+            return;
+        }
+        try {
+            CatalogDocumentEvent event = objectMapper.readValue(message, CatalogDocumentEvent.class);
+            if (event.type() == null || event.id() == null || event.source() == null) {
+                log.warn("Ignoring catalog document without type / id / source: {}", message);
+                return;
+            }
+            catalogIndex.apply(event);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed catalog document message: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.bookingcare.search.seed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.common.messaging.catalog.CityNames;
+
+/**
+ * Dựng các CatalogDocumentEvent từ file seed backend/data/*.sql, giống hệt những gì các service sẽ publish
+ * cho cùng dữ liệu: CLINIC (clinic-service), DOCTOR / SPECIALTY (expertise-service), PACKAGE (package-service),
+ * cities của gói / bác sĩ theo chi nhánh (clinic-service) và giá gói thấp nhất (booking-service).
+ *
+ * changedAt = EPOCH để message thật trên Kafka luôn đè lên dữ liệu seed.
+ */
+public final class SeedCatalogLoader {
+    public static final String CLINIC_SOURCE = "clinic-service";
+    public static final String EXPERTISE_SOURCE = "expertise-service";
+    public static final String PACKAGE_SOURCE = "package-service";
+    public static final String BOOKING_SOURCE = "booking-service";
+
+    // Bảng mà file seed INSERT không ghi danh sách cột (thứ tự cột theo migration V1 của package-service)
+    static final Map<String, List<String>> DEFAULT_COLUMNS = Map.of(
+            "package_type", List.of("id", "name", "image", "slug", "is_deleted"),
+            "health_check_package_specialty", List.of("package_id", "specialty_id"));
+
+    // Seed clinics / specialties còn dùng trạng thái cũ PUBLISHED / ACTIVE
+    private static final Set<String> VISIBLE_STATUSES = Set.of("APPROVED", "PUBLISHED", "ACTIVE");
+
+    private SeedCatalogLoader() {
+    }
+
+    public static List<CatalogDocumentEvent> load(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> path.getFileName().toString().endsWith(".sql")).sorted().toList();
+        }
+        return fromTables(SqlSeedReader.read(files, DEFAULT_COLUMNS));
+    }
+
+    public static List<CatalogDocumentEvent> fromTables(Map<String, List<Map<String, String>>> tables) {
+        List<CatalogDocumentEvent> events = new ArrayList<>();
+
+        for (Map<String, String> specialty : rows(tables, "specialties")) {
+            if (visible(specialty)) {
+                events.add(event(CatalogDocumentEvent.SPECIALTY, specialty.get("id"), EXPERTISE_SOURCE,
+                        specialty.get("name"), null, specialty.get("slug"), specialty.get("image"),
+                        List.of(), List.of(), List.of(), null, null, null));
+            }
+        }
+
+        Map<String, Set<String>> specialtiesByDoctor = group(rows(tables, "doctors_specialties"), "doctor_id", "specialty_id");
+        for (Map<String, String> doctor : rows(tables, "doctors")) {
+            if (isTrue(doctor.get("is_deleted"))) {
+                continue;
+            }
+            events.add(event(CatalogDocumentEvent.DOCTOR, doctor.get("id"), EXPERTISE_SOURCE,
+                    doctorTitle(doctor.get("doctor_detail_infor"), doctor.get("slug")), doctor.get("short_doctor_infor"),
+                    doctor.get("slug"), null, List.of(), List.of(),
+                    List.copyOf(specialtiesByDoctor.getOrDefault(doctor.get("id"), Set.of())), null, null, null));
+        }
+
+        Map<String, String> packageTypeNames = new HashMap<>();
+        for (Map<String, String> packageType : rows(tables, "package_type")) {
+            packageTypeNames.put(packageType.get("id"), packageType.get("name"));
+        }
+        Map<String, Set<String>> specialtiesByPackage =
+                group(rows(tables, "health_check_package_specialty"), "package_id", "specialty_id");
+        for (Map<String, String> healthCheckPackage : rows(tables, "health_check_package")) {
+            if (!visible(healthCheckPackage)) {
+                continue;
+            }
+            String packageTypeId = healthCheckPackage.get("package_type_id");
+            events.add(event(CatalogDocumentEvent.PACKAGE, healthCheckPackage.get("id"), PACKAGE_SOURCE,
+                    healthCheckPackage.get("name"), healthCheckPackage.get("short_package_info"),
+                    healthCheckPackage.get("slug"), healthCheckPackage.get("image"), List.of(), List.of(),
+                    List.copyOf(specialtiesByPackage.getOrDefault(healthCheckPackage.get("id"), Set.of())),
+                    packageTypeId, packageTypeNames.get(packageTypeId), null));
+        }
+
+        Set<String> visibleClinics = new HashSet<>();
+        for (Map<String, String> clinic : rows(tables, "clinics")) {
+            if (visible(clinic)) {
+                visibleClinics.add(clinic.get("id"));
+            }
+        }
+        Map<String, String> branchCities = new HashMap<>();
+        Map<String, Set<String>> citiesByClinic = new HashMap<>();
+        for (Map<String, String> branch : rows(tables, "clinic_branches")) {
+            if (isTrue(branch.get("is_deleted")) || !visibleClinics.contains(branch.get("clinic_id"))) {
+                continue;
+            }
+            String city = CityNames.fromAddress(branch.get("clinic_branch_address"));
+            if (city != null) {
+                branchCities.put(branch.get("id"), city);
+                citiesByClinic.computeIfAbsent(branch.get("clinic_id"), ignored -> new LinkedHashSet<>()).add(city);
+            }
+        }
+        for (Map<String, String> clinic : rows(tables, "clinics")) {
+            if (!visibleClinics.contains(clinic.get("id"))) {
+                continue;
+            }
+            Set<String> cities = new LinkedHashSet<>();
+            String city = CityNames.fromAddress(clinic.get("address"));
+            if (city != null) {
+                cities.add(city);
+            }
+            cities.addAll(citiesByClinic.getOrDefault(clinic.get("id"), Set.of()));
+            events.add(event(CatalogDocumentEvent.CLINIC, clinic.get("id"), CLINIC_SOURCE,
+                    clinic.get("name"), clinic.get("fullname"), clinic.get("slug"), clinic.get("image"),
+                    clinic.get("address") == null ? List.of() : List.of(clinic.get("address")),
+                    List.copyOf(cities), List.of(), null, null, null));
+        }
+
+        addBranchCities(events, CatalogDocumentEvent.PACKAGE,
+                rows(tables, "clinic_branch_healthcheck_packages"), "healthcheck_package_id", branchCities);
+        addBranchCities(events, CatalogDocumentEvent.DOCTOR,
+                rows(tables, "clinic_branch_doctors"), "doctor_id", branchCities);
+
+        Map<String, Long> lowestPrices = new HashMap<>();
+        for (Map<String, String> detail : rows(tables, "booking_packages_details")) {
+            String price = detail.get("price");
+            if (price != null && detail.get("package_id") != null) {
+                lowestPrices.merge(detail.get("package_id"), (long) Double.parseDouble(price), Math::min);
+            }
+        }
+        lowestPrices.forEach((packageId, price) -> events.add(event(CatalogDocumentEvent.PACKAGE, packageId,
+                BOOKING_SOURCE, null, null, null, null, List.of(), List.of(), List.of(), null, null, price)));
+
+        return events;
+    }
+
+    /**
+     * Dòng đầu của phần giới thiệu bác sĩ ("**PGs.Ts.Bs. Lê Mạnh Cường - Phẫu thuật...**") bỏ markdown,
+     * lấy phần trước " - ". Cùng cách expertise-service đặt title cho document bác sĩ.
+     */
+    public static String doctorTitle(String detail, String fallback) {
+        if (detail != null) {
+            for (String line : detail.split("\\\\n|\\n")) {
+                String title = line.replaceAll("[*#_`]", "").trim();
+                if (!title.isEmpty() && !title.chars().allMatch(c -> c == '-' || c == '=')) {
+                    int dash = title.indexOf(" - ");
+                    return dash > 0 ? title.substring(0, dash).trim() : title;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private static void addBranchCities(List<CatalogDocumentEvent> events, String type, List<Map<String, String>> links,
+                                        String idColumn, Map<String, String> branchCities) {
+        Map<String, Set<String>> citiesById = new HashMap<>();
+        for (Map<String, String> link : links) {
+            String city = branchCities.get(link.get("clinic_branch_id"));
+            if (!isTrue(link.get("is_deleted")) && city != null) {
+                citiesById.computeIfAbsent(link.get(idColumn), ignored -> new LinkedHashSet<>()).add(city);
+            }
+        }
+        citiesById.forEach((id, cities) -> events.add(event(type, id, CLINIC_SOURCE,
+                null, null, null, null, List.of(), List.copyOf(cities), List.of(), null, null, null)));
+    }
+
+    private static CatalogDocumentEvent event(String type, String id, String source, String title, String subtitle,
+                                              String slug, String image, List<String> keywords, List<String> cities,
+                                              List<String> specialtyIds, String packageTypeId, String packageTypeName,
+                                              Long price) {
+        return new CatalogDocumentEvent(type, id, source, false, title, subtitle, slug, image, keywords, cities,
+                specialtyIds, packageTypeId, packageTypeName, price, Instant.EPOCH);
+    }
+
+    private static List<Map<String, String>> rows(Map<String, List<Map<String, String>>> tables, String table) {
+        return tables.getOrDefault(table, List.of());
+    }
+
+    private static Map<String, Set<String>> group(List<Map<String, String>> rows, String keyColumn, String valueColumn) {
+        Map<String, Set<String>> grouped = new HashMap<>();
+        for (Map<String, String> row : rows) {
+            if (row.get(keyColumn) != null && row.get(valueColumn) != null) {
+                grouped.computeIfAbsent(row.get(keyColumn), ignored -> new LinkedHashSet<>()).add(row.get(valueColumn));
+            }
+        }
+        return grouped;
+    }
+
+    private static boolean visible(Map<String, String> row) {
+        return !isTrue(row.get("is_deleted")) && row.get("status") != null && VISIBLE_STATUSES.contains(row.get("status"));
+    }
+
+    private static boolean isTrue(String value) {
+        return "TRUE".equalsIgnoreCase(value) || "t".equalsIgnoreCase(value);
+    }
+}
@@ -0,0 +1,217 @@
+package com.bookingcare.search.seed;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Đọc các câu "INSERT INTO table [(columns)] VALUES (...), (...);" của file seed backend/data/*.sql.
+ *
+ * Chỉ hiểu đủ cú pháp của file seed: chuỗi '...' (escape ''), comment "--", giá trị không quote
+ * (NULL, TRUE, số, NOW()). Giá trị trả về là text gốc, NULL thành null. Các câu lệnh khác bị bỏ qua.
+ */
+public final class SqlSeedReader {
+
+    private SqlSeedReader() {
+    }
+
+    /**
+     * @param defaultColumns cột của các bảng mà file seed INSERT không ghi danh sách cột
+     * @return tên bảng (bỏ schema) -> các dòng, mỗi dòng là cột -> giá trị
+     */
+    public static Map<String, List<Map<String, String>>> read(List<Path> files, Map<String, List<String>> defaultColumns)
+            throws IOException {
+        Map<String, List<Map<String, String>>> tables = new HashMap<>();
+        for (Path file : files) {
+            new Parser(Files.readString(file, StandardCharsets.UTF_8), defaultColumns, tables).parse();
+        }
+        return tables;
+    }
+
+    private static final class Parser {
+        private final String sql;
+        private final Map<String, List<String>> defaultColumns;
+        private final Map<String, List<Map<String, String>>> tables;
+        private int position;
+
+        Parser(String sql, Map<String, List<String>> defaultColumns, Map<String, List<Map<String, String>>> tables) {
+            this.sql = sql;
+            this.defaultColumns = defaultColumns;
+            this.tables = tables;
+        }
+
+        void parse() {
+            while (true) {
+                int insert = indexOfKeyword("INSERT INTO", position);
+                if (insert < 0) {
+                    return;
+                }
+                position = insert + "INSERT INTO".length();
+                skipWhitespace();
+
+                String table = readIdentifier();
+                int dot = table.lastIndexOf('.');
+                table = (dot >= 0 ? table.substring(dot + 1) : table).replace("\"", "").toLowerCase(Locale.ROOT);
+                skipWhitespace();
+
+                List<String> columns = null;
+                if (peek() == '(') {
+                    columns = readTuple().stream().map(column -> column.toLowerCase(Locale.ROOT)).toList();
+                    skipWhitespace();
+                }
+                if (columns == null) {
+                    columns = defaultColumns.get(table);
+                }
+
+                int values = indexOfKeyword("VALUES", position);
+                if (values < 0) {
+                    return;
+                }
+                position = values + "VALUES".length();
+
+                List<Map<String, String>> rows = tables.computeIfAbsent(table, ignored -> new ArrayList<>());
+                while (true) {
+                    skipWhitespace();
+                    if (peek() != '(') {
+                        break;
+                    }
+                    List<String> tuple = readTuple();
+                    if (columns != null) {
+                        Map<String, String> row = new HashMap<>();
+                        for (int i = 0; i < Math.min(columns.size(), tuple.size()); i++) {
+                            row.put(columns.get(i), tuple.get(i));
+                        }
+                        rows.add(row);
+                    }
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Đọc "(a, 'b', NOW())" -> [a, b, NOW()]; đặt position sau dấu ")".
+         */
+        private List<String> readTuple() {
+            List<String> values = new ArrayList<>();
+            position++;
+            while (position < sql.length()) {
+                skipWhitespace();
+                char c = peek();
+                if (c == '\'') {
+                    values.add(readString());
+                } else {
+                    String raw = readRaw();
+                    values.add("NULL".equalsIgnoreCase(raw) ? null : raw);
+                }
+
+                skipWhitespace();
+                char next = peek();
+                position++;
+                if (next == ')') {
+                    break;
+                }
+            }
+            return values;
+        }
+
+        private String readString() {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < sql.length()) {
+                char c = sql.charAt(position++);
+                if (c == '\'') {
+                    if (position < sql.length() && sql.charAt(position) == '\'') {
+                        value.append('\'');
+                        position++;
+                        continue;
+                    }
+                    break;
+                }
+                value.append(c);
+            }
+            return value.toString();
+        }
+
+        // Giá trị không quote, có thể chứa ngoặc (NOW(), gen_random_uuid())
+        private String readRaw() {
+            int start = position;
+            int depth = 0;
+            while (position < sql.length()) {
+                char c = sql.charAt(position);
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    if (depth == 0) {
+                        break;
+                    }
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    break;
+                }
+                position++;
+            }
+            return sql.substring(start, position).trim();
+        }
+
+        private String readIdentifier() {
+            int start = position;
+            while (position < sql.length()
+                    && (Character.isLetterOrDigit(sql.charAt(position)) || "_.\"".indexOf(sql.charAt(position)) >= 0)) {
+                position++;
+            }
+            return sql.substring(start, position);
+        }
+
+        private void skipWhitespace() {
+            while (position < sql.length()) {
+                char c = sql.charAt(position);
+                if (Character.isWhitespace(c)) {
+                    position++;
+                } else if (c == '-' && position + 1 < sql.length() && sql.charAt(position + 1) == '-') {
+                    int end = sql.indexOf('\n', position);
+                    position = end < 0 ? sql.length() : end + 1;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private char peek() {
+            return position < sql.length() ? sql.charAt(position) : 0;
+        }
+
+        // Tìm keyword ngoài chuỗi / comment
+        private int indexOfKeyword(String keyword, int from) {
+            int i = from;
+            while (i < sql.length()) {
+                char c = sql.charAt(i);
+                if (c == '\'') {
+                    i = sql.indexOf('\'', i + 1);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    i++;
+                } else if (c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-') {
+                    int end = sql.indexOf('\n', i);
+                    i = end < 0 ? sql.length() : end + 1;
+                } else if (sql.regionMatches(true, i, keyword, 0, keyword.length())) {
+                    return i;
+                } else {
+                    i++;
+                }
+            }
+            return -1;
+        }
+    }
+}
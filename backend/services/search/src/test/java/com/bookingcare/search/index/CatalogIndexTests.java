@@ -0,0 +1,149 @@
+package com.bookingcare.search.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.search.dto.FacetCountDTO;
+import com.bookingcare.search.dto.SearchHitDTO;
+import com.bookingcare.search.dto.SearchResponseDTO;
+
+/**
+ * CatalogIndex: không dấu, lỗi gõ, prefix, facet, gộp phần document theo source.
+ */
+class CatalogIndexTests {
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private CatalogIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogIndex();
+        index.replaceAll(List.of(
+                specialty("SP_TIEUHOA", "Tiêu hoá"),
+                specialty("SP_TIM", "Tim mạch"),
+                packageDocument("PKG1", "Nội soi dạ dày không đau", "SP_TIEUHOA"),
+                packageDocument("PKG2", "Gói khám tim mạch cơ bản", "SP_TIM"),
+                contribution(CatalogDocumentEvent.PACKAGE, "PKG1", "clinic-service", List.of("Hà Nội"), null),
+                contribution(CatalogDocumentEvent.PACKAGE, "PKG2", "clinic-service", List.of("Hồ Chí Minh"), null),
+                contribution(CatalogDocumentEvent.PACKAGE, "PKG1", "booking-service", null, 1_540_000L),
+                contribution(CatalogDocumentEvent.PACKAGE, "PKG2", "booking-service", null, 450_000L),
+                clinic("CLN1", "Bệnh viện Đa khoa Gia Định", "Hồ Chí Minh"),
+                clinic("CLN2", "Phòng khám Đa khoa Hà Nội", "Hà Nội"),
+                // Chỉ có phần bổ sung, không có phần chính -> không tìm được
+                contribution(CatalogDocumentEvent.PACKAGE, "ORPHAN", "clinic-service", List.of("Hà Nội"), null)));
+    }
+
+    @Test
+    void matchesWithoutDiacriticsAndWithTypos() {
+        assertEquals(List.of("PKG1"), ids(index.search(SearchQuery.text("noi soi da day", 10))));
+        assertEquals(List.of("PKG1"), ids(index.search(SearchQuery.text("Nội Soi", 10))));
+        // "xoi" -> "soi", "khong dua" -> "khong dau"
+        assertEquals(List.of("PKG1"), ids(index.search(SearchQuery.text("noi xoi khong dua", 10))));
+        assertEquals(List.of("PKG1"), ids(index.search(SearchQuery.text("noisoi", 10))));
+        assertEquals(List.of("CLN1"), ids(index.search(SearchQuery.text("gia dihn", 10))));
+    }
+
+    @Test
+    void expandsLastTokenAsPrefix() {
+        assertEquals(List.of("PKG2"), ids(index.search(SearchQuery.text("gói khám tim m", 10))));
+        // Mọi phòng khám đều khớp "bệnh viện" (từ khoá theo loại), tên bắt đầu bằng query xếp trước
+        assertEquals(List.of("CLN1", "CLN2"), ids(index.search(SearchQuery.text("benh vi", 10))));
+    }
+
+    @Test
+    void searchesSpecialtyNamesAndCityAliases() {
+        SearchResponseDTO cardiology = index.search(SearchQuery.text("tim mach", 10));
+        assertEquals(Set.of("SP_TIM", "PKG2"), Set.copyOf(ids(cardiology)));
+
+        SearchResponseDTO hcm = index.search(new SearchQuery("da khoa", Set.of(), null, null, "TP.HCM", null, null, 10));
+        assertEquals(List.of("CLN1"), ids(hcm));
+
+        SearchResponseDTO saigon = index.search(SearchQuery.text("da khoa sai gon", 10));
+        assertEquals(List.of("CLN1"), ids(saigon));
+    }
+
+    @Test
+    void filtersAndCountsFacets() {
+        SearchQuery cheapPackages = new SearchQuery(null, Set.of(CatalogDocumentEvent.PACKAGE), null, null, null,
+                null, 1_000_000L, 10);
+        SearchResponseDTO response = index.search(cheapPackages);
+        assertEquals(List.of("PKG2"), ids(response));
+        assertEquals(List.of(new FacetCountDTO("0-499999", "0-499999", 1)), response.facets().get("price"));
+
+        SearchResponseDTO packages = index.search(new SearchQuery(null, Set.of(CatalogDocumentEvent.PACKAGE),
+                null, null, null, null, null, 10));
+        assertEquals(2, packages.total());
+        assertEquals(Set.of("Tiêu hoá", "Tim mạch"),
+                Set.copyOf(packages.facets().get("specialty").stream().map(FacetCountDTO::label).toList()));
+
+        SearchResponseDTO hanoi = index.search(new SearchQuery(null, Set.of(), null, null, "ha noi", null, null, 10));
+        assertEquals(Set.of("PKG1", "CLN2"), Set.copyOf(ids(hanoi)));
+
+        SearchResponseDTO bySpecialty = index.search(new SearchQuery(null, Set.of(), "SP_TIEUHOA", null, null,
+                null, null, 10));
+        assertEquals(Set.of("SP_TIEUHOA", "PKG1"), Set.copyOf(ids(bySpecialty)));
+    }
+
+    @Test
+    void appliesUpdatesDeletesAndIgnoresStaleMessages() {
+        // Đổi tên chuyên khoa -> gói khám tham chiếu được index lại
+        index.apply(new CatalogDocumentEvent(CatalogDocumentEvent.SPECIALTY, "SP_TIM", "expertise-service", false,
+                "Tim mạch - Huyết áp", null, null, null, null, null, null, null, null, null, T0.plusSeconds(10)));
+        assertEquals(Set.of("SP_TIM", "PKG2"), Set.copyOf(ids(index.search(SearchQuery.text("huyet ap", 10)))));
+
+        // Message cũ hơn đến sau -> bỏ qua
+        index.apply(new CatalogDocumentEvent(CatalogDocumentEvent.SPECIALTY, "SP_TIM", "expertise-service", false,
+                "Tim", null, null, null, null, null, null, null, null, null, T0.plusSeconds(5)));
+        assertEquals(Set.of("SP_TIM", "PKG2"), Set.copyOf(ids(index.search(SearchQuery.text("huyet ap", 10)))));
+
+        // Gói bị xoá: phần bổ sung của service khác không giữ gói lại trong kết quả
+        index.apply(new CatalogDocumentEvent(CatalogDocumentEvent.PACKAGE, "PKG1", "package-service", true,
+                null, null, null, null, null, null, null, null, null, null, T0.plusSeconds(10)));
+        assertEquals(List.of(), ids(index.search(SearchQuery.text("noi soi", 10))));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void compactsAfterManyUpdates() {
+        for (int i = 0; i < 5_000; i++) {
+            index.apply(new CatalogDocumentEvent(CatalogDocumentEvent.CLINIC, "CLN1", "clinic-service", false,
+                    "Bệnh viện Đa khoa Gia Định " + (i % 3), null, null, null, null, List.of("Hồ Chí Minh"),
+                    null, null, null, null, T0.plusSeconds(i)));
+        }
+        assertEquals(6, index.size());
+        assertEquals(List.of("CLN1"), ids(index.search(SearchQuery.text("gia dinh", 10))));
+    }
+
+    private static List<String> ids(SearchResponseDTO response) {
+        return response.hits().stream().map(SearchHitDTO::id).toList();
+    }
+
+    private static CatalogDocumentEvent specialty(String id, String name) {
+        return new CatalogDocumentEvent(CatalogDocumentEvent.SPECIALTY, id, "expertise-service", false, name, null,
+                null, null, null, null, null, null, null, null, T0);
+    }
+
+    private static CatalogDocumentEvent packageDocument(String id, String name, String specialtyId) {
+        return new CatalogDocumentEvent(CatalogDocumentEvent.PACKAGE, id, "package-service", false, name, null,
+                null, null, null, null, List.of(specialtyId), "TYPE_PKG", "Gói khám", null, T0);
+    }
+
+    private static CatalogDocumentEvent clinic(String id, String name, String city) {
+        return new CatalogDocumentEvent(CatalogDocumentEvent.CLINIC, id, "clinic-service", false, name, null,
+                null, null, null, List.of(city), null, null, null, null, T0);
+    }
+
+    private static CatalogDocumentEvent contribution(String type, String id, String source, List<String> cities,
+                                                     Long price) {
+        return new CatalogDocumentEvent(type, id, source, false, null, null, null, null, null, cities, null, null,
+                null, price, T0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.bookingcare.search.seed;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.bookingcare.common.messaging.catalog.CatalogDocumentEvent;
+import com.bookingcare.search.dto.SearchResponseDTO;
+import com.bookingcare.search.index.CatalogIndex;
+import com.bookingcare.search.index.SearchQuery;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dựng lại index từ backend/data/*.sql (bỏ qua khi không có thư mục seed):
+ * - Luôn chạy: query có lỗi gõ vẫn ra kết quả, facet giá / thành phố có dữ liệu
+ * - @Tag("benchmark") (mvn test -Pbenchmark): thời gian rebuild và latency query ở volume seed và x20, chỉ ghi log
+ */
+@Slf4j
+class SeedRebuildBenchmarkTests {
+    private static final Path SEED_DIR = Path.of("../../data");
+    private static final int SCALE = 20;
+    private static final int QUERY_ROUNDS = 500;
+
+    private static final List<SearchQuery> QUERIES = List.of(
+            SearchQuery.text("noi soi da day", 10),
+            SearchQuery.text("noi xoi da day", 10),
+            SearchQuery.text("benh vien da khoa", 10),
+            SearchQuery.text("phong kham tai mui h", 10),
+            SearchQuery.text("Bác sĩ tiêu hoá", 10),
+            new SearchQuery("kham", Set.of(CatalogDocumentEvent.PACKAGE), null, null, null, 500_000L, 5_000_000L, 10),
+            new SearchQuery(null, Set.of(CatalogDocumentEvent.DOCTOR), null, null, "Hà Nội", null, null, 10),
+            new SearchQuery(null, Set.of(CatalogDocumentEvent.CLINIC), null, null, "TP.HCM", null, null, 10));
+
+    @Test
+    void rebuildsFromSeedAndAnswersFacetedQueries() throws Exception {
+        assumeTrue(Files.isDirectory(SEED_DIR), "seed directory backend/data not found");
+
+        CatalogIndex index = new CatalogIndex();
+        index.replaceAll(SeedCatalogLoader.load(SEED_DIR));
+
+        SearchResponseDTO typo = index.search(SearchQuery.text("noi xoi da day", 10));
+        assertFalse(typo.hits().isEmpty(), "typo query should still find endoscopy packages");
+        SearchResponseDTO packages = index.search(new SearchQuery(null, Set.of(CatalogDocumentEvent.PACKAGE),
+                null, null, null, null, null, 10));
+        assertFalse(packages.facets().get("price").isEmpty(), "seed prices should feed the price facet");
+        // Seed clinic_branch_healthcheck_packages trỏ tới mã HCPKG..., chỉ bác sĩ có city theo chi nhánh
+        SearchResponseDTO doctors = index.search(new SearchQuery(null, Set.of(CatalogDocumentEvent.DOCTOR),
+                null, null, null, null, null, 10));
+        assertFalse(doctors.facets().get("city").isEmpty(), "branch links should feed the city facet");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void rebuildAndQueryLatency() throws Exception {
+        assumeTrue(Files.isDirectory(SEED_DIR), "seed directory backend/data not found");
+
+        long parseStart = System.nanoTime();
+        List<CatalogDocumentEvent> events = SeedCatalogLoader.load(SEED_DIR);
+        long parseMillis = (System.nanoTime() - parseStart) / 1_000_000;
+
+        List<CatalogDocumentEvent> scaled = scale(events, SCALE);
+        CatalogIndex index = new CatalogIndex();
+
+        for (int i = 0; i < 3; i++) {
+            index.replaceAll(events);
+            index.replaceAll(scaled);
+        }
+        double seedRebuild = medianMillis(() -> index.replaceAll(events), 10);
+        int seedDocuments = index.size();
+        long[] seedLatencies = queryLatencies(index);
+
+        double scaledRebuild = medianMillis(() -> index.replaceAll(scaled), 5);
+        int scaledDocuments = index.size();
+        long[] scaledLatencies = queryLatencies(index);
+
+        log.info("seed parse: {} events in {} ms", events.size(), parseMillis);
+        log.info("rebuild x1:  {} documents in {} ms, query p50 {} us p99 {} us",
+                seedDocuments, Math.round(seedRebuild), percentile(seedLatencies, 0.5), percentile(seedLatencies, 0.99));
+        log.info("rebuild x{}: {} documents in {} ms, query p50 {} us p99 {} us",
+                SCALE, scaledDocuments, Math.round(scaledRebuild), percentile(scaledLatencies, 0.5),
+                percentile(scaledLatencies, 0.99));
+    }
+
+    private static long[] queryLatencies(CatalogIndex index) {
+        // Warm-up JIT
+        for (int i = 0; i < 2_000; i++) {
+            QUERIES.forEach(index::search);
+        }
+        long[] latencies = new long[QUERY_ROUNDS * QUERIES.size()];
+        int position = 0;
+        for (int round = 0; round < QUERY_ROUNDS; round++) {
+            for (SearchQuery query : QUERIES) {
+                long start = System.nanoTime();
+                index.search(query);
+                latencies[position++] = (System.nanoTime() - start) / 1_000;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private static double medianMillis(Runnable task, int runs) {
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return millis[runs / 2];
+    }
+
+    // Nhân bản seed với id mới, giữ nguyên tham chiếu chuyên khoa trong cùng bản sao
+    private static List<CatalogDocumentEvent> scale(List<CatalogDocumentEvent> events, int copies) {
+        List<CatalogDocumentEvent> scaled = new ArrayList<>(events.size() * copies);
+        for (int copy = 0; copy < copies; copy++) {
+            String suffix = "#" + copy;
+            for (CatalogDocumentEvent event : events) {
+                List<String> specialtyIds = event.specialtyIds() == null ? null
+                        : event.specialtyIds().stream().map(id -> id + suffix).toList();
+                scaled.add(new CatalogDocumentEvent(event.type(), event.id() + suffix, event.source(), event.deleted(),
+                        event.title(), event.subtitle(), event.slug(), event.image(), event.keywords(), event.cities(),
+                        specialtyIds, event.packageTypeId(), event.packageTypeName(), event.price(), event.changedAt()));
+            }
+        }
+        return scaled;
+    }
+}